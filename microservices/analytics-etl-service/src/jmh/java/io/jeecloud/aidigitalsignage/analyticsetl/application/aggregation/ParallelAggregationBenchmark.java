@@ -0,0 +1,112 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of fork/join aggregation with the number of cores
+ *
+ * Aggregates one columnar batch of synthetic session_end events (with a
+ * heartbeat every 30 rows, as a device writes them) through
+ * {@link ParallelBatchAggregator} with 1 to 8 workers. parallelism=1 is the
+ * sequential baseline; throughput in events/s is events / score.
+ *
+ * The 10M batch needs about 1 GB of heap (hence -Xmx4g). To compare core
+ * counts on a Pi 5, restrict the parameters, e.g.:
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="ParallelAggregationBenchmark -f 1 -p parallelism=1,2,4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParallelAggregationBenchmark {
+
+    private static final long START_MS = 1_735_689_600_000L;
+
+    private static final String[] GENDERS = {"Male", "Female"};
+    private static final String[] EMOTIONS = {"anger", "contempt", "disgust", "fear", "happiness", "neutral",
+            "sadness", "surprise"};
+    private static final String[] ADS = {"breakfast", "summer_sale", "coffee", "sneakers", "phone", "travel",
+            "insurance", "movie", "bank", "grocery", "car", "fitness"};
+
+    @Param({"100000", "1000000", "10000000"})
+    public int events;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private GazeEventBatch batch;
+    private ParallelBatchAggregator aggregator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        batch = syntheticBatch(events);
+        aggregator = new ParallelBatchAggregator(parallelism, 20_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        aggregator.close();
+    }
+
+    @Benchmark
+    public EventWindowAccumulator aggregate() {
+        return aggregator.aggregate(batch);
+    }
+
+    /**
+     * Events 2 s apart from ~events/20 viewers, about 40% with missing demographics
+     */
+    private static GazeEventBatch syntheticBatch(int events) {
+        SplittableRandom random = new SplittableRandom(42);
+        GazeEventBatch batch = new GazeEventBatch(events);
+        int device = batch.encode("gaze_device_01");
+        int viewers = Math.max(1, events / 20);
+
+        for (int i = 0; i < events; i++) {
+            long ts = START_MS + i * 2_000L;
+            if (i % 30 == 29) {
+                GazeEventBatch.HeartbeatColumns heartbeats = batch.heartbeats();
+                int row = heartbeats.appendRow(ts, device);
+                heartbeats.fps.set(row, 7.0 + random.nextDouble() * 3.0);
+                heartbeats.cpuTemp.set(row, 50.0 + random.nextDouble() * 15.0);
+                heartbeats.uptime.set(row, i * 2L);
+                heartbeats.facesInFrame.set(row, random.nextInt(4));
+                heartbeats.faceConfidence.set(row, random.nextDouble());
+                continue;
+            }
+
+            GazeEventBatch.SessionColumns sessions = batch.sessions();
+            int row = sessions.appendRow(ts, device);
+            sessions.viewerId.set(row, batch.encode("viewer_" + random.nextInt(viewers)));
+            sessions.sessionDuration.set(row, Math.exp(random.nextDouble() * 4.0));
+            sessions.totalGazeTime.set(row, Math.exp(random.nextDouble() * 3.5));
+            sessions.gazeCount.set(row, random.nextInt(10));
+            sessions.engagementRate.set(row, random.nextDouble());
+            if (random.nextInt(10) < 6) {
+                sessions.age.set(row, 5 + random.nextInt(75));
+                sessions.gender.set(row, batch.encode(GENDERS[random.nextInt(GENDERS.length)]));
+                sessions.emotion.set(row, batch.encode(EMOTIONS[random.nextInt(EMOTIONS.length)]));
+            }
+            sessions.adName.set(row, batch.encode(ADS[random.nextInt(ADS.length)]));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,68 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree-model vs token-stream parsing of event_data payloads
+ *
+ * Payloads mirror what the edge device writes into gaze_events. The
+ * heartbeat carries a gazers array that the ETL never reads, which is
+ * where the streaming parser saves the most allocation.
+ *
+ * Run with the gc profiler to compare bytes allocated per row:
+ * mvn -Pbenchmark compile exec:exec -Djmh.args="JsonParserBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonParserBenchmark {
+
+    private static final long TIMESTAMP_MS = 1_735_689_600_000L;
+
+    private static final String SESSION_END = """
+            {"event":"session_end","viewer_id":"viewer_0042","timestamp":1735689600.123,\
+            "session_stats":{"total_gaze_time":18.5,"gaze_count":3,"session_duration":25.4,"engagement_rate":0.73},\
+            "demographics":{"age":27,"gender":"Female","emotions":{"happiness":0.81,"neutral":0.12,"surprise":0.07}},\
+            "ad_context":{"ad_name":"breakfast","ad_id":"ad_007","position_s":12.4}}""";
+
+    private static final String HEARTBEAT = """
+            {"event":"heartbeat","timestamp":1735689600.456,\
+            "performance":{"fps":8.5,"cpu_temp":57.3,"uptime":3600},\
+            "environment":{"temperature":31.7,"humidity":53.6,"pressure":1012.5,"gas_resistance":45230.0,"noise":57.8},\
+            "diagnostics":{"kpts_valid_percent":85.3,"solvepnp_success_percent":0.0,"fallback_percent":100.0,\
+            "faces_in_frame":2,"face_confidence":0.87},\
+            "gazers":[{"viewer_id":"viewer_0041","yaw":-4.2,"pitch":2.1,"gazing":true,"bbox":[112,80,64,64]},\
+            {"viewer_id":"viewer_0042","yaw":11.8,"pitch":-1.3,"gazing":false,"bbox":[301,92,58,58]}]}""";
+
+    @Benchmark
+    public GazeEvent sessionEndTree() {
+        return TDengineJsonParser.parseSessionEndEvent(TIMESTAMP_MS, SESSION_END);
+    }
+
+    @Benchmark
+    public GazeEvent sessionEndStreaming() {
+        return TDengineStreamingJsonParser.parseSessionEndEvent(TIMESTAMP_MS, SESSION_END);
+    }
+
+    @Benchmark
+    public GazeEvent heartbeatTree() {
+        return TDengineJsonParser.parseHeartbeatEvent(TIMESTAMP_MS, HEARTBEAT);
+    }
+
+    @Benchmark
+    public GazeEvent heartbeatStreaming() {
+        return TDengineStreamingJsonParser.parseHeartbeatEvent(TIMESTAMP_MS, HEARTBEAT);
+    }
+}
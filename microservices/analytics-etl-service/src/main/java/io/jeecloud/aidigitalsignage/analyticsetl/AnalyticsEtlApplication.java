@@ -3,6 +3,7 @@ package io.jeecloud.aidigitalsignage.analyticsetl;
 import io.jeecloud.aidigitalsignage.analyticsetl.application.AnalyticsEtlService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -24,6 +25,9 @@ import org.springframework.scheduling.annotation.Scheduled;
  * - Runs on startup (CommandLineRunner)
  * - Runs every 5 minutes (@Scheduled)
  * - Only fetches NEW data (timestamp-based incremental ETL)
+ * 
+ * With etl.mode=tmq both runs are skipped and StreamingEtlService consumes
+ * events continuously from a TDengine topic instead.
  */
 @SpringBootApplication
 @EnableScheduling
@@ -33,6 +37,9 @@ public class AnalyticsEtlApplication implements CommandLineRunner {
     
     private final AnalyticsEtlService etlService;
     
+    @Value("${etl.mode:scheduled}")
+    private String etlMode;
+    
     public static void main(String[] args) {
         SpringApplication.run(AnalyticsEtlApplication.class, args);
     }
@@ -44,6 +51,11 @@ public class AnalyticsEtlApplication implements CommandLineRunner {
      */
     @Override
     public void run(String... args) {
+        if (isStreamingMode()) {
+            log.info(">>> ETL mode: Streaming (TDengine TMQ) - scheduled runs disabled");
+            return;
+        }
+        
         log.info("╔════════════════════════════════════════════════════════╗");
         log.info("║     Analytics ETL Service - Starting Pipeline         ║");
         log.info("║     Mode: Continuous (Scheduled every 5 minutes)      ║");
@@ -74,6 +86,10 @@ public class AnalyticsEtlApplication implements CommandLineRunner {
      */
     @Scheduled(initialDelay = 60000, fixedRate = 300000) // Wait 1 minute after startup, then run every 5 minutes
     public void scheduleEtl() {
+        if (isStreamingMode()) {
+            return;
+        }
+        
         log.info(">>> Scheduled ETL - Starting (every 5 minutes)");
         
         try {
@@ -84,4 +100,8 @@ public class AnalyticsEtlApplication implements CommandLineRunner {
             // Don't stop - next scheduled run will retry
         }
     }
+    
+    private boolean isStreamingMode() {
+        return "tmq".equals(etlMode);
+    }
 }
@@ -1,15 +1,24 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.application;
 
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.EventWindowAccumulator;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.HeartbeatMetricsMapper;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.ParallelBatchAggregator;
 import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
 import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.*;
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * ETL Service (Application Layer)
@@ -19,6 +28,16 @@ import java.util.stream.Collectors;
  * 2. TRANSFORM: Aggregate into analytics
  * 3. LOAD: Insert into SQLite
  * 
+ * Every load is a batch with a deterministic id (see {@link EtlBatch}),
+ * which the digital-signage-service applies at most once. The local state
+ * and the watermark are committed together afterwards, and each run first
+ * reconciles with the service's latest batch, so a crash or timeout between
+ * load and commit neither loses nor double counts a window.
+ * 
+ * Session events and heartbeats are read after their own stream's
+ * watermark (see {@link StreamWatermarks}), and every run is recorded in
+ * the run journal (see {@link EtlRunJournal}).
+ * 
  * This is the core use case of the analytics pipeline.
  */
 @Service
@@ -29,583 +48,626 @@ public class AnalyticsEtlService {
     private final GazeEventRepository gazeEventRepository;
     private final AnalyticsRepository analyticsRepository;
     private final EtlMetadataRepository etlMetadataRepository;
+    private final ParallelEventExtractor parallelEventExtractor;
+    private final ParallelBatchAggregator parallelBatchAggregator;
+    private final EtlStateStore etlStateStore;
+    private final EtlRunJournal etlRunJournal;
+    
+    @Value("${etl.chunk.enabled:false}")
+    private boolean chunkedMode;
+    
+    @Value("${etl.chunk.size:5000}")
+    private int chunkSize;
+    
+    @Value("${etl.mode:scheduled}")
+    private String etlMode;
+    
+    @Value("${etl.sessions.open-timeout:10m}")
+    private Duration openSessionTimeout;
     
     /**
      * Execute incremental ETL pipeline
      * 
      * Steps:
-     * 1. Check last processed timestamp
-     * 2. Extract NEW gaze events from TDengine (only after last timestamp)
-     * 3. Transform into dashboard and ad analytics
-     * 4. Load into SQLite database
-     * 5. Update last processed timestamp
+     * 1. Check the stream watermarks and reconcile them with the service
+     * 2. Aggregate NEW gaze events (each stream only after its own watermark),
+     *    either pushed down into TDengine or by streaming them into
+     *    incremental aggregators (no in-memory event lists)
+     * 3. Load into SQLite database as one batch
+     * 4. Commit the local state with the new stream watermarks
+     * 5. Record the run in the run journal
+     * 
+     * When etl.chunk.enabled is set, the run is delegated to
+     * {@link #executeChunkedEtl()} instead. Not available when etl.mode=tmq
+     * ({@link StreamingEtlService} owns extraction then).
      */
     public void executeEtl() {
+        if ("tmq".equals(etlMode)) {
+            // Range scans would double count what the subscription already delivered
+            throw new IllegalStateException("Range-scan ETL is disabled while etl.mode=tmq");
+        }
+        
+        if (chunkedMode) {
+            executeChunkedEtl();
+            return;
+        }
+        
         log.info("=== Starting Analytics ETL Process (Incremental) ===");
+        EtlRun run = etlRunJournal.begin("scheduled");
         
         try {
-            // Step 1: Check last processed timestamp
-            Optional<Instant> lastProcessedOpt = etlMetadataRepository.getLastProcessedTimestamp();
+            // Step 1: Check the stream watermarks, after catching up with a batch
+            // the service applied but the local state missed
+            EtlBatch pending = reconcileWithService().orElse(null);
+            EventCursor watermark = etlMetadataRepository.getLastProcessedCursor().orElse(null);
+            StreamWatermarks positions = etlMetadataRepository.getStreamWatermarks();
+            StreamWatermarks upTo = StreamWatermarks.uniform(Instant.now());
             
-            List<GazeEvent> sessionEvents;
-            List<GazeEvent> heartbeatEvents;
-            
-            if (lastProcessedOpt.isPresent()) {
+            if (pending != null) {
+                // Replay: extract exactly the range the service already has,
+                // each stream up to its own position in the batch
+                upTo = replayBounds(pending, positions);
+                log.info("[EXTRACT] Replaying batch {} - streaming events after {} up to {}", 
+                        pending.getId(), positions, upTo);
+            } else if (watermark != null) {
                 // Incremental mode: Only fetch new events
-                Instant lastProcessed = lastProcessedOpt.get();
-                log.info("[EXTRACT] Incremental mode - fetching events after {}", lastProcessed);
-                sessionEvents = gazeEventRepository.findSessionEndEventsAfter(lastProcessed);
-                heartbeatEvents = gazeEventRepository.findHeartbeatEventsAfter(lastProcessed);
-                log.info("[EXTRACT] Found {} NEW session end events, {} heartbeat events", 
-                        sessionEvents.size(), heartbeatEvents.size());
+                log.info("[EXTRACT] Incremental mode - streaming events after {}", positions);
             } else {
                 // First run: Fetch all events
-                log.info("[EXTRACT] First run - fetching ALL events from TDengine");
-                sessionEvents = gazeEventRepository.findAllSessionEndEvents();
-                heartbeatEvents = gazeEventRepository.findAllHeartbeatEvents();
-                log.info("[EXTRACT] Found {} session end events, {} heartbeat events", 
-                        sessionEvents.size(), heartbeatEvents.size());
+                log.info("[EXTRACT] First run - streaming ALL events from TDengine");
             }
             
-            if (sessionEvents.isEmpty() && heartbeatEvents.isEmpty()) {
+            // Step 2: EXTRACT + TRANSFORM
+            ExtractedWindow window = extractWindow(positions, upTo);
+            window.rows().forEach((stream, count) -> etlRunJournal.addRows(run, stream, count));
+            
+            if (window.eventCount() == 0) {
+                if (pending != null) {
+                    adoptBatch(pending);
+                }
                 log.info("[ETL] No new events found, skipping transformation");
+                etlRunJournal.finish(run, EtlRun.IDLE, null);
                 return;
             }
             
-            // Step 2: TRANSFORM - Aggregate events into analytics
-            DashboardAnalytics newDashboardAnalytics = null;
-            List<AdAnalytics> newAdAnalyticsList = List.of();
+            // Step 3 + 4: LOAD - Add the window's deltas to the stored analytics,
+            // then commit the local state and the new stream watermarks in one
+            // record. The watermark is the newest stream position; the batch is
+            // identified by the positions of every stream, as a lagging stream
+            // may advance while the watermark stays put.
+            EtlBatch batch = replayed(EtlBatch.of(watermark, new EventCursor(window.streams().latest(), null),
+                    positions.asMap(), window.streams().asMap(), window.eventCount()), pending);
+            long bytes = loadAnalytics(window.sessions(), window.heartbeats(), window.openSessions(), batch,
+                    window.streams().asMap());
+            etlRunJournal.addBatch(run, batch.getId(), bytes);
             
-            if (!sessionEvents.isEmpty()) {
-                log.info("[TRANSFORM] Aggregating {} session events into analytics...", sessionEvents.size());
-                newDashboardAnalytics = transformToDashboardAnalytics(sessionEvents);
-                newAdAnalyticsList = transformToAdAnalytics(sessionEvents);
-                log.info("[TRANSFORM] Created dashboard analytics and {} ad analytics", newAdAnalyticsList.size());
-            }
+            log.info("=== Analytics ETL Process Completed Successfully ===");
+            etlRunJournal.finish(run, EtlRun.LOADED, null);
             
-            // Transform heartbeat events into system health and research metrics
-            SystemHealthDto systemHealthDto = null;
-            ResearchMetricsDto researchMetricsDto = null;
+        } catch (Exception e) {
+            log.error("[ETL] Failed to execute ETL process", e);
+            etlRunJournal.finish(run, EtlRun.FAILED, e);
+            throw new RuntimeException("ETL process failed", e);
+        }
+    }
+    
+    /**
+     * EXTRACT + TRANSFORM: Aggregate the events of each stream in (its watermark, its upper bound]
+     * 
+     * Lets TDengine aggregate when the layout allows it, otherwise streams
+     * events straight into the aggregators (constant memory: raw events are
+     * never collected into lists).
+     */
+    private ExtractedWindow extractWindow(StreamWatermarks after, StreamWatermarks upTo) {
+        Optional<SessionAggregate> pushedSessions = gazeEventRepository.aggregateSessionEvents(
+                after.get(EventStream.SESSIONS), upTo.get(EventStream.SESSIONS));
+        Optional<HeartbeatAggregate> pushedHeartbeats = gazeEventRepository.aggregateHeartbeatEvents(
+                after.get(EventStream.HEARTBEATS), upTo.get(EventStream.HEARTBEATS));
+        
+        if (pushedSessions.isPresent() && pushedHeartbeats.isPresent()) {
+            SessionAggregate sessions = pushedSessions.filter(a -> a.getEventCount() > 0).orElse(null);
+            HeartbeatAggregate heartbeats = pushedHeartbeats.filter(a -> a.getEventCount() > 0).orElse(null);
+            log.info("[EXTRACT] Aggregated in TDengine: {} session end events, {} heartbeat events", 
+                    pushedSessions.get().getEventCount(), pushedHeartbeats.get().getEventCount());
             
-            if (!heartbeatEvents.isEmpty()) {
-                log.info("[TRANSFORM] Transforming {} heartbeat events into system health metrics", heartbeatEvents.size());
-                systemHealthDto = transformToSystemHealth(heartbeatEvents);
-                researchMetricsDto = transformToResearchMetrics(sessionEvents, heartbeatEvents);
+            // Each stream advances to its own newest row. The typed layout has
+            // no gaze_start rows, so sessions are not tracked.
+            Map<EventStream, Long> rows = new EnumMap<>(EventStream.class);
+            rows.put(EventStream.SESSIONS, pushedSessions.get().getEventCount());
+            rows.put(EventStream.HEARTBEATS, pushedHeartbeats.get().getEventCount());
+            StreamWatermarks streams = after
+                    .advance(EventStream.SESSIONS, sessions != null ? sessions.getMaxTimestamp() : null)
+                    .advance(EventStream.HEARTBEATS, heartbeats != null ? heartbeats.getMaxTimestamp() : null);
+            return new ExtractedWindow(sessions, heartbeats, null, streams, rows,
+                    rows.values().stream().mapToLong(Long::longValue).sum());
+        }
+        
+        EventWindowAccumulator accumulator = new EventWindowAccumulator();
+        
+        // Single scan over all event types into one fused accumulator,
+        // split into concurrent time slices when the window is large
+        parallelEventExtractor.extract(after, upTo, accumulator);
+        log.info("[EXTRACT] Aggregated {} gaze start events, {} session end events, {} heartbeat events", 
+                accumulator.getStartEventCount(), accumulator.getSessionEventCount(),
+                accumulator.getHeartbeatEventCount());
+        
+        // Each stream advances to its own newest row, so a stream whose rows
+        // arrive late is not skipped past by the other one
+        Map<EventStream, Long> rows = new EnumMap<>(EventStream.class);
+        StreamWatermarks streams = after;
+        for (EventStream stream : EventStream.values()) {
+            rows.put(stream, accumulator.getEventCount(stream));
+            streams = streams.advance(stream, accumulator.getMaxTimestamp(stream));
+        }
+        return new ExtractedWindow(accumulator.toSessionAggregate(), accumulator.toHeartbeatAggregate(),
+                accumulator.getOpenSessions(), streams, rows, accumulator.getEventCount());
+    }
+    
+    /**
+     * Execute incremental ETL pipeline in keyset-paginated chunks
+     * 
+     * Walks gaze_events in (ts, tbname) order, etl.chunk.size rows at a time.
+     * Each page is aggregated, loaded and checkpointed before the next one is
+     * read, so a catch-up run after a long outage makes resumable progress
+     * with a bounded working set. A failure only loses the current page.
+     * Each page is one batch; a page the service applied without the local
+     * commit is re-read with its own size first; one larger than a chunk
+     * (sent by the scheduled mode) is refused rather than read as one page.
+     * Every stream follows the cursor afterwards.
+     */
+    public void executeChunkedEtl() {
+        log.info("=== Starting Analytics ETL Process (Chunked, {} rows per chunk) ===", chunkSize);
+        EtlRun run = etlRunJournal.begin("chunked");
+        
+        try {
+            EtlBatch pending = reconcileWithService().orElse(null);
+            EventCursor cursor = etlMetadataRepository.getLastProcessedCursor().orElse(null);
+            StreamWatermarks positions = etlMetadataRepository.getStreamWatermarks();
+            if (pending != null && pending.getEventCount() > chunkSize) {
+                throw new IllegalStateException("Batch " + pending.getId() + " to replay holds "
+                        + pending.getEventCount() + " events, more than one chunk of " + chunkSize
+                        + "; replay it with etl.chunk.enabled=false");
             }
             
-            // Step 3: LOAD - Merge with existing and save (accumulate mode)
-            log.info("[LOAD] Fetching existing analytics...");
-            Optional<DashboardAnalytics> existingDashboard = analyticsRepository.getExistingDashboardAnalytics();
-            List<AdAnalytics> existingAds = analyticsRepository.getExistingAdAnalytics();
+            if (cursor != null) {
+                log.info("[EXTRACT] Resuming after cursor ({}, {})", cursor.getTimestamp(), cursor.getTableName());
+            } else {
+                log.info("[EXTRACT] First run - paging through ALL events from TDengine");
+            }
             
-            DashboardAnalytics mergedDashboard = null;
-            List<AdAnalytics> mergedAds = List.of();
+            int chunkCount = 0;
+            long totalEventCount = 0;
             
-            if (!sessionEvents.isEmpty()) {
-                // Merge dashboard analytics
-                mergedDashboard = mergeDashboardAnalytics(existingDashboard, newDashboardAnalytics);
+            while (true) {
+                // Step 1: EXTRACT - Next keyset page, a replayed batch at its own size
+                // (columnar: primitive columns with dictionary-encoded strings)
+                int pageSize = pending != null ? (int) pending.getEventCount() : chunkSize;
+                GazeEventBatch page = gazeEventRepository.findEventBatch(cursor, pageSize);
+                if (page.isEmpty()) {
+                    if (pending != null) {
+                        adoptBatch(pending);
+                    }
+                    break;
+                }
                 
-                // Merge ad analytics
-                mergedAds = mergeAdAnalytics(existingAds, newAdAnalyticsList);
+                // Step 2: TRANSFORM - Aggregate this page only
+                // (split across cores with fork/join when the page is large)
+                EventWindowAccumulator accumulator = parallelBatchAggregator.aggregate(page);
                 
-                log.info("[LOAD] Saving merged dashboard analytics (accumulated)...");
-                analyticsRepository.saveDashboardAnalytics(mergedDashboard);
+                // Step 3 + 4: LOAD - Add this page's deltas to the stored analytics, then
+                // checkpoint the cursor past the last row of the page with the local state.
+                // Every stream follows the cursor, so the page moves all of them to its last row
+                EventCursor lastCursor = page.lastCursor();
+                EtlBatch batch = replayed(EtlBatch.of(cursor, lastCursor, positions.asMap(),
+                        StreamWatermarks.uniform(lastCursor.getTimestamp()).asMap(), page.size()), pending);
+                pending = null;
+                long bytes = loadAnalytics(accumulator.toSessionAggregate(), accumulator.toHeartbeatAggregate(),
+                        accumulator.getOpenSessions(), batch);
+                cursor = batch.getTo();
+                positions = StreamWatermarks.of(batch.getToStreams());
+                etlRunJournal.addRows(run, accumulator);
+                etlRunJournal.addBatch(run, batch.getId(), bytes);
                 
-                log.info("[LOAD] Saving {} merged advertisement analytics with system health/research metrics...", mergedAds.size());
-                analyticsRepository.saveAdAnalytics(mergedAds, systemHealthDto, researchMetricsDto);
+                chunkCount++;
+                totalEventCount += page.size();
+                log.info("[ETL] Chunk {} committed: {} events ({} gaze start, {} session end, {} heartbeat), cursor now ({}, {})", 
+                        chunkCount, page.size(), accumulator.getStartEventCount(), accumulator.getSessionEventCount(),
+                        accumulator.getHeartbeatEventCount(), cursor.getTimestamp(), cursor.getTableName());
                 
-                logSummary(mergedDashboard, mergedAds);
-            } else if (systemHealthDto != null || researchMetricsDto != null) {
-                // Only heartbeat events - reuse existing dashboard if available
-                if (existingDashboard.isPresent()) {
-                    log.info("[LOAD] Re-saving existing dashboard with updated system health/research metrics...");
-                    analyticsRepository.saveDashboardAnalytics(existingDashboard.get());
+                if (page.size() < pageSize) {
+                    break;
                 }
-                log.info("[LOAD] Saving system health and research metrics...");
-                analyticsRepository.saveAdAnalytics(existingAds, systemHealthDto, researchMetricsDto);
             }
             
-            // Step 4: Update last processed timestamp
-            Instant latestTimestamp = Instant.now();
-            
-            if (!sessionEvents.isEmpty()) {
-                latestTimestamp = sessionEvents.stream()
-                        .map(GazeEvent::getTimestamp)
-                        .max(Instant::compareTo)
-                        .orElse(Instant.now());
-            } else if (!heartbeatEvents.isEmpty()) {
-                latestTimestamp = heartbeatEvents.stream()
-                        .map(GazeEvent::getTimestamp)
-                        .max(Instant::compareTo)
-                        .orElse(Instant.now());
+            if (chunkCount == 0) {
+                log.info("[ETL] No new events found, skipping transformation");
+                etlRunJournal.finish(run, EtlRun.IDLE, null);
+                return;
             }
             
-            int totalEventCount = sessionEvents.size() + heartbeatEvents.size();
-            etlMetadataRepository.updateLastProcessedTimestamp(latestTimestamp, totalEventCount);
-            
-            log.info("=== Analytics ETL Process Completed Successfully ===");
+            log.info("=== Analytics ETL Process Completed Successfully ({} chunks, {} events) ===", chunkCount, totalEventCount);
+            etlRunJournal.finish(run, EtlRun.LOADED, null);
             
         } catch (Exception e) {
-            log.error("[ETL] Failed to execute ETL process", e);
-            throw new RuntimeException("ETL process failed", e);
+            log.error("[ETL] Failed to execute chunked ETL process", e);
+            etlRunJournal.finish(run, EtlRun.FAILED, e);
+            throw new RuntimeException("Chunked ETL process failed", e);
         }
     }
     
     /**
-     * TRANSFORM: Aggregate session events into dashboard analytics
+     * Compare the local watermark with the latest batch of the service
      * 
-     * Calculations:
-     * - Total audience: unique viewers
-     * - Total views: sum of all viewing sessions
-     * - Avg view seconds: average session duration
-     * - Demographics: count by age group, gender, emotion
+     * A crash or timeout after the service applied a batch but before the
+     * local commit leaves the service exactly one batch ahead, starting at
+     * the local stream positions. That batch is returned for replay: extracting its
+     * range again rebuilds the local state, and the service ignores the
+     * re-sent batch.
+     * 
+     * @return Batch to replay, or empty if both sides agree
+     * @throws IllegalStateException if the service holds batches past the
+     *         local watermark that cannot be replayed (e.g. lost local state)
      */
-    private DashboardAnalytics transformToDashboardAnalytics(List<GazeEvent> events) {
-        log.debug("[TRANSFORM] Processing {} events for dashboard analytics", events.size());
-        
-        // Count unique viewers
-        int uniqueViewers = (int) events.stream()
-                .map(GazeEvent::getViewerId)
-                .distinct()
-                .count();
-        
-        // Calculate total views (all sessions)
-        int totalViews = events.size();
-        
-        // Calculate average view time
-        double avgViewSeconds = events.stream()
-                .filter(e -> e.getSessionDuration() != null)
-                .mapToDouble(GazeEvent::getSessionDuration)
-                .average()
-                .orElse(0.0);
-        
-        // Aggregate age distribution
-        Map<String, Long> ageGroups = categorizeByAgeGroup(events);
-        
-        // Aggregate gender distribution
-        Map<String, Long> genderCounts = events.stream()
-                .filter(e -> e.getGender() != null && !e.getGender().isEmpty())
-                .collect(Collectors.groupingBy(GazeEvent::getGender, Collectors.counting()));
-        
-        // Aggregate emotion distribution
-        Map<String, Long> emotionCounts = events.stream()
-                .filter(e -> e.getEmotion() != null && !e.getEmotion().isEmpty())
-                .collect(Collectors.groupingBy(GazeEvent::getEmotion, Collectors.counting()));
-        
-        // Count unique advertisements (if any)
-        int totalAds = (int) events.stream()
-                .map(GazeEvent::getAdName)
-                .filter(Objects::nonNull)
-                .distinct()
-                .count();
+    private Optional<EtlBatch> reconcileWithService() {
+        EtlBatch latest = analyticsRepository.findLatestBatch().orElse(null);
+        if (latest == null) {
+            return Optional.empty();
+        }
         
-        // Default to 12 if no ad data (matches mock data)
-        totalAds = totalAds > 0 ? totalAds : 12;
+        EtlState state = etlStateStore.current();
+        if (latest.getId().equals(state.getLastBatchId())) {
+            return Optional.empty();
+        }
         
-        return DashboardAnalytics.builder()
-                .totalAudience(uniqueViewers)
-                .totalViews(totalViews)
-                .totalAds(totalAds)
-                .avgViewSeconds(avgViewSeconds)
-                // Age distribution
-                .children(ageGroups.getOrDefault("children", 0L).intValue())
-                .teenagers(ageGroups.getOrDefault("teenagers", 0L).intValue())
-                .youngAdults(ageGroups.getOrDefault("youngAdults", 0L).intValue())
-                .midAged(ageGroups.getOrDefault("midAged", 0L).intValue())
-                .seniors(ageGroups.getOrDefault("seniors", 0L).intValue())
-                // Gender distribution
-                .male(genderCounts.getOrDefault("Male", 0L).intValue())
-                .female(genderCounts.getOrDefault("Female", 0L).intValue())
-                // Emotion distribution (FER2013 - 8 emotions)
-                .anger(emotionCounts.getOrDefault("anger", 0L).intValue())
-                .contempt(emotionCounts.getOrDefault("contempt", 0L).intValue())
-                .disgust(emotionCounts.getOrDefault("disgust", 0L).intValue())
-                .fear(emotionCounts.getOrDefault("fear", 0L).intValue())
-                .happiness(emotionCounts.getOrDefault("happiness", 0L).intValue())
-                .neutral(emotionCounts.getOrDefault("neutral", 0L).intValue())
-                .sadness(emotionCounts.getOrDefault("sadness", 0L).intValue())
-                .surprise(emotionCounts.getOrDefault("surprise", 0L).intValue())
-                .build();
+        EventCursor watermark = state.getWatermark();
+        StreamWatermarks positions = state.getStreamWatermarks();
+        if (sameCursor(latest.getFrom(), watermark) && samePositions(latest.getFromStreams(), positions)) {
+            log.warn("[RECONCILE] Batch {} ({} events) was applied by digital-signage-service but not committed "
+                    + "locally, replaying it", latest.getId(), latest.getEventCount());
+            return Optional.of(latest);
+        }
+        if (watermark != null && !latest.getTo().getTimestamp().isAfter(watermark.getTimestamp())
+                && notAfter(latest.getToStreams(), positions)) {
+            // e.g. the service database was restored from a backup
+            log.warn("[RECONCILE] digital-signage-service is behind the local watermark {} (latest batch {} up to {}); "
+                    + "missing windows are not re-sent, republish the totals to restore them",
+                    watermark.getTimestamp(), latest.getId(), latest.getTo().getTimestamp());
+            return Optional.empty();
+        }
+        throw new IllegalStateException("digital-signage-service holds batch " + latest.getId() + " up to "
+                + latest.getTo().getTimestamp() + " " + latest.getToStreams() + ", past the local positions "
+                + positions + "; loading from here would count events twice");
     }
     
     /**
-     * Helper: Categorize ages into groups
+     * Helper: Upper bound of each stream when replaying a batch
      * 
-     * Age Groups:
-     * - Children: 0-12
-     * - Teenagers: 13-19
-     * - Young Adults: 20-35
-     * - Mid-Aged: 36-55
-     * - Seniors: 56+
+     * Every stream stops at its own position in the batch, so a stream that
+     * lagged behind the newest one is not read past what the service has.
+     * A stream without a position read nothing, so it reads nothing again.
+     * Batches sent without positions are bounded by their newest position.
      */
-    private Map<String, Long> categorizeByAgeGroup(List<GazeEvent> events) {
-        Map<String, Long> ageGroups = new HashMap<>();
-        ageGroups.put("children", 0L);
-        ageGroups.put("teenagers", 0L);
-        ageGroups.put("youngAdults", 0L);
-        ageGroups.put("midAged", 0L);
-        ageGroups.put("seniors", 0L);
-        
-        for (GazeEvent event : events) {
-            Integer age = event.getAge();
-            if (age == null || age == 0) continue;
-            
-            if (age <= 12) {
-                ageGroups.merge("children", 1L, Long::sum);
-            } else if (age <= 19) {
-                ageGroups.merge("teenagers", 1L, Long::sum);
-            } else if (age <= 35) {
-                ageGroups.merge("youngAdults", 1L, Long::sum);
-            } else if (age <= 55) {
-                ageGroups.merge("midAged", 1L, Long::sum);
-            } else {
-                ageGroups.merge("seniors", 1L, Long::sum);
+    private static StreamWatermarks replayBounds(EtlBatch pending, StreamWatermarks positions) {
+        if (pending.getToStreams() == null) {
+            return StreamWatermarks.uniform(pending.getTo().getTimestamp());
+        }
+        Map<EventStream, Instant> bounds = new EnumMap<>(EventStream.class);
+        for (EventStream stream : EventStream.values()) {
+            Instant position = pending.getToStreams().get(stream);
+            if (position == null) {
+                position = positions.get(stream) != null ? positions.get(stream) : Instant.EPOCH;
             }
+            bounds.put(stream, position);
         }
-        
-        return ageGroups;
+        return StreamWatermarks.of(bounds);
     }
     
     /**
-     * TRANSFORM: Aggregate session events into advertisement analytics
+     * Helper: Batch to load for an extracted range, the service's own when replaying
      * 
-     * For each advertisement:
-     * - Count total viewers
-     * - Count engaged viewers (high engagement rate = looked at ad)
-     * - Count non-engaged viewers
+     * @throws IllegalStateException if the replayed range no longer yields the
+     *         batch the service applied (rows arrived late or expired); the
+     *         local state is left as it is rather than committed without the
+     *         service holding the same totals
      */
-    private List<AdAnalytics> transformToAdAnalytics(List<GazeEvent> events) {
-        log.debug("[TRANSFORM] Processing events for advertisement analytics");
-        
-        // Group events by advertisement
-        Map<String, List<GazeEvent>> eventsByAd = events.stream()
-                .filter(e -> e.getAdName() != null && !e.getAdName().isEmpty())
-                .collect(Collectors.groupingBy(GazeEvent::getAdName));
-        
-        // If no ad data, return empty list
-        if (eventsByAd.isEmpty()) {
-            log.debug("[TRANSFORM] No advertisement data found in events");
-            return Collections.emptyList();
+    private static EtlBatch replayed(EtlBatch extracted, EtlBatch pending) {
+        if (pending == null || pending.getId().equals(extracted.getId())) {
+            return extracted;
         }
-        
-        // Calculate analytics per ad
-        List<AdAnalytics> adAnalyticsList = new ArrayList<>();
-        
-        for (Map.Entry<String, List<GazeEvent>> entry : eventsByAd.entrySet()) {
-            String adName = entry.getKey();
-            List<GazeEvent> adEvents = entry.getValue();
-            
-            int totalViewers = adEvents.size();
-            
-            // Viewers with high engagement (>= 0.5) are considered "looking"
-            int lookYes = (int) adEvents.stream()
-                    .filter(e -> e.getEngagementRate() != null && e.getEngagementRate() >= 0.5)
-                    .count();
-            
-            int lookNo = totalViewers - lookYes;
-            
-            AdAnalytics adAnalytics = AdAnalytics.builder()
-                    .adName(adName)
-                    .totalViewers(totalViewers)
-                    .lookYes(lookYes)
-                    .lookNo(lookNo)
-                    .build();
-            
-            adAnalyticsList.add(adAnalytics);
-        }
-        
-        // Sort by total viewers descending
-        adAnalyticsList.sort((a, b) -> Integer.compare(b.getTotalViewers(), a.getTotalViewers()));
-        
-        return adAnalyticsList;
+        throw new IllegalStateException("Replay of batch " + pending.getId() + " (" + pending.getEventCount()
+                + " events up to " + pending.getTo().getTimestamp() + ") read " + extracted.getEventCount()
+                + " events up to " + extracted.getTo().getTimestamp() + " as batch " + extracted.getId()
+                + "; not committing local state digital-signage-service does not hold");
     }
     
     /**
-     * MERGE: Combine existing dashboard analytics with new data
+     * Helper: Take over the watermark of a replayed batch whose events are gone
      * 
-     * Accumulation strategy:
-     * - Counts: Add new to existing
-     * - Averages: Weighted average based on view counts
+     * @throws IllegalStateException if TDengine still holds events in the batch's
+     *         range, i.e. the replay read nothing for another reason
      */
-    private DashboardAnalytics mergeDashboardAnalytics(Optional<DashboardAnalytics> existingOpt, DashboardAnalytics newAnalytics) {
-        if (existingOpt.isEmpty()) {
-            log.debug("[MERGE] No existing analytics, using new data only");
-            return newAnalytics;
-        }
-        
-        DashboardAnalytics existing = existingOpt.get();
-        
-        // Accumulate counts
-        int totalAudience = existing.getTotalAudience() + newAnalytics.getTotalAudience();
-        int totalViews = existing.getTotalViews() + newAnalytics.getTotalViews();
-        int totalAds = Math.max(existing.getTotalAds(), newAnalytics.getTotalAds());
-        
-        // Weighted average for view time
-        double weightedAvg = 0.0;
-        if (totalViews > 0) {
-            double existingWeight = existing.getTotalViews() * existing.getAvgViewSeconds();
-            double newWeight = newAnalytics.getTotalViews() * newAnalytics.getAvgViewSeconds();
-            weightedAvg = (existingWeight + newWeight) / totalViews;
+    private void adoptBatch(EtlBatch batch) {
+        Instant fromTimestamp = batch.getFrom() != null ? batch.getFrom().getTimestamp() : null;
+        StreamWatermarks from = batch.getFromStreams() != null
+                ? StreamWatermarks.of(batch.getFromStreams())
+                : StreamWatermarks.uniform(fromTimestamp);
+        Optional<Instant> remaining = gazeEventRepository.findFirstEventTimestampAfter(from);
+        if (remaining.isPresent() && !remaining.get().isAfter(batch.getTo().getTimestamp())) {
+            throw new IllegalStateException("Replay of batch " + batch.getId() + " read no events, but TDengine still "
+                    + "holds events at " + remaining.get() + " within (" + from + ", " + batch.getTo().getTimestamp()
+                    + "]; not adopting it");
         }
-        
-        log.info("[MERGE] Dashboard: {} + {} = {} viewers, {} + {} = {} views",
-                existing.getTotalAudience(), newAnalytics.getTotalAudience(), totalAudience,
-                existing.getTotalViews(), newAnalytics.getTotalViews(), totalViews);
-        
-        return DashboardAnalytics.builder()
-                .totalAudience(totalAudience)
-                .totalViews(totalViews)
-                .totalAds(totalAds)
-                .avgViewSeconds(weightedAvg)
-                // Accumulate age distribution
-                .children(existing.getChildren() + newAnalytics.getChildren())
-                .teenagers(existing.getTeenagers() + newAnalytics.getTeenagers())
-                .youngAdults(existing.getYoungAdults() + newAnalytics.getYoungAdults())
-                .midAged(existing.getMidAged() + newAnalytics.getMidAged())
-                .seniors(existing.getSeniors() + newAnalytics.getSeniors())
-                // Accumulate gender distribution
-                .male(existing.getMale() + newAnalytics.getMale())
-                .female(existing.getFemale() + newAnalytics.getFemale())
-                // Accumulate emotion distribution (FER2013 - 8 emotions)
-                .anger(existing.getAnger() + newAnalytics.getAnger())
-                .contempt(existing.getContempt() + newAnalytics.getContempt())
-                .disgust(existing.getDisgust() + newAnalytics.getDisgust())
-                .fear(existing.getFear() + newAnalytics.getFear())
-                .happiness(existing.getHappiness() + newAnalytics.getHappiness())
-                .neutral(existing.getNeutral() + newAnalytics.getNeutral())
-                .sadness(existing.getSadness() + newAnalytics.getSadness())
-                .surprise(existing.getSurprise() + newAnalytics.getSurprise())
-                .build();
+        log.warn("[RECONCILE] Events of batch {} are no longer in TDengine, advancing the watermark only", 
+                batch.getId());
+        etlStateStore.commit(EtlStateChange.builder()
+                .watermark(batch.getTo())
+                .streamWatermarks(batch.getToStreams())
+                .batchId(batch.getId())
+                .build());
     }
     
     /**
-     * MERGE: Combine existing ad analytics with new data
-     * 
-     * For each ad:
-     * - If exists in both: accumulate counts
-     * - If only in new: add to result
-     * - If only in existing: keep in result
+     * Helper: Batch stream positions equal to the local ones, at millisecond
+     * precision (batches sent without positions match on the watermark alone)
      */
-    private List<AdAnalytics> mergeAdAnalytics(List<AdAnalytics> existing, List<AdAnalytics> newAnalytics) {
-        // Build map of existing ads
-        Map<String, AdAnalytics> existingMap = existing.stream()
-                .collect(Collectors.toMap(AdAnalytics::getAdName, a -> a));
-        
-        // Merge
-        List<AdAnalytics> result = new ArrayList<>();
-        Set<String> processedAds = new HashSet<>();
-        
-        for (AdAnalytics newAd : newAnalytics) {
-            String adName = newAd.getAdName();
-            processedAds.add(adName);
-            
-            if (existingMap.containsKey(adName)) {
-                AdAnalytics existingAd = existingMap.get(adName);
-                result.add(AdAnalytics.builder()
-                        .adName(adName)
-                        .totalViewers(existingAd.getTotalViewers() + newAd.getTotalViewers())
-                        .lookYes(existingAd.getLookYes() + newAd.getLookYes())
-                        .lookNo(existingAd.getLookNo() + newAd.getLookNo())
-                        .build());
-                log.debug("[MERGE] Ad '{}': {} + {} = {} viewers", 
-                        adName, existingAd.getTotalViewers(), newAd.getTotalViewers(),
-                        existingAd.getTotalViewers() + newAd.getTotalViewers());
-            } else {
-                result.add(newAd);
+    private static boolean samePositions(Map<EventStream, Instant> batch, StreamWatermarks local) {
+        if (batch == null) {
+            return true;
+        }
+        StreamWatermarks sent = StreamWatermarks.of(batch);
+        for (EventStream stream : EventStream.values()) {
+            if (!Objects.equals(toMillis(sent.get(stream)), toMillis(local.get(stream)))) {
+                return false;
             }
         }
-        
-        // Add any existing ads not in new data
-        for (AdAnalytics existingAd : existing) {
-            if (!processedAds.contains(existingAd.getAdName())) {
-                result.add(existingAd);
+        return true;
+    }
+    
+    /**
+     * Helper: No batch stream position past the local one
+     */
+    private static boolean notAfter(Map<EventStream, Instant> batch, StreamWatermarks local) {
+        if (batch == null) {
+            return true;
+        }
+        StreamWatermarks sent = StreamWatermarks.of(batch);
+        for (EventStream stream : EventStream.values()) {
+            Instant position = sent.get(stream);
+            Instant own = local.get(stream);
+            if (position != null && (own == null || position.toEpochMilli() > own.toEpochMilli())) {
+                return false;
             }
         }
-        
-        // Sort by total viewers descending
-        result.sort((a, b) -> Integer.compare(b.getTotalViewers(), a.getTotalViewers()));
-        
-        log.info("[MERGE] Merged {} ad analytics", result.size());
-        return result;
+        return true;
     }
     
     /**
-     * Log ETL summary
+     * Helper: Epoch millis of a stream position (null = from the beginning)
      */
-    private void logSummary(DashboardAnalytics dashboard, List<AdAnalytics> ads) {
-        log.info("=== ETL Summary ===");
-        log.info("Total Audience: {}", dashboard.getTotalAudience());
-        log.info("Total Views: {}", dashboard.getTotalViews());
-        log.info("Avg View Time: {:.2f} seconds", dashboard.getAvgViewSeconds());
-        log.info("Total Ads: {}", dashboard.getTotalAds());
-        log.info("Ad Analytics: {} ads processed", ads.size());
-        log.info("==================");
+    private static Long toMillis(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : null;
     }
     
     /**
-     * TRANSFORM: Convert heartbeat events into SystemHealthDto
+     * Helper: Equal cursors at the millisecond precision batches are sent with
      */
-    private SystemHealthDto transformToSystemHealth(List<GazeEvent> heartbeatEvents) {
-        if (heartbeatEvents.isEmpty()) {
-            return null;
+    private static boolean sameCursor(EventCursor a, EventCursor b) {
+        if (a == null || b == null) {
+            return a == b;
         }
-        
-        // Calculate performance metrics from heartbeat events
-        DoubleSummaryStatistics fpsStats = heartbeatEvents.stream()
-                .map(GazeEvent::getFps)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .summaryStatistics();
-        
-        DoubleSummaryStatistics cpuTempStats = heartbeatEvents.stream()
-                .map(GazeEvent::getCpuTemp)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .summaryStatistics();
-        
-        // Get most recent heartbeat for current values
-        GazeEvent latestHeartbeat = heartbeatEvents.get(heartbeatEvents.size() - 1);
-        
-        SystemHealthDto.PerformanceMetricsDto performance = SystemHealthDto.PerformanceMetricsDto.builder()
-                .currentFps(latestHeartbeat.getFps())
-                .avgFps(fpsStats.getCount() > 0 ? fpsStats.getAverage() : null)
-                .minFps(fpsStats.getCount() > 0 ? fpsStats.getMin() : null)
-                .maxFps(fpsStats.getCount() > 0 ? fpsStats.getMax() : null)
-                .currentCpuTemp(latestHeartbeat.getCpuTemp())
-                .maxCpuTemp(cpuTempStats.getCount() > 0 ? cpuTempStats.getMax() : null)
-                .cpuThreshold(70.0) // Standard threshold for Raspberry Pi
+        return a.getTimestamp().toEpochMilli() == b.getTimestamp().toEpochMilli()
+                && Objects.equals(a.getTableName(), b.getTableName());
+    }
+    
+    /**
+     * Helper: Later of two nullable timestamps
+     */
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+    
+    /**
+     * TRANSFORM + LOAD a window whose events every stream has read up to the
+     * batch's watermark
+     * 
+     * @return Encoded size of the loaded deltas, in bytes
+     * @see #loadAnalytics(SessionAggregate, HeartbeatAggregate, OpenSessions, EtlBatch, Map, Map)
+     */
+    public long loadAnalytics(SessionAggregate sessions, HeartbeatAggregate heartbeats, OpenSessions openSessions,
+                              EtlBatch batch) {
+        return loadAnalytics(sessions, heartbeats, openSessions, batch, null);
+    }
+    
+    /**
+     * TRANSFORM + LOAD a range-scanned window
+     * 
+     * @return Encoded size of the loaded deltas, in bytes
+     * @see #loadAnalytics(SessionAggregate, HeartbeatAggregate, OpenSessions, EtlBatch, Map, Map)
+     */
+    public long loadAnalytics(SessionAggregate sessions, HeartbeatAggregate heartbeats, OpenSessions openSessions,
+                              EtlBatch batch, Map<EventStream, Instant> streamWatermarks) {
+        return loadAnalytics(sessions, heartbeats, openSessions, batch, streamWatermarks, null);
+    }
+    
+    /**
+     * TRANSFORM + LOAD: Build the window's analytics deltas and add them to
+     * the stored analytics
+     * 
+     * The window is previewed on a copy of the local ETL state, which holds
+     * everything accumulated so far (audience sketch, distributions, open
+     * sessions, totals). The service receives deltas only and is never read
+     * back. The change is committed to the local state, together with the
+     * batch's watermark, stream and subscription positions, once the deltas are saved (delivered, or durably
+     * spooled for delivery), so a failed save leaves both sides as they were;
+     * re-sending the batch is a no-op on the service. Also used by {@link StreamingEtlService} to flush its window.
+     * 
+     * @param sessions Aggregated session_end and shutdown_session_end events (null if none)
+     * @param heartbeats Aggregated heartbeat events (null if none)
+     * @param openSessions Session starts and ends of the window (null if sessions are not tracked)
+     * @param batch Event range of the window
+     * @param streamWatermarks Position of each stream after the window (null: every stream
+     *        is at the batch's watermark)
+     * @param subscriptionOffsets Subscription position after the window (null if not
+     *        delivered by a subscription)
+     * @return Encoded size of the loaded deltas, in bytes
+     */
+    public long loadAnalytics(SessionAggregate sessions, HeartbeatAggregate heartbeats, OpenSessions openSessions,
+                              EtlBatch batch, Map<EventStream, Instant> streamWatermarks,
+                              Map<String, Long> subscriptionOffsets) {
+        // Transform heartbeat statistics into system health and research metrics
+        SystemHealthDto systemHealthDto = HeartbeatMetricsMapper.toSystemHealth(heartbeats);
+        ResearchMetricsDto researchMetricsDto = HeartbeatMetricsMapper.toResearchMetrics(heartbeats);
+        
+        // Newest event of the window; open sessions time out relative to it
+        Instant asOf = latest(latest(
+                sessions != null ? sessions.getMaxTimestamp() : null,
+                heartbeats != null ? heartbeats.getMaxTimestamp() : null),
+                openSessions != null ? openSessions.getLatestEventTime() : null);
+        
+        // MERGE: Fold the window into a copy of the accumulated state
+        EtlStateChange change = EtlStateChange.builder()
+                .dashboard(sessions != null ? sessions.getDashboard() : null)
+                .adAnalytics(sessions != null ? sessions.getAdAnalytics() : List.of())
+                .viewers(sessions != null ? sessions.getAudienceSketch() : null)
+                .distributions(sessions != null ? sessions.getDistributions() : null)
+                .openSessions(openSessions)
+                .openSessionCutoffMs(openSessions != null && asOf != null
+                        ? asOf.minus(openSessionTimeout).toEpochMilli() : null)
+                .watermark(batch.getTo())
+                .streamWatermarks(streamWatermarks)
+                .subscriptionOffsets(subscriptionOffsets)
+                .batchId(batch.getId())
                 .build();
+        EtlState state = etlStateStore.current();
+        int audienceBefore = state.getAudience().estimateTotalAudience();
+        int watchingBefore = state.getOpenSessions().getOpenCount();
+        state.apply(change);
+        
+        // Viewers still in front of a screen, including those of earlier runs
+        Integer currentlyWatching = null;
+        if (openSessions != null) {
+            currentlyWatching = state.getOpenSessions().getOpenCount();
+            log.info("[MERGE] Currently watching: {} -> {}", watchingBefore, currentlyWatching);
+        }
         
-        // Calculate environment metrics
-        DoubleSummaryStatistics tempStats = heartbeatEvents.stream()
-                .map(GazeEvent::getTemperature)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .summaryStatistics();
-        
-        DoubleSummaryStatistics humidityStats = heartbeatEvents.stream()
-                .map(GazeEvent::getHumidity)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .summaryStatistics();
-        
-        DoubleSummaryStatistics noiseStats = heartbeatEvents.stream()
-                .map(GazeEvent::getNoise)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .summaryStatistics();
+        AnalyticsDelta.AnalyticsDeltaBuilder delta = AnalyticsDelta.builder()
+                .adAnalytics(List.of())
+                .systemHealth(systemHealthDto)
+                .researchMetrics(researchMetricsDto)
+                .currentlyWatching(currentlyWatching)
+                .batch(batch);
         
-        SystemHealthDto.EnvironmentMetricsDto environment = SystemHealthDto.EnvironmentMetricsDto.builder()
-                .temperatureCelsius(tempStats.getCount() > 0 ? tempStats.getAverage() : null)
-                .humidityPercent(humidityStats.getCount() > 0 ? humidityStats.getAverage() : null)
-                .pressureHpa(latestHeartbeat.getPressure())
-                .gasResistanceOhms(latestHeartbeat.getGasResistance())
-                .noiseDb(noiseStats.getCount() > 0 ? noiseStats.getAverage() : null)
-                .build();
+        if (sessions != null) {
+            DashboardAnalytics dashboard = sessions.getDashboard();
+            log.info("[TRANSFORM] Created dashboard analytics and {} ad analytics", sessions.getAdAnalytics().size());
+            
+            // Unique audience is not additive: a viewer seen in two runs must be counted
+            // once, so the growth of the accumulated HyperLogLog's estimate is sent. The
+            // deltas telescope onto the service's total; estimator noise can make one
+            // slightly negative.
+            int newViewers = state.getAudience().estimateTotalAudience() - audienceBefore;
+            log.info("[MERGE] Unique audience: +{} viewers (window: {} viewers)", 
+                    newViewers, dashboard.getTotalAudience());
+            
+            QuantileSketch durations = state.getDistributions().getSessionDuration();
+            log.info("[MERGE] Session duration over {} sessions: p50={}s p90={}s p99={}s",
+                    durations.getCount(), durations.quantile(0.5), durations.quantile(0.9), durations.quantile(0.99));
+            
+            dashboard.setTotalAudience(newViewers);
+            attachDistributions(dashboard, state.getDistributions());
+            
+            // Rollup buckets and the cube are window deltas as well
+            delta.dashboard(dashboard)
+                    .adAnalytics(sessions.getAdAnalytics())
+                    .rollups(sessions.getRollups())
+                    .audienceCube(sessions.getAudienceCube());
+        }
         
-        // Determine system status based on FPS and CPU temperature
-        String status = "HEALTHY";
-        if (cpuTempStats.getMax() > 70.0) {
-            status = "CRITICAL";
-        } else if (cpuTempStats.getMax() > 65.0 || fpsStats.getAverage() < 5.0) {
-            status = "WARNING";
+        // Sent even without deltas, so the service records the batch
+        AnalyticsDelta window = delta.build();
+        if (window.isEmpty()) {
+            log.info("[LOAD] Window has no deltas, recording batch {} only", batch.getId());
+        } else {
+            log.info("[LOAD] Adding window deltas ({} ads) with system health/research metrics as batch {}...",
+                    window.getAdAnalytics().size(), batch.getId());
         }
+        long bytes = analyticsRepository.addAnalytics(window);
         
-        return SystemHealthDto.builder()
-                .status(status)
-                .performance(performance)
-                .environment(environment)
-                .uptime(latestHeartbeat.getUptime())
-                .build();
+        // Only commit the local state and watermark once the deltas they produced are saved
+        etlStateStore.commit(change);
+        if (sessions != null) {
+            logSummary(state.getTotals(), window.getAdAnalytics());
+        }
+        return bytes;
     }
     
     /**
-     * TRANSFORM: Convert events into ResearchMetricsDto
+     * Re-send the accumulated totals of the local ETL state, replacing the
+     * service's dashboard and ads (e.g. after its database was lost)
+     * 
+     * Rollup buckets and the audience cube are not part of the local state
+     * and are left as they are.
      * 
-     * Face detection metrics from heartbeat events (instantaneous diagnostics aggregated)
-     * Gaze quality metrics from heartbeat events (keypoint validity, solvePnP success)
-     * Comparison metrics from baseline data (requires 2-week collection - Phase 3)
+     * @throws IllegalStateException if the local totals do not cover the full history
+     *         or spooled increments are still waiting for delivery
      */
-    private ResearchMetricsDto transformToResearchMetrics(List<GazeEvent> sessionEvents, List<GazeEvent> heartbeatEvents) {
-        if (heartbeatEvents.isEmpty()) {
-            return null;
+    public void republishAnalytics() {
+        EtlState state = etlStateStore.current();
+        if (!state.hasCompleteHistory()) {
+            throw new IllegalStateException("Local ETL state was imported from an earlier version and "
+                    + "does not hold the totals of the events loaded before; republishing would drop them");
         }
         
-        // Calculate face detection accuracy from heartbeat diagnostics
-        // Each heartbeat contains instantaneous face detection stats
-        long totalHeartbeats = heartbeatEvents.stream()
-                .map(GazeEvent::getFacesInFrame)
-                .filter(Objects::nonNull)
-                .count();
-        
-        long heartbeatsWithFaces = heartbeatEvents.stream()
-                .map(GazeEvent::getFacesInFrame)
-                .filter(Objects::nonNull)
-                .filter(count -> count > 0)
-                .count();
-        
-        // Accuracy: percentage of heartbeats that detected at least one face
-        double accuracy = totalHeartbeats > 0 ? (heartbeatsWithFaces * 100.0 / totalHeartbeats) : 0.0;
-        
-        // Average face confidence from heartbeats (only when face was detected)
-        double avgConfidence = heartbeatEvents.stream()
-                .map(GazeEvent::getFaceConfidence)
-                .filter(Objects::nonNull)
-                .filter(conf -> conf > 0.0)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        
-        // Total faces detected across all heartbeats
-        int totalFacesDetected = heartbeatEvents.stream()
-                .map(GazeEvent::getFacesInFrame)
-                .filter(Objects::nonNull)
-                .mapToInt(Integer::intValue)
-                .sum();
-        
-        ResearchMetricsDto.FaceDetectionMetricsDto faceDetection = ResearchMetricsDto.FaceDetectionMetricsDto.builder()
-                .accuracy(accuracy)
-                .confidence(avgConfidence)
-                .framesProcessed((int) totalHeartbeats)
-                .facesDetected(totalFacesDetected)
-                .build();
-        
-        // Calculate gaze quality metrics from heartbeat diagnostics
-        double avgKptsValid = heartbeatEvents.stream()
-                .map(GazeEvent::getKptsValidPercent)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        
-        double avgSolvepnpSuccess = heartbeatEvents.stream()
-                .map(GazeEvent::getSolvepnpSuccessPercent)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        
-        double avgFallback = heartbeatEvents.stream()
-                .map(GazeEvent::getFallbackPercent)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        
-        ResearchMetricsDto.GazeQualityMetricsDto gazeQuality = ResearchMetricsDto.GazeQualityMetricsDto.builder()
-                .kptsValidPercent(avgKptsValid)
-                .solvepnpSuccessPercent(avgSolvepnpSuccess)
-                .fallbackPercent(avgFallback)
-                .build();
-        
-        // TODO: Comparison metrics require baseline data collection
-        // Phase 3: Collect 2 weeks static signage + 2 weeks dynamic signage
-        // Calculate statistical significance with t-test
-        
-        return ResearchMetricsDto.builder()
-                .faceDetection(faceDetection)
-                .gazeQuality(gazeQuality)
-                .comparison(null) // Will be added in Phase 3 (baseline data collection)
-                .build();
+        DashboardAnalytics totals = state.getTotals();
+        totals.setCurrentlyWatching(state.getOpenSessions().getOpenCount());
+        List<AdAnalytics> ads = state.getAdAnalytics();
+        log.info("[LOAD] Republishing accumulated analytics: {} viewers, {} views, {} ads",
+                totals.getTotalAudience(), totals.getTotalViews(), ads.size());
+        analyticsRepository.replaceAnalytics(totals, ads);
+    }
+    
+    /**
+     * Resume delivery after digital-signage-service refused an increment for good
+     * 
+     * Runs fail until then, since the local state already includes the
+     * refused window. Retry once the service accepts it again (e.g. after an
+     * upgrade); a discarded window is missing from the service until the
+     * totals are republished.
+     * 
+     * @param discard Drop the refused increment instead of sending it again
+     * @throws IllegalStateException if delivery is not blocked
+     */
+    public void resumeDelivery(boolean discard) {
+        log.warn("[LOAD] Resuming delivery, {} the refused increment", discard ? "discarding" : "retrying");
+        analyticsRepository.resumeDelivery(discard);
+    }
+    
+    private static void attachDistributions(DashboardAnalytics dashboard, SessionDistributions distributions) {
+        dashboard.setSessionDurationSketch(distributions.getSessionDuration());
+        dashboard.setTotalGazeTimeSketch(distributions.getTotalGazeTime());
+    }
+    
+    /**
+     * Log ETL summary
+     */
+    private void logSummary(DashboardAnalytics totals, List<AdAnalytics> windowAds) {
+        log.info("=== ETL Summary ===");
+        log.info("Total Audience: {}", totals.getTotalAudience());
+        log.info("Total Views: {}", totals.getTotalViews());
+        log.info("Avg View Time: {} seconds", String.format("%.2f", totals.getAvgViewSeconds()));
+        log.info("Total Ads: {}", totals.getTotalAds());
+        log.info("Ad Analytics: {} ads processed", windowAds.size());
+        log.info("==================");
+    }
+    
+    /**
+     * Aggregates of one extracted range (null parts had no events), with
+     * the stream positions after it and the events read per stream
+     */
+    private record ExtractedWindow(SessionAggregate sessions, HeartbeatAggregate heartbeats,
+                                   OpenSessions openSessions, StreamWatermarks streams,
+                                   Map<EventStream, Long> rows, long eventCount) {
     }
 }
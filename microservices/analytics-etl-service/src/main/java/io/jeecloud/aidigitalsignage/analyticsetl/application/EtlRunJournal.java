@@ -0,0 +1,118 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.EventWindowAccumulator;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlMetadataRepository;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlRun;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.StreamWatermarks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ETL Run Journal (Application Layer)
+ * 
+ * Times each ETL run and records it, with the stream positions it left
+ * behind and how far each stream trails the end of the run, via
+ * {@link EtlMetadataRepository#recordRun}.
+ * 
+ * Usage: {@link #begin} a run, add what it read and loaded, then
+ * {@link #finish} it exactly once with its status.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EtlRunJournal {
+    
+    private final EtlMetadataRepository etlMetadataRepository;
+    
+    /**
+     * Start timing a run
+     * 
+     * @param mode scheduled, chunked or tmq
+     */
+    public EtlRun begin(String mode) {
+        return EtlRun.builder()
+                .mode(mode)
+                .startedAt(Instant.now())
+                .rows(new EnumMap<>(EventStream.class))
+                .build();
+    }
+    
+    /**
+     * Add the events of an aggregated window to the run's rows
+     */
+    public void addRows(EtlRun run, EventWindowAccumulator window) {
+        for (EventStream stream : EventStream.values()) {
+            addRows(run, stream, window.getEventCount(stream));
+        }
+    }
+    
+    /**
+     * Add events of one stream to the run's rows
+     */
+    public void addRows(EtlRun run, EventStream stream, long count) {
+        run.getRows().merge(stream, count, Long::sum);
+    }
+    
+    /**
+     * Add one loaded batch to the run
+     * 
+     * @param batchId Id of the batch
+     * @param bytes Encoded size of its deltas
+     */
+    public void addBatch(EtlRun run, String batchId, long bytes) {
+        run.setBatches(run.getBatches() + 1);
+        run.setLastBatchId(batchId);
+        run.setBytes(run.getBytes() + bytes);
+    }
+    
+    /**
+     * Stop timing a run and append it to the journal
+     * 
+     * @param status {@link EtlRun#LOADED}, {@link EtlRun#IDLE} or {@link EtlRun#FAILED}
+     * @param error Cause of a failed run (null otherwise)
+     */
+    public void finish(EtlRun run, String status, Exception error) {
+        Instant end = Instant.now();
+        run.setStatus(status);
+        run.setDurationMs(Duration.between(run.getStartedAt(), end).toMillis());
+        if (error != null) {
+            run.setError(error.getMessage());
+        }
+        
+        // Positions as committed, so a failed run shows where the next one starts
+        StreamWatermarks positions = etlMetadataRepository.getStreamWatermarks();
+        Map<EventStream, Instant> watermarks = new EnumMap<>(EventStream.class);
+        Map<EventStream, Long> lagMs = new EnumMap<>(EventStream.class);
+        for (EventStream stream : EventStream.values()) {
+            Instant position = positions.get(stream);
+            if (position != null) {
+                watermarks.put(stream, position);
+                lagMs.put(stream, Duration.between(position, end).toMillis());
+            }
+        }
+        run.setWatermarks(watermarks);
+        run.setLagMs(lagMs);
+        
+        etlMetadataRepository.recordRun(run);
+        log.info("[ETL] {} run {} in {}ms: {} batches, rows={}, {} bytes, lag={}ms",
+                run.getMode(), status, run.getDurationMs(), run.getBatches(), run.getRows(), run.getBytes(), lagMs);
+    }
+    
+    /**
+     * Newest runs from the journal
+     * 
+     * @param limit Maximum number of runs
+     * @return Runs, newest first
+     */
+    public List<EtlRun> recentRuns(int limit) {
+        return etlMetadataRepository.findRecentRuns(limit);
+    }
+}
@@ -0,0 +1,200 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.EventWindowAccumulator;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlMetadataRepository;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlRun;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateStore;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventSubscription;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.StreamWatermarks;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Streaming ETL Service (Application Layer)
+ * 
+ * Continuous alternative to the scheduled range-scan ETL:
+ * 1. EXTRACT: Receive gaze events from a subscription as they are written
+ * 2. TRANSFORM: Feed them into the fused window accumulator
+ * 3. LOAD: Every etl.tmq.flush-interval-ms, add the window to the
+ *    dashboard via {@link AnalyticsEtlService#loadAnalytics}
+ * 4. CHECKPOINT: Commit the subscription offsets after a successful load
+ * 5. Record the flush in the run journal
+ * 
+ * A failed flush freezes the window: polling pauses and the same batch is
+ * retried until it goes through, so a load the service applied before
+ * timing out is recognized as a duplicate and no events are lost. The
+ * subscription position after the window is committed with the local
+ * state, and the subscription resumes from it on startup, so a crash
+ * between load and offset commit does not deliver the window again. The
+ * watermark only moves forward, also when late rows arrive. A frozen
+ * window is journaled once when it first fails and once when it goes
+ * through, not on every retry.
+ * 
+ * Active when etl.mode=tmq.
+ */
+@Service
+@ConditionalOnProperty(name = "etl.mode", havingValue = "tmq")
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingEtlService {
+    
+    private final GazeEventSubscription subscription;
+    private final AnalyticsEtlService analyticsEtlService;
+    private final EtlMetadataRepository etlMetadataRepository;
+    private final EtlStateStore etlStateStore;
+    private final EtlRunJournal etlRunJournal;
+    
+    @Value("${etl.tmq.poll-timeout-ms:500}")
+    private long pollTimeoutMs;
+    
+    @Value("${etl.tmq.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+    
+    private volatile boolean running;
+    private Thread worker;
+    
+    private EventWindowAccumulator window = new EventWindowAccumulator();
+    
+    // Batch of the window being flushed (null while it is still filling)
+    private EtlBatch windowBatch;
+    private Map<String, Long> windowOffsets;
+    private boolean windowLoaded;
+    private long windowBytes;
+    private boolean windowFailureRecorded;
+    
+    /**
+     * Start consuming once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Events up to the position stored with the local state are loaded,
+        // even when the offset commit after them was lost
+        subscription.seek(etlStateStore.current().getSubscriptionOffsets());
+        running = true;
+        worker = new Thread(this::consumeLoop, "tmq-etl");
+        worker.start();
+        log.info("=== Streaming ETL started (flush every {}ms) ===", flushIntervalMs);
+    }
+    
+    /**
+     * Stop consuming, flushing the open window first
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(pollTimeoutMs + 10_000);
+        }
+    }
+    
+    private void consumeLoop() {
+        Duration pollTimeout = Duration.ofMillis(pollTimeoutMs);
+        long lastFlush = System.currentTimeMillis();
+        
+        try {
+            while (running) {
+                try {
+                    if (windowBatch == null) {
+                        subscription.poll(pollTimeout, window);
+                    }
+                    
+                    if (windowBatch != null || System.currentTimeMillis() - lastFlush >= flushIntervalMs) {
+                        flush();
+                        lastFlush = System.currentTimeMillis();
+                    }
+                } catch (Exception e) {
+                    log.error("[TMQ] Streaming ETL iteration failed, retrying: {}", e.getMessage(), e);
+                    sleepQuietly(pollTimeout);
+                }
+            }
+            
+            flush();
+            
+        } catch (Exception e) {
+            log.error("[TMQ] Final flush failed: {}", e.getMessage(), e);
+        } finally {
+            subscription.close();
+        }
+    }
+    
+    /**
+     * LOAD the current window, commit offsets and journal the flush
+     * 
+     * Resumes where a failed attempt stopped: the batch is fixed on the first
+     * attempt and not loaded again once the local state has it.
+     */
+    private void flush() {
+        if (window.isEmpty()) {
+            return;
+        }
+        
+        EtlRun run = etlRunJournal.begin("tmq");
+        try {
+            loadWindow();
+        } catch (RuntimeException e) {
+            if (!windowFailureRecorded) {
+                etlRunJournal.finish(run, EtlRun.FAILED, e);
+                windowFailureRecorded = true;
+            }
+            throw e;
+        }
+        
+        etlRunJournal.addRows(run, window);
+        etlRunJournal.addBatch(run, windowBatch.getId(), windowBytes);
+        etlRunJournal.finish(run, EtlRun.LOADED, null);
+        
+        window = new EventWindowAccumulator();
+        windowBatch = null;
+        windowOffsets = null;
+        windowLoaded = false;
+        windowBytes = 0;
+        windowFailureRecorded = false;
+    }
+    
+    private void loadWindow() {
+        if (windowBatch == null) {
+            log.info("[TMQ] Flushing window: {} gaze start events, {} session end events, {} heartbeat events", 
+                    window.getStartEventCount(), window.getSessionEventCount(), window.getHeartbeatEventCount());
+            
+            // The batch carries the file watermark along, so switching back to scheduled
+            // mode does not re-load what the subscription already delivered. Late rows
+            // never move it back. After the window every stream follows the watermark.
+            EventCursor from = etlMetadataRepository.getLastProcessedCursor().orElse(null);
+            Instant to = window.getMaxTimestamp();
+            if (from != null && from.getTimestamp().isAfter(to)) {
+                to = from.getTimestamp();
+            }
+            windowBatch = EtlBatch.of(from, new EventCursor(to, null),
+                    etlMetadataRepository.getStreamWatermarks().asMap(),
+                    StreamWatermarks.uniform(to).asMap(), window.getEventCount());
+            windowOffsets = subscription.position();
+        }
+        
+        if (!windowLoaded) {
+            windowBytes = analyticsEtlService.loadAnalytics(window.toSessionAggregate(), window.toHeartbeatAggregate(),
+                    window.getOpenSessions(), windowBatch, null, windowOffsets);
+            windowLoaded = true;
+        }
+        subscription.commit();
+    }
+    
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
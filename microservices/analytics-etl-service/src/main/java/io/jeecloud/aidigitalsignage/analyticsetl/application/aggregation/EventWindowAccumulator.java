@@ -0,0 +1,219 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.HeartbeatAggregate;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.OpenSessions;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionAggregate;
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Fused aggregator for one ETL window
+ *
+ * Computes every dashboard, ad, system health and research statistic in a
+ * single pass over the window's events: each event (or each column group
+ * of a batch) is read once and folded into primitive counters. Session
+ * and heartbeat statistics are kept side by side so callers no longer
+ * dispatch on the event type themselves.
+ *
+ * gaze_start and session end events (session_end, shutdown_session_end)
+ * also drive the window's {@link OpenSessions} delta, which the load step
+ * folds into the open sessions carried across runs. Both kinds of session
+ * end count towards the totals.
+ *
+ * Mergeable: windows can be split into time slices or chunks, aggregated
+ * independently and combined with {@link #merge(EventWindowAccumulator)}.
+ */
+public class EventWindowAccumulator implements Consumer<GazeEvent> {
+
+    private final SessionAnalyticsAccumulator sessions = new SessionAnalyticsAccumulator();
+    private final HeartbeatMetricsAccumulator heartbeats = new HeartbeatMetricsAccumulator();
+    private final OpenSessions openSessions = new OpenSessions();
+    private long startEventCount;
+    private Instant maxStartTimestamp;
+
+    /**
+     * Accumulate a single event, routed by its event type
+     */
+    @Override
+    public void accept(GazeEvent event) {
+        if ("heartbeat".equals(event.getEventType())) {
+            heartbeats.accept(event);
+        } else if ("gaze_start".equals(event.getEventType())) {
+            if (event.getTimestamp() != null) {
+                openSessions.start(event.getViewerId(), event.getTimestamp().toEpochMilli());
+                recordStart(event.getTimestamp().toEpochMilli());
+            }
+        } else {
+            sessions.accept(event);
+            if (event.getTimestamp() != null) {
+                openSessions.end(event.getViewerId(), event.getTimestamp().toEpochMilli());
+            }
+        }
+    }
+
+    /**
+     * Accumulate a columnar batch (all column groups)
+     */
+    public void acceptBatch(GazeEventBatch batch) {
+        sessions.acceptBatch(batch);
+        heartbeats.acceptBatch(batch);
+        trackEnds(batch, 0, batch.sessions().size(), null);
+        acceptStarts(batch, 0, batch.starts().size(), null);
+    }
+
+    /**
+     * Accumulate session rows [sessionFrom, sessionTo) and heartbeat rows
+     * [heartbeatFrom, heartbeatTo) of a columnar batch
+     *
+     * Only reads the batch; see {@link ParallelBatchAggregator}.
+     *
+     * @param viewerHashes {@link SessionAnalyticsAccumulator#viewerHashes} of the batch, or null
+     */
+    public void acceptBatch(GazeEventBatch batch, int sessionFrom, int sessionTo,
+                            int heartbeatFrom, int heartbeatTo, long[] viewerHashes) {
+        sessions.acceptBatch(batch, sessionFrom, sessionTo, viewerHashes);
+        heartbeats.acceptBatch(batch, heartbeatFrom, heartbeatTo);
+        trackEnds(batch, sessionFrom, sessionTo, viewerHashes);
+    }
+
+    /**
+     * Accumulate gaze_start rows [from, to) of a columnar batch
+     *
+     * @param viewerHashes {@link SessionAnalyticsAccumulator#viewerHashes} of the batch, or null
+     */
+    public void acceptStarts(GazeEventBatch batch, int from, int to, long[] viewerHashes) {
+        GazeEventBatch.StartColumns starts = batch.starts();
+        long[] timestamps = starts.timestamps();
+        long[] hashByCode = viewerHashes != null ? viewerHashes : new long[batch.dictionarySize()];
+        for (int i = from; i < to; i++) {
+            int code = starts.viewerId.code(i);
+            if (code != GazeEventBatch.NULL_CODE) {
+                openSessions.startHash(viewerHash(batch, code, hashByCode, viewerHashes != null), timestamps[i]);
+            }
+            recordStart(timestamps[i]);
+        }
+    }
+
+    /**
+     * Close the sessions of session end rows [from, to)
+     */
+    private void trackEnds(GazeEventBatch batch, int from, int to, long[] viewerHashes) {
+        GazeEventBatch.SessionColumns ends = batch.sessions();
+        long[] timestamps = ends.timestamps();
+        long[] hashByCode = viewerHashes != null ? viewerHashes : new long[batch.dictionarySize()];
+        for (int i = from; i < to; i++) {
+            int code = ends.viewerId.code(i);
+            if (code != GazeEventBatch.NULL_CODE) {
+                openSessions.endHash(viewerHash(batch, code, hashByCode, viewerHashes != null), timestamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Hash of a dictionary code, filling {@code hashByCode} on first use unless precomputed
+     */
+    private static long viewerHash(GazeEventBatch batch, int code, long[] hashByCode, boolean precomputed) {
+        if (!precomputed && hashByCode[code] == 0L) {
+            hashByCode[code] = HyperLogLog.hash(batch.decode(code));
+        }
+        return hashByCode[code];
+    }
+
+    private void recordStart(long timestampMs) {
+        startEventCount++;
+        if (maxStartTimestamp == null || timestampMs > maxStartTimestamp.toEpochMilli()) {
+            maxStartTimestamp = Instant.ofEpochMilli(timestampMs);
+        }
+    }
+
+    /**
+     * Fold another window's partial statistics into this one
+     *
+     * Merge in time order so the latest heartbeat matches a sequential pass.
+     * {@code other} must not be used afterwards.
+     */
+    public void merge(EventWindowAccumulator other) {
+        sessions.merge(other.sessions);
+        heartbeats.merge(other.heartbeats);
+        openSessions.merge(other.openSessions);
+        startEventCount += other.startEventCount;
+        maxStartTimestamp = latest(maxStartTimestamp, other.maxStartTimestamp);
+    }
+
+    public boolean isEmpty() {
+        return sessions.isEmpty() && heartbeats.isEmpty() && startEventCount == 0;
+    }
+
+    public long getEventCount() {
+        return sessions.getEventCount() + heartbeats.getEventCount() + startEventCount;
+    }
+
+    public long getSessionEventCount() {
+        return sessions.getEventCount();
+    }
+
+    public long getHeartbeatEventCount() {
+        return heartbeats.getEventCount();
+    }
+
+    public long getStartEventCount() {
+        return startEventCount;
+    }
+
+    /**
+     * Number of events of one stream (gaze_start events count as sessions)
+     */
+    public long getEventCount(EventStream stream) {
+        return stream == EventStream.HEARTBEATS
+                ? heartbeats.getEventCount()
+                : sessions.getEventCount() + startEventCount;
+    }
+
+    /**
+     * Timestamp of the newest event of any type (null if empty)
+     */
+    public Instant getMaxTimestamp() {
+        return latest(latest(sessions.getMaxTimestamp(), heartbeats.getMaxTimestamp()), maxStartTimestamp);
+    }
+
+    /**
+     * Timestamp of the newest event of one stream (null if none)
+     */
+    public Instant getMaxTimestamp(EventStream stream) {
+        return stream == EventStream.HEARTBEATS
+                ? heartbeats.getMaxTimestamp()
+                : latest(sessions.getMaxTimestamp(), maxStartTimestamp);
+    }
+
+    /**
+     * Latest start and end per viewer seen in the window (empty if none)
+     */
+    public OpenSessions getOpenSessions() {
+        return openSessions;
+    }
+
+    /**
+     * Dashboard and per-ad statistics of the window (null if no session events)
+     */
+    public SessionAggregate toSessionAggregate() {
+        return sessions.toAggregate();
+    }
+
+    /**
+     * System health and research statistics of the window (null if no heartbeats)
+     */
+    public HeartbeatAggregate toHeartbeatAggregate() {
+        return heartbeats.toAggregate();
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.isAfter(a) ? b : a;
+    }
+}
@@ -0,0 +1,301 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.HeartbeatAggregate;
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+
+import java.time.Instant;
+import java.util.DoubleSummaryStatistics;
+import java.util.function.Consumer;
+
+/**
+ * Incremental aggregator for heartbeat events
+ *
+ * Consumes heartbeat events one at a time while they are streamed from
+ * TDengine and keeps only running statistics plus the most recent
+ * heartbeat. Produces the same system health and research metrics as
+ * the former list-based transforms.
+ */
+public class HeartbeatMetricsAccumulator implements Consumer<GazeEvent> {
+
+    private long eventCount;
+
+    // Performance
+    private final DoubleSummaryStatistics fpsStats = new DoubleSummaryStatistics();
+    private final QuantileSketch fpsSketch = new QuantileSketch();
+    private final DoubleSummaryStatistics cpuTempStats = new DoubleSummaryStatistics();
+
+    // Environment
+    private final DoubleSummaryStatistics temperatureStats = new DoubleSummaryStatistics();
+    private final DoubleSummaryStatistics humidityStats = new DoubleSummaryStatistics();
+    private final DoubleSummaryStatistics noiseStats = new DoubleSummaryStatistics();
+
+    // Face detection diagnostics
+    private long heartbeatsWithFaceCount;
+    private long heartbeatsWithFaces;
+    private long totalFacesDetected;
+    private final DoubleSummaryStatistics faceConfidenceStats = new DoubleSummaryStatistics();
+
+    // Gaze quality diagnostics
+    private final DoubleSummaryStatistics kptsValidStats = new DoubleSummaryStatistics();
+    private final DoubleSummaryStatistics solvepnpSuccessStats = new DoubleSummaryStatistics();
+    private final DoubleSummaryStatistics fallbackStats = new DoubleSummaryStatistics();
+
+    // Most recent heartbeat (for current values)
+    private Instant latestTimestamp;
+    private Double latestFps;
+    private Double latestCpuTemp;
+    private Long latestUptime;
+    private Double latestPressure;
+    private Double latestGasResistance;
+
+    /**
+     * Accumulate a single heartbeat event
+     */
+    @Override
+    public void accept(GazeEvent event) {
+        eventCount++;
+
+        addIfPresent(fpsStats, event.getFps());
+        if (event.getFps() != null) {
+            fpsSketch.add(event.getFps());
+        }
+        addIfPresent(cpuTempStats, event.getCpuTemp());
+        addIfPresent(temperatureStats, event.getTemperature());
+        addIfPresent(humidityStats, event.getHumidity());
+        addIfPresent(noiseStats, event.getNoise());
+
+        Integer facesInFrame = event.getFacesInFrame();
+        if (facesInFrame != null) {
+            heartbeatsWithFaceCount++;
+            totalFacesDetected += facesInFrame;
+            if (facesInFrame > 0) {
+                heartbeatsWithFaces++;
+            }
+        }
+
+        // Average face confidence only when a face was detected
+        if (event.getFaceConfidence() != null && event.getFaceConfidence() > 0.0) {
+            faceConfidenceStats.accept(event.getFaceConfidence());
+        }
+
+        addIfPresent(kptsValidStats, event.getKptsValidPercent());
+        addIfPresent(solvepnpSuccessStats, event.getSolvepnpSuccessPercent());
+        addIfPresent(fallbackStats, event.getFallbackPercent());
+
+        if (latestTimestamp == null || !event.getTimestamp().isBefore(latestTimestamp)) {
+            setLatest(event.getTimestamp(), event.getFps(), event.getCpuTemp(), event.getUptime(),
+                    event.getPressure(), event.getGasResistance());
+        }
+    }
+
+    /**
+     * Accumulate the heartbeat column group of a columnar batch
+     *
+     * Same statistics as {@link #accept(GazeEvent)} row by row, but each
+     * metric is reduced in its own tight loop over a primitive column.
+     */
+    public void acceptBatch(GazeEventBatch batch) {
+        acceptBatch(batch, 0, batch.heartbeats().size());
+    }
+
+    /**
+     * Accumulate heartbeat rows [from, to) of a columnar batch
+     *
+     * Only reads the batch, so disjoint row ranges of the same batch can be
+     * accumulated concurrently into separate accumulators and merged.
+     */
+    public void acceptBatch(GazeEventBatch batch, int from, int to) {
+        GazeEventBatch.HeartbeatColumns heartbeats = batch.heartbeats();
+        if (to <= from) {
+            return;
+        }
+        eventCount += to - from;
+
+        addPresent(fpsStats, heartbeats.fps, from, to);
+        GazeEventBatch.DoubleColumn fps = heartbeats.fps;
+        for (int i = from; i < to; i++) {
+            if (fps.isPresent(i)) {
+                fpsSketch.add(fps.get(i));
+            }
+        }
+        addPresent(cpuTempStats, heartbeats.cpuTemp, from, to);
+        addPresent(temperatureStats, heartbeats.temperature, from, to);
+        addPresent(humidityStats, heartbeats.humidity, from, to);
+        addPresent(noiseStats, heartbeats.noise, from, to);
+
+        GazeEventBatch.IntColumn facesInFrame = heartbeats.facesInFrame;
+        for (int i = from; i < to; i++) {
+            if (facesInFrame.isPresent(i)) {
+                int faces = facesInFrame.get(i);
+                heartbeatsWithFaceCount++;
+                totalFacesDetected += faces;
+                if (faces > 0) {
+                    heartbeatsWithFaces++;
+                }
+            }
+        }
+
+        // Average face confidence only when a face was detected
+        GazeEventBatch.DoubleColumn faceConfidence = heartbeats.faceConfidence;
+        for (int i = from; i < to; i++) {
+            if (faceConfidence.isPresent(i) && faceConfidence.get(i) > 0.0) {
+                faceConfidenceStats.accept(faceConfidence.get(i));
+            }
+        }
+
+        addPresent(kptsValidStats, heartbeats.kptsValidPercent, from, to);
+        addPresent(solvepnpSuccessStats, heartbeats.solvepnpSuccessPercent, from, to);
+        addPresent(fallbackStats, heartbeats.fallbackPercent, from, to);
+
+        // Latest row wins on equal timestamps, as in a row-by-row pass
+        long[] timestamps = heartbeats.timestamps();
+        int latest = from;
+        for (int i = from + 1; i < to; i++) {
+            if (timestamps[i] >= timestamps[latest]) {
+                latest = i;
+            }
+        }
+        Instant timestamp = Instant.ofEpochMilli(timestamps[latest]);
+        if (latestTimestamp == null || !timestamp.isBefore(latestTimestamp)) {
+            setLatest(timestamp,
+                    value(heartbeats.fps, latest),
+                    value(heartbeats.cpuTemp, latest),
+                    heartbeats.uptime.isPresent(latest) ? heartbeats.uptime.get(latest) : null,
+                    value(heartbeats.pressure, latest),
+                    value(heartbeats.gasResistance, latest));
+        }
+    }
+
+    private void setLatest(Instant timestamp, Double fps, Double cpuTemp, Long uptime,
+                           Double pressure, Double gasResistance) {
+        latestTimestamp = timestamp;
+        latestFps = fps;
+        latestCpuTemp = cpuTemp;
+        latestUptime = uptime;
+        latestPressure = pressure;
+        latestGasResistance = gasResistance;
+    }
+
+    private static void addPresent(DoubleSummaryStatistics stats, GazeEventBatch.DoubleColumn column,
+                                   int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (column.isPresent(i)) {
+                stats.accept(column.get(i));
+            }
+        }
+    }
+
+    private static Double value(GazeEventBatch.DoubleColumn column, int row) {
+        return column.isPresent(row) ? column.get(row) : null;
+    }
+
+    /**
+     * Fold another accumulator's partial statistics into this one
+     *
+     * Used to combine time slices that were extracted concurrently. Merge
+     * slices in time order: on equal timestamps the later slice's heartbeat
+     * becomes the latest, as it would in a single sequential pass.
+     */
+    public void merge(HeartbeatMetricsAccumulator other) {
+        eventCount += other.eventCount;
+
+        fpsStats.combine(other.fpsStats);
+        fpsSketch.merge(other.fpsSketch);
+        cpuTempStats.combine(other.cpuTempStats);
+        temperatureStats.combine(other.temperatureStats);
+        humidityStats.combine(other.humidityStats);
+        noiseStats.combine(other.noiseStats);
+
+        heartbeatsWithFaceCount += other.heartbeatsWithFaceCount;
+        heartbeatsWithFaces += other.heartbeatsWithFaces;
+        totalFacesDetected += other.totalFacesDetected;
+        faceConfidenceStats.combine(other.faceConfidenceStats);
+
+        kptsValidStats.combine(other.kptsValidStats);
+        solvepnpSuccessStats.combine(other.solvepnpSuccessStats);
+        fallbackStats.combine(other.fallbackStats);
+
+        if (other.latestTimestamp != null && (latestTimestamp == null
+                || !other.latestTimestamp.isBefore(latestTimestamp))) {
+            setLatest(other.latestTimestamp, other.latestFps, other.latestCpuTemp, other.latestUptime,
+                    other.latestPressure, other.latestGasResistance);
+        }
+    }
+
+    private static void addIfPresent(DoubleSummaryStatistics stats, Double value) {
+        if (value != null) {
+            stats.accept(value);
+        }
+    }
+
+    public boolean isEmpty() {
+        return eventCount == 0;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Timestamp of the newest heartbeat seen (null if empty)
+     */
+    public Instant getMaxTimestamp() {
+        return latestTimestamp;
+    }
+
+    /**
+     * Snapshot of the accumulated statistics (null if empty)
+     */
+    public HeartbeatAggregate toAggregate() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        return HeartbeatAggregate.builder()
+                .eventCount(eventCount)
+                .maxTimestamp(latestTimestamp)
+                .avgFps(average(fpsStats))
+                .minFps(fpsStats.getCount() > 0 ? fpsStats.getMin() : null)
+                .maxFps(fpsStats.getCount() > 0 ? fpsStats.getMax() : null)
+                .fpsSketch(fpsSketch.copy())
+                .maxCpuTemp(cpuTempStats.getCount() > 0 ? cpuTempStats.getMax() : null)
+                .avgTemperature(average(temperatureStats))
+                .avgHumidity(average(humidityStats))
+                .avgNoise(average(noiseStats))
+                .framesProcessed(heartbeatsWithFaceCount)
+                .framesWithFaces(heartbeatsWithFaces)
+                .facesDetected(totalFacesDetected)
+                .avgFaceConfidence(average(faceConfidenceStats))
+                .avgKptsValidPercent(average(kptsValidStats))
+                .avgSolvepnpSuccessPercent(average(solvepnpSuccessStats))
+                .avgFallbackPercent(average(fallbackStats))
+                .currentFps(latestFps)
+                .currentCpuTemp(latestCpuTemp)
+                .uptime(latestUptime)
+                .pressure(latestPressure)
+                .gasResistance(latestGasResistance)
+                .build();
+    }
+
+    private static Double average(DoubleSummaryStatistics stats) {
+        return stats.getCount() > 0 ? stats.getAverage() : null;
+    }
+
+    /**
+     * TRANSFORM: Build SystemHealthDto from accumulated heartbeat statistics
+     */
+    public SystemHealthDto toSystemHealth() {
+        return HeartbeatMetricsMapper.toSystemHealth(toAggregate());
+    }
+
+    /**
+     * TRANSFORM: Build ResearchMetricsDto from accumulated heartbeat diagnostics
+     */
+    public ResearchMetricsDto toResearchMetrics() {
+        return HeartbeatMetricsMapper.toResearchMetrics(toAggregate());
+    }
+}
@@ -0,0 +1,108 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.HeartbeatAggregate;
+
+/**
+ * Maps aggregated heartbeat statistics to system health and research metrics
+ *
+ * Shared by the in-process accumulator and the TDengine pushdown path, so
+ * both produce identical DTOs for the same data.
+ */
+public final class HeartbeatMetricsMapper {
+
+    private HeartbeatMetricsMapper() {
+    }
+
+    /**
+     * TRANSFORM: Build SystemHealthDto from aggregated heartbeat statistics
+     */
+    public static SystemHealthDto toSystemHealth(HeartbeatAggregate heartbeats) {
+        if (heartbeats == null || heartbeats.getEventCount() == 0) {
+            return null;
+        }
+
+        SystemHealthDto.PerformanceMetricsDto performance = SystemHealthDto.PerformanceMetricsDto.builder()
+                .currentFps(heartbeats.getCurrentFps())
+                .avgFps(heartbeats.getAvgFps())
+                .minFps(heartbeats.getMinFps())
+                .maxFps(heartbeats.getMaxFps())
+                .currentCpuTemp(heartbeats.getCurrentCpuTemp())
+                .maxCpuTemp(heartbeats.getMaxCpuTemp())
+                .cpuThreshold(70.0) // Standard threshold for Raspberry Pi
+                .fpsSketch(heartbeats.getFpsSketch() != null && !heartbeats.getFpsSketch().isEmpty()
+                        ? heartbeats.getFpsSketch().toBytes() : null)
+                .build();
+
+        SystemHealthDto.EnvironmentMetricsDto environment = SystemHealthDto.EnvironmentMetricsDto.builder()
+                .temperatureCelsius(heartbeats.getAvgTemperature())
+                .humidityPercent(heartbeats.getAvgHumidity())
+                .pressureHpa(heartbeats.getPressure())
+                .gasResistanceOhms(heartbeats.getGasResistance())
+                .noiseDb(heartbeats.getAvgNoise())
+                .build();
+
+        // Determine system status based on FPS and CPU temperature
+        double maxCpuTemp = heartbeats.getMaxCpuTemp() != null ? heartbeats.getMaxCpuTemp() : Double.NEGATIVE_INFINITY;
+        double avgFps = heartbeats.getAvgFps() != null ? heartbeats.getAvgFps() : 0.0;
+
+        String status = "HEALTHY";
+        if (maxCpuTemp > 70.0) {
+            status = "CRITICAL";
+        } else if (maxCpuTemp > 65.0 || avgFps < 5.0) {
+            status = "WARNING";
+        }
+
+        return SystemHealthDto.builder()
+                .status(status)
+                .performance(performance)
+                .environment(environment)
+                .uptime(heartbeats.getUptime())
+                .build();
+    }
+
+    /**
+     * TRANSFORM: Build ResearchMetricsDto from aggregated heartbeat diagnostics
+     *
+     * Face detection metrics from heartbeat events (instantaneous diagnostics aggregated)
+     * Gaze quality metrics from heartbeat events (keypoint validity, solvePnP success)
+     * Comparison metrics from baseline data (requires 2-week collection - Phase 3)
+     */
+    public static ResearchMetricsDto toResearchMetrics(HeartbeatAggregate heartbeats) {
+        if (heartbeats == null || heartbeats.getEventCount() == 0) {
+            return null;
+        }
+
+        // Accuracy: percentage of heartbeats that detected at least one face
+        long framesProcessed = heartbeats.getFramesProcessed();
+        double accuracy = framesProcessed > 0 ? (heartbeats.getFramesWithFaces() * 100.0 / framesProcessed) : 0.0;
+
+        ResearchMetricsDto.FaceDetectionMetricsDto faceDetection = ResearchMetricsDto.FaceDetectionMetricsDto.builder()
+                .accuracy(accuracy)
+                .confidence(orZero(heartbeats.getAvgFaceConfidence()))
+                .framesProcessed((int) framesProcessed)
+                .facesDetected((int) heartbeats.getFacesDetected())
+                .build();
+
+        ResearchMetricsDto.GazeQualityMetricsDto gazeQuality = ResearchMetricsDto.GazeQualityMetricsDto.builder()
+                .kptsValidPercent(orZero(heartbeats.getAvgKptsValidPercent()))
+                .solvepnpSuccessPercent(orZero(heartbeats.getAvgSolvepnpSuccessPercent()))
+                .fallbackPercent(orZero(heartbeats.getAvgFallbackPercent()))
+                .build();
+
+        // TODO: Comparison metrics require baseline data collection
+        // Phase 3: Collect 2 weeks static signage + 2 weeks dynamic signage
+        // Calculate statistical significance with t-test
+
+        return ResearchMetricsDto.builder()
+                .faceDetection(faceDetection)
+                .gazeQuality(gazeQuality)
+                .comparison(null) // Will be added in Phase 3 (baseline data collection)
+                .build();
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
@@ -0,0 +1,138 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join aggregation of large columnar batches
+ *
+ * Splits a batch's session and heartbeat rows into halves recursively,
+ * aggregates each leaf range into its own {@link EventWindowAccumulator}
+ * on a worker thread and merges the partials left to right, so the result
+ * equals a sequential pass (counts add up, sketches union, the latest
+ * heartbeat wins ties the same way). Viewer ids are hashed once per batch
+ * and the hashes shared by all leaves. The few gaze_start rows only touch
+ * the open sessions and are added on the calling thread afterwards.
+ *
+ * Batches with at most {@code sequentialThreshold} rows are aggregated on
+ * the calling thread: below that, forking and merging cost more than the
+ * extra cores save. Leaves are never smaller than the threshold and there
+ * are about four per worker, which keeps the number of partial sketches to
+ * merge small. The batch must not be modified while it is aggregated.
+ */
+public class ParallelBatchAggregator implements AutoCloseable {
+
+    // Leaves per worker, so uneven leaves (e.g. heartbeat-heavy ranges) still balance
+    private static final int LEAVES_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    /**
+     * @param parallelism Worker threads (0 = one per available processor)
+     * @param sequentialThreshold Batches up to this many rows are aggregated sequentially
+     */
+    public ParallelBatchAggregator(int parallelism, int sequentialThreshold) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(workers, ParallelBatchAggregator::newWorker, null, false);
+        this.sequentialThreshold = Math.max(1, sequentialThreshold);
+    }
+
+    /**
+     * Aggregate all rows of a batch into the given accumulator
+     */
+    public void aggregate(GazeEventBatch batch, EventWindowAccumulator accumulator) {
+        int rows = batch.size();
+        if (rows <= sequentialThreshold || pool.getParallelism() == 1) {
+            accumulator.acceptBatch(batch);
+            return;
+        }
+
+        int leafRows = Math.max(sequentialThreshold,
+                (rows + pool.getParallelism() * LEAVES_PER_WORKER - 1) / (pool.getParallelism() * LEAVES_PER_WORKER));
+        long[] viewerHashes = SessionAnalyticsAccumulator.viewerHashes(batch);
+        accumulator.merge(pool.invoke(new RangeTask(batch, viewerHashes, leafRows,
+                0, batch.sessions().size(), 0, batch.heartbeats().size())));
+        accumulator.acceptStarts(batch, 0, batch.starts().size(), viewerHashes);
+    }
+
+    /**
+     * Aggregate all rows of a batch into a new accumulator
+     */
+    public EventWindowAccumulator aggregate(GazeEventBatch batch) {
+        EventWindowAccumulator accumulator = new EventWindowAccumulator();
+        aggregate(batch, accumulator);
+        return accumulator;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getSequentialThreshold() {
+        return sequentialThreshold;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("etl-aggregate-" + worker.getPoolIndex());
+        return worker;
+    }
+
+    /**
+     * Session rows [sessionFrom, sessionTo) and heartbeat rows [heartbeatFrom, heartbeatTo)
+     */
+    private static final class RangeTask extends RecursiveTask<EventWindowAccumulator> {
+
+        private final GazeEventBatch batch;
+        private final long[] viewerHashes;
+        private final int leafRows;
+        private final int sessionFrom;
+        private final int sessionTo;
+        private final int heartbeatFrom;
+        private final int heartbeatTo;
+
+        RangeTask(GazeEventBatch batch, long[] viewerHashes, int leafRows, int sessionFrom, int sessionTo,
+                  int heartbeatFrom, int heartbeatTo) {
+            this.batch = batch;
+            this.viewerHashes = viewerHashes;
+            this.leafRows = leafRows;
+            this.sessionFrom = sessionFrom;
+            this.sessionTo = sessionTo;
+            this.heartbeatFrom = heartbeatFrom;
+            this.heartbeatTo = heartbeatTo;
+        }
+
+        @Override
+        protected EventWindowAccumulator compute() {
+            if ((sessionTo - sessionFrom) + (heartbeatTo - heartbeatFrom) <= leafRows) {
+                EventWindowAccumulator leaf = new EventWindowAccumulator();
+                leaf.acceptBatch(batch, sessionFrom, sessionTo, heartbeatFrom, heartbeatTo, viewerHashes);
+                return leaf;
+            }
+
+            // Halve both column groups, so each half covers roughly the same time span
+            int sessionMid = (sessionFrom + sessionTo) >>> 1;
+            int heartbeatMid = (heartbeatFrom + heartbeatTo) >>> 1;
+            RangeTask left = new RangeTask(batch, viewerHashes, leafRows,
+                    sessionFrom, sessionMid, heartbeatFrom, heartbeatMid);
+            RangeTask right = new RangeTask(batch, viewerHashes, leafRows,
+                    sessionMid, sessionTo, heartbeatMid, heartbeatTo);
+
+            left.fork();
+            EventWindowAccumulator rightResult = right.compute();
+            EventWindowAccumulator result = left.join();
+            // Left (earlier rows) first, as in a sequential pass
+            result.merge(rightResult);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAttention;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAudienceCube;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.DashboardAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupBucket;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupResolution;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionAggregate;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionDistributions;
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Incremental aggregator for session_end events
+ *
+ * Consumes events one at a time while they are streamed from TDengine,
+ * so the raw events never have to be held in memory. Produces the same
+ * dashboard and per-ad analytics as the former list-based transforms.
+ *
+ * Memory is bounded by the number of distinct ads and minutes, not by the
+ * number of events or viewers: unique viewers are counted with fixed-size
+ * HyperLogLog sketches. Besides the window totals, every event is counted
+ * in its minute bucket; hour and day rollups are derived from the minutes.
+ * Session duration and gaze time percentiles come from fixed-size
+ * quantile sketches kept for the window totals only, and the per-ad
+ * demographics in a dense ad × age × gender × emotion cube. Per-ad
+ * attention time (gaze seconds, gaze count, session seconds and a dwell
+ * histogram) is also kept for the window totals only.
+ */
+public class SessionAnalyticsAccumulator implements Consumer<GazeEvent> {
+
+    // Marks a dictionary code whose emotion index has not been looked up yet
+    private static final int UNRESOLVED = -2;
+
+    // 256 registers (~6.5% error) keep each bucket's viewer sketch small
+    private static final int BUCKET_SKETCH_PRECISION = 8;
+
+    private final SessionCounters totals = new SessionCounters(HyperLogLog.DEFAULT_PRECISION);
+
+    private final SessionDistributions distributions = SessionDistributions.empty();
+
+    private final AdAudienceCube audienceCube = new AdAudienceCube();
+
+    private final Map<String, AdAttention> adAttention = new HashMap<>();
+
+    // Minute buckets keyed by bucket start (epoch millis)
+    private final NavigableMap<Long, SessionCounters> minuteBuckets = new TreeMap<>();
+
+    private Instant maxTimestamp;
+
+    /**
+     * Accumulate a single session_end event
+     */
+    @Override
+    public void accept(GazeEvent event) {
+        String viewerId = event.getViewerId();
+        long viewerHash = viewerId != null ? HyperLogLog.hash(viewerId) : 0L;
+        double sessionDuration = event.getSessionDuration() != null ? event.getSessionDuration() : Double.NaN;
+        int ageGroup = ageGroupIndex(event.getAge());
+        int gender = genderIndex(event.getGender());
+        int emotion = emotionIndex(event.getEmotion());
+        // Viewers with high engagement (>= 0.5) are considered "looking"
+        boolean looking = event.getEngagementRate() != null && event.getEngagementRate() >= 0.5;
+
+        totals.add(viewerId != null, viewerHash, sessionDuration, ageGroup, gender, emotion,
+                event.getAdName(), looking);
+        distributions.getSessionDuration().add(sessionDuration);
+        if (event.getTotalGazeTime() != null) {
+            distributions.getTotalGazeTime().add(event.getTotalGazeTime());
+        }
+        if (event.getAdName() != null && !event.getAdName().isEmpty()) {
+            audienceCube.add(audienceCube.adId(event.getAdName()), ageGroup, gender, emotion, looking);
+            adAttention.computeIfAbsent(event.getAdName(), k -> new AdAttention()).add(
+                    event.getTotalGazeTime() != null ? event.getTotalGazeTime() : Double.NaN,
+                    event.getGazeCount() != null ? event.getGazeCount() : -1,
+                    sessionDuration);
+        }
+
+        Instant timestamp = event.getTimestamp();
+        if (timestamp != null) {
+            minuteBucket(timestamp.toEpochMilli()).add(viewerId != null, viewerHash, sessionDuration,
+                    ageGroup, gender, emotion, event.getAdName(), looking);
+            if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) {
+                maxTimestamp = timestamp;
+            }
+        }
+    }
+
+    /**
+     * Accumulate the session_end column group of a columnar batch
+     *
+     * Same counters as {@link #accept(GazeEvent)} row by row. String
+     * columns are dictionary codes, so each distinct viewer, ad, gender
+     * and emotion string is resolved once per batch rather than per row.
+     */
+    public void acceptBatch(GazeEventBatch batch) {
+        acceptBatch(batch, 0, batch.sessions().size(), null);
+    }
+
+    /**
+     * Accumulate session_end rows [from, to) of a columnar batch
+     *
+     * Only reads the batch, so disjoint row ranges of the same batch can be
+     * accumulated concurrently into separate accumulators and merged.
+     *
+     * @param viewerHashes {@link #viewerHashes(GazeEventBatch)} of the batch, shared
+     *                     by all ranges; null to hash viewers as they are seen
+     */
+    public void acceptBatch(GazeEventBatch batch, int from, int to, long[] viewerHashes) {
+        GazeEventBatch.SessionColumns sessions = batch.sessions();
+        if (to <= from) {
+            return;
+        }
+        totals.totalViews += to - from;
+
+        int dictionarySize = batch.dictionarySize();
+        boolean[] viewerSeen = new boolean[dictionarySize];
+        long[] viewerHashByCode = viewerHashes != null ? viewerHashes : new long[dictionarySize];
+        for (int i = from; i < to; i++) {
+            int code = sessions.viewerId.code(i);
+            if (code != GazeEventBatch.NULL_CODE && !viewerSeen[code]) {
+                viewerSeen[code] = true;
+                if (viewerHashes == null) {
+                    viewerHashByCode[code] = HyperLogLog.hash(batch.decode(code));
+                }
+                totals.viewers.addHash(viewerHashByCode[code]);
+            }
+        }
+
+        GazeEventBatch.DoubleColumn sessionDuration = sessions.sessionDuration;
+        for (int i = from; i < to; i++) {
+            if (sessionDuration.isPresent(i)) {
+                totals.sessionDurationSum += sessionDuration.get(i);
+                totals.sessionDurationCount++;
+                distributions.getSessionDuration().add(sessionDuration.get(i));
+            }
+        }
+
+        GazeEventBatch.DoubleColumn totalGazeTime = sessions.totalGazeTime;
+        for (int i = from; i < to; i++) {
+            if (totalGazeTime.isPresent(i)) {
+                distributions.getTotalGazeTime().add(totalGazeTime.get(i));
+            }
+        }
+
+        GazeEventBatch.IntColumn age = sessions.age;
+        for (int i = from; i < to; i++) {
+            if (age.isPresent(i)) {
+                int ageGroup = ageGroupIndex(age.get(i));
+                if (ageGroup >= 0) {
+                    totals.ageGroups[ageGroup]++;
+                }
+            }
+        }
+
+        int maleCode = batch.codeOf("Male");
+        int femaleCode = batch.codeOf("Female");
+        int[] emotionByCode = new int[dictionarySize];
+        Arrays.fill(emotionByCode, UNRESOLVED);
+        for (int i = from; i < to; i++) {
+            int gender = sessions.gender.code(i);
+            if (gender != GazeEventBatch.NULL_CODE) {
+                if (gender == maleCode) {
+                    totals.male++;
+                } else if (gender == femaleCode) {
+                    totals.female++;
+                }
+            }
+
+            int code = sessions.emotion.code(i);
+            if (code != GazeEventBatch.NULL_CODE) {
+                int emotion = emotionByCode[code];
+                if (emotion == UNRESOLVED) {
+                    emotion = emotionByCode[code] = emotionIndex(batch.decode(code));
+                }
+                if (emotion >= 0) {
+                    totals.emotions[emotion]++;
+                }
+            }
+        }
+
+        long[][] countersByCode = new long[dictionarySize][];
+        int[] cubeAdByCode = new int[dictionarySize];
+        AdAttention[] attentionByCode = new AdAttention[dictionarySize];
+        GazeEventBatch.DoubleColumn engagementRate = sessions.engagementRate;
+        GazeEventBatch.IntColumn gazeCount = sessions.gazeCount;
+        for (int i = from; i < to; i++) {
+            int code = sessions.adName.code(i);
+            if (code == GazeEventBatch.NULL_CODE) {
+                continue;
+            }
+            long[] counters = countersByCode[code];
+            if (counters == null) {
+                String adName = batch.decode(code);
+                if (adName.isEmpty()) {
+                    continue;
+                }
+                counters = countersByCode[code] = totals.adCounters.computeIfAbsent(adName, k -> new long[2]);
+                cubeAdByCode[code] = audienceCube.adId(adName);
+                attentionByCode[code] = adAttention.computeIfAbsent(adName, k -> new AdAttention());
+            }
+            counters[0]++;
+            // Viewers with high engagement (>= 0.5) are considered "looking"
+            boolean looking = engagementRate.isPresent(i) && engagementRate.get(i) >= 0.5;
+            if (looking) {
+                counters[1]++;
+            }
+
+            int emotion = sessions.emotion.code(i);
+            audienceCube.add(cubeAdByCode[code],
+                    age.isPresent(i) ? ageGroupIndex(age.get(i)) : -1,
+                    genderIndex(sessions.gender.code(i), maleCode, femaleCode),
+                    emotion != GazeEventBatch.NULL_CODE ? emotionByCode[emotion] : -1,
+                    looking);
+            attentionByCode[code].add(
+                    totalGazeTime.isPresent(i) ? totalGazeTime.get(i) : Double.NaN,
+                    gazeCount.isPresent(i) ? gazeCount.get(i) : -1,
+                    sessionDuration.isPresent(i) ? sessionDuration.get(i) : Double.NaN);
+        }
+
+        // Minute buckets, reusing the per-code lookups resolved above
+        long[] timestamps = sessions.timestamps();
+        long max = Long.MIN_VALUE;
+        long currentMinute = Long.MIN_VALUE;
+        SessionCounters bucket = null;
+        for (int i = from; i < to; i++) {
+            long ts = timestamps[i];
+            max = Math.max(max, ts);
+            long minute = RollupResolution.MINUTE.bucketStart(ts);
+            if (bucket == null || minute != currentMinute) {
+                bucket = minuteBucket(ts);
+                currentMinute = minute;
+            }
+
+            int viewer = sessions.viewerId.code(i);
+            int gender = sessions.gender.code(i);
+            int emotion = sessions.emotion.code(i);
+            int ad = sessions.adName.code(i);
+            bucket.add(viewer != GazeEventBatch.NULL_CODE,
+                    viewer != GazeEventBatch.NULL_CODE ? viewerHashByCode[viewer] : 0L,
+                    sessionDuration.isPresent(i) ? sessionDuration.get(i) : Double.NaN,
+                    age.isPresent(i) ? ageGroupIndex(age.get(i)) : -1,
+                    genderIndex(gender, maleCode, femaleCode),
+                    emotion != GazeEventBatch.NULL_CODE ? emotionByCode[emotion] : -1,
+                    ad != GazeEventBatch.NULL_CODE ? batch.decode(ad) : null,
+                    engagementRate.isPresent(i) && engagementRate.get(i) >= 0.5);
+        }
+
+        Instant timestamp = Instant.ofEpochMilli(max);
+        if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) {
+            maxTimestamp = timestamp;
+        }
+    }
+
+    /**
+     * {@link HyperLogLog#hash(String)} of every string in a batch's dictionary, by code
+     *
+     * Hashing is the most expensive per-viewer step; when a batch is split
+     * into many row ranges, each viewer would otherwise be hashed once per range.
+     */
+    public static long[] viewerHashes(GazeEventBatch batch) {
+        long[] hashes = new long[batch.dictionarySize()];
+        for (int code = 0; code < hashes.length; code++) {
+            hashes[code] = HyperLogLog.hash(batch.decode(code));
+        }
+        return hashes;
+    }
+
+    /**
+     * Fold another accumulator's partial aggregate into this one
+     *
+     * Used to combine time slices that were extracted concurrently.
+     * Counts add up, viewer sketches are unioned, so the result equals a
+     * single pass over all slices regardless of how they were split.
+     * Buckets that straddle a slice boundary are combined the same way.
+     *
+     * Minute buckets this accumulator does not have yet are taken over
+     * rather than copied, so {@code other} must not be used afterwards.
+     */
+    public void merge(SessionAnalyticsAccumulator other) {
+        totals.merge(other.totals);
+        distributions.merge(other.distributions);
+        audienceCube.merge(other.audienceCube);
+        other.adAttention.forEach((adName, attention) ->
+                adAttention.computeIfAbsent(adName, k -> new AdAttention()).merge(attention));
+        other.minuteBuckets.forEach((minute, counters) -> {
+            SessionCounters bucket = minuteBuckets.putIfAbsent(minute, counters);
+            if (bucket != null) {
+                bucket.merge(counters);
+            }
+        });
+
+        if (other.maxTimestamp != null && (maxTimestamp == null || other.maxTimestamp.isAfter(maxTimestamp))) {
+            maxTimestamp = other.maxTimestamp;
+        }
+    }
+
+    private SessionCounters minuteBucket(long epochMillis) {
+        return minuteBuckets.computeIfAbsent(RollupResolution.MINUTE.bucketStart(epochMillis), k -> newBucket());
+    }
+
+    private static SessionCounters newBucket() {
+        return new SessionCounters(BUCKET_SKETCH_PRECISION);
+    }
+
+    /**
+     * Helper: Map age to age group index
+     *
+     * Age Groups:
+     * - Children: 0-12
+     * - Teenagers: 13-19
+     * - Young Adults: 20-35
+     * - Mid-Aged: 36-55
+     * - Seniors: 56+
+     *
+     * @return Age group index, or -1 if age is unknown
+     */
+    private static int ageGroupIndex(Integer age) {
+        return age != null ? ageGroupIndex(age.intValue()) : -1;
+    }
+
+    private static int ageGroupIndex(int age) {
+        if (age == 0) return -1;
+        if (age <= 12) return 0;
+        if (age <= 19) return 1;
+        if (age <= 35) return 2;
+        if (age <= 55) return 3;
+        return 4;
+    }
+
+    private static int genderIndex(String gender) {
+        if ("Male".equals(gender)) return SessionCounters.MALE;
+        if ("Female".equals(gender)) return SessionCounters.FEMALE;
+        return -1;
+    }
+
+    private static int genderIndex(int code, int maleCode, int femaleCode) {
+        if (code == GazeEventBatch.NULL_CODE) return -1;
+        if (code == maleCode) return SessionCounters.MALE;
+        if (code == femaleCode) return SessionCounters.FEMALE;
+        return -1;
+    }
+
+    /**
+     * Helper: Map emotion label to FER2013 emotion index
+     *
+     * @return Emotion index, or -1 if not one of the 8 FER2013 emotions
+     */
+    private static int emotionIndex(String emotion) {
+        if (emotion == null || emotion.isEmpty()) return -1;
+        for (int i = 0; i < SessionCounters.EMOTIONS.length; i++) {
+            if (SessionCounters.EMOTIONS[i].equals(emotion)) return i;
+        }
+        return -1;
+    }
+
+    public boolean isEmpty() {
+        return totals.totalViews == 0;
+    }
+
+    public long getEventCount() {
+        return totals.totalViews;
+    }
+
+    /**
+     * Timestamp of the newest event seen (null if empty)
+     */
+    public Instant getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * TRANSFORM: Build dashboard analytics from accumulated counters
+     *
+     * Calculations:
+     * - Total audience: unique viewers (HyperLogLog estimate)
+     * - Total views: sum of all viewing sessions
+     * - Avg view seconds: average session duration
+     * - Demographics: count by age group, gender, emotion
+     */
+    public DashboardAnalytics toDashboardAnalytics() {
+        return totals.toDashboardAnalytics();
+    }
+
+    /**
+     * TRANSFORM: Build advertisement analytics from accumulated counters
+     *
+     * For each advertisement:
+     * - Count total viewers
+     * - Count engaged viewers (high engagement rate = looked at ad)
+     * - Count non-engaged viewers
+     * - Attach the accumulated attention time
+     */
+    public List<AdAnalytics> toAdAnalytics() {
+        List<AdAnalytics> ads = totals.toAdAnalytics();
+        for (AdAnalytics ad : ads) {
+            AdAttention attention = adAttention.get(ad.getAdName());
+            if (attention != null) {
+                ad.setAttention(attention.copy());
+            }
+        }
+        return ads;
+    }
+
+    /**
+     * TRANSFORM: Build minute, hour and day rollup buckets
+     *
+     * Hour and day buckets are unions of their minute buckets, so their
+     * audience is the distinct viewer count of the whole hour or day.
+     */
+    public List<RollupBucket> toRollupBuckets() {
+        List<RollupBucket> rollups = new ArrayList<>();
+        minuteBuckets.forEach((minute, counters) ->
+                rollups.add(counters.toRollupBucket(RollupResolution.MINUTE, minute)));
+
+        for (RollupResolution resolution : List.of(RollupResolution.HOUR, RollupResolution.DAY)) {
+            NavigableMap<Long, SessionCounters> coarse = new TreeMap<>();
+            minuteBuckets.forEach((minute, counters) ->
+                    coarse.computeIfAbsent(resolution.bucketStart(minute), k -> newBucket()).merge(counters));
+            coarse.forEach((start, counters) -> rollups.add(counters.toRollupBucket(resolution, start)));
+        }
+        return rollups;
+    }
+
+    /**
+     * Snapshot of the accumulated analytics (null if empty)
+     */
+    public SessionAggregate toAggregate() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        return SessionAggregate.builder()
+                .eventCount(totals.totalViews)
+                .maxTimestamp(maxTimestamp)
+                .audienceSketch(totals.viewers.copy())
+                .dashboard(toDashboardAnalytics())
+                .adAnalytics(toAdAnalytics())
+                .rollups(toRollupBuckets())
+                .distributions(distributions.copy())
+                .audienceCube(audienceCube.copy())
+                .build();
+    }
+}
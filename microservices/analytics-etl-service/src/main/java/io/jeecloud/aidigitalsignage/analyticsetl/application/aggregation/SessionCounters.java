@@ -0,0 +1,184 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.DashboardAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupBucket;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupResolution;
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primitive counters behind the session analytics of one scope
+ *
+ * A scope is either a whole ETL window or a single rollup bucket. The
+ * fields are package-private so {@link SessionAnalyticsAccumulator} can
+ * update them column by column in its batch path; {@link #add} is the
+ * row-at-a-time path with every value already classified.
+ */
+final class SessionCounters {
+
+    static final String[] EMOTIONS = {
+            "anger", "contempt", "disgust", "fear", "happiness", "neutral", "sadness", "surprise"
+    };
+
+    static final int MALE = 0;
+    static final int FEMALE = 1;
+
+    final HyperLogLog viewers;
+    long totalViews;
+    double sessionDurationSum;
+    long sessionDurationCount;
+
+    // Age groups: children, teenagers, youngAdults, midAged, seniors
+    final long[] ageGroups = new long[5];
+    long male;
+    long female;
+    final long[] emotions = new long[EMOTIONS.length];
+
+    // Per-ad counters: [totalViewers, lookYes]
+    final Map<String, long[]> adCounters = new HashMap<>();
+
+    SessionCounters(int sketchPrecision) {
+        this.viewers = new HyperLogLog(sketchPrecision);
+    }
+
+    /**
+     * Count one session_end row
+     *
+     * @param viewerHash {@link HyperLogLog#hash(String)} of the viewer id, ignored if hasViewer is false
+     * @param sessionDuration Session duration in seconds, NaN if unknown
+     * @param ageGroup Age group index, -1 if unknown
+     * @param gender {@link #MALE}, {@link #FEMALE} or -1
+     * @param emotion FER2013 emotion index, -1 if unknown
+     * @param adName Advertisement shown, null or empty if none
+     * @param looking Whether the viewer's engagement counts as looking at the ad
+     */
+    void add(boolean hasViewer, long viewerHash, double sessionDuration, int ageGroup,
+             int gender, int emotion, String adName, boolean looking) {
+        totalViews++;
+        if (hasViewer) {
+            viewers.addHash(viewerHash);
+        }
+        if (!Double.isNaN(sessionDuration)) {
+            sessionDurationSum += sessionDuration;
+            sessionDurationCount++;
+        }
+        if (ageGroup >= 0) {
+            ageGroups[ageGroup]++;
+        }
+        if (gender == MALE) {
+            male++;
+        } else if (gender == FEMALE) {
+            female++;
+        }
+        if (emotion >= 0) {
+            emotions[emotion]++;
+        }
+        if (adName != null && !adName.isEmpty()) {
+            long[] counters = adCounters.computeIfAbsent(adName, k -> new long[2]);
+            counters[0]++;
+            if (looking) {
+                counters[1]++;
+            }
+        }
+    }
+
+    /**
+     * Add another scope's counters (viewer sketches are unioned)
+     */
+    void merge(SessionCounters other) {
+        totalViews += other.totalViews;
+        viewers.merge(other.viewers);
+        sessionDurationSum += other.sessionDurationSum;
+        sessionDurationCount += other.sessionDurationCount;
+
+        for (int i = 0; i < ageGroups.length; i++) {
+            ageGroups[i] += other.ageGroups[i];
+        }
+        male += other.male;
+        female += other.female;
+        for (int i = 0; i < emotions.length; i++) {
+            emotions[i] += other.emotions[i];
+        }
+
+        other.adCounters.forEach((adName, counters) -> {
+            long[] merged = adCounters.computeIfAbsent(adName, k -> new long[2]);
+            merged[0] += counters[0];
+            merged[1] += counters[1];
+        });
+    }
+
+    DashboardAnalytics toDashboardAnalytics() {
+        // Count unique advertisements, default to 12 if no ad data (matches mock data)
+        int totalAds = adCounters.isEmpty() ? 12 : adCounters.size();
+        double avgViewSeconds = sessionDurationCount > 0 ? sessionDurationSum / sessionDurationCount : 0.0;
+
+        return DashboardAnalytics.builder()
+                .totalAudience((int) viewers.estimate())
+                .totalViews((int) totalViews)
+                .totalAds(totalAds)
+                .avgViewSeconds(avgViewSeconds)
+                // Age distribution
+                .children((int) ageGroups[0])
+                .teenagers((int) ageGroups[1])
+                .youngAdults((int) ageGroups[2])
+                .midAged((int) ageGroups[3])
+                .seniors((int) ageGroups[4])
+                // Gender distribution
+                .male((int) male)
+                .female((int) female)
+                // Emotion distribution (FER2013 - 8 emotions)
+                .anger((int) emotions[0])
+                .contempt((int) emotions[1])
+                .disgust((int) emotions[2])
+                .fear((int) emotions[3])
+                .happiness((int) emotions[4])
+                .neutral((int) emotions[5])
+                .sadness((int) emotions[6])
+                .surprise((int) emotions[7])
+                .build();
+    }
+
+    /**
+     * Per-ad analytics, sorted by total viewers descending
+     */
+    List<AdAnalytics> toAdAnalytics() {
+        if (adCounters.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<AdAnalytics> adAnalyticsList = new ArrayList<>(adCounters.size());
+        for (Map.Entry<String, long[]> entry : adCounters.entrySet()) {
+            int totalViewers = (int) entry.getValue()[0];
+            int lookYes = (int) entry.getValue()[1];
+
+            adAnalyticsList.add(AdAnalytics.builder()
+                    .adName(entry.getKey())
+                    .totalViewers(totalViewers)
+                    .lookYes(lookYes)
+                    .lookNo(totalViewers - lookYes)
+                    .build());
+        }
+
+        adAnalyticsList.sort((a, b) -> Integer.compare(b.getTotalViewers(), a.getTotalViewers()));
+        return adAnalyticsList;
+    }
+
+    RollupBucket toRollupBucket(RollupResolution resolution, long bucketStart) {
+        return RollupBucket.builder()
+                .resolution(resolution)
+                .bucketStart(Instant.ofEpochMilli(bucketStart))
+                .dashboard(toDashboardAnalytics())
+                .viewerSketch(viewers.copy())
+                .viewSecondsSum(sessionDurationSum)
+                .viewSecondsCount(sessionDurationCount)
+                .adAnalytics(toAdAnalytics())
+                .build();
+    }
+}
@@ -25,6 +25,8 @@ public class SystemHealthDto {
         private Double currentCpuTemp;
         private Double maxCpuTemp;
         private Double cpuThreshold;
+        // Serialized QuantileSketch of the window's FPS readings (base64 in JSON)
+        private byte[] fpsSketch;
     }
     
     @Data
@@ -32,6 +32,11 @@ public class AdAnalytics {
      */
     private Integer lookNo;
     
+    /**
+     * Accumulated attention time (null when not tracked, e.g. rollup buckets)
+     */
+    private AdAttention attention;
+    
     /**
      * Calculate attention rate
      */
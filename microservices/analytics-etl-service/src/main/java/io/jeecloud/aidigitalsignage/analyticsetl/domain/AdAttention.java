@@ -0,0 +1,145 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.util.Arrays;
+
+/**
+ * Value Object: AdAttention
+ *
+ * Attention time of one advertisement's sessions: summed gaze seconds,
+ * gaze count and session seconds, plus a dwell histogram of gaze seconds
+ * per session. Every part is a plain sum, so windows, parallel slices and
+ * runs merge by addition, like the ad's view counts.
+ *
+ * Sessions without a gaze time or gaze count count as zero (the JSON
+ * parser already defaults them to zero). The number of sessions covered
+ * is the histogram total, so attention tracked from a later run onwards
+ * still yields a correct mean. Not thread-safe.
+ */
+public final class AdAttention {
+
+    /**
+     * Upper bounds (exclusive) of the dwell bins in seconds; the last bin is open-ended
+     */
+    public static final double[] DWELL_BOUNDS_SECONDS = {1, 2, 5, 10, 30, 60};
+
+    public static final int DWELL_BINS = DWELL_BOUNDS_SECONDS.length + 1;
+
+    private double gazeSeconds;
+    private long gazeCount;
+    private double sessionSeconds;
+    private final long[] dwellHistogram;
+
+    public AdAttention() {
+        this.dwellHistogram = new long[DWELL_BINS];
+    }
+
+    private AdAttention(double gazeSeconds, long gazeCount, double sessionSeconds, long[] dwellHistogram) {
+        this.gazeSeconds = gazeSeconds;
+        this.gazeCount = gazeCount;
+        this.sessionSeconds = sessionSeconds;
+        this.dwellHistogram = dwellHistogram;
+    }
+
+    /**
+     * Rebuild accumulated attention, e.g. read back from the service
+     *
+     * @throws IllegalArgumentException if the histogram does not have {@link #DWELL_BINS} bins
+     */
+    public static AdAttention of(double gazeSeconds, long gazeCount, double sessionSeconds, long[] dwellHistogram) {
+        if (dwellHistogram.length != DWELL_BINS) {
+            throw new IllegalArgumentException("Dwell histogram needs " + DWELL_BINS + " bins, got "
+                    + dwellHistogram.length);
+        }
+        return new AdAttention(gazeSeconds, gazeCount, sessionSeconds, dwellHistogram.clone());
+    }
+
+    /**
+     * Count one session
+     *
+     * @param gazeSeconds Total gaze time of the session, NaN if unknown
+     * @param gazeCount Number of gazes, negative if unknown
+     * @param sessionSeconds Session duration, NaN if unknown
+     */
+    public void add(double gazeSeconds, int gazeCount, double sessionSeconds) {
+        double gaze = Double.isNaN(gazeSeconds) ? 0.0 : gazeSeconds;
+        this.gazeSeconds += gaze;
+        if (gazeCount > 0) {
+            this.gazeCount += gazeCount;
+        }
+        if (!Double.isNaN(sessionSeconds)) {
+            this.sessionSeconds += sessionSeconds;
+        }
+        dwellHistogram[dwellBin(gaze)]++;
+    }
+
+    public void merge(AdAttention other) {
+        gazeSeconds += other.gazeSeconds;
+        gazeCount += other.gazeCount;
+        sessionSeconds += other.sessionSeconds;
+        for (int i = 0; i < DWELL_BINS; i++) {
+            dwellHistogram[i] += other.dwellHistogram[i];
+        }
+    }
+
+    public AdAttention copy() {
+        return new AdAttention(gazeSeconds, gazeCount, sessionSeconds, dwellHistogram.clone());
+    }
+
+    /**
+     * Dwell bin of a session's gaze seconds
+     */
+    public static int dwellBin(double gazeSeconds) {
+        int bin = 0;
+        while (bin < DWELL_BOUNDS_SECONDS.length && gazeSeconds >= DWELL_BOUNDS_SECONDS[bin]) {
+            bin++;
+        }
+        return bin;
+    }
+
+    public double getGazeSeconds() {
+        return gazeSeconds;
+    }
+
+    public long getGazeCount() {
+        return gazeCount;
+    }
+
+    public double getSessionSeconds() {
+        return sessionSeconds;
+    }
+
+    /**
+     * Sessions per dwell bin, see {@link #DWELL_BOUNDS_SECONDS}
+     */
+    public long[] getDwellHistogram() {
+        return dwellHistogram.clone();
+    }
+
+    /**
+     * Number of sessions covered
+     */
+    public long getSessions() {
+        return Arrays.stream(dwellHistogram).sum();
+    }
+
+    /**
+     * Mean gaze seconds per session
+     */
+    public double getMeanGazeSeconds() {
+        long sessions = getSessions();
+        return sessions == 0 ? 0.0 : gazeSeconds / sessions;
+    }
+
+    /**
+     * Share of the session time spent looking at the screen (0-1)
+     */
+    public double getAttentionShare() {
+        return sessionSeconds <= 0.0 ? 0.0 : Math.min(gazeSeconds / sessionSeconds, 1.0);
+    }
+
+    @Override
+    public String toString() {
+        return "AdAttention{sessions=" + getSessions() + ", gazeSeconds=" + gazeSeconds
+                + ", gazeCount=" + gazeCount + ", sessionSeconds=" + sessionSeconds + "}";
+    }
+}
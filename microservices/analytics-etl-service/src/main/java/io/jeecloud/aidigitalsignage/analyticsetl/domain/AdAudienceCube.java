@@ -0,0 +1,142 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value Object: AdAudienceCube
+ *
+ * Dense OLAP cube of session_end counts keyed by ad × age group × gender ×
+ * FER2013 emotion, so questions like "which ad do women 20-35 look at" can
+ * be answered without raw events. Ads are dictionary-encoded in order of
+ * first appearance; each ad owns a contiguous block of
+ * {@link #CELLS_PER_AD} cells in two primitive arrays (views, lookYes).
+ *
+ * Every dimension has a trailing "unknown" member, so the cube's marginals
+ * add up to the per-ad totals. Sessions without an ad are not counted,
+ * matching the advertisement analytics. Not thread-safe.
+ */
+public final class AdAudienceCube {
+
+    // Five age groups (children, teenagers, youngAdults, midAged, seniors) + unknown
+    public static final int AGE_GROUPS = 6;
+    // male, female, unknown
+    public static final int GENDERS = 3;
+    // Eight FER2013 emotions + unknown
+    public static final int EMOTIONS = 9;
+
+    public static final int CELLS_PER_AD = AGE_GROUPS * GENDERS * EMOTIONS;
+
+    private final List<String> adNames = new ArrayList<>();
+    private final Map<String, Integer> adIds = new HashMap<>();
+
+    private long[] views = new long[CELLS_PER_AD * 4];
+    private long[] lookYes = new long[CELLS_PER_AD * 4];
+
+    /**
+     * Dictionary id of an ad, assigned on first use
+     */
+    public int adId(String adName) {
+        Integer id = adIds.get(adName);
+        if (id != null) {
+            return id;
+        }
+        int newId = adNames.size();
+        adNames.add(adName);
+        adIds.put(adName, newId);
+        if ((newId + 1) * CELLS_PER_AD > views.length) {
+            views = Arrays.copyOf(views, views.length * 2);
+            lookYes = Arrays.copyOf(lookYes, lookYes.length * 2);
+        }
+        return newId;
+    }
+
+    /**
+     * Count one session
+     *
+     * @param ageGroup Age group index 0-4, -1 if unknown
+     * @param gender 0 male, 1 female, -1 if unknown
+     * @param emotion FER2013 emotion index 0-7, -1 if unknown
+     */
+    public void add(int adId, int ageGroup, int gender, int emotion, boolean looking) {
+        int cell = cell(adId, ageGroup, gender, emotion);
+        views[cell]++;
+        if (looking) {
+            lookYes[cell]++;
+        }
+    }
+
+    /**
+     * Count {@code sessions} sessions of which {@code looking} looked at the ad
+     */
+    public void add(int adId, int ageGroup, int gender, int emotion, long sessions, long looking) {
+        int cell = cell(adId, ageGroup, gender, emotion);
+        views[cell] += sessions;
+        lookYes[cell] += looking;
+    }
+
+    /**
+     * Add another cube's counts (ads are matched by name)
+     */
+    public void merge(AdAudienceCube other) {
+        for (int otherId = 0; otherId < other.adNames.size(); otherId++) {
+            int from = otherId * CELLS_PER_AD;
+            int to = adId(other.adNames.get(otherId)) * CELLS_PER_AD;
+            for (int i = 0; i < CELLS_PER_AD; i++) {
+                views[to + i] += other.views[from + i];
+                lookYes[to + i] += other.lookYes[from + i];
+            }
+        }
+    }
+
+    public AdAudienceCube copy() {
+        AdAudienceCube copy = new AdAudienceCube();
+        copy.merge(this);
+        return copy;
+    }
+
+    public boolean isEmpty() {
+        return adNames.isEmpty();
+    }
+
+    /**
+     * Ad names in dictionary order (the order of {@link #toCells()})
+     */
+    public List<String> getAdNames() {
+        return Collections.unmodifiableList(adNames);
+    }
+
+    /**
+     * Serialize the cells compactly: for each ad in {@link #getAdNames()} order
+     * and each cell (age group major, then gender, then emotion), the views
+     * and lookYes counts as unsigned varints. Empty cells take one byte each.
+     */
+    public byte[] toCells() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(adNames.size() * CELLS_PER_AD * 2);
+        for (int i = 0; i < adNames.size() * CELLS_PER_AD; i++) {
+            writeVarLong(out, views[i]);
+            writeVarLong(out, lookYes[i]);
+        }
+        return out.toByteArray();
+    }
+
+    private static int cell(int adId, int ageGroup, int gender, int emotion) {
+        int age = ageGroup >= 0 ? ageGroup : AGE_GROUPS - 1;
+        int g = gender >= 0 ? gender : GENDERS - 1;
+        int e = emotion >= 0 ? emotion : EMOTIONS - 1;
+        return adId * CELLS_PER_AD + (age * GENDERS + g) * EMOTIONS + e;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
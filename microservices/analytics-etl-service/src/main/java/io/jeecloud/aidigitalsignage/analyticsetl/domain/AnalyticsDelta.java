@@ -0,0 +1,70 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Value Object: AnalyticsDelta
+ * 
+ * What one ETL window adds to the analytics stored by the
+ * digital-signage-service. Counts are deltas the service adds in place,
+ * so the ETL never reads the stored totals back. The exceptions are
+ * state that does not add up: the quantile sketches are the accumulated
+ * distributions (replacing the stored ones) and currentlyWatching is a
+ * gauge.
+ */
+@Data
+@Builder
+public class AnalyticsDelta {
+    
+    /**
+     * Dashboard counts of the window (null if it had no session events)
+     * 
+     * totalAudience is the growth of the unique audience estimate, not the
+     * window's viewer count: viewers already counted by earlier runs are
+     * not added again. avgViewSeconds is the window's average, weighted by
+     * its totalViews when added. The sketches are the accumulated ones.
+     */
+    private DashboardAnalytics dashboard;
+    
+    /**
+     * Per-ad counts and attention time of the window
+     */
+    private List<AdAnalytics> adAnalytics;
+    
+    /**
+     * Minute, hour and day buckets of the window
+     */
+    private List<RollupBucket> rollups;
+    
+    /**
+     * Ad × age group × gender × emotion cube of the window (null or empty if none)
+     */
+    private AdAudienceCube audienceCube;
+    
+    private SystemHealthDto systemHealth;
+    private ResearchMetricsDto researchMetrics;
+    
+    /**
+     * Open viewer sessions after the window (null if sessions are not tracked)
+     */
+    private Integer currentlyWatching;
+    
+    /**
+     * Event range the window was extracted from; the service applies a
+     * batch id only once (null for deltas outside a batch)
+     */
+    private EtlBatch batch;
+    
+    /**
+     * Whether the window changes anything at all
+     */
+    public boolean isEmpty() {
+        return dashboard == null && (adAnalytics == null || adAnalytics.isEmpty())
+                && systemHealth == null && researchMetrics == null && currentlyWatching == null;
+    }
+}
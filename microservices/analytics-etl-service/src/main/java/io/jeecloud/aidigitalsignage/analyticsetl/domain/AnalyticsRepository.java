@@ -1,8 +1,5 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.domain;
 
-import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
-import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
-
 import java.util.List;
 import java.util.Optional;
 
@@ -20,32 +17,44 @@ public interface AnalyticsRepository {
     void clearAllAnalytics();
     
     /**
-     * Get existing dashboard analytics for accumulation mode
+     * Add one window's deltas to the stored analytics
+     * 
+     * The stored totals are updated in place; nothing is read back, so the
+     * cost depends on the window, not on the accumulated history. A delta
+     * whose batch was already applied changes nothing, so a send that timed
+     * out can simply be repeated. An implementation may queue the delta
+     * durably and deliver it later; it is saved once this returns.
      * 
-     * @return Optional containing existing analytics if available
+     * @param delta Window deltas, gauges and accumulated sketches
+     * @return Encoded size of the delta, in bytes
      */
-    Optional<DashboardAnalytics> getExistingDashboardAnalytics();
+    long addAnalytics(AnalyticsDelta delta);
     
     /**
-     * Get existing ad analytics for accumulation mode
+     * Last batch the stored analytics include, or will once queued deltas are delivered
      * 
-     * @return List of existing ad analytics
+     * @return Latest saved batch, or empty if no batch was saved yet
      */
-    List<AdAnalytics> getExistingAdAnalytics();
+    Optional<EtlBatch> findLatestBatch();
     
     /**
-     * Save aggregated dashboard analytics
+     * Replace the stored dashboard and ads with accumulated totals
      * 
-     * @param analytics Dashboard analytics to save
+     * @param totals Accumulated dashboard totals, sketches and currently watching
+     * @param adAnalyticsList Accumulated per-ad totals
+     * @throws IllegalStateException if queued deltas are not delivered yet
      */
-    void saveDashboardAnalytics(DashboardAnalytics analytics);
+    void replaceAnalytics(DashboardAnalytics totals, List<AdAnalytics> adAnalyticsList);
     
     /**
-     * Save advertisement analytics (also sends dashboard analytics)
+     * Deliver queued deltas again after the service refused one for good
+     * 
+     * Until then no delta is saved or delivered and the latest batch cannot
+     * be read, so runs fail instead of going on without the refused window.
      * 
-     * @param adAnalyticsList List of ad analytics
-     * @param systemHealth System health metrics (nullable)
-     * @param researchMetrics Research validation metrics (nullable)
+     * @param discard Drop the refused delta instead of sending it again; the
+     *        stored analytics then lack its window until they are replaced
+     * @throws IllegalStateException if delivery is not blocked
      */
-    void saveAdAnalytics(List<AdAnalytics> adAnalyticsList, SystemHealthDto systemHealth, ResearchMetricsDto researchMetrics);
+    void resumeDelivery(boolean discard);
 }
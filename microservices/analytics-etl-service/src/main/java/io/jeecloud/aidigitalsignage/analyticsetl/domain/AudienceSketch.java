@@ -0,0 +1,53 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Value Object: AudienceSketch
+ * 
+ * Accumulated unique audience across all ETL runs. Viewer ids are folded
+ * into a fixed-size {@link HyperLogLog}, so a viewer seen in several runs
+ * is counted once and memory does not grow with the audience.
+ * 
+ * Dashboards accumulated before the sketch existed only kept a total, so
+ * that total is carried as a baseline and added to the estimate.
+ */
+@Data
+@AllArgsConstructor
+public class AudienceSketch {
+    
+    /**
+     * Viewers accumulated before the sketch was introduced (counted as distinct)
+     */
+    private long baselineAudience;
+    
+    /**
+     * Distinct viewer ids seen since the sketch was introduced
+     */
+    private HyperLogLog viewers;
+    
+    /**
+     * Empty sketch on top of a pre-existing audience total
+     */
+    public static AudienceSketch startingFrom(long baselineAudience) {
+        return new AudienceSketch(baselineAudience, new HyperLogLog());
+    }
+    
+    /**
+     * Union a window's viewers into the accumulated audience
+     */
+    public void merge(HyperLogLog windowViewers) {
+        if (windowViewers != null) {
+            viewers.merge(windowViewers);
+        }
+    }
+    
+    /**
+     * Estimated unique audience over all runs
+     */
+    public int estimateTotalAudience() {
+        return (int) Math.min(Integer.MAX_VALUE, baselineAudience + viewers.estimate());
+    }
+}
@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.domain;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import lombok.Builder;
 import lombok.Data;
 
@@ -18,6 +19,7 @@ public class DashboardAnalytics {
     private Integer totalViews;
     private Integer totalAds;
     private Double avgViewSeconds;
+    private Integer currentlyWatching;  // Open viewer sessions, null if sessions are not tracked
     
     // Age Distribution
     private Integer children;      // 0-12
@@ -39,4 +41,8 @@ public class DashboardAnalytics {
     private Integer neutral;
     private Integer sadness;
     private Integer surprise;
+    
+    // Distributions accumulated over all runs (null when not tracked)
+    private QuantileSketch sessionDurationSketch;
+    private QuantileSketch totalGazeTimeSketch;
 }
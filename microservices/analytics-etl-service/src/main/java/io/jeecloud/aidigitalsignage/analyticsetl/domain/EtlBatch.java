@@ -0,0 +1,95 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Value Object: EtlBatch
+ *
+ * One loaded range of gaze events, (from, to] in (ts, tbname) order. The
+ * id is derived from the range, each stream's positions before and after
+ * it and its event count only, so extracting the same range again yields
+ * the same id. A batch that only advances a lagging stream leaves from and
+ * to equal, and is told apart from the next such batch by its stream
+ * positions. The digital-signage-service
+ * records the ids it has applied and ignores a batch it already has, which
+ * makes re-sending a window after a crash or timeout harmless.
+ */
+@Data
+@AllArgsConstructor
+public class EtlBatch {
+
+    /**
+     * Hex hash of the range, stream positions and event count
+     */
+    private String id;
+
+    /**
+     * Watermark before the batch (null for the first batch)
+     */
+    private EventCursor from;
+
+    /**
+     * Watermark after the batch
+     */
+    private EventCursor to;
+
+    private long eventCount;
+
+    /**
+     * Position of each event stream before the batch, without the streams
+     * that start from the beginning (null on batches of earlier versions)
+     */
+    private Map<EventStream, Instant> fromStreams;
+
+    /**
+     * Position of each event stream after the batch, without the streams
+     * that have no events yet (null on batches of earlier versions)
+     */
+    private Map<EventStream, Instant> toStreams;
+
+    /**
+     * Batch of the events of each stream in (its from position, its to
+     * position], with its deterministic id
+     */
+    public static EtlBatch of(EventCursor from, EventCursor to, Map<EventStream, Instant> fromStreams,
+                              Map<EventStream, Instant> toStreams, long eventCount) {
+        return new EtlBatch(idOf(from, to, fromStreams, toStreams, eventCount), from, to, eventCount,
+                fromStreams, toStreams);
+    }
+
+    private static String idOf(EventCursor from, EventCursor to, Map<EventStream, Instant> fromStreams,
+                               Map<EventStream, Instant> toStreams, long eventCount) {
+        String range = key(from) + "|" + key(to) + "|" + eventCount + "|" + key(fromStreams) + "|" + key(toStreams);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(range.getBytes(StandardCharsets.UTF_8));
+            // 128 bits are plenty to tell the batches of one installation apart
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String key(EventCursor cursor) {
+        if (cursor == null) {
+            return "-";
+        }
+        return cursor.getTimestamp().toEpochMilli() + "/" + (cursor.getTableName() != null ? cursor.getTableName() : "");
+    }
+
+    private static String key(Map<EventStream, Instant> positions) {
+        StringBuilder key = new StringBuilder();
+        for (EventStream stream : EventStream.values()) {
+            Instant position = positions.get(stream);
+            key.append(stream.name()).append('=').append(position != null ? position.toEpochMilli() : "-").append(',');
+        }
+        return key.toString();
+    }
+}
@@ -1,12 +1,14 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.domain;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository Interface: EtlMetadataRepository (Port)
  * 
- * Domain interface for managing ETL metadata (last processed timestamp).
+ * Domain interface for managing ETL metadata (last processed timestamp,
+ * per-stream positions and the run journal).
  * Enables incremental ETL processing.
  */
 public interface EtlMetadataRepository {
@@ -25,4 +27,44 @@ public interface EtlMetadataRepository {
      * @param recordsProcessed Number of records processed
      */
     void updateLastProcessedTimestamp(Instant timestamp, int recordsProcessed);
+    
+    /**
+     * Get the keyset cursor of the last processed row (chunked ETL)
+     * 
+     * @return Last processed cursor, or empty if first run
+     */
+    Optional<EventCursor> getLastProcessedCursor();
+    
+    /**
+     * Update the keyset cursor after a chunk has been loaded
+     * 
+     * @param cursor Cursor of the last row in the loaded chunk
+     * @param recordsProcessed Number of records in the chunk
+     */
+    void updateLastProcessedCursor(EventCursor cursor, int recordsProcessed);
+    
+    /**
+     * Get the position of each event stream (range-scan ETL)
+     * 
+     * Positions advance with the loads that read the streams, see
+     * {@link EtlStateChange#getStreamWatermarks()}.
+     * 
+     * @return Stream positions; streams without one start from the beginning
+     */
+    StreamWatermarks getStreamWatermarks();
+    
+    /**
+     * Append a run to the run journal
+     * 
+     * @param run Finished run, loaded or not
+     */
+    void recordRun(EtlRun run);
+    
+    /**
+     * Get the most recent entries of the run journal
+     * 
+     * @param limit Maximum number of runs
+     * @return Runs, newest first
+     */
+    List<EtlRun> findRecentRuns(int limit);
 }
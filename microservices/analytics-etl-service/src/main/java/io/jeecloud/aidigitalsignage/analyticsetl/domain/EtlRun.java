@@ -0,0 +1,76 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Domain Entity: ETL Run
+ *
+ * One entry of the run journal: what a scheduled or chunked run, or a
+ * streaming flush, read and loaded, how long it took and how far each
+ * event stream trails behind afterwards.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtlRun {
+
+    public static final String LOADED = "loaded";
+    public static final String IDLE = "idle";
+    public static final String FAILED = "failed";
+
+    /**
+     * scheduled, chunked or tmq
+     */
+    private String mode;
+
+    /**
+     * loaded, idle (no new events) or failed
+     */
+    private String status;
+
+    private Instant startedAt;
+
+    private long durationMs;
+
+    /**
+     * Number of batches loaded
+     */
+    private int batches;
+
+    /**
+     * Id of the last batch loaded (null if none)
+     */
+    private String lastBatchId;
+
+    /**
+     * Events read per stream
+     */
+    private Map<EventStream, Long> rows;
+
+    /**
+     * Encoded size of the loaded deltas
+     */
+    private long bytes;
+
+    /**
+     * Stream positions after the run
+     */
+    private Map<EventStream, Instant> watermarks;
+
+    /**
+     * Milliseconds each stream's position trails the end of the run
+     */
+    private Map<EventStream, Long> lagMs;
+
+    /**
+     * Failure message (null unless failed)
+     */
+    private String error;
+}
@@ -0,0 +1,303 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregate: EtlState
+ *
+ * Everything the ETL accumulates across runs, kept locally so loads never
+ * depend on reading the digital-signage-service back: dashboard totals,
+ * per-ad totals with attention time, the unique-audience sketch, the
+ * session duration and gaze time distributions, the open viewer sessions,
+ * the watermark of the last loaded event with the position of each event
+ * stream and of the subscription, and the id of the batch that set it.
+ *
+ * State only changes through {@link #apply(EtlStateChange)}, which is
+ * deterministic, so replaying the same changes over the same snapshot
+ * rebuilds the same state. Totals of state imported from before the store
+ * existed are incomplete; {@link #hasCompleteHistory()} tells them apart.
+ * Not thread-safe.
+ */
+public final class EtlState {
+
+    private final DashboardAnalytics totals;
+    private final Map<String, AdAnalytics> ads;
+    private final AudienceSketch audience;
+    private final SessionDistributions distributions;
+    private final OpenSessions openSessions;
+    private EventCursor watermark;
+    // Own positions of the event streams, the others follow the watermark
+    private final Map<EventStream, Instant> streamWatermarks;
+    // Subscription position after the loaded events (etl.mode=tmq)
+    private final Map<String, Long> subscriptionOffsets;
+    private String lastBatchId;
+    private final boolean completeHistory;
+
+    public EtlState(DashboardAnalytics totals, List<AdAnalytics> ads, AudienceSketch audience,
+                    SessionDistributions distributions, OpenSessions openSessions, EventCursor watermark,
+                    Map<EventStream, Instant> streamWatermarks, Map<String, Long> subscriptionOffsets,
+                    String lastBatchId, boolean completeHistory) {
+        this.totals = totals;
+        this.ads = new TreeMap<>();
+        ads.forEach(ad -> this.ads.put(ad.getAdName(), ad));
+        this.audience = audience;
+        this.distributions = distributions;
+        this.openSessions = openSessions;
+        this.watermark = watermark;
+        this.streamWatermarks = new EnumMap<>(EventStream.class);
+        this.streamWatermarks.putAll(streamWatermarks);
+        this.subscriptionOffsets = new TreeMap<>(subscriptionOffsets);
+        this.lastBatchId = lastBatchId;
+        this.completeHistory = completeHistory;
+    }
+
+    /**
+     * State before the first ETL run
+     */
+    public static EtlState empty() {
+        return new EtlState(zeroTotals(), List.of(), AudienceSketch.startingFrom(0), SessionDistributions.empty(),
+                new OpenSessions(), null, Map.of(), Map.of(), null, true);
+    }
+
+    /**
+     * Fold one committed change into the state
+     */
+    public void apply(EtlStateChange change) {
+        if (change.getViewers() != null) {
+            audience.merge(change.getViewers());
+        }
+        if (change.getDashboard() != null) {
+            addTotals(change.getDashboard());
+        }
+        if (change.getAdAnalytics() != null) {
+            change.getAdAnalytics().forEach(this::addAd);
+        }
+        distributions.merge(change.getDistributions());
+        if (change.getOpenSessions() != null) {
+            openSessions.merge(change.getOpenSessions());
+        }
+        if (change.getOpenSessionCutoffMs() != null) {
+            openSessions.compact(change.getOpenSessionCutoffMs());
+        }
+        if (change.getWatermark() != null) {
+            watermark = change.getWatermark();
+            // Keyset and subscription loads consume every stream up to the
+            // watermark and carry no positions of their own
+            streamWatermarks.clear();
+            if (change.getStreamWatermarks() != null) {
+                streamWatermarks.putAll(change.getStreamWatermarks());
+            }
+        }
+        if (change.getSubscriptionOffsets() != null) {
+            subscriptionOffsets.clear();
+            subscriptionOffsets.putAll(change.getSubscriptionOffsets());
+        }
+        if (change.getBatchId() != null) {
+            lastBatchId = change.getBatchId();
+        }
+        totals.setTotalAudience(audience.estimateTotalAudience());
+    }
+
+    private void addTotals(DashboardAnalytics window) {
+        int views = orZero(totals.getTotalViews()) + orZero(window.getTotalViews());
+        if (views > 0) {
+            double viewSeconds = orZero(totals.getTotalViews()) * orZero(totals.getAvgViewSeconds())
+                    + orZero(window.getTotalViews()) * orZero(window.getAvgViewSeconds());
+            totals.setAvgViewSeconds(viewSeconds / views);
+        }
+        totals.setTotalViews(views);
+        totals.setTotalAds(Math.max(orZero(totals.getTotalAds()), orZero(window.getTotalAds())));
+        totals.setChildren(orZero(totals.getChildren()) + orZero(window.getChildren()));
+        totals.setTeenagers(orZero(totals.getTeenagers()) + orZero(window.getTeenagers()));
+        totals.setYoungAdults(orZero(totals.getYoungAdults()) + orZero(window.getYoungAdults()));
+        totals.setMidAged(orZero(totals.getMidAged()) + orZero(window.getMidAged()));
+        totals.setSeniors(orZero(totals.getSeniors()) + orZero(window.getSeniors()));
+        totals.setMale(orZero(totals.getMale()) + orZero(window.getMale()));
+        totals.setFemale(orZero(totals.getFemale()) + orZero(window.getFemale()));
+        totals.setAnger(orZero(totals.getAnger()) + orZero(window.getAnger()));
+        totals.setContempt(orZero(totals.getContempt()) + orZero(window.getContempt()));
+        totals.setDisgust(orZero(totals.getDisgust()) + orZero(window.getDisgust()));
+        totals.setFear(orZero(totals.getFear()) + orZero(window.getFear()));
+        totals.setHappiness(orZero(totals.getHappiness()) + orZero(window.getHappiness()));
+        totals.setNeutral(orZero(totals.getNeutral()) + orZero(window.getNeutral()));
+        totals.setSadness(orZero(totals.getSadness()) + orZero(window.getSadness()));
+        totals.setSurprise(orZero(totals.getSurprise()) + orZero(window.getSurprise()));
+    }
+
+    private void addAd(AdAnalytics window) {
+        AdAnalytics ad = ads.get(window.getAdName());
+        if (ad == null) {
+            ads.put(window.getAdName(), copyOf(window));
+            return;
+        }
+        ad.setTotalViewers(orZero(ad.getTotalViewers()) + orZero(window.getTotalViewers()));
+        ad.setLookYes(orZero(ad.getLookYes()) + orZero(window.getLookYes()));
+        ad.setLookNo(orZero(ad.getLookNo()) + orZero(window.getLookNo()));
+        if (window.getAttention() != null) {
+            if (ad.getAttention() == null) {
+                ad.setAttention(window.getAttention().copy());
+            } else {
+                ad.getAttention().merge(window.getAttention());
+            }
+        }
+    }
+
+    /**
+     * Deep copy, e.g. to preview a change before it is committed
+     */
+    public EtlState copy() {
+        return new EtlState(copyOf(totals), ads.values().stream().map(EtlState::copyOf).toList(),
+                new AudienceSketch(audience.getBaselineAudience(), audience.getViewers().copy()),
+                distributions.copy(), openSessions.copy(), watermark, streamWatermarks, subscriptionOffsets,
+                lastBatchId, completeHistory);
+    }
+
+    /**
+     * Accumulated dashboard totals; totalAudience is the audience estimate
+     * and the sketches are the accumulated distributions
+     */
+    public DashboardAnalytics getTotals() {
+        DashboardAnalytics copy = copyOf(totals);
+        copy.setSessionDurationSketch(distributions.getSessionDuration().copy());
+        copy.setTotalGazeTimeSketch(distributions.getTotalGazeTime().copy());
+        return copy;
+    }
+
+    /**
+     * Accumulated per-ad totals, most viewers first
+     */
+    public List<AdAnalytics> getAdAnalytics() {
+        List<AdAnalytics> result = new ArrayList<>();
+        ads.values().forEach(ad -> result.add(copyOf(ad)));
+        result.sort(Comparator.comparing((AdAnalytics ad) -> orZero(ad.getTotalViewers())).reversed());
+        return result;
+    }
+
+    public AudienceSketch getAudience() {
+        return audience;
+    }
+
+    public SessionDistributions getDistributions() {
+        return distributions;
+    }
+
+    public OpenSessions getOpenSessions() {
+        return openSessions;
+    }
+
+    /**
+     * Position after the last loaded event (null before the first run)
+     */
+    public EventCursor getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Position of each event stream; a stream without its own position
+     * follows the watermark
+     */
+    public StreamWatermarks getStreamWatermarks() {
+        Instant shared = watermark != null ? watermark.getTimestamp() : null;
+        Map<EventStream, Instant> positions = new EnumMap<>(EventStream.class);
+        for (EventStream stream : EventStream.values()) {
+            Instant own = streamWatermarks.get(stream);
+            positions.put(stream, own != null ? own : shared);
+        }
+        return StreamWatermarks.of(positions);
+    }
+
+    /**
+     * Own positions of the event streams, as stored
+     */
+    public Map<EventStream, Instant> getOwnStreamWatermarks() {
+        return Map.copyOf(streamWatermarks);
+    }
+
+    /**
+     * Subscription position after the loaded events, by partition (empty
+     * if the subscription never loaded a window)
+     */
+    public Map<String, Long> getSubscriptionOffsets() {
+        return Map.copyOf(subscriptionOffsets);
+    }
+
+    /**
+     * Id of the last batch loaded into the digital-signage-service (null
+     * before the first batch and for state of earlier versions)
+     */
+    public String getLastBatchId() {
+        return lastBatchId;
+    }
+
+    /**
+     * Whether the totals cover every loaded event, i.e. the state was not
+     * imported from the metadata file of an earlier version
+     */
+    public boolean hasCompleteHistory() {
+        return completeHistory;
+    }
+
+    private static DashboardAnalytics zeroTotals() {
+        return DashboardAnalytics.builder()
+                .totalAudience(0).totalViews(0).totalAds(0).avgViewSeconds(0.0)
+                .children(0).teenagers(0).youngAdults(0).midAged(0).seniors(0)
+                .male(0).female(0)
+                .anger(0).contempt(0).disgust(0).fear(0).happiness(0).neutral(0).sadness(0).surprise(0)
+                .build();
+    }
+
+    private static DashboardAnalytics copyOf(DashboardAnalytics dashboard) {
+        return DashboardAnalytics.builder()
+                .totalAudience(dashboard.getTotalAudience())
+                .totalViews(dashboard.getTotalViews())
+                .totalAds(dashboard.getTotalAds())
+                .avgViewSeconds(dashboard.getAvgViewSeconds())
+                .children(dashboard.getChildren())
+                .teenagers(dashboard.getTeenagers())
+                .youngAdults(dashboard.getYoungAdults())
+                .midAged(dashboard.getMidAged())
+                .seniors(dashboard.getSeniors())
+                .male(dashboard.getMale())
+                .female(dashboard.getFemale())
+                .anger(dashboard.getAnger())
+                .contempt(dashboard.getContempt())
+                .disgust(dashboard.getDisgust())
+                .fear(dashboard.getFear())
+                .happiness(dashboard.getHappiness())
+                .neutral(dashboard.getNeutral())
+                .sadness(dashboard.getSadness())
+                .surprise(dashboard.getSurprise())
+                .build();
+    }
+
+    private static AdAnalytics copyOf(AdAnalytics ad) {
+        return AdAnalytics.builder()
+                .adName(ad.getAdName())
+                .totalViewers(ad.getTotalViewers())
+                .lookYes(ad.getLookYes())
+                .lookNo(ad.getLookNo())
+                .attention(ad.getAttention() != null ? ad.getAttention().copy() : null)
+                .build();
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "EtlState{audience=" + totals.getTotalAudience() + ", views=" + totals.getTotalViews()
+                + ", ads=" + ads.size() + ", watermark=" + watermark + ", streams=" + streamWatermarks
+                + ", offsets=" + subscriptionOffsets + ", lastBatch=" + lastBatchId + ", completeHistory=" + completeHistory + "}";
+    }
+}
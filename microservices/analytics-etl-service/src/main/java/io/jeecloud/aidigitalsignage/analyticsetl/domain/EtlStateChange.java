@@ -0,0 +1,82 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value Object: EtlStateChange
+ * 
+ * One committed step of the local ETL state: the counts and mergeable
+ * sketches of a loaded window, a new watermark, or both. The state store
+ * appends changes to its log and replays them through
+ * {@link EtlState#apply(EtlStateChange)}, so a change only ever holds the
+ * window's own values, never accumulated ones.
+ */
+@Data
+@Builder
+public class EtlStateChange {
+    
+    /**
+     * Dashboard counts of the window (null if it had no session events)
+     */
+    private DashboardAnalytics dashboard;
+    
+    /**
+     * Per-ad counts and attention time of the window
+     */
+    private List<AdAnalytics> adAnalytics;
+    
+    /**
+     * Viewers of the window (null if none)
+     */
+    private HyperLogLog viewers;
+    
+    /**
+     * Session duration and gaze time distributions of the window (null if none)
+     */
+    private SessionDistributions distributions;
+    
+    /**
+     * Session starts and ends of the window (null if sessions are not tracked)
+     */
+    private OpenSessions openSessions;
+    
+    /**
+     * Open sessions whose latest start is older time out (null to keep all)
+     */
+    private Long openSessionCutoffMs;
+    
+    /**
+     * New watermark (null keeps the current one)
+     */
+    private EventCursor watermark;
+    
+    /**
+     * Position of each event stream, set with the watermark (null: every
+     * stream follows the watermark)
+     */
+    private Map<EventStream, Instant> streamWatermarks;
+    
+    /**
+     * Subscription position after the window's events, by partition (null
+     * keeps the current one)
+     */
+    private Map<String, Long> subscriptionOffsets;
+    
+    /**
+     * Id of the batch the change loaded (null if not from a batch)
+     */
+    private String batchId;
+    
+    /**
+     * Change that only advances the watermark
+     */
+    public static EtlStateChange watermark(EventCursor watermark) {
+        return EtlStateChange.builder().watermark(watermark).build();
+    }
+}
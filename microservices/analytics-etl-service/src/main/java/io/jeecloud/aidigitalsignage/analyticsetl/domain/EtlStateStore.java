@@ -0,0 +1,23 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+/**
+ * Repository Interface: EtlStateStore (Port)
+ * 
+ * Durable local store of the accumulated ETL state and its watermark.
+ * A change is durable once {@link #commit(EtlStateChange)} returns; a
+ * crash at any point leaves the state of the last completed commit.
+ */
+public interface EtlStateStore {
+    
+    /**
+     * Current state (a copy, changes to it are not stored)
+     */
+    EtlState current();
+    
+    /**
+     * Durably apply a change to the stored state
+     * 
+     * @param change Window counts and sketches and/or a new watermark
+     */
+    void commit(EtlStateChange change);
+}
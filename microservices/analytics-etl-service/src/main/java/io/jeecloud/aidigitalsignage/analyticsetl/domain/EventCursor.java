@@ -0,0 +1,38 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Value Object: EventCursor
+ * 
+ * Keyset position in the gaze_events super table, ordered by (ts, tbname).
+ * Used by chunked ETL to walk the backlog page by page and to resume
+ * exactly after the last row that was loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventCursor {
+    
+    /**
+     * Timestamp of the last processed row
+     */
+    private Instant timestamp;
+    
+    /**
+     * Child table name of the last processed row.
+     * Null means every row at {@code timestamp} has been processed.
+     */
+    private String tableName;
+    
+    /**
+     * Cursor positioned after the given event
+     */
+    public static EventCursor after(GazeEvent event) {
+        return new EventCursor(event.getTimestamp(), event.getSourceTable());
+    }
+}
@@ -0,0 +1,44 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.util.List;
+
+/**
+ * Value Object: EventStream
+ *
+ * Independently written part of the gaze event source: session events and
+ * heartbeats are sent by different components at different rates (the
+ * typed layout keeps them in separate super tables), so one can lag behind
+ * the other. Each stream has its own watermark, see {@link StreamWatermarks}.
+ */
+public enum EventStream {
+
+    /**
+     * gaze_start, session_end and shutdown_session_end events
+     */
+    SESSIONS(List.of("gaze_start", "session_end", "shutdown_session_end")),
+
+    /**
+     * heartbeat events (system health and research metrics)
+     */
+    HEARTBEATS(List.of("heartbeat"));
+
+    private final List<String> eventTypes;
+
+    EventStream(List<String> eventTypes) {
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * evt_type values of the stream's events
+     */
+    public List<String> eventTypes() {
+        return eventTypes;
+    }
+
+    /**
+     * Stream an event type belongs to
+     */
+    public static EventStream of(String eventType) {
+        return HEARTBEATS.eventTypes.contains(eventType) ? HEARTBEATS : SESSIONS;
+    }
+}
@@ -30,6 +30,12 @@ public class GazeEvent {
      */
     private String eventType;
     
+    /**
+     * TDengine child table the event was read from (tbname).
+     * Together with the timestamp this forms the keyset cursor for chunked ETL.
+     */
+    private String sourceTable;
+    
     /**
      * Unique viewer identifier (from face recognition)
      */
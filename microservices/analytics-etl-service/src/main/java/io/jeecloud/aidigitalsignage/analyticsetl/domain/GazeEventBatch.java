@@ -0,0 +1,560 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value Object: GazeEventBatch
+ *
+ * Columnar (struct-of-arrays) block of gaze_start, session end and
+ * heartbeat events. Each kind of event has its own column group, so
+ * session rows carry no empty heartbeat fields and vice versa; session_end
+ * and shutdown_session_end share the session columns. Numbers are stored in primitive
+ * arrays with a null bitmap per column; strings are dictionary-encoded
+ * into int codes shared across all string columns of the batch.
+ *
+ * Within each column group rows keep the order they were read in, which
+ * is (ts, tbname) order for keyset pages. A batch can be cleared and
+ * refilled, so streaming extraction reuses the same arrays per block.
+ * Not thread-safe for writes; once filled, a batch can be read by several
+ * threads as long as nobody appends to or clears it.
+ */
+public final class GazeEventBatch {
+
+    /**
+     * Dictionary code of a null string
+     */
+    public static final int NULL_CODE = -1;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    private final SessionColumns sessions;
+    private final HeartbeatColumns heartbeats;
+    private final StartColumns starts;
+
+    public GazeEventBatch(int capacity) {
+        int initial = Math.max(capacity, 16);
+        this.sessions = new SessionColumns(initial);
+        this.heartbeats = new HeartbeatColumns(initial);
+        // gaze_start rows only carry a viewer id; most pages have few of them
+        this.starts = new StartColumns(16);
+    }
+
+    /**
+     * Columnar copy of row-oriented events (adapter for list-based sources)
+     */
+    public static GazeEventBatch of(List<GazeEvent> events) {
+        GazeEventBatch batch = new GazeEventBatch(events.size());
+        for (GazeEvent event : events) {
+            batch.append(event);
+        }
+        return batch;
+    }
+
+    public SessionColumns sessions() {
+        return sessions;
+    }
+
+    public HeartbeatColumns heartbeats() {
+        return heartbeats;
+    }
+
+    public StartColumns starts() {
+        return starts;
+    }
+
+    /**
+     * Total number of events in all column groups
+     */
+    public int size() {
+        return sessions.size + heartbeats.size + starts.size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Drop all rows and dictionary entries, keeping the allocated arrays
+     */
+    public void clear() {
+        sessions.size = 0;
+        heartbeats.size = 0;
+        starts.size = 0;
+        dictionary.clear();
+        codes.clear();
+    }
+
+    // === STRING DICTIONARY ===
+
+    /**
+     * Dictionary code for a string, adding it if new (null maps to {@link #NULL_CODE})
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Dictionary code of an existing string, or {@link #NULL_CODE} if absent
+     */
+    public int codeOf(String value) {
+        Integer code = value != null ? codes.get(value) : null;
+        return code != null ? code : NULL_CODE;
+    }
+
+    /**
+     * String for a dictionary code (null for {@link #NULL_CODE})
+     */
+    public String decode(int code) {
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    /**
+     * Number of distinct strings in the batch (codes are 0..size-1)
+     */
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    // === APPEND ===
+
+    /**
+     * Append a row-oriented event to the column group of its event type
+     */
+    public void append(GazeEvent event) {
+        long ts = event.getTimestamp().toEpochMilli();
+
+        if ("heartbeat".equals(event.getEventType())) {
+            int row = heartbeats.appendRow(ts, encode(event.getSourceTable()));
+            heartbeats.fps.set(row, event.getFps());
+            heartbeats.cpuTemp.set(row, event.getCpuTemp());
+            heartbeats.uptime.set(row, event.getUptime());
+            heartbeats.temperature.set(row, event.getTemperature());
+            heartbeats.humidity.set(row, event.getHumidity());
+            heartbeats.pressure.set(row, event.getPressure());
+            heartbeats.gasResistance.set(row, event.getGasResistance());
+            heartbeats.noise.set(row, event.getNoise());
+            heartbeats.kptsValidPercent.set(row, event.getKptsValidPercent());
+            heartbeats.solvepnpSuccessPercent.set(row, event.getSolvepnpSuccessPercent());
+            heartbeats.fallbackPercent.set(row, event.getFallbackPercent());
+            heartbeats.facesInFrame.set(row, event.getFacesInFrame());
+            heartbeats.faceConfidence.set(row, event.getFaceConfidence());
+        } else if ("gaze_start".equals(event.getEventType())) {
+            int row = starts.appendRow(ts, encode(event.getSourceTable()));
+            starts.viewerId.set(row, encode(event.getViewerId()));
+        } else {
+            int row = sessions.appendRow(ts, encode(event.getSourceTable()));
+            sessions.viewerId.set(row, encode(event.getViewerId()));
+            sessions.totalGazeTime.set(row, event.getTotalGazeTime());
+            sessions.sessionDuration.set(row, event.getSessionDuration());
+            sessions.gazeCount.set(row, event.getGazeCount());
+            sessions.engagementRate.set(row, event.getEngagementRate());
+            sessions.age.set(row, event.getAge());
+            sessions.gender.set(row, encode(event.getGender()));
+            sessions.emotion.set(row, encode(event.getEmotion()));
+            sessions.adName.set(row, encode(event.getAdName()));
+        }
+    }
+
+    // === KEYSET ===
+
+    /**
+     * Cursor after the last row in (ts, tbname) order (null if empty)
+     */
+    public EventCursor lastCursor() {
+        EventColumns last = null;
+        for (EventColumns group : groups()) {
+            if (group.size > 0 && (last == null || compareKeys(group, group.size - 1, last, last.size - 1) > 0)) {
+                last = group;
+            }
+        }
+        if (last == null) {
+            return null;
+        }
+        int row = last.size - 1;
+        return new EventCursor(Instant.ofEpochMilli(last.timestamps[row]), decode(last.sourceTable.code(row)));
+    }
+
+    /**
+     * Keep only the first {@code limit} rows of the combined (ts, tbname) order
+     *
+     * Every column group must already be sorted by (ts, tbname), as keyset
+     * pages are. Used to trim per-table pages into one page.
+     */
+    public void retainFirst(int limit) {
+        if (size() <= limit) {
+            return;
+        }
+
+        EventColumns[] groups = groups();
+        int[] kept = new int[groups.length];
+        for (int taken = 0; taken < limit; taken++) {
+            // Take the smallest next row of any group
+            int next = -1;
+            for (int g = 0; g < groups.length; g++) {
+                if (kept[g] < groups[g].size && (next < 0
+                        || compareKeys(groups[g], kept[g], groups[next], kept[next]) < 0)) {
+                    next = g;
+                }
+            }
+            kept[next]++;
+        }
+
+        for (int g = 0; g < groups.length; g++) {
+            groups[g].size = kept[g];
+        }
+    }
+
+    /**
+     * Column groups in tie-break order: sessions before heartbeats before starts
+     */
+    private EventColumns[] groups() {
+        return new EventColumns[]{sessions, heartbeats, starts};
+    }
+
+    private int compareKeys(EventColumns a, int rowA, EventColumns b, int rowB) {
+        return compareKeys(a.timestamps[rowA], a.sourceTable.code(rowA), b.timestamps[rowB], b.sourceTable.code(rowB));
+    }
+
+    private int compareKeys(long tsA, int tableA, long tsB, int tableB) {
+        int byTs = Long.compare(tsA, tsB);
+        if (byTs != 0) {
+            return byTs;
+        }
+        String a = decode(tableA);
+        String b = decode(tableB);
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    // === COLUMN GROUPS ===
+
+    /**
+     * Rows and columns shared by all event types
+     */
+    public abstract static class EventColumns {
+
+        int size;
+        long[] timestamps;
+        public final StringColumn sourceTable;
+
+        private final List<Column> columns = new ArrayList<>();
+
+        EventColumns(int capacity) {
+            this.timestamps = new long[capacity];
+            this.sourceTable = register(new StringColumn(capacity));
+        }
+
+        final <C extends Column> C register(C column) {
+            columns.add(column);
+            return column;
+        }
+
+        /**
+         * Start a new row with every nullable column set to null
+         *
+         * @return Index of the new row
+         */
+        public int appendRow(long timestampMs, int sourceTableCode) {
+            int row = size;
+            if (row == timestamps.length) {
+                int capacity = timestamps.length * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                for (Column column : columns) {
+                    column.grow(capacity);
+                }
+            }
+            for (Column column : columns) {
+                column.setNull(row);
+            }
+            timestamps[row] = timestampMs;
+            sourceTable.set(row, sourceTableCode);
+            size = row + 1;
+            return row;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Event timestamps in epoch milliseconds (valid up to {@link #size()})
+         */
+        public long[] timestamps() {
+            return timestamps;
+        }
+    }
+
+    /**
+     * session_end and shutdown_session_end columns
+     */
+    public static final class SessionColumns extends EventColumns {
+
+        public final StringColumn viewerId;
+        public final DoubleColumn totalGazeTime;
+        public final DoubleColumn sessionDuration;
+        public final IntColumn gazeCount;
+        public final DoubleColumn engagementRate;
+        public final IntColumn age;
+        public final StringColumn gender;
+        public final StringColumn emotion;
+        public final StringColumn adName;
+
+        SessionColumns(int capacity) {
+            super(capacity);
+            viewerId = register(new StringColumn(capacity));
+            totalGazeTime = register(new DoubleColumn(capacity));
+            sessionDuration = register(new DoubleColumn(capacity));
+            gazeCount = register(new IntColumn(capacity));
+            engagementRate = register(new DoubleColumn(capacity));
+            age = register(new IntColumn(capacity));
+            gender = register(new StringColumn(capacity));
+            emotion = register(new StringColumn(capacity));
+            adName = register(new StringColumn(capacity));
+        }
+    }
+
+    /**
+     * heartbeat columns
+     */
+    public static final class HeartbeatColumns extends EventColumns {
+
+        public final DoubleColumn fps;
+        public final DoubleColumn cpuTemp;
+        public final LongColumn uptime;
+        public final DoubleColumn temperature;
+        public final DoubleColumn humidity;
+        public final DoubleColumn pressure;
+        public final DoubleColumn gasResistance;
+        public final DoubleColumn noise;
+        public final DoubleColumn kptsValidPercent;
+        public final DoubleColumn solvepnpSuccessPercent;
+        public final DoubleColumn fallbackPercent;
+        public final IntColumn facesInFrame;
+        public final DoubleColumn faceConfidence;
+
+        HeartbeatColumns(int capacity) {
+            super(capacity);
+            fps = register(new DoubleColumn(capacity));
+            cpuTemp = register(new DoubleColumn(capacity));
+            uptime = register(new LongColumn(capacity));
+            temperature = register(new DoubleColumn(capacity));
+            humidity = register(new DoubleColumn(capacity));
+            pressure = register(new DoubleColumn(capacity));
+            gasResistance = register(new DoubleColumn(capacity));
+            noise = register(new DoubleColumn(capacity));
+            kptsValidPercent = register(new DoubleColumn(capacity));
+            solvepnpSuccessPercent = register(new DoubleColumn(capacity));
+            fallbackPercent = register(new DoubleColumn(capacity));
+            facesInFrame = register(new IntColumn(capacity));
+            faceConfidence = register(new DoubleColumn(capacity));
+        }
+    }
+
+    /**
+     * gaze_start columns
+     */
+    public static final class StartColumns extends EventColumns {
+
+        public final StringColumn viewerId;
+
+        StartColumns(int capacity) {
+            super(capacity);
+            viewerId = register(new StringColumn(capacity));
+        }
+    }
+
+    // === COLUMNS ===
+
+    /**
+     * A single column of a column group
+     */
+    public abstract static class Column {
+
+        abstract void grow(int capacity);
+
+        abstract void setNull(int row);
+    }
+
+    /**
+     * Primitive column with a null bitmap (one bit per row)
+     */
+    public abstract static class NullableColumn extends Column {
+
+        private long[] present;
+
+        NullableColumn(int capacity) {
+            this.present = new long[words(capacity)];
+        }
+
+        public final boolean isPresent(int row) {
+            return (present[row >>> 6] & (1L << row)) != 0;
+        }
+
+        final void markPresent(int row) {
+            present[row >>> 6] |= 1L << row;
+        }
+
+        @Override
+        void grow(int capacity) {
+            present = Arrays.copyOf(present, words(capacity));
+        }
+
+        @Override
+        final void setNull(int row) {
+            present[row >>> 6] &= ~(1L << row);
+        }
+
+        private static int words(int capacity) {
+            return (capacity + 63) >>> 6;
+        }
+    }
+
+    public static final class DoubleColumn extends NullableColumn {
+
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            super(capacity);
+            this.values = new double[capacity];
+        }
+
+        /**
+         * Value at a row (0.0 when null; check {@link #isPresent(int)})
+         */
+        public double get(int row) {
+            return values[row];
+        }
+
+        public void set(int row, double value) {
+            values[row] = value;
+            markPresent(row);
+        }
+
+        public void set(int row, Double value) {
+            if (value != null) {
+                set(row, value.doubleValue());
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    public static final class IntColumn extends NullableColumn {
+
+        private int[] values;
+
+        IntColumn(int capacity) {
+            super(capacity);
+            this.values = new int[capacity];
+        }
+
+        /**
+         * Value at a row (0 when null; check {@link #isPresent(int)})
+         */
+        public int get(int row) {
+            return values[row];
+        }
+
+        public void set(int row, int value) {
+            values[row] = value;
+            markPresent(row);
+        }
+
+        public void set(int row, Integer value) {
+            if (value != null) {
+                set(row, value.intValue());
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    public static final class LongColumn extends NullableColumn {
+
+        private long[] values;
+
+        LongColumn(int capacity) {
+            super(capacity);
+            this.values = new long[capacity];
+        }
+
+        /**
+         * Value at a row (0 when null; check {@link #isPresent(int)})
+         */
+        public long get(int row) {
+            return values[row];
+        }
+
+        public void set(int row, long value) {
+            values[row] = value;
+            markPresent(row);
+        }
+
+        public void set(int row, Long value) {
+            if (value != null) {
+                set(row, value.longValue());
+            }
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Dictionary-encoded string column ({@link #NULL_CODE} marks null)
+     */
+    public static final class StringColumn extends Column {
+
+        private int[] codes;
+
+        StringColumn(int capacity) {
+            this.codes = new int[capacity];
+        }
+
+        public int code(int row) {
+            return codes[row];
+        }
+
+        public void set(int row, int code) {
+            codes[row] = code;
+        }
+
+        @Override
+        void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void setNull(int row) {
+            codes[row] = NULL_CODE;
+        }
+    }
+}
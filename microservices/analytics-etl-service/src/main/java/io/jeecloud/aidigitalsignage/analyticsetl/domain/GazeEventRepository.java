@@ -2,6 +2,8 @@ package io.jeecloud.aidigitalsignage.analyticsetl.domain;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository Interface: GazeEventRepository (Port)
@@ -56,4 +58,134 @@ public interface GazeEventRepository {
      * @return List of heartbeat events
      */
     List<GazeEvent> findHeartbeatEventsAfter(Instant afterTimestamp);
+    
+    /**
+     * Stream session_end and heartbeat events row by row in a single scan
+     * 
+     * Each event is handed to the consumer as soon as it is read from the
+     * result set, in ascending timestamp order. No list is materialized.
+     * Callers dispatch on {@link GazeEvent#getEventType()}.
+     * 
+     * @param afterTimestamp Only stream events after this timestamp (null = all events)
+     * @param consumer Receives each event
+     * @return Number of events streamed
+     */
+    default long streamEventsAfter(Instant afterTimestamp, Consumer<GazeEvent> consumer) {
+        return streamEventsBetween(StreamWatermarks.uniform(afterTimestamp), StreamWatermarks.uniform(null), consumer);
+    }
+    
+    /**
+     * Stream session_end and heartbeat events in the window (after, upTo]
+     * 
+     * Each {@link EventStream} starts strictly after its own watermark, so
+     * a lagging stream is read from where it left off without re-reading
+     * the others. Windows that do not overlap can be streamed concurrently
+     * on separate connections, which is how parallel time-sliced extraction
+     * works.
+     * 
+     * @param after Only stream events of each stream after its watermark (null position = unbounded)
+     * @param upTo Only stream events of each stream up to and including its position (null position = unbounded)
+     * @param consumer Receives each event
+     * @return Number of events streamed
+     */
+    long streamEventsBetween(StreamWatermarks after, StreamWatermarks upTo, Consumer<GazeEvent> consumer);
+    
+    /**
+     * Timestamp of the oldest session_end or heartbeat event after the given one
+     * 
+     * @param afterTimestamp Only consider events after this timestamp (null = all events)
+     * @return Oldest pending event timestamp, or empty if there is none
+     */
+    Optional<Instant> findFirstEventTimestampAfter(Instant afterTimestamp);
+    
+    /**
+     * Timestamp of the oldest event of any stream after that stream's watermark
+     * 
+     * @param after Only consider each stream's events after its watermark
+     * @return Oldest pending event timestamp, or empty if there is none
+     */
+    Optional<Instant> findFirstEventTimestampAfter(StreamWatermarks after);
+    
+    /**
+     * Extract one keyset page of session_end and heartbeat events
+     * 
+     * Rows are ordered by (ts, tbname) and start strictly after the cursor,
+     * so consecutive pages never overlap or skip rows sharing a timestamp.
+     * 
+     * @param after Cursor of the last processed row (null = from the beginning)
+     * @param pageSize Maximum number of events to return
+     * @return Events in keyset order, at most pageSize
+     */
+    List<GazeEvent> findEventPage(EventCursor after, int pageSize);
+    
+    /**
+     * Extract one keyset page of session_end and heartbeat events as a columnar batch
+     *
+     * Same rows as {@link #findEventPage(EventCursor, int)}; the next cursor
+     * is {@link GazeEventBatch#lastCursor()}. The default adapts the list page,
+     * implementations override it to fill the columns straight from the result set.
+     *
+     * @param after Cursor of the last processed row (null = from the beginning)
+     * @param pageSize Maximum number of events to return
+     * @return Columnar page, at most pageSize events
+     */
+    default GazeEventBatch findEventBatch(EventCursor after, int pageSize) {
+        return GazeEventBatch.of(findEventPage(after, pageSize));
+    }
+    
+    /**
+     * Stream session_end and heartbeat events in (after, upTo] as columnar batches
+     *
+     * Events are appended to one reusable batch, which is handed to the
+     * consumer every batchSize events and then cleared. Consumers must not
+     * keep a reference to the batch after returning.
+     *
+     * @param after Only stream events of each stream after its watermark (null position = unbounded)
+     * @param upTo Only stream events of each stream up to and including its position (null position = unbounded)
+     * @param batchSize Events per batch
+     * @param consumer Receives each filled batch
+     * @return Number of events streamed
+     */
+    default long streamEventBatchesBetween(StreamWatermarks after, StreamWatermarks upTo, int batchSize,
+                                           Consumer<GazeEventBatch> consumer) {
+        GazeEventBatch batch = new GazeEventBatch(batchSize);
+        long count = streamEventsBetween(after, upTo, event -> {
+            batch.append(event);
+            if (batch.size() >= batchSize) {
+                consumer.accept(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        return count;
+    }
+    
+    /**
+     * Aggregate session_end events in (after, upTo] inside the source database
+     * 
+     * Implementations whose storage layout allows it push COUNT/AVG/GROUP BY
+     * down into the query and return only aggregate rows. Layouts that cannot
+     * aggregate at the source return empty and callers fall back to streaming.
+     * 
+     * @param after Only aggregate events after this timestamp (null = all events)
+     * @param upTo Only aggregate events up to and including this timestamp
+     * @return Aggregate, empty if pushdown is not supported
+     */
+    default Optional<SessionAggregate> aggregateSessionEvents(Instant after, Instant upTo) {
+        return Optional.empty();
+    }
+    
+    /**
+     * Aggregate heartbeat events in (after, upTo] inside the source database
+     * 
+     * @param after Only aggregate events after this timestamp (null = all events)
+     * @param upTo Only aggregate events up to and including this timestamp
+     * @return Aggregate, empty if pushdown is not supported
+     * @see #aggregateSessionEvents(Instant, Instant)
+     */
+    default Optional<HeartbeatAggregate> aggregateHeartbeatEvents(Instant after, Instant upTo) {
+        return Optional.empty();
+    }
 }
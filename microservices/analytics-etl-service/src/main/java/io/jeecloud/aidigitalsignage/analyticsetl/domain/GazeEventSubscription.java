@@ -0,0 +1,50 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Subscription Interface: GazeEventSubscription (Port)
+ * 
+ * Push-style source of gaze events, delivered as they are written.
+ * Unlike {@link GazeEventRepository} there are no range queries: the
+ * subscription keeps its own position, and {@link #commit()} makes the
+ * events delivered so far the checkpoint to resume from after a restart.
+ * A consumer that keeps its own checkpoint stores {@link #position()}
+ * with it and hands it back through {@link #seek(Map)} on restart.
+ * 
+ * Implementations are used from a single thread.
+ */
+public interface GazeEventSubscription {
+    
+    /**
+     * Wait up to the given timeout for new events
+     * 
+     * @param timeout Maximum time to block when no events are available
+     * @param consumer Receives each delivered event
+     * @return Number of events delivered
+     */
+    int poll(Duration timeout, Consumer<GazeEvent> consumer);
+    
+    /**
+     * Commit the position of every event delivered so far
+     */
+    void commit();
+    
+    /**
+     * Position after every event delivered so far, by partition
+     */
+    Map<String, Long> position();
+    
+    /**
+     * Resume from a position returned by {@link #position()} instead of the
+     * committed one; partitions it does not name keep theirs
+     */
+    void seek(Map<String, Long> position);
+    
+    /**
+     * Release the subscription
+     */
+    void close();
+}
@@ -0,0 +1,94 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Value Object: HeartbeatAggregate
+ * 
+ * Aggregated heartbeat events for one ETL window: running statistics plus
+ * the values of the most recent heartbeat. Averages, minimums and maximums
+ * are null when no heartbeat carried the corresponding metric.
+ */
+@Data
+@Builder
+public class HeartbeatAggregate {
+    
+    /**
+     * Number of heartbeat events aggregated
+     */
+    private long eventCount;
+    
+    /**
+     * Timestamp of the newest aggregated heartbeat
+     */
+    private Instant maxTimestamp;
+    
+    // === PERFORMANCE ===
+    
+    private Double avgFps;
+    
+    private Double minFps;
+    
+    private Double maxFps;
+    
+    /**
+     * Distribution of the window's FPS readings (p50/p90/p99)
+     */
+    private QuantileSketch fpsSketch;
+    
+    private Double maxCpuTemp;
+    
+    // === ENVIRONMENT ===
+    
+    private Double avgTemperature;
+    
+    private Double avgHumidity;
+    
+    private Double avgNoise;
+    
+    // === FACE DETECTION DIAGNOSTICS ===
+    
+    /**
+     * Heartbeats that reported faces_in_frame
+     */
+    private long framesProcessed;
+    
+    /**
+     * Heartbeats that detected at least one face
+     */
+    private long framesWithFaces;
+    
+    /**
+     * Sum of faces_in_frame over all heartbeats
+     */
+    private long facesDetected;
+    
+    /**
+     * Average face confidence over heartbeats with a detected face
+     */
+    private Double avgFaceConfidence;
+    
+    // === GAZE QUALITY DIAGNOSTICS ===
+    
+    private Double avgKptsValidPercent;
+    
+    private Double avgSolvepnpSuccessPercent;
+    
+    private Double avgFallbackPercent;
+    
+    // === MOST RECENT HEARTBEAT ===
+    
+    private Double currentFps;
+    
+    private Double currentCpuTemp;
+    
+    private Long uptime;
+    
+    private Double pressure;
+    
+    private Double gasResistance;
+}
@@ -0,0 +1,294 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Value Object: OpenSessions
+ *
+ * Incremental viewer session state machine, rebuilt from gaze_start and
+ * session end events (session_end, shutdown_session_end) without
+ * re-reading history. Each viewer, keyed by the 64-bit
+ * {@link HyperLogLog#hash(String)} of its id, has the time of its latest
+ * start and latest end; it is watching while the start is newer than the
+ * end. Keeping only these two maxima makes the state order-independent,
+ * so windows aggregated out of order or in parallel slices
+ * {@link #merge(OpenSessions) merge} to the same result.
+ *
+ * Viewers live in an open-addressing table (linear probing) of three
+ * parallel long arrays, about 48 bytes per viewer at the 0.5 load factor
+ * and no per-entry objects. Between runs only open sessions are kept:
+ * {@link #compact(long)} drops closed ones and times out orphans whose
+ * end event never arrived (e.g. after a crash). Not thread-safe.
+ */
+public final class OpenSessions {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // Key of an empty slot; a viewer hash of 0 is stored as 1
+    private static final long EMPTY = 0L;
+
+    // Time of an event that has not been seen
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] startedAt;
+    private long[] endedAt;
+    private int size;
+
+    // Newest start or end recorded or merged into this instance (not persisted)
+    private long latestEventAt = NEVER;
+
+    public OpenSessions() {
+        this(MIN_CAPACITY);
+    }
+
+    private OpenSessions(int capacity) {
+        this.keys = new long[capacity];
+        this.startedAt = new long[capacity];
+        this.endedAt = new long[capacity];
+    }
+
+    /**
+     * Record a gaze_start of a viewer (null ids are ignored)
+     */
+    public void start(String viewerId, long timestampMs) {
+        if (viewerId != null) {
+            startHash(HyperLogLog.hash(viewerId), timestampMs);
+        }
+    }
+
+    /**
+     * Record a session end of a viewer (null ids are ignored)
+     */
+    public void end(String viewerId, long timestampMs) {
+        if (viewerId != null) {
+            endHash(HyperLogLog.hash(viewerId), timestampMs);
+        }
+    }
+
+    /**
+     * Record a gaze_start by precomputed viewer hash
+     */
+    public void startHash(long viewerHash, long timestampMs) {
+        int slot = slotFor(viewerHash);
+        startedAt[slot] = Math.max(startedAt[slot], timestampMs);
+        latestEventAt = Math.max(latestEventAt, timestampMs);
+    }
+
+    /**
+     * Record a session end by precomputed viewer hash
+     */
+    public void endHash(long viewerHash, long timestampMs) {
+        int slot = slotFor(viewerHash);
+        endedAt[slot] = Math.max(endedAt[slot], timestampMs);
+        latestEventAt = Math.max(latestEventAt, timestampMs);
+    }
+
+    /**
+     * Fold another state into this one (latest start and end per viewer)
+     */
+    public void merge(OpenSessions other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                int slot = slotFor(other.keys[i]);
+                startedAt[slot] = Math.max(startedAt[slot], other.startedAt[i]);
+                endedAt[slot] = Math.max(endedAt[slot], other.endedAt[i]);
+            }
+        }
+        latestEventAt = Math.max(latestEventAt, other.latestEventAt);
+    }
+
+    /**
+     * Number of viewers currently watching (started and not ended since)
+     */
+    public int getOpenCount() {
+        int open = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && startedAt[i] > endedAt[i]) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Time of the newest start or end recorded or merged since this instance
+     * was created or loaded (null if none)
+     */
+    public Instant getLatestEventTime() {
+        return latestEventAt != NEVER ? Instant.ofEpochMilli(latestEventAt) : null;
+    }
+
+    /**
+     * Number of viewers tracked, open or not
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Keep only open sessions that started at or after the cutoff
+     *
+     * Closed sessions are dropped because later runs only see newer events.
+     * Open sessions without a gaze_start since the cutoff are orphans: their
+     * viewer is gone but no end event was written.
+     *
+     * @param startedBeforeMs Open sessions whose latest start is older time out
+     * @return Number of orphaned sessions timed out
+     */
+    public int compact(long startedBeforeMs) {
+        int kept = 0;
+        int orphans = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && startedAt[i] > endedAt[i]) {
+                if (startedAt[i] >= startedBeforeMs) {
+                    kept++;
+                } else {
+                    orphans++;
+                }
+            }
+        }
+
+        long[] oldKeys = keys;
+        long[] oldStartedAt = startedAt;
+        long[] oldEndedAt = endedAt;
+        int capacity = capacityFor(kept);
+        keys = new long[capacity];
+        startedAt = new long[capacity];
+        endedAt = new long[capacity];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldStartedAt[i] > oldEndedAt[i] && oldStartedAt[i] >= startedBeforeMs) {
+                int slot = slotFor(oldKeys[i]);
+                startedAt[slot] = oldStartedAt[i];
+                endedAt[slot] = oldEndedAt[i];
+            }
+        }
+        return orphans;
+    }
+
+    public OpenSessions copy() {
+        OpenSessions copy = new OpenSessions(keys.length);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Serialize as [version, count, (viewerHash, startedAt, endedAt)...]
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(5 + size * 24);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(size);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    out.writeLong(keys[i]);
+                    out.writeLong(startedAt[i]);
+                    out.writeLong(endedAt[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize open sessions", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Deserialize a state written by {@link #toBytes()}
+     *
+     * @throws IllegalArgumentException if the format is not recognized
+     */
+    public static OpenSessions fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported open sessions format");
+            }
+            int count = in.readInt();
+            if (count < 0 || bytes.length != 5 + (long) count * 24) {
+                throw new IllegalArgumentException("Open sessions length does not match " + count + " entries");
+            }
+            OpenSessions sessions = new OpenSessions(capacityFor(count));
+            for (int i = 0; i < count; i++) {
+                int slot = sessions.slotFor(in.readLong());
+                sessions.startedAt[slot] = in.readLong();
+                sessions.endedAt[slot] = in.readLong();
+            }
+            return sessions;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated open sessions", e);
+        }
+    }
+
+    /**
+     * Slot of a viewer, inserted with no start and no end if absent
+     */
+    private int slotFor(long viewerHash) {
+        long key = viewerHash != EMPTY ? viewerHash : 1L;
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slotFor(key);
+        }
+        keys[slot] = key;
+        startedAt[slot] = NEVER;
+        endedAt[slot] = NEVER;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldStartedAt = startedAt;
+        long[] oldEndedAt = endedAt;
+        keys = new long[oldKeys.length * 2];
+        startedAt = new long[keys.length];
+        endedAt = new long[keys.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotFor(oldKeys[i]);
+                startedAt[slot] = oldStartedAt[i];
+                endedAt[slot] = oldEndedAt[i];
+            }
+        }
+    }
+
+    /**
+     * Smallest power of two keeping the load factor at or below 0.5
+     */
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 2L + 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "OpenSessions{open=" + getOpenCount() + ", tracked=" + size + "}";
+    }
+}
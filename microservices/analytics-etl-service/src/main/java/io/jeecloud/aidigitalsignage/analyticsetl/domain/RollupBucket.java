@@ -0,0 +1,54 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Value Object: RollupBucket
+ * 
+ * Session statistics of one time bucket (minute, hour or day) within an
+ * ETL window. Unlike the cumulative dashboard, buckets are deltas: the
+ * digital-signage-service adds them to any bucket with the same start,
+ * so a bucket split across two ETL windows sums to the full bucket.
+ */
+@Data
+@Builder
+public class RollupBucket {
+    
+    private RollupResolution resolution;
+    
+    /**
+     * Inclusive start of the bucket (UTC, aligned to the resolution)
+     */
+    private Instant bucketStart;
+    
+    /**
+     * Views, audience and demographics of the bucket
+     * 
+     * totalAudience is the distinct viewer count within this bucket.
+     */
+    private DashboardAnalytics dashboard;
+    
+    /**
+     * Viewers of the bucket, so the digital-signage-service can count
+     * distinct viewers across buckets and across windows of one bucket
+     * (null if the source cannot provide the ids)
+     */
+    private HyperLogLog viewerSketch;
+    
+    /**
+     * Sum and count of session durations, so averages can be re-weighted
+     * when buckets are added together
+     */
+    private double viewSecondsSum;
+    private long viewSecondsCount;
+    
+    /**
+     * Per-advertisement views and engagement within the bucket
+     */
+    private List<AdAnalytics> adAnalytics;
+}
@@ -0,0 +1,46 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import java.time.Duration;
+
+/**
+ * Value Object: RollupResolution
+ *
+ * Width of a time-bucketed rollup. Buckets are aligned to the epoch in
+ * UTC, so a bucket start is a multiple of the bucket width and the same
+ * event always lands in the same bucket, whichever ETL run processes it.
+ */
+public enum RollupResolution {
+
+    MINUTE(Duration.ofMinutes(1), "1m"),
+    HOUR(Duration.ofHours(1), "1h"),
+    DAY(Duration.ofDays(1), "1d");
+
+    private final long widthMillis;
+    private final String interval;
+
+    RollupResolution(Duration width, String interval) {
+        this.widthMillis = width.toMillis();
+        this.interval = interval;
+    }
+
+    /**
+     * Start of the bucket containing the given epoch millisecond
+     */
+    public long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, widthMillis) * widthMillis;
+    }
+
+    /**
+     * TDengine INTERVAL literal for this width (e.g. "1m")
+     */
+    public String interval() {
+        return interval;
+    }
+
+    /**
+     * Lower-case name used on the wire (minute, hour, day)
+     */
+    public String value() {
+        return name().toLowerCase();
+    }
+}
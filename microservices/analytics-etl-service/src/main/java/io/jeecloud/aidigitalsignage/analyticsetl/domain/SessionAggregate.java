@@ -0,0 +1,60 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Value Object: SessionAggregate
+ * 
+ * Aggregated session_end events for one ETL window. Produced either by the
+ * in-process accumulator or directly by TDengine when aggregation can be
+ * pushed down into the source query.
+ */
+@Data
+@Builder
+public class SessionAggregate {
+    
+    /**
+     * Number of session_end events aggregated
+     */
+    private long eventCount;
+    
+    /**
+     * Timestamp of the newest aggregated event
+     */
+    private Instant maxTimestamp;
+    
+    /**
+     * Distinct viewer ids of the window, merged into the accumulated audience on load
+     */
+    private HyperLogLog audienceSketch;
+    
+    /**
+     * Dashboard analytics (KPIs and demographics) for the window
+     */
+    private DashboardAnalytics dashboard;
+    
+    /**
+     * Per-advertisement analytics for the window, sorted by viewers descending
+     */
+    private List<AdAnalytics> adAnalytics;
+    
+    /**
+     * Minute, hour and day rollup buckets covering the window, in that order
+     */
+    private List<RollupBucket> rollups;
+    
+    /**
+     * Session duration and gaze time distributions of the window, merged into the accumulated ones on load
+     */
+    private SessionDistributions distributions;
+    
+    /**
+     * Ad × age group × gender × emotion counts of the window (a delta, added to by the service)
+     */
+    private AdAudienceCube audienceCube;
+}
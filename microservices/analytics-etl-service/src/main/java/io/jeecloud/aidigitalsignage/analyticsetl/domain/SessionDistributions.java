@@ -0,0 +1,46 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Value Object: SessionDistributions
+ * 
+ * Distributions of session duration and total gaze time, each kept in a
+ * fixed-size {@link QuantileSketch}. Used both for a single ETL window and
+ * for the distributions accumulated over all runs, so p50/p90/p99 can be
+ * reported without keeping individual sessions.
+ */
+@Data
+@AllArgsConstructor
+public class SessionDistributions {
+    
+    /**
+     * Session durations in seconds
+     */
+    private QuantileSketch sessionDuration;
+    
+    /**
+     * Total gaze time per session in seconds
+     */
+    private QuantileSketch totalGazeTime;
+    
+    public static SessionDistributions empty() {
+        return new SessionDistributions(new QuantileSketch(), new QuantileSketch());
+    }
+    
+    /**
+     * Add another window's (or slice's) distributions
+     */
+    public void merge(SessionDistributions other) {
+        if (other != null) {
+            sessionDuration.merge(other.sessionDuration);
+            totalGazeTime.merge(other.totalGazeTime);
+        }
+    }
+    
+    public SessionDistributions copy() {
+        return new SessionDistributions(sessionDuration.copy(), totalGazeTime.copy());
+    }
+}
@@ -0,0 +1,141 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.domain;
+
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Value Object: StreamWatermarks
+ *
+ * Timestamp up to which each {@link EventStream} is loaded (null = nothing
+ * yet). A range scan reads every stream strictly after its own watermark,
+ * so a stream that lags behind another is neither skipped past by the
+ * other's newer rows nor read twice. Used as upper bounds, e.g. when a
+ * batch is replayed, each stream stops at its own position (null =
+ * unbounded). Immutable.
+ */
+@EqualsAndHashCode
+public final class StreamWatermarks {
+
+    private final Map<EventStream, Instant> positions;
+
+    private StreamWatermarks(Map<EventStream, Instant> positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * Every stream at the same position (null = from the beginning)
+     */
+    public static StreamWatermarks uniform(Instant position) {
+        Map<EventStream, Instant> positions = new EnumMap<>(EventStream.class);
+        if (position != null) {
+            for (EventStream stream : EventStream.values()) {
+                positions.put(stream, position);
+            }
+        }
+        return new StreamWatermarks(positions);
+    }
+
+    /**
+     * Streams at the given positions, missing ones from the beginning
+     */
+    public static StreamWatermarks of(Map<EventStream, Instant> positions) {
+        Map<EventStream, Instant> copy = new EnumMap<>(EventStream.class);
+        positions.forEach((stream, position) -> {
+            if (position != null) {
+                copy.put(stream, position);
+            }
+        });
+        return new StreamWatermarks(copy);
+    }
+
+    /**
+     * Position of one stream (null = from the beginning)
+     */
+    public Instant get(EventStream stream) {
+        return positions.get(stream);
+    }
+
+    /**
+     * Lowest position of all streams (null if any stream starts from the beginning)
+     */
+    public Instant earliest() {
+        Instant earliest = null;
+        for (EventStream stream : EventStream.values()) {
+            Instant position = positions.get(stream);
+            if (position == null) {
+                return null;
+            }
+            if (earliest == null || position.isBefore(earliest)) {
+                earliest = position;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Highest position of any stream (null if none has one)
+     */
+    public Instant latest() {
+        return positions.values().stream().max(Instant::compareTo).orElse(null);
+    }
+
+    /**
+     * Each stream moved up to at least the given position, e.g. the lower
+     * bound of a time slice (null keeps them as they are)
+     */
+    public StreamWatermarks atLeast(Instant lower) {
+        if (lower == null) {
+            return this;
+        }
+        Map<EventStream, Instant> raised = new EnumMap<>(EventStream.class);
+        for (EventStream stream : EventStream.values()) {
+            Instant position = positions.get(stream);
+            raised.put(stream, position != null && position.isAfter(lower) ? position : lower);
+        }
+        return new StreamWatermarks(raised);
+    }
+
+    /**
+     * Each stream moved down to at most the given position, e.g. the upper
+     * bound of a time slice within per-stream upper bounds (null positions,
+     * i.e. unbounded ones, take the given position)
+     */
+    public StreamWatermarks atMost(Instant upper) {
+        Map<EventStream, Instant> lowered = new EnumMap<>(EventStream.class);
+        for (EventStream stream : EventStream.values()) {
+            Instant position = positions.get(stream);
+            lowered.put(stream, position != null && position.isBefore(upper) ? position : upper);
+        }
+        return new StreamWatermarks(lowered);
+    }
+
+    /**
+     * One stream advanced to a newer position (an older or null one keeps it)
+     */
+    public StreamWatermarks advance(EventStream stream, Instant position) {
+        Instant current = positions.get(stream);
+        if (position == null || (current != null && !position.isAfter(current))) {
+            return this;
+        }
+        Map<EventStream, Instant> advanced = new EnumMap<>(EventStream.class);
+        advanced.putAll(positions);
+        advanced.put(stream, position);
+        return new StreamWatermarks(advanced);
+    }
+
+    /**
+     * Positions by stream, without the streams that start from the beginning
+     */
+    public Map<EventStream, Instant> asMap() {
+        return Collections.unmodifiableMap(positions);
+    }
+
+    @Override
+    public String toString() {
+        return positions.toString();
+    }
+}
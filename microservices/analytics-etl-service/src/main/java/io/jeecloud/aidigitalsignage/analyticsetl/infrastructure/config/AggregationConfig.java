@@ -0,0 +1,22 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.config;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.application.aggregation.ParallelBatchAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Aggregation Configuration
+ * 
+ * Provides the fork/join aggregator shared by all extraction paths.
+ */
+@Configuration
+public class AggregationConfig {
+    
+    @Bean(destroyMethod = "close")
+    public ParallelBatchAggregator parallelBatchAggregator(
+            @Value("${etl.aggregation.parallelism:0}") int parallelism,
+            @Value("${etl.aggregation.sequential-threshold:2048}") int sequentialThreshold) {
+        return new ParallelBatchAggregator(parallelism, sequentialThreshold);
+    }
+}
@@ -30,21 +30,30 @@ public class DatabaseConfig {
     @Value("${tdengine.database}")
     private String tdengineDatabase;
     
+    @Value("${tdengine.transport:rest}")
+    private String tdengineTransport;
+    
+    @Value("${tdengine.connection.max-pool-size:5}")
+    private int maxPoolSize;
+    
     /**
      * TDengine DataSource (Source for ETL)
      * 
-     * TDengine uses JDBC driver: com.taosdata.jdbc.TSDBDriver
-     * Default port: 6041 (REST API)
+     * Transport is selected with tdengine.transport (rest, websocket, native),
+     * see {@link TDengineTransport}.
+     * Default port: 6041 (REST/WebSocket via taosAdapter), 6030 (native)
      */
     @Bean(name = "tdengineDataSource")
     @Primary
     public DataSource tdengineDataSource() {
+        TDengineTransport transport = TDengineTransport.from(tdengineTransport);
+        
         HikariConfig config = new HikariConfig();
-        config.setDriverClassName("com.taosdata.jdbc.rs.RestfulDriver");
-        config.setJdbcUrl(tdengineUrl + "/" + tdengineDatabase);
+        config.setDriverClassName(transport.getDriverClassName());
+        config.setJdbcUrl(transport.jdbcUrl(tdengineUrl, tdengineDatabase));
         config.setUsername(tdengineUsername);
         config.setPassword(tdenginePassword);
-        config.setMaximumPoolSize(5);
+        config.setMaximumPoolSize(maxPoolSize);
         config.setConnectionTimeout(10000);
         
         return new HikariDataSource(config);
@@ -1,19 +1,68 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.config;
 
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.restclient.GzipRequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 /**
  * REST Client Configuration
  * 
  * Provides RestTemplate bean for calling digital-signage-service API.
+ * 
+ * Calls go through one shared JDK HttpClient, so connections are kept alive
+ * and reused across calls and runs instead of paying TCP setup every time.
+ * HTTPS URLs negotiate HTTP/2 (ALPN) and multiplex over a single connection;
+ * plain HTTP stays on HTTP/1.1 keep-alive. Request bodies are gzipped (see
+ * {@link GzipRequestInterceptor}), and the RestTemplate is built with the
+ * auto-configured builder, so every call is timed as http.client.requests.
  */
 @Configuration
 public class RestClientConfig {
     
+    @Value("${digital-signage-service.url:http://localhost:8080}")
+    private String digitalSignageServiceUrl;
+    
+    @Value("${digital-signage-service.rest.connect-timeout:5000}")
+    private long connectTimeoutMs;
+    
+    @Value("${digital-signage-service.rest.read-timeout:30000}")
+    private long readTimeoutMs;
+    
+    @Value("${digital-signage-service.rest.compression.min-size:1KB}")
+    private DataSize compressionMinSize;
+    
+    /**
+     * Pooled keep-alive client for the digital-signage-service
+     * 
+     * The idle keep-alive connections the JDK pool holds are capped JVM-wide
+     * by -Djdk.httpclient.connectionPoolSize, set in the launch configuration.
+     */
+    @Bean
+    public HttpClient digitalSignageHttpClient() {
+        boolean secure = digitalSignageServiceUrl.regionMatches(true, 0, "https:", 0, 6);
+        return HttpClient.newBuilder()
+                .version(secure ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+    
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, HttpClient digitalSignageHttpClient) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(digitalSignageHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        
+        return builder
+                .requestFactory(() -> requestFactory)
+                .additionalInterceptors(new GzipRequestInterceptor((int) compressionMinSize.toBytes()))
+                .build();
     }
 }
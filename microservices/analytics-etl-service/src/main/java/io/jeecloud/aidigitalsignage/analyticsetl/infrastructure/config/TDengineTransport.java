@@ -0,0 +1,60 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.config;
+
+import java.util.Locale;
+
+/**
+ * TDengine JDBC transport (Infrastructure Layer)
+ * 
+ * Selected with tdengine.transport. The configured tdengine.url is the
+ * REST URL (jdbc:TAOS-RS://host:6041); the other transports are derived
+ * from it so existing profiles keep working.
+ * 
+ * - REST: taosAdapter HTTP, result sets JSON-encoded per request
+ * - WEBSOCKET: taosAdapter WebSocket with batchfetch=true, result blocks
+ *   streamed in TDengine's binary block format
+ * - NATIVE: taosc client library over TCP port 6030 (requires libtaos
+ *   on the host)
+ */
+public enum TDengineTransport {
+    
+    REST("com.taosdata.jdbc.rs.RestfulDriver"),
+    WEBSOCKET("com.taosdata.jdbc.rs.RestfulDriver"),
+    NATIVE("com.taosdata.jdbc.TSDBDriver");
+    
+    private final String driverClassName;
+    
+    TDengineTransport(String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+    
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+    
+    /**
+     * Build the JDBC URL for this transport
+     * 
+     * @param restUrl Configured REST URL, e.g. jdbc:TAOS-RS://localhost:6041
+     * @param database Database name
+     */
+    public String jdbcUrl(String restUrl, String database) {
+        return switch (this) {
+            case REST -> restUrl + "/" + database + "?batchfetch=false";
+            case WEBSOCKET -> restUrl + "/" + database + "?batchfetch=true";
+            case NATIVE -> restUrl.replace("jdbc:TAOS-RS://", "jdbc:TAOS://")
+                    .replace(":6041", ":6030") + "/" + database;
+        };
+    }
+    
+    /**
+     * Parse a configuration value (case-insensitive)
+     */
+    public static TDengineTransport from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Unknown tdengine.transport '" + value + "' (expected rest, websocket or native)", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash-safe replacement of the small files of the metadata directory
+ *
+ * The content goes to a temporary sibling that is forced to disk before it
+ * is renamed over the target, and the rename is made durable by syncing the
+ * directory, so after a crash a reader finds either the old or the new
+ * file, never a partial one.
+ */
+@Slf4j
+final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    static void write(Path path, byte[] content) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Make a rename or file creation durable (best effort, not supported on every platform)
+     */
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Cannot sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
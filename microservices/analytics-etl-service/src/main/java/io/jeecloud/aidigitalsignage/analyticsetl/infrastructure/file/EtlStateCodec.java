@@ -0,0 +1,356 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAttention;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AudienceSketch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.DashboardAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlState;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateChange;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.OpenSessions;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionDistributions;
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binary encoding of the ETL state snapshot and of its log records
+ *
+ * Big-endian, written with {@link DataOutputStream} and read straight from
+ * a (memory-mapped) {@link ByteBuffer}. Optional parts are preceded by a
+ * presence byte, variable-length parts by their length. Missing dashboard
+ * counts are stored as zero. Fields added later (the batch id, the stream
+ * watermarks, the subscription offsets) are appended and only read if the bytes go on, so snapshots
+ * and records of earlier versions still decode.
+ */
+final class EtlStateCodec {
+
+    private EtlStateCodec() {
+    }
+
+    static byte[] encodeState(EtlState state) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeBoolean(state.hasCompleteHistory());
+            writeDashboard(out, state.getTotals());
+            writeAds(out, state.getAdAnalytics());
+            out.writeLong(state.getAudience().getBaselineAudience());
+            writeBytes(out, state.getAudience().getViewers().toBytes());
+            writeBytes(out, state.getDistributions().getSessionDuration().toBytes());
+            writeBytes(out, state.getDistributions().getTotalGazeTime().toBytes());
+            writeBytes(out, state.getOpenSessions().toBytes());
+            writeCursor(out, state.getWatermark());
+            writeOptionalString(out, state.getLastBatchId());
+            writeStreamWatermarks(out, state.getOwnStreamWatermarks());
+            writeOffsets(out, state.getSubscriptionOffsets());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize ETL state", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid state
+     */
+    static EtlState decodeState(ByteBuffer in) {
+        try {
+            boolean completeHistory = in.get() != 0;
+            DashboardAnalytics totals = readDashboard(in);
+            List<AdAnalytics> ads = readAds(in);
+            AudienceSketch audience = new AudienceSketch(in.getLong(), HyperLogLog.fromBytes(readBytes(in)));
+            SessionDistributions distributions = new SessionDistributions(
+                    QuantileSketch.fromBytes(readBytes(in)), QuantileSketch.fromBytes(readBytes(in)));
+            OpenSessions openSessions = OpenSessions.fromBytes(readBytes(in));
+            EventCursor watermark = readCursor(in);
+            String lastBatchId = in.hasRemaining() ? readOptionalString(in) : null;
+            Map<EventStream, Instant> streamWatermarks = in.hasRemaining() ? readStreamWatermarks(in) : null;
+            Map<String, Long> offsets = in.hasRemaining() ? readOffsets(in) : null;
+            return new EtlState(totals, ads, audience, distributions, openSessions, watermark,
+                    streamWatermarks != null ? streamWatermarks : Map.of(), offsets != null ? offsets : Map.of(),
+                    lastBatchId, completeHistory);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated ETL state", e);
+        }
+    }
+
+    static byte[] encodeChange(EtlStateChange change) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeBoolean(change.getDashboard() != null);
+            if (change.getDashboard() != null) {
+                writeDashboard(out, change.getDashboard());
+            }
+            writeAds(out, change.getAdAnalytics() != null ? change.getAdAnalytics() : List.of());
+            writeOptionalBytes(out, change.getViewers() != null ? change.getViewers().toBytes() : null);
+            out.writeBoolean(change.getDistributions() != null);
+            if (change.getDistributions() != null) {
+                writeBytes(out, change.getDistributions().getSessionDuration().toBytes());
+                writeBytes(out, change.getDistributions().getTotalGazeTime().toBytes());
+            }
+            writeOptionalBytes(out, change.getOpenSessions() != null ? change.getOpenSessions().toBytes() : null);
+            out.writeBoolean(change.getOpenSessionCutoffMs() != null);
+            if (change.getOpenSessionCutoffMs() != null) {
+                out.writeLong(change.getOpenSessionCutoffMs());
+            }
+            writeCursor(out, change.getWatermark());
+            writeOptionalString(out, change.getBatchId());
+            writeStreamWatermarks(out, change.getStreamWatermarks());
+            writeOffsets(out, change.getSubscriptionOffsets());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize ETL state change", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a valid change
+     */
+    static EtlStateChange decodeChange(ByteBuffer in) {
+        try {
+            EtlStateChange.EtlStateChangeBuilder change = EtlStateChange.builder();
+            if (in.get() != 0) {
+                change.dashboard(readDashboard(in));
+            }
+            change.adAnalytics(readAds(in));
+            byte[] viewers = readOptionalBytes(in);
+            change.viewers(viewers != null ? HyperLogLog.fromBytes(viewers) : null);
+            if (in.get() != 0) {
+                change.distributions(new SessionDistributions(
+                        QuantileSketch.fromBytes(readBytes(in)), QuantileSketch.fromBytes(readBytes(in))));
+            }
+            byte[] openSessions = readOptionalBytes(in);
+            change.openSessions(openSessions != null ? OpenSessions.fromBytes(openSessions) : null);
+            if (in.get() != 0) {
+                change.openSessionCutoffMs(in.getLong());
+            }
+            change.watermark(readCursor(in));
+            if (in.hasRemaining()) {
+                change.batchId(readOptionalString(in));
+            }
+            if (in.hasRemaining()) {
+                change.streamWatermarks(readStreamWatermarks(in));
+            }
+            if (in.hasRemaining()) {
+                change.subscriptionOffsets(readOffsets(in));
+            }
+            return change.build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated ETL state change", e);
+        }
+    }
+
+    private static void writeDashboard(DataOutputStream out, DashboardAnalytics dashboard) throws IOException {
+        out.writeInt(orZero(dashboard.getTotalAudience()));
+        out.writeInt(orZero(dashboard.getTotalViews()));
+        out.writeInt(orZero(dashboard.getTotalAds()));
+        out.writeDouble(dashboard.getAvgViewSeconds() != null ? dashboard.getAvgViewSeconds() : 0.0);
+        out.writeInt(orZero(dashboard.getChildren()));
+        out.writeInt(orZero(dashboard.getTeenagers()));
+        out.writeInt(orZero(dashboard.getYoungAdults()));
+        out.writeInt(orZero(dashboard.getMidAged()));
+        out.writeInt(orZero(dashboard.getSeniors()));
+        out.writeInt(orZero(dashboard.getMale()));
+        out.writeInt(orZero(dashboard.getFemale()));
+        out.writeInt(orZero(dashboard.getAnger()));
+        out.writeInt(orZero(dashboard.getContempt()));
+        out.writeInt(orZero(dashboard.getDisgust()));
+        out.writeInt(orZero(dashboard.getFear()));
+        out.writeInt(orZero(dashboard.getHappiness()));
+        out.writeInt(orZero(dashboard.getNeutral()));
+        out.writeInt(orZero(dashboard.getSadness()));
+        out.writeInt(orZero(dashboard.getSurprise()));
+    }
+
+    private static DashboardAnalytics readDashboard(ByteBuffer in) {
+        return DashboardAnalytics.builder()
+                .totalAudience(in.getInt())
+                .totalViews(in.getInt())
+                .totalAds(in.getInt())
+                .avgViewSeconds(in.getDouble())
+                .children(in.getInt())
+                .teenagers(in.getInt())
+                .youngAdults(in.getInt())
+                .midAged(in.getInt())
+                .seniors(in.getInt())
+                .male(in.getInt())
+                .female(in.getInt())
+                .anger(in.getInt())
+                .contempt(in.getInt())
+                .disgust(in.getInt())
+                .fear(in.getInt())
+                .happiness(in.getInt())
+                .neutral(in.getInt())
+                .sadness(in.getInt())
+                .surprise(in.getInt())
+                .build();
+    }
+
+    private static void writeAds(DataOutputStream out, List<AdAnalytics> ads) throws IOException {
+        out.writeInt(ads.size());
+        for (AdAnalytics ad : ads) {
+            writeBytes(out, ad.getAdName().getBytes(StandardCharsets.UTF_8));
+            out.writeInt(orZero(ad.getTotalViewers()));
+            out.writeInt(orZero(ad.getLookYes()));
+            out.writeInt(orZero(ad.getLookNo()));
+            AdAttention attention = ad.getAttention();
+            out.writeBoolean(attention != null);
+            if (attention != null) {
+                out.writeDouble(attention.getGazeSeconds());
+                out.writeLong(attention.getGazeCount());
+                out.writeDouble(attention.getSessionSeconds());
+                for (long count : attention.getDwellHistogram()) {
+                    out.writeLong(count);
+                }
+            }
+        }
+    }
+
+    private static List<AdAnalytics> readAds(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid ad count " + count);
+        }
+        List<AdAnalytics> ads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AdAnalytics.AdAnalyticsBuilder ad = AdAnalytics.builder()
+                    .adName(new String(readBytes(in), StandardCharsets.UTF_8))
+                    .totalViewers(in.getInt())
+                    .lookYes(in.getInt())
+                    .lookNo(in.getInt());
+            if (in.get() != 0) {
+                double gazeSeconds = in.getDouble();
+                long gazeCount = in.getLong();
+                double sessionSeconds = in.getDouble();
+                long[] dwellHistogram = new long[AdAttention.DWELL_BINS];
+                for (int bin = 0; bin < dwellHistogram.length; bin++) {
+                    dwellHistogram[bin] = in.getLong();
+                }
+                ad.attention(AdAttention.of(gazeSeconds, gazeCount, sessionSeconds, dwellHistogram));
+            }
+            ads.add(ad.build());
+        }
+        return ads;
+    }
+
+    private static void writeCursor(DataOutputStream out, EventCursor cursor) throws IOException {
+        out.writeBoolean(cursor != null);
+        if (cursor != null) {
+            out.writeLong(cursor.getTimestamp().toEpochMilli());
+            writeOptionalString(out, cursor.getTableName());
+        }
+    }
+
+    private static EventCursor readCursor(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        Instant timestamp = Instant.ofEpochMilli(in.getLong());
+        return new EventCursor(timestamp, readOptionalString(in));
+    }
+
+    /**
+     * Presence byte, count, then (stream name, epoch millis) per stream
+     */
+    private static void writeStreamWatermarks(DataOutputStream out, Map<EventStream, Instant> positions)
+            throws IOException {
+        out.writeBoolean(positions != null);
+        if (positions != null) {
+            out.writeInt(positions.size());
+            for (Map.Entry<EventStream, Instant> position : positions.entrySet()) {
+                writeOptionalString(out, position.getKey().name());
+                out.writeLong(position.getValue().toEpochMilli());
+            }
+        }
+    }
+
+    private static Map<EventStream, Instant> readStreamWatermarks(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        int count = in.getInt();
+        Map<EventStream, Instant> positions = new EnumMap<>(EventStream.class);
+        for (int i = 0; i < count; i++) {
+            EventStream stream = EventStream.valueOf(readOptionalString(in));
+            positions.put(stream, Instant.ofEpochMilli(in.getLong()));
+        }
+        return positions;
+    }
+
+    /**
+     * Presence byte, count, then (partition, offset) per partition
+     */
+    private static void writeOffsets(DataOutputStream out, Map<String, Long> offsets) throws IOException {
+        out.writeBoolean(offsets != null);
+        if (offsets != null) {
+            out.writeInt(offsets.size());
+            for (Map.Entry<String, Long> offset : offsets.entrySet()) {
+                writeOptionalString(out, offset.getKey());
+                out.writeLong(offset.getValue());
+            }
+        }
+    }
+
+    private static Map<String, Long> readOffsets(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        int count = in.getInt();
+        Map<String, Long> offsets = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            offsets.put(readOptionalString(in), in.getLong());
+        }
+        return offsets;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static void writeOptionalBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeBoolean(bytes != null);
+        if (bytes != null) {
+            writeBytes(out, bytes);
+        }
+    }
+
+    private static byte[] readOptionalBytes(ByteBuffer in) {
+        return in.get() != 0 ? readBytes(in) : null;
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String value) throws IOException {
+        writeOptionalBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readOptionalString(ByteBuffer in) {
+        byte[] bytes = readOptionalBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -1,102 +1,226 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlMetadataRepository;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlRun;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateChange;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateStore;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.StreamWatermarks;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * File-based ETL Metadata Repository (Infrastructure Layer)
  * 
- * Stores ETL metadata in a local file to track last processed timestamp.
+ * Stores the last processed position as the watermark of the local ETL
+ * state store, next to the accumulated aggregates it belongs to, together
+ * with the position of each event stream.
  * This enables incremental ETL processing (only fetch new data).
  * 
- * Uses a simple file-based storage to avoid coupling with SQLite.
+ * Every run is appended to the run journal etl-runs.log in the metadata
+ * directory, one JSON line per run. When the journal reaches
+ * etl.journal.max-size it is renamed to etl-runs.log.1 (replacing the
+ * previous one) and a new one is started. A torn last line after a crash
+ * is skipped when reading.
+ * 
+ * Uses the file-based state store to avoid coupling with SQLite.
  */
 @Repository
 @Slf4j
 public class FileEtlMetadataRepository implements EtlMetadataRepository {
     
-    private static final String METADATA_FILENAME = "etl-metadata.txt";
+    private static final String JOURNAL_FILENAME = "etl-runs.log";
+    private static final String ROTATED_JOURNAL_FILENAME = JOURNAL_FILENAME + ".1";
+    
+    private final EtlStateStore etlStateStore;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter journalWriter;
     
     @Value("${etl.metadata.directory:./data}")
     private String metadataDirectory;
     
+    @Value("${etl.journal.max-size:8MB}")
+    private DataSize journalMaxSize;
+    
+    @Value("${etl.state.fsync:true}")
+    private boolean fsync;
+    
+    // Whether the journal was checked for a torn last line since startup
+    private boolean journalChecked;
+    
+    public FileEtlMetadataRepository(EtlStateStore etlStateStore, ObjectMapper objectMapper) {
+        this.etlStateStore = etlStateStore;
+        this.objectMapper = objectMapper;
+        // One run per line, whatever the application's indentation setting
+        this.journalWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+    
     /**
-     * Get the last processed timestamp from file
+     * Get the last processed timestamp
      * 
      * @return Last processed timestamp, or empty if first run
      */
     @Override
     public Optional<Instant> getLastProcessedTimestamp() {
-        try {
-            Path metadataPath = getMetadataPath();
-            
-            if (!Files.exists(metadataPath)) {
-                log.debug("No metadata file found (first run)");
-                return Optional.empty();
-            }
-            
-            String content = Files.readString(metadataPath).trim();
-            if (content.isEmpty()) {
-                return Optional.empty();
-            }
-            
-            // Parse format: timestamp_millis,records_processed
-            String[] parts = content.split(",");
-            long timestampMillis = Long.parseLong(parts[0]);
-            Instant lastTimestamp = Instant.ofEpochMilli(timestampMillis);
-            
-            log.debug("Last processed timestamp from file: {}", lastTimestamp);
-            return Optional.of(lastTimestamp);
-            
-        } catch (Exception e) {
-            log.warn("Failed to read ETL metadata file, treating as first run", e);
-            return Optional.empty();
+        return getLastProcessedCursor().map(EventCursor::getTimestamp);
+    }
+    
+    /**
+     * Get the last processed keyset cursor
+     * 
+     * @return Last processed cursor, or empty if first run
+     */
+    @Override
+    public Optional<EventCursor> getLastProcessedCursor() {
+        EventCursor watermark = etlStateStore.current().getWatermark();
+        if (watermark == null) {
+            log.debug("No watermark found (first run)");
         }
+        return Optional.ofNullable(watermark);
     }
     
     /**
-     * Update the last processed timestamp in file
+     * Update the last processed timestamp
      * 
      * @param timestamp Timestamp of last processed record
      * @param recordsProcessed Number of records processed in this batch
      */
     @Override
     public void updateLastProcessedTimestamp(Instant timestamp, int recordsProcessed) {
+        updateLastProcessedCursor(new EventCursor(timestamp, null), recordsProcessed);
+    }
+    
+    /**
+     * Update the last processed keyset cursor
+     * 
+     * Every stream follows the cursor afterwards.
+     * 
+     * @param cursor Cursor of the last processed record
+     * @param recordsProcessed Number of records processed in this chunk
+     */
+    @Override
+    public void updateLastProcessedCursor(EventCursor cursor, int recordsProcessed) {
+        etlStateStore.commit(EtlStateChange.watermark(cursor));
+        log.debug("Updated ETL watermark: cursor={} / {}, records={}",
+                cursor.getTimestamp(), cursor.getTableName(), recordsProcessed);
+    }
+    
+    /**
+     * Get the position of each event stream from the local state store
+     * 
+     * @return Stream positions; streams without one start from the beginning
+     */
+    @Override
+    public StreamWatermarks getStreamWatermarks() {
+        return etlStateStore.current().getStreamWatermarks();
+    }
+    
+    /**
+     * Append a run to etl-runs.log
+     * 
+     * The journal is diagnostics only: a failed write is logged, never
+     * failing the run it describes.
+     */
+    @Override
+    public synchronized void recordRun(EtlRun run) {
+        Path directory = Paths.get(metadataDirectory);
+        Path journalPath = directory.resolve(JOURNAL_FILENAME);
         try {
-            Path metadataPath = getMetadataPath();
-            
-            // Ensure directory exists
-            Files.createDirectories(metadataPath.getParent());
+            byte[] line = (journalWriter.writeValueAsString(run) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(directory);
             
-            // Write format: timestamp_millis,records_processed,updated_at
-            String content = String.format("%d,%d,%d",
-                    timestamp.toEpochMilli(),
-                    recordsProcessed,
-                    Instant.now().toEpochMilli());
-            
-            Files.writeString(metadataPath, content);
+            if (Files.exists(journalPath) && Files.size(journalPath) + line.length > journalMaxSize.toBytes()) {
+                Files.move(journalPath, directory.resolve(ROTATED_JOURNAL_FILENAME),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                AtomicFiles.forceDirectory(directory);
+                log.info("Rotated ETL run journal {}", journalPath);
+            }
             
-            log.debug("Updated ETL metadata: timestamp={}, records={}", timestamp, recordsProcessed);
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long end = channel.size();
+                if (!journalChecked && end > 0 && !endsWithNewline(channel, end)) {
+                    // Terminate a line torn by a crash, so this one stays readable
+                    end += channel.write(ByteBuffer.wrap(new byte[]{'\n'}), end);
+                }
+                journalChecked = true;
+                
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    end += channel.write(buffer, end);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
             
         } catch (IOException e) {
-            log.error("Failed to write ETL metadata file", e);
-            throw new RuntimeException("Failed to update ETL metadata", e);
+            log.warn("Failed to append to ETL run journal {}: {}", journalPath, e.getMessage());
         }
     }
     
     /**
-     * Get the full path to the metadata file
+     * Read the newest runs from etl-runs.log, then etl-runs.log.1
+     * 
+     * @param limit Maximum number of runs
+     * @return Runs, newest first
      */
-    private Path getMetadataPath() {
-        return Paths.get(metadataDirectory, METADATA_FILENAME);
+    @Override
+    public synchronized List<EtlRun> findRecentRuns(int limit) {
+        Path directory = Paths.get(metadataDirectory);
+        List<EtlRun> runs = new ArrayList<>();
+        for (String filename : List.of(JOURNAL_FILENAME, ROTATED_JOURNAL_FILENAME)) {
+            Path path = directory.resolve(filename);
+            if (runs.size() >= limit || !Files.exists(path)) {
+                continue;
+            }
+            try {
+                List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+                for (int i = lines.size() - 1; i >= 0 && runs.size() < limit; i--) {
+                    readRun(lines.get(i)).ifPresent(runs::add);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read ETL run journal {}: {}", path, e.getMessage());
+            }
+        }
+        return runs;
+    }
+    
+    private Optional<EtlRun> readRun(String line) {
+        if (line.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(line, EtlRun.class));
+        } catch (IOException e) {
+            // Torn by a crash mid-append
+            log.debug("Skipping unreadable ETL run journal line: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) == '\n';
     }
 }
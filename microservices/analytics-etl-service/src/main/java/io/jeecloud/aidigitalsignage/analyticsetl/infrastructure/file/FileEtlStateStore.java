@@ -0,0 +1,333 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlState;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateChange;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlStateStore;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * File-based ETL State Store (Infrastructure Layer)
+ *
+ * Keeps the accumulated ETL state in two files of the metadata directory:
+ * - etl-state.log: append-only log, one record per commit holding only
+ *   that commit's window values (a few KB)
+ * - etl-state.snapshot: the whole state as of a log sequence number,
+ *   rewritten atomically when the log reaches etl.state.compact-after,
+ *   after which the log starts over
+ *
+ * Both files are memory-mapped and decoded in one pass at startup. Every
+ * record carries its sequence number and a CRC32C, so replay skips records
+ * already in the snapshot (a crash between snapshot and log truncation)
+ * and stops at a torn tail (a crash mid-append), which is cut off. A
+ * commit is forced to disk before it returns when etl.state.fsync is set.
+ *
+ * On first start the watermark of the metadata file of earlier versions is
+ * imported and the file renamed to *.imported. Their dashboard and ad
+ * totals were only kept by the digital-signage-service, so the imported
+ * state is marked as not covering the full history.
+ *
+ * Snapshot format: magic (int), version (byte), sequence (long),
+ * length (int), crc32c (int), state.
+ * Log record format: length (int), crc32c (int), sequence (long), change;
+ * the length and CRC cover sequence and change.
+ */
+@Repository
+@Slf4j
+public class FileEtlStateStore implements EtlStateStore {
+
+    private static final String SNAPSHOT_FILENAME = "etl-state.snapshot";
+    private static final String LOG_FILENAME = "etl-state.log";
+
+    private static final int SNAPSHOT_MAGIC = 0x45544c53; // "ETLS"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int SNAPSHOT_HEADER_BYTES = 4 + 1 + 8 + 4 + 4;
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+
+    // Watermark file written by earlier versions
+    private static final String LEGACY_METADATA = "etl-metadata.txt";
+
+    @Value("${etl.metadata.directory:./data}")
+    private String metadataDirectory;
+
+    @Value("${etl.state.compact-after:4MB}")
+    private DataSize compactAfter;
+
+    @Value("${etl.state.fsync:true}")
+    private boolean fsync;
+
+    private EtlState state;
+    private long sequence;
+    private FileChannel logChannel;
+
+    @Override
+    public synchronized EtlState current() {
+        open();
+        return state.copy();
+    }
+
+    @Override
+    public synchronized void commit(EtlStateChange change) {
+        open();
+        byte[] payload = EtlStateCodec.encodeChange(change);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + 8 + payload.length);
+        record.putInt(8 + payload.length);
+        record.putInt(0); // CRC, filled in below
+        record.putLong(sequence + 1);
+        record.put(payload);
+        record.putInt(4, crc(record.array(), RECORD_HEADER_BYTES, 8 + payload.length));
+        record.flip();
+
+        long start = -1;
+        try {
+            start = logChannel.position();
+            while (record.hasRemaining()) {
+                logChannel.write(record);
+            }
+            if (fsync) {
+                logChannel.force(false);
+            }
+        } catch (IOException e) {
+            log.error("Failed to append to ETL state log", e);
+            discardPartialRecord(start);
+            throw new RuntimeException("Failed to commit ETL state", e);
+        }
+
+        // Only applied once durable, so memory never runs ahead of the log
+        state.apply(change);
+        sequence++;
+        log.debug("Committed ETL state change #{} ({} bytes)", sequence, payload.length);
+
+        try {
+            if (logChannel.size() >= compactAfter.toBytes()) {
+                compact();
+            }
+        } catch (IOException e) {
+            // The log is still complete, compaction is retried on the next commit
+            log.warn("Failed to compact ETL state log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cut off a partially written record, so later appends do not end up
+     * behind a torn record that replay would stop at
+     */
+    private void discardPartialRecord(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            logChannel.truncate(start);
+            logChannel.position(start);
+        } catch (IOException e) {
+            // Reopen on the next call, which cuts the torn tail off
+            log.warn("Failed to discard partial ETL state record: {}", e.getMessage());
+            close();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close ETL state log: {}", e.getMessage());
+            }
+            logChannel = null;
+            state = null;
+        }
+    }
+
+    /**
+     * Load snapshot and log on first use
+     */
+    private void open() {
+        if (logChannel != null) {
+            return;
+        }
+        try {
+            Path directory = Paths.get(metadataDirectory);
+            Files.createDirectories(directory);
+
+            Path snapshotPath = directory.resolve(SNAPSHOT_FILENAME);
+            if (Files.exists(snapshotPath)) {
+                readSnapshot(snapshotPath);
+            } else {
+                state = importLegacyWatermark(directory);
+                sequence = 0;
+            }
+
+            Path logPath = directory.resolve(LOG_FILENAME);
+            logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            int replayed = replayLog(logPath);
+            logChannel.position(logChannel.size());
+
+            log.info("Opened ETL state store: {} (sequence {}, {} log records replayed)", state, sequence, replayed);
+
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open ETL state store in " + metadataDirectory, e);
+        }
+    }
+
+    private void readSnapshot(Path snapshotPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < SNAPSHOT_HEADER_BYTES || in.getInt() != SNAPSHOT_MAGIC || in.get() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported ETL state snapshot " + snapshotPath);
+            }
+            long snapshotSequence = in.getLong();
+            int length = in.getInt();
+            int expectedCrc = in.getInt();
+            if (length != in.remaining() || crc(in, length) != expectedCrc) {
+                // Written atomically, so this is damage, not a crash: never silently restart
+                throw new IllegalStateException("Corrupt ETL state snapshot " + snapshotPath);
+            }
+            state = EtlStateCodec.decodeState(in.slice());
+            sequence = snapshotSequence;
+        }
+    }
+
+    /**
+     * Apply the log records after the snapshot and cut off a torn tail
+     *
+     * @return Number of records applied
+     */
+    private int replayLog(Path logPath) throws IOException {
+        long size = logChannel.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        MappedByteBuffer in = logChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int replayed = 0;
+        long validEnd = 0;
+        while (in.remaining() >= RECORD_HEADER_BYTES) {
+            int length = in.getInt();
+            int expectedCrc = in.getInt();
+            if (length < 8 || length > in.remaining() || crc(in, length) != expectedCrc) {
+                break;
+            }
+            ByteBuffer record = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            long recordSequence = record.getLong();
+            if (recordSequence > sequence) {
+                state.apply(EtlStateCodec.decodeChange(record));
+                sequence = recordSequence;
+                replayed++;
+            }
+            validEnd = in.position();
+        }
+
+        if (validEnd < size) {
+            log.warn("Truncating torn tail of ETL state log {}: {} of {} bytes kept", logPath, validEnd, size);
+            logChannel.truncate(validEnd);
+            logChannel.force(false);
+        }
+        return replayed;
+    }
+
+    /**
+     * Write the whole state as a snapshot and start a new log
+     */
+    private void compact() throws IOException {
+        Path directory = Paths.get(metadataDirectory);
+        writeSnapshot(directory);
+
+        // Records up to the snapshot's sequence are skipped on replay, so a
+        // crash before the truncation only costs a longer startup
+        logChannel.truncate(0);
+        logChannel.force(false);
+        logChannel.position(0);
+        log.info("Compacted ETL state log into snapshot at sequence {}", sequence);
+    }
+
+    private void writeSnapshot(Path directory) throws IOException {
+        byte[] payload = EtlStateCodec.encodeState(state);
+        ByteBuffer snapshot = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES + payload.length);
+        snapshot.putInt(SNAPSHOT_MAGIC);
+        snapshot.put(FORMAT_VERSION);
+        snapshot.putLong(sequence);
+        snapshot.putInt(payload.length);
+        snapshot.putInt(crc(payload, 0, payload.length));
+        snapshot.put(payload);
+
+        AtomicFiles.write(directory.resolve(SNAPSHOT_FILENAME), snapshot.array());
+    }
+
+    /**
+     * Build the initial state from the metadata file of earlier versions,
+     * which only held the watermark (empty if there is none)
+     *
+     * The imported state is written as the first snapshot right away, so the
+     * metadata file is read only once.
+     */
+    private EtlState importLegacyWatermark(Path directory) throws IOException {
+        Path metadataPath = directory.resolve(LEGACY_METADATA);
+        if (!Files.exists(metadataPath)) {
+            log.info("No ETL state found (first run)");
+            return EtlState.empty();
+        }
+
+        EtlState empty = EtlState.empty();
+        state = new EtlState(empty.getTotals(), List.of(), empty.getAudience(), empty.getDistributions(),
+                empty.getOpenSessions(), readLegacyWatermark(metadataPath), Map.of(), Map.of(), null, false);
+        sequence = 0;
+        writeSnapshot(directory);
+
+        Files.move(metadataPath, metadataPath.resolveSibling(LEGACY_METADATA + ".imported"),
+                StandardCopyOption.REPLACE_EXISTING);
+        log.info("Imported ETL watermark of an earlier version from {}: {}", metadataPath, state);
+        return state;
+    }
+
+    /**
+     * Parse timestamp_millis,records_processed,updated_at
+     */
+    private static EventCursor readLegacyWatermark(Path path) {
+        try {
+            String content = Files.readString(path).trim();
+            if (content.isEmpty()) {
+                return null;
+            }
+            return new EventCursor(Instant.ofEpochMilli(Long.parseLong(content.split(",")[0])), null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read ETL metadata file, treating as first run", e);
+            return null;
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * CRC of the next length bytes, without moving the buffer's position
+     */
+    private static int crc(ByteBuffer buffer, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(buffer.position(), length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,516 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * File-based Outbound Spool (Infrastructure Layer)
+ *
+ * Durable FIFO of encoded messages for the digital-signage-service, so a
+ * load is done once it reaches the local disk: the service can be down or
+ * slow without failing the run and without extracting the same rows again.
+ * The spool lives in <etl.metadata.directory>/spool:
+ * - spool-<n>.seg: append-only segments; a new one is started once the
+ *   current one reaches digital-signage-service.spool.segment-size
+ * - spool.ack: position after the last delivered record, replaced
+ *   atomically on every acknowledgement
+ * - spool.blocked: reason the service refused the oldest message for good;
+ *   while it exists nothing is handed out, until an operator resumes
+ *   delivery (retrying the message or discarding it)
+ * - rejected.seg: discarded messages, kept for inspection
+ *
+ * Segments before the acknowledged position are deleted, except the newest,
+ * so the last spooled message stays readable after a restart. Every record
+ * carries a CRC32C; a torn record at the end of a segment (a crash
+ * mid-append) is cut off when the spool is opened. Delivery is
+ * at-least-once: a crash between sending a message and writing spool.ack
+ * sends it again.
+ *
+ * Segment record format: length (int), crc32c (int), payload.
+ * Ack format: segment (long), offset (long), crc32c (int) of both.
+ */
+@Component
+@ConditionalOnProperty(name = "digital-signage-service.spool.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class FileOutboundSpool {
+
+    private static final String SPOOL_DIRECTORY = "spool";
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILENAME = "spool.ack";
+    private static final String REJECTED_FILENAME = "rejected.seg";
+    private static final String BLOCKED_FILENAME = "spool.blocked";
+
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+    private static final int ACK_BYTES = 8 + 8 + 4;
+
+    @Value("${etl.metadata.directory:./data}")
+    private String metadataDirectory;
+
+    @Value("${digital-signage-service.spool.segment-size:1MB}")
+    private DataSize segmentSize;
+
+    @Value("${digital-signage-service.spool.fsync:true}")
+    private boolean fsync;
+
+    private Path directory;
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private FileChannel tail;
+
+    // Position after the last delivered record
+    private long ackSegment;
+    private long ackOffset;
+
+    // Record handed out by next() and not yet acknowledged
+    private long readSegment;
+    private long readOffset;
+    private int readLength = -1;
+
+    private int pending;
+    private byte[] lastPayload;
+
+    // Set while the oldest message is refused and waits for an operator
+    private String blockedReason;
+
+    /**
+     * Append a message, durable before it returns when spool.fsync is set
+     */
+    public synchronized void append(byte[] payload) {
+        open();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt(crc(payload));
+        record.put(payload);
+        record.flip();
+
+        long start = -1;
+        try {
+            if (tail == null || tail.size() >= segmentSize.toBytes()) {
+                roll();
+            }
+            start = tail.position();
+            while (record.hasRemaining()) {
+                tail.write(record);
+            }
+            if (fsync) {
+                tail.force(false);
+            }
+        } catch (IOException e) {
+            log.error("Failed to append to outbound spool", e);
+            discardPartialRecord(start);
+            throw new RuntimeException("Failed to spool message", e);
+        }
+
+        lastPayload = payload;
+        pending++;
+        log.debug("Spooled message ({} bytes, {} pending)", payload.length, pending);
+        notifyAll();
+    }
+
+    /**
+     * Oldest undelivered message, waiting up to timeout for one to be appended
+     *
+     * The same message is returned until it is acknowledged. Nothing is
+     * returned while the spool is blocked.
+     *
+     * @return Message, or empty if none arrived in time
+     */
+    public synchronized Optional<byte[]> next(Duration timeout) throws InterruptedException {
+        open();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending == 0 || blockedReason != null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return Optional.empty();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return Optional.of(readHead());
+    }
+
+    /**
+     * Read the oldest undelivered record and remember it for acknowledgement
+     */
+    private byte[] readHead() {
+        long segment = ackSegment;
+        long offset = ackOffset;
+        try {
+            while (offset >= segmentSize(segment)) {
+                // Pending messages exist, so a later segment does too
+                segment = segments.higher(segment);
+                offset = 0;
+            }
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                readFully(channel, header, offset);
+                int length = header.getInt(0);
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+
+                readSegment = segment;
+                readOffset = offset;
+                readLength = length;
+                return payload.array();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read outbound spool in " + directory, e);
+        }
+    }
+
+    /**
+     * Mark the message returned by next() as delivered
+     */
+    public synchronized void acknowledge() {
+        if (readLength < 0) {
+            throw new IllegalStateException("No spooled message to acknowledge");
+        }
+        ackSegment = readSegment;
+        ackOffset = readOffset + RECORD_HEADER_BYTES + readLength;
+        readLength = -1;
+        pending--;
+
+        try {
+            writeAck();
+        } catch (IOException e) {
+            // The position is kept in memory; after a restart the message is
+            // sent again, which the service recognizes by its batch id
+            log.warn("Failed to persist outbound spool position: {}", e.getMessage());
+            return;
+        }
+        deleteDeliveredSegments();
+    }
+
+    /**
+     * Stop handing out messages: the one returned by next() was refused for
+     * good and stays queued until {@link #resume(boolean)}
+     *
+     * The reason is persisted, so the spool stays blocked across restarts.
+     */
+    public synchronized void block(String reason) {
+        open();
+        blockedReason = reason;
+        try {
+            AtomicFiles.write(directory.resolve(BLOCKED_FILENAME), reason.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Blocked in memory; after a restart the message is refused again
+            log.warn("Failed to persist outbound spool block: {}", e.getMessage());
+        }
+        log.error("Outbound spool blocked, {} messages held: {}", pending, reason);
+    }
+
+    /**
+     * Reason the spool is blocked
+     *
+     * @return Reason, or empty if messages are delivered
+     */
+    public synchronized Optional<String> blockedReason() {
+        open();
+        return Optional.ofNullable(blockedReason);
+    }
+
+    /**
+     * Deliver again after a block, retrying the refused message or moving it
+     * to rejected.seg
+     *
+     * @param discard Move the refused message aside instead of sending it again
+     * @throws IllegalStateException if the spool is not blocked
+     */
+    public synchronized void resume(boolean discard) {
+        open();
+        if (blockedReason == null) {
+            throw new IllegalStateException("Outbound spool is not blocked");
+        }
+        if (discard) {
+            readHead();
+            reject();
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(BLOCKED_FILENAME));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot remove " + BLOCKED_FILENAME + " in " + directory, e);
+        }
+        blockedReason = null;
+        log.info("Outbound spool resumed ({}, {} messages pending)",
+                discard ? "refused message discarded" : "retrying refused message", pending);
+        notifyAll();
+    }
+
+    /**
+     * Move the message read last to rejected.seg and go on with the next one
+     */
+    private void reject() {
+        if (readLength < 0) {
+            throw new IllegalStateException("No spooled message to reject");
+        }
+        try (FileChannel source = FileChannel.open(segmentPath(readSegment), StandardOpenOption.READ);
+             FileChannel rejected = FileChannel.open(directory.resolve(REJECTED_FILENAME),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long length = RECORD_HEADER_BYTES + readLength;
+            long copied = 0;
+            while (copied < length) {
+                copied += source.transferTo(readOffset + copied, length - copied, rejected);
+            }
+            rejected.force(false);
+        } catch (IOException e) {
+            // Not acknowledged, so it is offered again rather than lost
+            throw new IllegalStateException("Cannot move spooled message to " + REJECTED_FILENAME, e);
+        }
+        acknowledge();
+    }
+
+    /**
+     * Number of messages not yet delivered
+     */
+    public synchronized int pendingCount() {
+        open();
+        return pending;
+    }
+
+    /**
+     * Most recently appended message, delivered or not
+     *
+     * @return Message, or empty if nothing was spooled since the last segment was deleted
+     */
+    public synchronized Optional<byte[]> latest() {
+        open();
+        return Optional.ofNullable(lastPayload);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (tail != null) {
+            try {
+                tail.close();
+            } catch (IOException e) {
+                log.warn("Failed to close outbound spool: {}", e.getMessage());
+            }
+            tail = null;
+        }
+        directory = null;
+        segments.clear();
+        lastPayload = null;
+        readLength = -1;
+    }
+
+    /**
+     * Cut off a partially written record, so later appends stay readable
+     */
+    private void discardPartialRecord(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            tail.truncate(start);
+            tail.position(start);
+        } catch (IOException e) {
+            // Reopen on the next call, which cuts the torn tail off
+            log.warn("Failed to discard partial spool record: {}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Start a new segment after the newest one
+     */
+    private void roll() throws IOException {
+        long segment = segments.isEmpty() ? 1 : segments.last() + 1;
+        FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        AtomicFiles.forceDirectory(directory);
+        if (tail != null) {
+            tail.close();
+        }
+        tail = channel;
+        tail.position(tail.size());
+        if (segments.isEmpty()) {
+            ackSegment = segment;
+            ackOffset = 0;
+        }
+        segments.add(segment);
+        log.debug("Started outbound spool segment {}", segment);
+    }
+
+    /**
+     * Scan the segments and the ack position on first use
+     */
+    private void open() {
+        if (directory != null) {
+            return;
+        }
+        Path spoolDirectory = Paths.get(metadataDirectory, SPOOL_DIRECTORY);
+        try {
+            Files.createDirectories(spoolDirectory);
+            segments.clear();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+            directory = spoolDirectory;
+
+            readAck();
+            Path blocked = spoolDirectory.resolve(BLOCKED_FILENAME);
+            blockedReason = Files.exists(blocked)
+                    ? new String(Files.readAllBytes(blocked), StandardCharsets.UTF_8) : null;
+            if (!segments.contains(ackSegment)) {
+                // Nothing acknowledged yet, or the ack names a segment that is gone
+                ackSegment = segments.isEmpty() ? 0 : segments.first();
+                ackOffset = 0;
+            }
+
+            pending = 0;
+            lastPayload = null;
+            for (long segment : segments) {
+                scanSegment(segment);
+            }
+            deleteDeliveredSegments();
+
+            if (!segments.isEmpty()) {
+                tail = FileChannel.open(segmentPath(segments.last()), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                tail.position(tail.size());
+            }
+            log.info("Opened outbound spool {}: {} segments, {} messages pending", directory, segments.size(), pending);
+            if (blockedReason != null) {
+                log.warn("Outbound spool is blocked until delivery is resumed: {}", blockedReason);
+            }
+
+        } catch (IOException | RuntimeException e) {
+            directory = null;
+            throw new IllegalStateException("Cannot open outbound spool in " + spoolDirectory, e);
+        }
+    }
+
+    /**
+     * Count the undelivered records of a segment and cut off a torn tail
+     */
+    private void scanSegment(long segment) throws IOException {
+        Path path = segmentPath(segment);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long validEnd = 0;
+            while (in.remaining() >= RECORD_HEADER_BYTES) {
+                long start = in.position();
+                int length = in.getInt();
+                int expectedCrc = in.getInt();
+                if (length < 0 || length > in.remaining() || crc(in.slice(in.position(), length)) != expectedCrc) {
+                    break;
+                }
+                lastPayload = new byte[length];
+                in.get(lastPayload);
+                if (segment > ackSegment || (segment == ackSegment && start >= ackOffset)) {
+                    pending++;
+                }
+                validEnd = in.position();
+            }
+
+            if (validEnd < size) {
+                log.warn("Truncating torn tail of outbound spool segment {}: {} of {} bytes kept", path, validEnd, size);
+                channel.truncate(validEnd);
+                channel.force(false);
+                if (segment == ackSegment && ackOffset > validEnd) {
+                    ackOffset = validEnd;
+                }
+            }
+        }
+    }
+
+    private void readAck() throws IOException {
+        ackSegment = 0;
+        ackOffset = 0;
+        Path ackPath = directory.resolve(ACK_FILENAME);
+        if (!Files.exists(ackPath)) {
+            return;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(ackPath));
+        if (in.remaining() != ACK_BYTES || crc(in.slice(0, 16)) != in.getInt(16)) {
+            // Written atomically, so this is damage: send everything again rather than lose it
+            log.warn("Corrupt outbound spool position {}, delivering all spooled messages again", ackPath);
+            return;
+        }
+        ackSegment = in.getLong();
+        ackOffset = in.getLong();
+    }
+
+    private void writeAck() throws IOException {
+        ByteBuffer ack = ByteBuffer.allocate(ACK_BYTES);
+        ack.putLong(ackSegment);
+        ack.putLong(ackOffset);
+        ack.putInt(crc(ack.slice(0, 16)));
+        AtomicFiles.write(directory.resolve(ACK_FILENAME), ack.array());
+    }
+
+    /**
+     * Delete the segments before the ack position, keeping the newest
+     */
+    private void deleteDeliveredSegments() {
+        while (segments.size() > 1 && segments.first() < ackSegment) {
+            Path path = segmentPath(segments.first());
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // Retried after the next acknowledgement
+                log.warn("Failed to delete delivered spool segment {}: {}", path, e.getMessage());
+                return;
+            }
+            segments.pollFirst();
+            log.debug("Deleted delivered spool segment {}", path);
+        }
+    }
+
+    private long segmentSize(long segment) throws IOException {
+        return Files.size(segmentPath(segment));
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of spool segment");
+            }
+        }
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+}
@@ -1,14 +1,23 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.rest;
 
 import io.jeecloud.aidigitalsignage.analyticsetl.application.AnalyticsEtlService;
+import io.jeecloud.aidigitalsignage.analyticsetl.application.EtlRunJournal;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlRun;
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine.TDengineTransportBenchmark;
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine.TransportBenchmarkResult;
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine.TypedLayoutBackfill;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +33,9 @@ import java.util.Map;
 public class EtlController {
     
     private final AnalyticsEtlService etlService;
+    private final EtlRunJournal etlRunJournal;
+    private final TypedLayoutBackfill typedLayoutBackfill;
+    private final TDengineTransportBenchmark transportBenchmark;
     
     /**
      * Trigger ETL execution manually
@@ -60,4 +72,149 @@ public class EtlController {
             ));
         }
     }
+    
+    /**
+     * Recent ETL runs from the run journal
+     * 
+     * GET /api/etl/runs?limit=20
+     * 
+     * @param limit Maximum number of runs
+     * @return Runs with rows, bytes, duration, stream watermarks and lag, newest first
+     */
+    @GetMapping("/runs")
+    public ResponseEntity<List<EtlRun>> recentRuns(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(etlRunJournal.recentRuns(Math.max(limit, 0)));
+    }
+    
+    /**
+     * Re-send the ETL's accumulated totals to the digital-signage-service
+     * 
+     * POST /api/etl/republish
+     * 
+     * Replaces the service's dashboard and ads, e.g. after its database was
+     * lost. Refused (409) when the local state was imported from an earlier
+     * version and does not cover the full history.
+     * 
+     * @return JSON response with status and timestamp
+     */
+    @PostMapping("/republish")
+    public ResponseEntity<Map<String, Object>> republishAnalytics() {
+        log.info(">>> Analytics republish requested via REST API");
+        
+        try {
+            etlService.republishAnalytics();
+            
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "message", "Accumulated analytics republished",
+                "timestamp", Instant.now().toString()
+            ));
+            
+        } catch (IllegalStateException e) {
+            log.warn(">>> Analytics republish refused: {}", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "status", "error",
+                "message", e.getMessage(),
+                "timestamp", Instant.now().toString()
+            ));
+            
+        } catch (Exception e) {
+            log.error(">>> Analytics republish failed: {}", e.getMessage(), e);
+            
+            return ResponseEntity.internalServerError().body(Map.of(
+                "status", "error",
+                "message", e.getMessage(),
+                "timestamp", Instant.now().toString()
+            ));
+        }
+    }
+    
+    /**
+     * Resume spool delivery after digital-signage-service refused an increment
+     * 
+     * POST /api/etl/spool/resume?discard=false
+     * 
+     * Retries the refused increment, or moves it to rejected.seg with
+     * discard=true (republish afterwards to restore its window). Refused
+     * (409) when delivery is not blocked.
+     * 
+     * @param discard Drop the refused increment instead of sending it again
+     * @return JSON response with status and timestamp
+     */
+    @PostMapping("/spool/resume")
+    public ResponseEntity<Map<String, Object>> resumeDelivery(@RequestParam(defaultValue = "false") boolean discard) {
+        log.info(">>> Spool resume requested via REST API (discard={})", discard);
+        
+        try {
+            etlService.resumeDelivery(discard);
+            
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "message", discard ? "Refused increment discarded, delivery resumed" : "Delivery resumed",
+                "timestamp", Instant.now().toString()
+            ));
+            
+        } catch (IllegalStateException e) {
+            log.warn(">>> Spool resume refused: {}", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "status", "error",
+                "message", e.getMessage(),
+                "timestamp", Instant.now().toString()
+            ));
+        }
+    }
+    
+    /**
+     * Convert JSON gaze_events rows into the typed super tables
+     * 
+     * POST /api/etl/backfill/typed?from=2026-01-01T00:00:00Z
+     * 
+     * Idempotent: re-running over the same range overwrites the same rows.
+     * 
+     * @param from Only convert rows after this ISO-8601 instant (optional)
+     * @return JSON response with status and converted row count
+     */
+    @PostMapping("/backfill/typed")
+    public ResponseEntity<Map<String, Object>> backfillTypedLayout(@RequestParam(required = false) Instant from) {
+        log.info(">>> Typed layout backfill requested via REST API (from={})", from);
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            long converted = typedLayoutBackfill.backfill(from);
+            long duration = System.currentTimeMillis() - startTime;
+            
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "rowsConverted", converted,
+                "timestamp", Instant.now().toString(),
+                "durationMs", duration
+            ));
+            
+        } catch (Exception e) {
+            log.error(">>> Typed layout backfill failed: {}", e.getMessage(), e);
+            
+            return ResponseEntity.internalServerError().body(Map.of(
+                "status", "error",
+                "message", e.getMessage(),
+                "timestamp", Instant.now().toString()
+            ));
+        }
+    }
+    
+    /**
+     * Compare TDengine transports (REST, WebSocket, native) on the extraction query
+     * 
+     * POST /api/etl/benchmark/transport?rows=10000
+     * 
+     * @param rows Rows to fetch per transport
+     * @return Per-transport rows/sec and payload throughput
+     */
+    @PostMapping("/benchmark/transport")
+    public ResponseEntity<List<TransportBenchmarkResult>> benchmarkTransport(
+            @RequestParam(defaultValue = "10000") int rows) {
+        log.info(">>> TDengine transport benchmark requested via REST API ({} rows)", rows);
+        return ResponseEntity.ok(transportBenchmark.run(rows));
+    }
 }
@@ -0,0 +1,57 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.restclient;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip Request Interceptor (Infrastructure Layer)
+ * 
+ * Compresses request bodies of at least the minimum size and marks them with
+ * Content-Encoding: gzip; the digital-signage-service inflates them before
+ * they reach the controllers. The payloads (ad names and field names
+ * repeated per ad and per rollup bucket) typically shrink 5-10x. Smaller
+ * bodies are sent as they are, where compressing costs more than it saves.
+ */
+@Slf4j
+public class GzipRequestInterceptor implements ClientHttpRequestInterceptor {
+    
+    private static final String GZIP = "gzip";
+    
+    private final int minSize;
+    
+    public GzipRequestInterceptor(int minSize) {
+        this.minSize = minSize;
+    }
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        if (body.length < minSize || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return execution.execute(request, body);
+        }
+        
+        byte[] compressed = gzip(body);
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        headers.setContentLength(compressed.length);
+        log.debug("Compressed {} {} body: {} -> {} bytes",
+                request.getMethod(), request.getURI().getPath(), body.length, compressed.length);
+        return execution.execute(request, compressed);
+    }
+    
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer, 8192)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+}
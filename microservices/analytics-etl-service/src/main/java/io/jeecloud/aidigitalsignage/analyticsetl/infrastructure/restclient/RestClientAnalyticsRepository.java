@@ -3,21 +3,35 @@ package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.restclient;
 import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.ResearchMetricsDto;
 import io.jeecloud.aidigitalsignage.analyticsetl.application.dto.SystemHealthDto;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAttention;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAudienceCube;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AnalyticsDelta;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.AnalyticsRepository;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.DashboardAnalytics;
-import lombok.RequiredArgsConstructor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EtlBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupBucket;
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file.FileOutboundSpool;
+import io.jeecloud.aidigitalsignage.common.wire.AnalyticsWire;
+import io.jeecloud.aidigitalsignage.common.wire.WireFormat;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
+import java.time.Instant;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.ArrayList;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -25,9 +39,17 @@ import java.util.stream.Collectors;
  * 
  * Implements the AnalyticsRepository port by calling digital-signage-service REST API.
  * Follows microservice best practices - each service owns its own database.
+ * 
+ * The RestTemplate is pooled, gzips bodies and times every call, see RestClientConfig.
+ * Payloads are the typed {@link AnalyticsWire} messages, encoded as CBOR by default
+ * (digital-signage-service.rest.wire-format). A service answering 415 to CBOR gets
+ * JSON from then on. Increments carry their batch, which the service applies once.
+ * 
+ * Increments go through the durable outbound spool (see FileOutboundSpool), so a
+ * load succeeds while the service is down; digital-signage-service.spool.enabled=false
+ * sends them directly and fails the load instead.
  */
 @Repository
-@RequiredArgsConstructor
 @Slf4j
 public class RestClientAnalyticsRepository implements AnalyticsRepository {
     
@@ -36,8 +58,19 @@ public class RestClientAnalyticsRepository implements AnalyticsRepository {
     @Value("${digital-signage-service.url:http://localhost:8080}")
     private String digitalSignageServiceUrl;
     
-    // Temporary storage for dashboard analytics (within single ETL transaction)
-    private DashboardAnalytics currentDashboardAnalytics;
+    // Switched to JSON when the service does not accept the configured format
+    private volatile WireFormat wireFormat;
+    
+    // Null when digital-signage-service.spool.enabled=false: increments are sent right away
+    private final FileOutboundSpool spool;
+    
+    public RestClientAnalyticsRepository(RestTemplate restTemplate,
+            @Value("${digital-signage-service.rest.wire-format:cbor}") String wireFormat,
+            Optional<FileOutboundSpool> spool) {
+        this.restTemplate = restTemplate;
+        this.wireFormat = WireFormat.from(wireFormat);
+        this.spool = spool.orElse(null);
+    }
     
     /**
      * Clear all analytics - not needed for REST API approach
@@ -50,257 +83,468 @@ public class RestClientAnalyticsRepository implements AnalyticsRepository {
     }
     
     /**
-     * Get existing dashboard analytics from the backend for accumulation
+     * Add a window's deltas via REST API
+     * 
+     * Sends dashboard and ad deltas, rollups, audience cube, system health, research
+     * metrics and currently watching in one call; the service adds them in place.
+     * With the outbound spool enabled the increment is only appended to the spool
+     * here, and {@link SpoolSender} delivers it once the service is reachable.
      */
     @Override
-    @SuppressWarnings("unchecked")
-    public Optional<DashboardAnalytics> getExistingDashboardAnalytics() {
+    public long addAnalytics(AnalyticsDelta delta) {
+        AnalyticsWire.Increment request = buildIncrementRequest(delta);
+        
+        if (spool != null) {
+            requireDelivering();
+            // The spool keeps CBOR regardless of the wire format negotiated with the service
+            byte[] message = WireFormat.CBOR.encode(request);
+            spool.append(message);
+            log.info("Spooled analytics increment (batch {}, {} bytes, {} pending)",
+                    delta.getBatch() != null ? delta.getBatch().getId() : "none", message.length,
+                    spool.pendingCount());
+            return message.length;
+        }
+        
         try {
-            String url = digitalSignageServiceUrl + "/api/dashboard/overview";
-            log.debug("Fetching existing analytics from: {}", url);
-            
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            
-            if (response == null || response.isEmpty()) {
-                return Optional.empty();
-            }
-            
-            // Parse age distribution
-            Map<String, Object> ageDist = (Map<String, Object>) response.get("ageDistribution");
-            Map<String, Object> genderDist = (Map<String, Object>) response.get("genderDistribution");
-            Map<String, Object> emotionDist = (Map<String, Object>) response.get("emotionDistribution");
+            return send(request);
+        } catch (Exception e) {
+            log.error("Failed to send analytics to digital-signage-service", e);
+            throw new RuntimeException("Failed to increment analytics via REST API", e);
+        }
+    }
+    
+    /**
+     * POST one increment to the service
+     * 
+     * @return Size of the request body, in bytes
+     * @throws org.springframework.web.client.RestClientException if the service cannot be reached or refuses it
+     */
+    public long send(AnalyticsWire.Increment request) {
+        String url = digitalSignageServiceUrl + "/api/analytics/increment";
+        
+        log.info("Sending analytics increment to digital-signage-service: {} (batch {})", url,
+                request.batch() != null ? request.batch().id() : "none");
+        log.debug("Payload: dashboard deltas + {} ad deltas + system health + research metrics",
+                request.adMetrics() != null ? request.adMetrics().size() : 0);
+        
+        long startNanos = System.nanoTime();
+        Posted<AnalyticsWire.IncrementResult> posted = post(url, request, AnalyticsWire.IncrementResult.class);
+        ResponseEntity<AnalyticsWire.IncrementResult> response = posted.response();
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        
+        AnalyticsWire.IncrementResult result = response.getBody();
+        if (response.getStatusCode() != HttpStatus.OK) {
+            log.warn("Unexpected response from digital-signage-service: {}", response.getStatusCode());
+        } else if (result != null && Boolean.FALSE.equals(result.applied())) {
+            log.info("Batch {} was already applied by digital-signage-service, increment ignored ({} ms)",
+                    result.batchId(), elapsedMs);
+        } else {
+            log.info("Successfully sent analytics to digital-signage-service in {} ms", elapsedMs);
+        }
+        return posted.bytes();
+    }
+    
+    /**
+     * Replace the dashboard and ads via REST API (full update)
+     */
+    @Override
+    public void replaceAnalytics(DashboardAnalytics totals, List<AdAnalytics> adAnalyticsList) {
+        if (spool != null && spool.pendingCount() > 0) {
+            // The spooled increments would be added on top of the replaced totals
+            throw new IllegalStateException(spool.pendingCount()
+                    + " spooled increments are not delivered yet, retry once the spool is drained");
+        }
+        
+        try {
+            String url = digitalSignageServiceUrl + "/api/analytics/update";
             
-            DashboardAnalytics existing = DashboardAnalytics.builder()
-                    .totalAudience(getIntValue(response, "totalAudience"))
-                    .totalViews(getIntValue(response, "totalViews"))
-                    .totalAds(getIntValue(response, "totalAds"))
-                    .avgViewSeconds(getDoubleValue(response, "avgViewSeconds"))
-                    .children(ageDist != null ? getIntValue(ageDist, "children") : 0)
-                    .teenagers(ageDist != null ? getIntValue(ageDist, "teenagers") : 0)
-                    .youngAdults(ageDist != null ? getIntValue(ageDist, "youngAdults") : 0)
-                    .midAged(ageDist != null ? getIntValue(ageDist, "midAged") : 0)
-                    .seniors(ageDist != null ? getIntValue(ageDist, "seniors") : 0)
-                    .male(genderDist != null ? getIntValue(genderDist, "male") : 0)
-                    .female(genderDist != null ? getIntValue(genderDist, "female") : 0)
-                    .anger(emotionDist != null ? getIntValue(emotionDist, "anger") : 0)
-                    .contempt(emotionDist != null ? getIntValue(emotionDist, "contempt") : 0)
-                    .disgust(emotionDist != null ? getIntValue(emotionDist, "disgust") : 0)
-                    .fear(emotionDist != null ? getIntValue(emotionDist, "fear") : 0)
-                    .happiness(emotionDist != null ? getIntValue(emotionDist, "happiness") : 0)
-                    .neutral(emotionDist != null ? getIntValue(emotionDist, "neutral") : 0)
-                    .sadness(emotionDist != null ? getIntValue(emotionDist, "sadness") : 0)
-                    .surprise(emotionDist != null ? getIntValue(emotionDist, "surprise") : 0)
+            AnalyticsWire.Update request = AnalyticsWire.Update.builder()
+                    .dashboardMetrics(mapDashboardAnalytics(totals, true))
+                    .adMetrics(adAnalyticsList.stream()
+                            .map(this::mapAdAnalytics)
+                            .collect(Collectors.toList()))
                     .build();
             
-            log.debug("Loaded existing analytics: {} viewers, {} views", 
-                    existing.getTotalAudience(), existing.getTotalViews());
-            return Optional.of(existing);
+            log.info("Sending full analytics update to digital-signage-service: {}", url);
+            long startNanos = System.nanoTime();
+            post(url, request, Void.class);
+            log.info("Full analytics update accepted in {} ms", (System.nanoTime() - startNanos) / 1_000_000);
             
         } catch (Exception e) {
-            log.warn("Could not fetch existing analytics (may be first run): {}", e.getMessage());
-            return Optional.empty();
+            log.error("Failed to send analytics to digital-signage-service", e);
+            throw new RuntimeException("Failed to update analytics via REST API", e);
         }
     }
     
     /**
-     * Get existing ad analytics from the backend for accumulation
+     * Latest batch handed to the service: the newest spooled one, or else the
+     * latest applied batch via REST API (204 if the service has none)
      */
     @Override
-    @SuppressWarnings("unchecked")
-    public List<AdAnalytics> getExistingAdAnalytics() {
+    public Optional<EtlBatch> findLatestBatch() {
+        if (spool != null) {
+            requireDelivering();
+        }
+        AnalyticsWire.Batch spooled = latestSpooledBatch();
+        if (spooled != null) {
+            return Optional.of(toEtlBatch(spooled));
+        }
+        
         try {
-            String url = digitalSignageServiceUrl + "/api/dashboard/overview";
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            
-            if (response == null) {
-                return new ArrayList<>();
-            }
-            
-            List<Map<String, Object>> adsPerformance = (List<Map<String, Object>>) response.get("adsPerformance");
-            List<Map<String, Object>> adsAttention = (List<Map<String, Object>>) response.get("adsAttention");
-            
-            if (adsPerformance == null || adsPerformance.isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            // Build map of attention data for lookup
-            Map<String, int[]> attentionMap = new HashMap<>();
-            if (adsAttention != null) {
-                for (Map<String, Object> att : adsAttention) {
-                    String adName = (String) att.get("adName");
-                    attentionMap.put(adName, new int[]{
-                            getIntValue(att, "lookYes"),
-                            getIntValue(att, "lookNo")
-                    });
-                }
-            }
+            String url = digitalSignageServiceUrl + "/api/analytics/batches/latest";
+            ResponseEntity<AnalyticsWire.Batch> response = restTemplate.getForEntity(url, AnalyticsWire.Batch.class);
             
-            List<AdAnalytics> result = new ArrayList<>();
-            for (Map<String, Object> perf : adsPerformance) {
-                String adName = (String) perf.get("adName");
-                int[] attention = attentionMap.getOrDefault(adName, new int[]{0, 0});
-                
-                result.add(AdAnalytics.builder()
-                        .adName(adName)
-                        .totalViewers(getIntValue(perf, "totalViewers"))
-                        .lookYes(attention[0])
-                        .lookNo(attention[1])
-                        .build());
+            AnalyticsWire.Batch batch = response.getBody();
+            if (response.getStatusCode() == HttpStatus.NO_CONTENT || batch == null) {
+                return Optional.empty();
             }
+            return Optional.of(toEtlBatch(batch));
             
-            log.debug("Loaded {} existing ad analytics", result.size());
-            return result;
-            
+        } catch (HttpClientErrorException.NotFound e) {
+            // Service version without batch tracking: nothing to reconcile against
+            log.warn("digital-signage-service does not track applied batches");
+            return Optional.empty();
         } catch (Exception e) {
-            log.warn("Could not fetch existing ad analytics: {}", e.getMessage());
-            return new ArrayList<>();
+            log.error("Failed to read latest batch from digital-signage-service", e);
+            throw new RuntimeException("Failed to read latest batch via REST API", e);
         }
     }
     
-    private int getIntValue(Map<String, Object> map, String key) {
-        Object val = map.get(key);
-        if (val instanceof Number) {
-            return ((Number) val).intValue();
+    /**
+     * Retry or drop the spooled increment the service refused
+     */
+    @Override
+    public void resumeDelivery(boolean discard) {
+        if (spool == null) {
+            throw new IllegalStateException("Increments are sent directly, no delivery is blocked");
         }
-        return 0;
+        spool.resume(discard);
     }
     
-    private double getDoubleValue(Map<String, Object> map, String key) {
-        Object val = map.get(key);
-        if (val instanceof Number) {
-            return ((Number) val).doubleValue();
-        }
-        return 0.0;
+    /**
+     * Helper: Refuse to go on while the spool holds an increment the service refused,
+     * as the local state already includes its window
+     */
+    private void requireDelivering() {
+        spool.blockedReason().ifPresent(reason -> {
+            throw new IllegalStateException("Outbound spool is blocked: " + reason
+                    + "; retry or discard it with POST /api/etl/spool/resume");
+        });
     }
     
     /**
-     * Store dashboard analytics temporarily for batch update
-     * 
-     * The analytics will be sent together with ad analytics in saveAdAnalytics()
+     * Batch of the newest spooled increment (null if there is none to go by)
      */
-    @Override
-    public void saveDashboardAnalytics(DashboardAnalytics analytics) {
-        log.debug("Storing dashboard analytics for batch REST API call");
-        this.currentDashboardAnalytics = analytics;
+    private AnalyticsWire.Batch latestSpooledBatch() {
+        if (spool == null) {
+            return null;
+        }
+        try {
+            return spool.latest()
+                    .map(message -> WireFormat.CBOR.decode(message, AnalyticsWire.Increment.class).batch())
+                    .orElse(null);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unreadable newest spooled increment, asking digital-signage-service: {}", e.getMessage());
+            return null;
+        }
     }
     
     /**
-     * Save advertisement analytics via REST API
-     * 
-     * This method sends dashboard, ad analytics, system health, and research metrics together.
+     * POST a message in the current wire format, falling back to JSON on 415
      */
-    @Override
-    public void saveAdAnalytics(List<AdAnalytics> adAnalyticsList, SystemHealthDto systemHealth, ResearchMetricsDto researchMetrics) {
+    private <T> Posted<T> post(String url, Object message, Class<T> responseType) {
+        WireFormat format = wireFormat;
         try {
-            String url = digitalSignageServiceUrl + "/api/analytics/update";
-            
-            // Build request payload with dashboard, ads, system health, and research metrics
-            Map<String, Object> request = buildUpdateRequest(currentDashboardAnalytics, adAnalyticsList, systemHealth, researchMetrics);
-            
-            log.info("Sending analytics update to digital-signage-service: {}", url);
-            log.debug("Payload: dashboard metrics + {} ad analytics + system health + research metrics", adAnalyticsList.size());
-            
-            ResponseEntity<Void> response = restTemplate.postForEntity(url, request, Void.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                log.info("Successfully sent analytics to digital-signage-service");
-            } else {
-                log.warn("Unexpected response from digital-signage-service: {}", response.getStatusCode());
+            return post(url, encode(message, format), responseType);
+        } catch (HttpClientErrorException.UnsupportedMediaType e) {
+            if (format == WireFormat.JSON) {
+                throw e;
             }
-            
-            // Clear temporary storage
-            this.currentDashboardAnalytics = null;
-            
-        } catch (Exception e) {
-            log.error("Failed to send analytics to digital-signage-service", e);
-            throw new RuntimeException("Failed to update analytics via REST API", e);
+            log.warn("digital-signage-service does not accept {}, falling back to JSON", format.getMediaType());
+            wireFormat = WireFormat.JSON;
+            return post(url, encode(message, WireFormat.JSON), responseType);
         }
     }
     
+    private <T> Posted<T> post(String url, HttpEntity<byte[]> entity, Class<T> responseType) {
+        return new Posted<>(restTemplate.postForEntity(url, entity, responseType), entity.getBody().length);
+    }
+    
+    /**
+     * Response to a POST, with the size of the body that was sent
+     */
+    private record Posted<T>(ResponseEntity<T> response, int bytes) {
+    }
+    
+    private static HttpEntity<byte[]> encode(Object message, WireFormat format) {
+        byte[] body = format.encode(message);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getMediaType()));
+        log.debug("Encoded {} as {}: {} bytes", message.getClass().getSimpleName(), format, body.length);
+        return new HttpEntity<>(body, headers);
+    }
+    
     /**
      * Build the request payload for the REST API call
      */
-    private Map<String, Object> buildUpdateRequest(DashboardAnalytics dashboard, List<AdAnalytics> adAnalyticsList, 
-                                                   SystemHealthDto systemHealth, ResearchMetricsDto researchMetrics) {
-        Map<String, Object> request = new HashMap<>();
+    private AnalyticsWire.Increment buildIncrementRequest(AnalyticsDelta delta) {
+        AnalyticsWire.Increment.IncrementBuilder request = AnalyticsWire.Increment.builder();
+        
+        // Event range of the window, so a repeated send is recognized
+        if (delta.getBatch() != null) {
+            request.batch(mapBatch(delta.getBatch()));
+        }
+        
+        // Map dashboard deltas (only when the window had session events)
+        if (delta.getDashboard() != null) {
+            // currentlyWatching is sent top-level, also for windows without sessions
+            request.dashboardMetrics(mapDashboardAnalytics(delta.getDashboard(), false));
+        }
+        request.currentlyWatching(delta.getCurrentlyWatching());
         
-        // Map dashboard metrics (only if available)
-        if (dashboard != null) {
-            request.put("dashboardMetrics", mapDashboardAnalytics(dashboard));
+        // Map ad deltas
+        if (delta.getAdAnalytics() != null && !delta.getAdAnalytics().isEmpty()) {
+            request.adMetrics(delta.getAdAnalytics().stream()
+                    .map(this::mapAdAnalytics)
+                    .collect(Collectors.toList()));
         }
         
-        // Map ad analytics
-        List<Map<String, Object>> adMetrics = adAnalyticsList.stream()
-                .map(this::mapAdAnalytics)
-                .collect(Collectors.toList());
-        if (!adMetrics.isEmpty()) {
-            request.put("adMetrics", adMetrics);
+        // Map rollup buckets (only when the window had session events)
+        List<RollupBucket> rollups = delta.getRollups();
+        if (rollups != null && !rollups.isEmpty()) {
+            request.rollups(rollups.stream()
+                    .map(this::mapRollupBucket)
+                    .collect(Collectors.toList()));
+        }
+        
+        // Map audience cube (dictionary + varint cells)
+        AdAudienceCube audienceCube = delta.getAudienceCube();
+        if (audienceCube != null && !audienceCube.isEmpty()) {
+            request.audienceCube(new AnalyticsWire.AudienceCube(audienceCube.getAdNames(), audienceCube.toCells()));
         }
         
         // Add system health if available
+        SystemHealthDto systemHealth = delta.getSystemHealth();
         if (systemHealth != null) {
-            request.put("systemHealth", systemHealth);
+            request.systemHealth(mapSystemHealth(systemHealth));
             log.debug("Including system health metrics (FPS: {}, CPU: {}°C)", 
                     systemHealth.getPerformance() != null ? systemHealth.getPerformance().getCurrentFps() : "N/A",
                     systemHealth.getPerformance() != null ? systemHealth.getPerformance().getCurrentCpuTemp() : "N/A");
         }
         
         // Add research metrics if available
+        ResearchMetricsDto researchMetrics = delta.getResearchMetrics();
         if (researchMetrics != null) {
-            request.put("researchMetrics", researchMetrics);
+            request.researchMetrics(mapResearchMetrics(researchMetrics));
             log.debug("Including research metrics (Face detection: {}%, Gaze quality: {}% valid kpts)",
                     researchMetrics.getFaceDetection() != null ? researchMetrics.getFaceDetection().getAccuracy() : "N/A",
                     researchMetrics.getGazeQuality() != null ? researchMetrics.getGazeQuality().getKptsValidPercent() : "N/A");
         }
         
-        return request;
+        return request.build();
     }
     
     /**
-     * Map domain DashboardAnalytics to DTO map
+     * Map domain EtlBatch to the wire message
      */
-    private Map<String, Object> mapDashboardAnalytics(DashboardAnalytics analytics) {
-        Map<String, Object> map = new HashMap<>();
-        
-        // KPI Metrics
-        map.put("totalAudience", analytics.getTotalAudience());
-        map.put("totalViews", analytics.getTotalViews());
-        map.put("totalAds", analytics.getTotalAds());
-        map.put("avgViewSeconds", analytics.getAvgViewSeconds());
-        
-        // Age Distribution
-        map.put("children", analytics.getChildren());
-        map.put("teenagers", analytics.getTeenagers());
-        map.put("youngAdults", analytics.getYoungAdults());
-        map.put("midAged", analytics.getMidAged());
-        map.put("seniors", analytics.getSeniors());
-        
-        // Gender Distribution
-        map.put("male", analytics.getMale());
-        map.put("female", analytics.getFemale());
-        
-        // Emotion Distribution
-        map.put("anger", analytics.getAnger());
-        map.put("contempt", analytics.getContempt());
-        map.put("disgust", analytics.getDisgust());
-        map.put("fear", analytics.getFear());
-        map.put("happiness", analytics.getHappiness());
-        map.put("neutral", analytics.getNeutral());
-        map.put("sadness", analytics.getSadness());
-        map.put("surprise", analytics.getSurprise());
-        
-        return map;
+    private AnalyticsWire.Batch mapBatch(EtlBatch batch) {
+        EventCursor from = batch.getFrom();
+        return AnalyticsWire.Batch.builder()
+                .id(batch.getId())
+                .fromTimestamp(from != null ? from.getTimestamp().toEpochMilli() : null)
+                .fromTable(from != null ? from.getTableName() : null)
+                .toTimestamp(batch.getTo().getTimestamp().toEpochMilli())
+                .toTable(batch.getTo().getTableName())
+                .eventCount(batch.getEventCount())
+                .fromStreams(streamsToWire(batch.getFromStreams()))
+                .toStreams(streamsToWire(batch.getToStreams()))
+                .build();
     }
     
     /**
-     * Map domain AdAnalytics to DTO map
+     * Map the wire message back to domain EtlBatch
      */
-    private Map<String, Object> mapAdAnalytics(AdAnalytics analytics) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("adName", analytics.getAdName());
-        map.put("totalViewers", analytics.getTotalViewers());
-        map.put("lookYes", analytics.getLookYes());
-        map.put("lookNo", analytics.getLookNo());
-        return map;
+    private static EtlBatch toEtlBatch(AnalyticsWire.Batch batch) {
+        return new EtlBatch(batch.id(),
+                cursor(batch.fromTimestamp(), batch.fromTable()),
+                cursor(batch.toTimestamp(), batch.toTable()),
+                batch.eventCount() != null ? batch.eventCount() : 0,
+                streamsFromWire(batch.fromStreams()),
+                streamsFromWire(batch.toStreams()));
+    }
+    
+    private static Map<String, Long> streamsToWire(Map<EventStream, Instant> positions) {
+        if (positions == null) {
+            return null;
+        }
+        Map<String, Long> wire = new TreeMap<>();
+        positions.forEach((stream, position) -> wire.put(stream.name(), position.toEpochMilli()));
+        return wire;
+    }
+    
+    private static Map<EventStream, Instant> streamsFromWire(Map<String, Long> wire) {
+        if (wire == null) {
+            return null;
+        }
+        Map<EventStream, Instant> positions = new EnumMap<>(EventStream.class);
+        wire.forEach((stream, position) -> positions.put(EventStream.valueOf(stream), Instant.ofEpochMilli(position)));
+        return positions;
+    }
+    
+    private static EventCursor cursor(Long timestamp, String tableName) {
+        return timestamp != null ? new EventCursor(Instant.ofEpochMilli(timestamp), tableName) : null;
+    }
+    
+    /**
+     * Map domain DashboardAnalytics to the wire message
+     */
+    private AnalyticsWire.DashboardMetrics mapDashboardAnalytics(DashboardAnalytics analytics,
+                                                                 boolean withCurrentlyWatching) {
+        return AnalyticsWire.DashboardMetrics.builder()
+                // KPI Metrics
+                .totalAudience(analytics.getTotalAudience())
+                .totalViews(analytics.getTotalViews())
+                .totalAds(analytics.getTotalAds())
+                .avgViewSeconds(analytics.getAvgViewSeconds())
+                .currentlyWatching(withCurrentlyWatching ? analytics.getCurrentlyWatching() : null)
+                
+                // Age Distribution
+                .children(analytics.getChildren())
+                .teenagers(analytics.getTeenagers())
+                .youngAdults(analytics.getYoungAdults())
+                .midAged(analytics.getMidAged())
+                .seniors(analytics.getSeniors())
+                
+                // Gender Distribution
+                .male(analytics.getMale())
+                .female(analytics.getFemale())
+                
+                // Emotion Distribution
+                .anger(analytics.getAnger())
+                .contempt(analytics.getContempt())
+                .disgust(analytics.getDisgust())
+                .fear(analytics.getFear())
+                .happiness(analytics.getHappiness())
+                .neutral(analytics.getNeutral())
+                .sadness(analytics.getSadness())
+                .surprise(analytics.getSurprise())
+                
+                // Accumulated distributions (serialized QuantileSketch)
+                .sessionDurationSketch(analytics.getSessionDurationSketch() != null
+                        ? analytics.getSessionDurationSketch().toBytes() : null)
+                .totalGazeTimeSketch(analytics.getTotalGazeTimeSketch() != null
+                        ? analytics.getTotalGazeTimeSketch().toBytes() : null)
+                .build();
+    }
+    
+    /**
+     * Map domain RollupBucket to the wire message
+     * 
+     * Counts reuse the dashboard field names; totalAds is omitted because
+     * the service derives it from the bucket's ads. Every bucket carries
+     * its viewer sketch, so the service counts distinct viewers across
+     * buckets.
+     */
+    private AnalyticsWire.RollupBucket mapRollupBucket(RollupBucket bucket) {
+        DashboardAnalytics counts = bucket.getDashboard();
+        return AnalyticsWire.RollupBucket.builder()
+                .resolution(bucket.getResolution().value())
+                .bucketStart(bucket.getBucketStart().toEpochMilli())
+                .totalAudience(counts.getTotalAudience())
+                .totalViews(counts.getTotalViews())
+                .viewSecondsSum(bucket.getViewSecondsSum())
+                .viewSecondsCount(bucket.getViewSecondsCount())
+                .children(counts.getChildren())
+                .teenagers(counts.getTeenagers())
+                .youngAdults(counts.getYoungAdults())
+                .midAged(counts.getMidAged())
+                .seniors(counts.getSeniors())
+                .male(counts.getMale())
+                .female(counts.getFemale())
+                .anger(counts.getAnger())
+                .contempt(counts.getContempt())
+                .disgust(counts.getDisgust())
+                .fear(counts.getFear())
+                .happiness(counts.getHappiness())
+                .neutral(counts.getNeutral())
+                .sadness(counts.getSadness())
+                .surprise(counts.getSurprise())
+                .adMetrics(bucket.getAdAnalytics().stream()
+                        .map(this::mapAdAnalytics)
+                        .collect(Collectors.toList()))
+                .viewerSketch(bucket.getViewerSketch() != null && !bucket.getViewerSketch().isEmpty()
+                        ? bucket.getViewerSketch().toBytes() : null)
+                .build();
+    }
+    
+    /**
+     * Map domain AdAnalytics to the wire message
+     */
+    private AnalyticsWire.AdMetrics mapAdAnalytics(AdAnalytics analytics) {
+        AnalyticsWire.AdMetrics.AdMetricsBuilder ad = AnalyticsWire.AdMetrics.builder()
+                .adName(analytics.getAdName())
+                .totalViewers(analytics.getTotalViewers())
+                .lookYes(analytics.getLookYes())
+                .lookNo(analytics.getLookNo());
+        AdAttention attention = analytics.getAttention();
+        if (attention != null) {
+            ad.gazeSeconds(attention.getGazeSeconds())
+                    .gazeCount(attention.getGazeCount())
+                    .sessionSeconds(attention.getSessionSeconds())
+                    .dwellHistogram(attention.getDwellHistogram());
+        }
+        return ad.build();
+    }
+    
+    private AnalyticsWire.SystemHealth mapSystemHealth(SystemHealthDto health) {
+        SystemHealthDto.PerformanceMetricsDto perf = health.getPerformance();
+        SystemHealthDto.EnvironmentMetricsDto env = health.getEnvironment();
+        return AnalyticsWire.SystemHealth.builder()
+                .status(health.getStatus())
+                .uptime(health.getUptime())
+                .performance(perf == null ? null : AnalyticsWire.SystemHealth.Performance.builder()
+                        .currentFps(perf.getCurrentFps())
+                        .avgFps(perf.getAvgFps())
+                        .minFps(perf.getMinFps())
+                        .maxFps(perf.getMaxFps())
+                        .currentCpuTemp(perf.getCurrentCpuTemp())
+                        .maxCpuTemp(perf.getMaxCpuTemp())
+                        .cpuThreshold(perf.getCpuThreshold())
+                        .fpsSketch(perf.getFpsSketch())
+                        .build())
+                .environment(env == null ? null : AnalyticsWire.SystemHealth.Environment.builder()
+                        .temperatureCelsius(env.getTemperatureCelsius())
+                        .humidityPercent(env.getHumidityPercent())
+                        .pressureHpa(env.getPressureHpa())
+                        .gasResistanceOhms(env.getGasResistanceOhms())
+                        .noiseDb(env.getNoiseDb())
+                        .build())
+                .build();
+    }
+    
+    private AnalyticsWire.ResearchMetrics mapResearchMetrics(ResearchMetricsDto research) {
+        ResearchMetricsDto.FaceDetectionMetricsDto face = research.getFaceDetection();
+        ResearchMetricsDto.GazeQualityMetricsDto gaze = research.getGazeQuality();
+        ResearchMetricsDto.ComparisonMetricsDto comparison = research.getComparison();
+        return AnalyticsWire.ResearchMetrics.builder()
+                .faceDetection(face == null ? null : new AnalyticsWire.ResearchMetrics.FaceDetection(
+                        face.getAccuracy(), face.getConfidence(), face.getFramesProcessed(), face.getFacesDetected()))
+                .gazeQuality(gaze == null ? null : new AnalyticsWire.ResearchMetrics.GazeQuality(
+                        gaze.getKptsValidPercent(), gaze.getSolvepnpSuccessPercent(), gaze.getFallbackPercent()))
+                .comparison(comparison == null ? null : mapComparison(comparison))
+                .build();
+    }
+    
+    private AnalyticsWire.ResearchMetrics.Comparison mapComparison(ResearchMetricsDto.ComparisonMetricsDto comparison) {
+        ResearchMetricsDto.ComparisonMetricsDto.BaselineDataDto baseline = comparison.getBaseline();
+        ResearchMetricsDto.ComparisonMetricsDto.CurrentDataDto current = comparison.getCurrent();
+        ResearchMetricsDto.ComparisonMetricsDto.ImprovementDataDto improvement = comparison.getImprovement();
+        return new AnalyticsWire.ResearchMetrics.Comparison(
+                baseline == null ? null : new AnalyticsWire.ResearchMetrics.Condition(
+                        baseline.getCondition(), baseline.getAvgEngagement(), baseline.getPeriod()),
+                current == null ? null : new AnalyticsWire.ResearchMetrics.Condition(
+                        current.getCondition(), current.getAvgEngagement(), current.getPeriod()),
+                improvement == null ? null : new AnalyticsWire.ResearchMetrics.Improvement(
+                        improvement.getAbsolute(), improvement.getPercentage(), improvement.getSignificant()));
     }
 }
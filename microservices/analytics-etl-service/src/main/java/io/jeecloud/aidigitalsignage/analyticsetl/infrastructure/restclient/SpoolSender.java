@@ -0,0 +1,152 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.restclient;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.file.FileOutboundSpool;
+import io.jeecloud.aidigitalsignage.common.wire.AnalyticsWire;
+import io.jeecloud.aidigitalsignage.common.wire.WireFormat;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Spool Sender (Infrastructure Layer)
+ *
+ * Drains the outbound spool into POST /api/analytics/increment on a
+ * background thread, oldest message first, so the ETL only has to reach
+ * the local disk. A failed send is retried with exponential backoff
+ * (digital-signage-service.spool.retry.*) and blocks the messages behind
+ * it, which keeps the increments in order. A message the service refuses
+ * for good (a 4xx other than 408/429) or that cannot be decoded blocks the
+ * spool: the local state already includes it, so nothing is sent past it
+ * and runs fail until an operator resumes delivery (POST /api/etl/spool/resume).
+ *
+ * Active unless digital-signage-service.spool.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "digital-signage-service.spool.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class SpoolSender {
+
+    // Wait for new messages in slices, so a stop request is noticed
+    private static final Duration IDLE_WAIT = Duration.ofSeconds(1);
+
+    private final FileOutboundSpool spool;
+    private final RestClientAnalyticsRepository analyticsRepository;
+
+    @Value("${digital-signage-service.spool.retry.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${digital-signage-service.spool.retry.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public SpoolSender(FileOutboundSpool spool, RestClientAnalyticsRepository analyticsRepository) {
+        this.spool = spool;
+        this.analyticsRepository = analyticsRepository;
+    }
+
+    /**
+     * Start sending once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::sendLoop, "spool-sender");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("=== Spool sender started ({} increments pending) ===", spool.pendingCount());
+    }
+
+    /**
+     * Stop sending; undelivered messages stay in the spool for the next start
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(10_000);
+        }
+    }
+
+    private void sendLoop() {
+        Duration backoff = initialBackoff;
+        while (running) {
+            try {
+                Optional<byte[]> message = spool.next(IDLE_WAIT);
+                if (message.isEmpty()) {
+                    continue;
+                }
+
+                if (send(message.get())) {
+                    spool.acknowledge();
+                }
+                backoff = initialBackoff;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("[SPOOL] Sending increment failed ({} pending), retrying in {}s: {}",
+                        spool.pendingCount(), backoff.toSeconds(), e.getMessage());
+                if (!sleep(backoff)) {
+                    break;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+            }
+        }
+        log.info("=== Spool sender stopped ({} increments pending) ===", spool.pendingCount());
+    }
+
+    /**
+     * Send one spooled increment, blocking the spool if it can never be delivered
+     *
+     * @return false if the message was refused and the spool is blocked
+     */
+    private boolean send(byte[] message) {
+        AnalyticsWire.Increment increment;
+        try {
+            increment = WireFormat.CBOR.decode(message, AnalyticsWire.Increment.class);
+        } catch (IllegalArgumentException e) {
+            log.error("[SPOOL] Unreadable spooled increment ({} bytes)", message.length, e);
+            spool.block("Unreadable spooled increment (" + message.length + " bytes): " + e.getMessage());
+            return false;
+        }
+
+        try {
+            analyticsRepository.send(increment);
+            return true;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                    || e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                throw e;
+            }
+            String batchId = increment.batch() != null ? increment.batch().id() : "none";
+            log.error("[SPOOL] digital-signage-service refused batch {} ({}): {}",
+                    batchId, e.getStatusCode(), e.getResponseBodyAsString());
+            spool.block("digital-signage-service refused batch " + batchId + " (" + e.getStatusCode() + "): "
+                    + e.getResponseBodyAsString());
+            return false;
+        }
+    }
+
+    private boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
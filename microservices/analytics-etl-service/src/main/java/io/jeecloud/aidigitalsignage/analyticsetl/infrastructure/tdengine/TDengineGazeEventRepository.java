@@ -1,10 +1,17 @@
 package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
 
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
 import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventRepository;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.StreamWatermarks;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -12,22 +19,43 @@ import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * TDengine Repository Adapter (Infrastructure Layer)
  * 
  * Implements the GazeEventRepository port to extract data from TDengine.
  * TDengine is a time-series database optimized for high-volume data ingestion.
+ * 
+ * Reads the JSON layout (gaze_events.event_data). Active unless
+ * etl.source.layout=typed selects {@link TDengineTypedGazeEventRepository}.
  */
 @Repository
+@ConditionalOnProperty(name = "etl.source.layout", havingValue = "json", matchIfMissing = true)
 @Slf4j
 public class TDengineGazeEventRepository implements GazeEventRepository {
     
+    /**
+     * Event types the ETL reads: session starts and ends (incl. shutdown) and heartbeats
+     */
+    static final String ETL_EVENT_TYPES = "'gaze_start', 'session_end', 'shutdown_session_end', 'heartbeat'";
+    
     private final DataSource tdengineDataSource;
     
-    public TDengineGazeEventRepository(@Qualifier("tdengineDataSource") DataSource tdengineDataSource) {
+    /**
+     * Rows fetched per round-trip when streaming (bounded working set)
+     */
+    private final int fetchSize;
+    
+    public TDengineGazeEventRepository(@Qualifier("tdengineDataSource") DataSource tdengineDataSource,
+                                       @Value("${etl.extract.fetch-size:1000}") int fetchSize) {
         this.tdengineDataSource = tdengineDataSource;
+        this.fetchSize = fetchSize;
     }
     
     /**
@@ -41,14 +69,14 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         log.debug("Querying TDengine for events between {} and {}", startTime, endTime);
         
         String sql = """
-                SELECT ts, event_data
+                SELECT ts, event_data, evt_type
                 FROM gaze_events
                 WHERE ts >= ? AND ts < ?
                 ORDER BY ts DESC
                 """;
         
         JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
-        return jdbcTemplate.query(sql, new JsonGazeEventRowMapper(),
+        return jdbcTemplate.query(sql, new GazeEventRowMapper(false),
                 startTime.toEpochMilli(), endTime.toEpochMilli());
     }
     
@@ -62,14 +90,14 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         log.debug("Querying TDengine for all session_end events");
         
         String sql = """
-                SELECT ts, event_data
+                SELECT ts, event_data, evt_type
                 FROM gaze_events
                 WHERE evt_type = 'session_end'
                 ORDER BY ts DESC
                 """;
         
         JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
-        List<GazeEvent> events = jdbcTemplate.query(sql, new JsonGazeEventRowMapper());
+        List<GazeEvent> events = jdbcTemplate.query(sql, new GazeEventRowMapper(false));
         
         log.debug("Found {} session_end events", events.size());
         return events;
@@ -86,7 +114,7 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         log.debug("Querying TDengine for session_end events after {}", afterTimestamp);
         
         String sql = """
-                SELECT ts, event_data
+                SELECT ts, event_data, evt_type
                 FROM gaze_events
                 WHERE evt_type = 'session_end'
                 AND ts > ?
@@ -94,7 +122,7 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
                 """;
         
         JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
-        List<GazeEvent> events = jdbcTemplate.query(sql, new JsonGazeEventRowMapper(),
+        List<GazeEvent> events = jdbcTemplate.query(sql, new GazeEventRowMapper(false),
                 afterTimestamp.toEpochMilli());
         
         log.info("Found {} NEW session_end events after {}", events.size(), afterTimestamp);
@@ -111,14 +139,14 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         log.debug("Querying TDengine for all heartbeat events");
         
         String sql = """
-                SELECT ts, event_data
+                SELECT ts, event_data, evt_type
                 FROM gaze_events
                 WHERE evt_type = 'heartbeat'
                 ORDER BY ts DESC
                 """;
         
         JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
-        List<GazeEvent> events = jdbcTemplate.query(sql, new JsonGazeEventRowMapper());
+        List<GazeEvent> events = jdbcTemplate.query(sql, new GazeEventRowMapper(false));
         
         log.debug("Found {} heartbeat events", events.size());
         return events;
@@ -134,7 +162,7 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         log.debug("Querying TDengine for heartbeat events after {}", afterTimestamp);
         
         String sql = """
-                SELECT ts, event_data
+                SELECT ts, event_data, evt_type
                 FROM gaze_events
                 WHERE evt_type = 'heartbeat'
                 AND ts > ?
@@ -142,7 +170,7 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
                 """;
         
         JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
-        List<GazeEvent> events = jdbcTemplate.query(sql, new JsonGazeEventRowMapper(),
+        List<GazeEvent> events = jdbcTemplate.query(sql, new GazeEventRowMapper(false),
                 afterTimestamp.toEpochMilli());
         
         log.info("Found {} NEW heartbeat events after {}", events.size(), afterTimestamp);
@@ -171,33 +199,227 @@ public class TDengineGazeEventRepository implements GazeEventRepository {
         return count != null ? count : 0;
     }
     
+    /**
+     * Stream gaze_start, session end and heartbeat events in a single scan (constant memory)
+     * 
+     * One query over all tag values replaces the former per-type scans,
+     * halving the round-trips to TDengine. Each stream's evt_type values
+     * are bounded by that stream's own positions within the same WHERE
+     * clause, so streams at different positions still take one scan. Each
+     * row carries its evt_type tag, so the row mapper dispatches to the
+     * right parser without inspecting the JSON payload. Rows are parsed
+     * and handed to the consumer one at a time, in ascending timestamp order.
+     */
+    @Override
+    public long streamEventsBetween(StreamWatermarks after, StreamWatermarks upTo, Consumer<GazeEvent> consumer) {
+        log.debug("Streaming events from TDengine in ({}, {}] (fetchSize={})", after, upTo, fetchSize);
+        
+        List<Object> args = new ArrayList<>(4);
+        String sql = """
+                SELECT ts, event_data, evt_type
+                FROM gaze_events
+                WHERE (%s)
+                ORDER BY ts ASC""".formatted(streamPredicate(after, upTo, args));
+        
+        GazeEventRowMapper rowMapper = new GazeEventRowMapper(false);
+        long[] count = {0};
+        RowCallbackHandler handler = rs -> {
+            consumer.accept(rowMapper.mapRow(rs, (int) count[0]));
+            count[0]++;
+        };
+        
+        streamingJdbcTemplate().query(sql, handler, args.toArray());
+        
+        log.info("Streamed {} events in ({}, {}]", count[0], after, upTo);
+        return count[0];
+    }
+    
+    /**
+     * evt_type filter with each stream's lower bound:
+     * {@code (evt_type IN (...) AND ts > ?) OR (evt_type IN (...) AND ts > ?)}
+     */
+    private static String streamPredicate(StreamWatermarks after, List<Object> args) {
+        return streamPredicate(after, StreamWatermarks.uniform(null), args);
+    }
+    
+    /**
+     * evt_type filter with each stream's lower and upper bound:
+     * {@code (evt_type IN (...) AND ts > ? AND ts <= ?) OR (...)}
+     */
+    private static String streamPredicate(StreamWatermarks after, StreamWatermarks upTo, List<Object> args) {
+        List<String> streams = new ArrayList<>();
+        for (EventStream stream : EventStream.values()) {
+            String types = stream.eventTypes().stream()
+                    .map(type -> "'" + type + "'")
+                    .collect(Collectors.joining(", "));
+            List<String> predicates = new ArrayList<>(3);
+            predicates.add("evt_type IN (" + types + ")");
+            Instant position = after.get(stream);
+            if (position != null) {
+                predicates.add("ts > ?");
+                args.add(position.toEpochMilli());
+            }
+            Instant upper = upTo.get(stream);
+            if (upper != null) {
+                predicates.add("ts <= ?");
+                args.add(upper.toEpochMilli());
+            }
+            streams.add("(" + String.join(" AND ", predicates) + ")");
+        }
+        return String.join(" OR ", streams);
+    }
+    
+    /**
+     * Oldest pending event timestamp (used to size parallel time slices)
+     */
+    @Override
+    public Optional<Instant> findFirstEventTimestampAfter(Instant afterTimestamp) {
+        String sql = afterTimestamp != null
+                ? "SELECT MIN(ts) FROM gaze_events WHERE evt_type IN (" + ETL_EVENT_TYPES + ") AND ts > ?"
+                : "SELECT MIN(ts) FROM gaze_events WHERE evt_type IN (" + ETL_EVENT_TYPES + ")";
+        Object[] args = afterTimestamp != null ? new Object[]{afterTimestamp.toEpochMilli()} : new Object[]{};
+        
+        List<Instant> first = new JdbcTemplate(tdengineDataSource).query(sql, (rs, rowNum) -> {
+            long ts = rs.getLong(1);
+            return rs.wasNull() ? null : Instant.ofEpochMilli(ts);
+        }, args);
+        
+        return first.stream().filter(Objects::nonNull).findFirst();
+    }
+    
+    /**
+     * Oldest pending event timestamp, each stream after its own watermark
+     */
+    @Override
+    public Optional<Instant> findFirstEventTimestampAfter(StreamWatermarks after) {
+        List<Object> args = new ArrayList<>(2);
+        String sql = "SELECT MIN(ts) FROM gaze_events WHERE (" + streamPredicate(after, args) + ")";
+        
+        List<Instant> first = new JdbcTemplate(tdengineDataSource).query(sql, (rs, rowNum) -> {
+            long ts = rs.getLong(1);
+            return rs.wasNull() ? null : Instant.ofEpochMilli(ts);
+        }, args.toArray());
+        
+        return first.stream().filter(Objects::nonNull).findFirst();
+    }
+    
+    /**
+     * Extract one keyset page of gaze_start, session end and heartbeat events
+     * 
+     * Walks the super table in (ts, tbname) order. The cursor predicate
+     * {@code ts > ? OR (ts = ? AND tbname > ?)} resumes exactly after the
+     * last loaded row, even when several child tables share a timestamp.
+     */
+    @Override
+    public List<GazeEvent> findEventPage(EventCursor after, int pageSize) {
+        log.debug("Querying TDengine for event page after {} (pageSize={})", after, pageSize);
+        
+        List<GazeEvent> page = streamingJdbcTemplate().query(keysetPageSql(after, pageSize), new GazeEventRowMapper(true),
+                keysetPageArgs(after));
+        
+        log.debug("Fetched page of {} events", page.size());
+        return page;
+    }
+    
+    /**
+     * Extract one keyset page straight into a columnar batch
+     * 
+     * Same query as {@link #findEventPage(EventCursor, int)}. Each parsed row
+     * is appended to the batch right away, so the page is held as primitive
+     * columns instead of a list of boxed GazeEvents.
+     */
+    @Override
+    public GazeEventBatch findEventBatch(EventCursor after, int pageSize) {
+        log.debug("Querying TDengine for event batch after {} (pageSize={})", after, pageSize);
+        
+        GazeEventBatch batch = new GazeEventBatch(pageSize);
+        GazeEventRowMapper rowMapper = new GazeEventRowMapper(true);
+        RowCallbackHandler handler = rs -> batch.append(rowMapper.mapRow(rs, batch.size()));
+        
+        streamingJdbcTemplate().query(keysetPageSql(after, pageSize), handler, keysetPageArgs(after));
+        
+        log.debug("Fetched batch of {} events", batch.size());
+        return batch;
+    }
+    
+    /**
+     * Keyset page query: rows strictly after the cursor in (ts, tbname) order
+     */
+    private static String keysetPageSql(EventCursor after, int pageSize) {
+        String cursorPredicate;
+        if (after == null) {
+            cursorPredicate = "";
+        } else if (after.getTableName() == null) {
+            // Legacy watermark: every row at this timestamp is already processed
+            cursorPredicate = "AND ts > ?\n";
+        } else {
+            cursorPredicate = "AND (ts > ? OR (ts = ? AND tbname > ?))\n";
+        }
+        
+        return """
+               SELECT ts, event_data, evt_type, tbname
+               FROM gaze_events
+               WHERE evt_type IN (%s)
+               %sORDER BY ts ASC, tbname ASC
+               LIMIT %d
+               """.formatted(ETL_EVENT_TYPES, cursorPredicate, pageSize);
+    }
+    
+    private static Object[] keysetPageArgs(EventCursor after) {
+        if (after == null) {
+            return new Object[]{};
+        }
+        long ts = after.getTimestamp().toEpochMilli();
+        return after.getTableName() == null
+                ? new Object[]{ts}
+                : new Object[]{ts, ts, after.getTableName()};
+    }
+    
+    /**
+     * JdbcTemplate configured for streaming reads
+     */
+    private JdbcTemplate streamingJdbcTemplate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        return jdbcTemplate;
+    }
+    
     /**
      * RowMapper for JSON-based TDengine events
      * 
-     * Parses JSON from event_data column using TDengineJsonParser.
-     * Determines event type from evt_type column or JSON content.
+     * Parses JSON from event_data column using TDengineStreamingJsonParser.
+     * The event type comes from the evt_type tag selected with the row,
+     * so the JSON payload is never scanned just to pick a parser.
+     * Optionally records the child table name for keyset cursors.
      */
-    private static class JsonGazeEventRowMapper implements RowMapper<GazeEvent> {
+    private static class GazeEventRowMapper implements RowMapper<GazeEvent> {
+        
+        private final boolean withTableName;
+        
+        GazeEventRowMapper(boolean withTableName) {
+            this.withTableName = withTableName;
+        }
+        
         @Override
         public GazeEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
             long timestamp = rs.getLong("ts");
             String jsonData = rs.getString("event_data");
+            String eventType = rs.getString("evt_type");
             
-            // Try to determine event type from JSON
-            String eventType = "session_end"; // default
-            try {
-                if (jsonData.contains("\"event\":") && jsonData.contains("heartbeat")) {
-                    eventType = "heartbeat";
-                }
-            } catch (Exception e) {
-                // Ignore, use default
-            }
-            
+            GazeEvent event;
             if ("heartbeat".equals(eventType)) {
-                return TDengineJsonParser.parseHeartbeatEvent(timestamp, jsonData);
+                event = TDengineStreamingJsonParser.parseHeartbeatEvent(timestamp, jsonData);
+            } else if ("gaze_start".equals(eventType)) {
+                event = TDengineStreamingJsonParser.parseGazeStartEvent(timestamp, jsonData);
             } else {
-                return TDengineJsonParser.parseSessionEndEvent(timestamp, jsonData);
+                event = TDengineStreamingJsonParser.parseSessionEndEvent(timestamp, jsonData);
+            }
+            // The tag is authoritative for downstream dispatch
+            event.setEventType(eventType);
+            if (withTableName) {
+                event.setSourceTable(rs.getString("tbname"));
             }
+            return event;
         }
     }
 }
@@ -102,6 +102,40 @@ public class TDengineJsonParser {
         }
     }
     
+    /**
+     * Parse gaze_start event JSON into GazeEvent domain object
+     * 
+     * Only the viewer is read: a start just opens the viewer's session.
+     * Expected JSON structure:
+     * {
+     *   "timestamp": "2026-02-08T10:58:59.993801Z",
+     *   "event": "gaze_start",
+     *   "viewer_id": "37c6477e",
+     *   "demographics": {...},
+     *   "head_pose": {...},
+     *   "gaze_confidence": 0.91
+     * }
+     */
+    public static GazeEvent parseGazeStartEvent(long timestampMs, String jsonData) {
+        try {
+            JsonNode root = objectMapper.readTree(jsonData);
+            
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(timestampMs))
+                    .eventType(getTextValue(root, "event", "gaze_start"))
+                    .viewerId(getTextValue(root, "viewer_id", null))
+                    .build();
+                    
+        } catch (Exception e) {
+            log.error("Failed to parse gaze_start JSON: {}", jsonData, e);
+            // No viewer: the start is counted but opens no session
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(timestampMs))
+                    .eventType("gaze_start")
+                    .build();
+        }
+    }
+    
     /**
      * Extract primary emotion from emotions object
      * Format: {"neutral": 5, "happy": 3} -> returns "neutral"
@@ -0,0 +1,370 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Token-stream parser for TDengine JSON event data
+ *
+ * Produces exactly the same GazeEvent as {@link TDengineJsonParser}, but
+ * walks each payload once with a Jackson {@link JsonParser} instead of
+ * building a JsonNode tree. Numbers are read into primitive locals and
+ * boxed once when the event is built; the optional heartbeat fields keep
+ * a presence bit each, so absent and null values still become null.
+ * Fields the ETL does not use
+ * (e.g. the gazers array in heartbeats) are skipped without being
+ * materialized.
+ *
+ * TDengineJsonParser remains the reference implementation; the two are
+ * compared by the JMH benchmark in src/jmh/java (-Pbenchmark).
+ */
+@Slf4j
+public final class TDengineStreamingJsonParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Presence bits of the optional heartbeat fields (absent or null = not set)
+    private static final int FPS = 1;
+    private static final int CPU_TEMP = 1 << 1;
+    private static final int UPTIME = 1 << 2;
+    private static final int TEMPERATURE = 1 << 3;
+    private static final int HUMIDITY = 1 << 4;
+    private static final int PRESSURE = 1 << 5;
+    private static final int GAS_RESISTANCE = 1 << 6;
+    private static final int NOISE = 1 << 7;
+    private static final int KPTS_VALID_PERCENT = 1 << 8;
+    private static final int SOLVEPNP_SUCCESS_PERCENT = 1 << 9;
+    private static final int FALLBACK_PERCENT = 1 << 10;
+    private static final int FACES_IN_FRAME = 1 << 11;
+    private static final int FACE_CONFIDENCE = 1 << 12;
+
+    private TDengineStreamingJsonParser() {
+    }
+
+    /**
+     * Parse session_end event JSON into GazeEvent domain object
+     *
+     * @see TDengineJsonParser#parseSessionEndEvent(long, String)
+     */
+    public static GazeEvent parseSessionEndEvent(long timestampMs, String jsonData) {
+        String eventType = "session_end";
+        String viewerId = "unknown";
+        double totalGazeTime = 0.0;
+        int gazeCount = 0;
+        double sessionDuration = 0.0;
+        double engagementRate = 0.0;
+        Integer age = null;
+        String gender = "Unknown";
+        String emotion = "neutral";
+        String adName = null;
+
+        try (JsonParser p = JSON_FACTORY.createParser(jsonData)) {
+            // Non-object payloads yield the defaults, as with the tree model
+            boolean object = p.nextToken() == JsonToken.START_OBJECT;
+
+            while (object && p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken token = p.nextToken();
+
+                switch (field) {
+                    case "event" -> eventType = text(p, eventType);
+                    case "viewer_id" -> viewerId = text(p, viewerId);
+                    case "session_stats" -> {
+                        if (token != JsonToken.START_OBJECT) {
+                            p.skipChildren();
+                            break;
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String stat = p.currentName();
+                            JsonToken value = p.nextToken();
+                            boolean present = value != JsonToken.VALUE_NULL;
+                            switch (stat) {
+                                case "total_gaze_time" -> totalGazeTime = present ? number(p) : 0.0;
+                                case "gaze_count" -> gazeCount = present ? integer(p) : 0;
+                                case "session_duration" -> sessionDuration = present ? number(p) : 0.0;
+                                case "engagement_rate" -> engagementRate = present ? number(p) : 0.0;
+                                default -> p.skipChildren();
+                            }
+                        }
+                    }
+                    case "demographics" -> {
+                        if (token != JsonToken.START_OBJECT) {
+                            p.skipChildren();
+                            break;
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String demographic = p.currentName();
+                            JsonToken value = p.nextToken();
+                            switch (demographic) {
+                                case "age" -> age = value != JsonToken.VALUE_NULL ? integer(p) : null;
+                                case "gender" -> gender = text(p, "Unknown");
+                                case "emotions" -> emotion = primaryEmotion(p, value);
+                                default -> p.skipChildren();
+                            }
+                        }
+                    }
+                    case "ad_context" -> {
+                        adName = null;
+                        if (token != JsonToken.START_OBJECT) {
+                            p.skipChildren();
+                            break;
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String context = p.currentName();
+                            p.nextToken();
+                            if ("ad_name".equals(context)) {
+                                adName = text(p, null);
+                            } else {
+                                p.skipChildren();
+                            }
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to parse session_end JSON: {}", jsonData, e);
+            // Return minimal event to avoid breaking ETL
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(timestampMs))
+                    .eventType("session_end")
+                    .viewerId("parse_error")
+                    .build();
+        }
+
+        return GazeEvent.builder()
+                .timestamp(Instant.ofEpochMilli(timestampMs))
+                .eventType(eventType)
+                .viewerId(viewerId)
+                .totalGazeTime(totalGazeTime)
+                .sessionDuration(sessionDuration)
+                .gazeCount(gazeCount)
+                .engagementRate(engagementRate)
+                .age(age)
+                .gender(gender)
+                .emotion(emotion)
+                .adName(adName)
+                .build();
+    }
+
+    /**
+     * Parse gaze_start event JSON into GazeEvent domain object
+     *
+     * @see TDengineJsonParser#parseGazeStartEvent(long, String)
+     */
+    public static GazeEvent parseGazeStartEvent(long timestampMs, String jsonData) {
+        String eventType = "gaze_start";
+        String viewerId = null;
+
+        try (JsonParser p = JSON_FACTORY.createParser(jsonData)) {
+            boolean object = p.nextToken() == JsonToken.START_OBJECT;
+
+            while (object && p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+
+                switch (field) {
+                    case "event" -> eventType = text(p, eventType);
+                    case "viewer_id" -> viewerId = text(p, viewerId);
+                    default -> p.skipChildren();
+                }
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to parse gaze_start JSON: {}", jsonData, e);
+            // No viewer: the start is counted but opens no session
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(timestampMs))
+                    .eventType("gaze_start")
+                    .build();
+        }
+
+        return GazeEvent.builder()
+                .timestamp(Instant.ofEpochMilli(timestampMs))
+                .eventType(eventType)
+                .viewerId(viewerId)
+                .build();
+    }
+
+    /**
+     * Parse heartbeat event JSON into GazeEvent domain object
+     *
+     * @see TDengineJsonParser#parseHeartbeatEvent(long, String)
+     */
+    public static GazeEvent parseHeartbeatEvent(long timestampMs, String jsonData) {
+        String eventType = "heartbeat";
+        int presentFields = 0;
+        double fps = 0.0;
+        double cpuTemp = 0.0;
+        long uptime = 0L;
+        double temperature = 0.0;
+        double humidity = 0.0;
+        double pressure = 0.0;
+        double gasResistance = 0.0;
+        double noise = 0.0;
+        double kptsValidPercent = 0.0;
+        double solvepnpSuccessPercent = 0.0;
+        double fallbackPercent = 0.0;
+        int facesInFrame = 0;
+        double faceConfidence = 0.0;
+
+        try (JsonParser p = JSON_FACTORY.createParser(jsonData)) {
+            // Non-object payloads yield the defaults, as with the tree model
+            boolean object = p.nextToken() == JsonToken.START_OBJECT;
+
+            while (object && p.nextToken() == JsonToken.FIELD_NAME) {
+                String section = p.currentName();
+                JsonToken token = p.nextToken();
+
+                if ("event".equals(section)) {
+                    eventType = text(p, eventType);
+                    continue;
+                }
+                if (token != JsonToken.START_OBJECT
+                        || !("performance".equals(section) || "environment".equals(section) || "diagnostics".equals(section))) {
+                    // Unused subtrees such as gazers are skipped without materializing them
+                    p.skipChildren();
+                    continue;
+                }
+
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = p.currentName();
+                    boolean present = p.nextToken() != JsonToken.VALUE_NULL;
+
+                    int bit;
+                    switch (section + "." + field) {
+                        case "performance.fps" -> { fps = number(p); bit = FPS; }
+                        case "performance.cpu_temp" -> { cpuTemp = number(p); bit = CPU_TEMP; }
+                        case "performance.uptime" -> { uptime = longInteger(p); bit = UPTIME; }
+                        case "environment.temperature" -> { temperature = number(p); bit = TEMPERATURE; }
+                        case "environment.humidity" -> { humidity = number(p); bit = HUMIDITY; }
+                        case "environment.pressure" -> { pressure = number(p); bit = PRESSURE; }
+                        case "environment.gas_resistance" -> { gasResistance = number(p); bit = GAS_RESISTANCE; }
+                        case "environment.noise" -> { noise = number(p); bit = NOISE; }
+                        case "diagnostics.kpts_valid_percent" -> { kptsValidPercent = number(p); bit = KPTS_VALID_PERCENT; }
+                        case "diagnostics.solvepnp_success_percent" -> {
+                            solvepnpSuccessPercent = number(p);
+                            bit = SOLVEPNP_SUCCESS_PERCENT;
+                        }
+                        case "diagnostics.fallback_percent" -> { fallbackPercent = number(p); bit = FALLBACK_PERCENT; }
+                        case "diagnostics.faces_in_frame" -> { facesInFrame = integer(p); bit = FACES_IN_FRAME; }
+                        case "diagnostics.face_confidence" -> { faceConfidence = number(p); bit = FACE_CONFIDENCE; }
+                        default -> {
+                            p.skipChildren();
+                            bit = 0;
+                        }
+                    }
+                    // A later null clears an earlier value, as with the tree model
+                    presentFields = present ? presentFields | bit : presentFields & ~bit;
+                }
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to parse heartbeat JSON: {}", jsonData, e);
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(timestampMs))
+                    .eventType("heartbeat")
+                    .build();
+        }
+
+        return GazeEvent.builder()
+                .timestamp(Instant.ofEpochMilli(timestampMs))
+                .eventType(eventType)
+                .fps(has(presentFields, FPS) ? fps : null)
+                .cpuTemp(has(presentFields, CPU_TEMP) ? cpuTemp : null)
+                .uptime(has(presentFields, UPTIME) ? uptime : null)
+                .temperature(has(presentFields, TEMPERATURE) ? temperature : null)
+                .humidity(has(presentFields, HUMIDITY) ? humidity : null)
+                .pressure(has(presentFields, PRESSURE) ? pressure : null)
+                .gasResistance(has(presentFields, GAS_RESISTANCE) ? gasResistance : null)
+                .noise(has(presentFields, NOISE) ? noise : null)
+                .kptsValidPercent(has(presentFields, KPTS_VALID_PERCENT) ? kptsValidPercent : null)
+                .solvepnpSuccessPercent(has(presentFields, SOLVEPNP_SUCCESS_PERCENT) ? solvepnpSuccessPercent : null)
+                .fallbackPercent(has(presentFields, FALLBACK_PERCENT) ? fallbackPercent : null)
+                .facesInFrame(has(presentFields, FACES_IN_FRAME) ? facesInFrame : null)
+                .faceConfidence(has(presentFields, FACE_CONFIDENCE) ? faceConfidence : null)
+                .build();
+    }
+
+    private static boolean has(int presentFields, int bit) {
+        return (presentFields & bit) != 0;
+    }
+
+    /**
+     * Primary emotion: first key of the emotions object, or neutral
+     * (same rule as the tree-model parser)
+     */
+    private static String primaryEmotion(JsonParser p, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return "neutral";
+        }
+
+        String primary = "neutral";
+        boolean first = true;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            if (first) {
+                primary = p.currentName();
+                first = false;
+            }
+            p.nextToken();
+            p.skipChildren();
+        }
+        return primary;
+    }
+
+    /**
+     * Current value as text, matching JsonNode.asText() for scalars and containers
+     */
+    private static String text(JsonParser p, String defaultValue) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return defaultValue;
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return "";
+        }
+        return p.getText();
+    }
+
+    /**
+     * Current value as double, matching JsonNode.asDouble()
+     */
+    private static double number(JsonParser p) throws IOException {
+        if (p.currentToken().isStructStart()) {
+            p.skipChildren();
+            return 0.0;
+        }
+        return p.getValueAsDouble(0.0);
+    }
+
+    /**
+     * Current value as int, matching JsonNode.asInt()
+     */
+    private static int integer(JsonParser p) throws IOException {
+        if (p.currentToken().isStructStart()) {
+            p.skipChildren();
+            return 0;
+        }
+        return p.getValueAsInt(0);
+    }
+
+    /**
+     * Current value as long, matching JsonNode.asLong()
+     */
+    private static long longInteger(JsonParser p) throws IOException {
+        if (p.currentToken().isStructStart()) {
+            p.skipChildren();
+            return 0L;
+        }
+        return p.getValueAsLong(0L);
+    }
+}
@@ -0,0 +1,249 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import com.taosdata.jdbc.tmq.ConsumerRecord;
+import com.taosdata.jdbc.tmq.ConsumerRecords;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventSubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * TDengine TMQ Subscription Adapter (Infrastructure Layer)
+ * 
+ * Implements the GazeEventSubscription port with a TDengine topic over
+ * gaze_events and a TaosConsumer. Offsets are committed explicitly; a
+ * position handed to {@link #seek(Map)} (the one stored with the local ETL
+ * state) overrides the consumer group position when subscribing.
+ * Partitions are named "topic:vgroup".
+ * 
+ * The consumer is created lazily on the polling thread because TMQ
+ * consumers are not thread-safe.
+ * 
+ * Active when etl.mode=tmq.
+ */
+@Component
+@ConditionalOnProperty(name = "etl.mode", havingValue = "tmq")
+@Slf4j
+public class TDengineTmqGazeEventSubscription implements GazeEventSubscription {
+    
+    private final DataSource tdengineDataSource;
+    
+    @Value("${tdengine.url}")
+    private String tdengineUrl;
+    
+    @Value("${tdengine.username}")
+    private String tdengineUsername;
+    
+    @Value("${tdengine.password}")
+    private String tdenginePassword;
+    
+    @Value("${etl.tmq.topic:gaze_events_topic}")
+    private String topic;
+    
+    @Value("${etl.tmq.group-id:analytics-etl}")
+    private String groupId;
+    
+    @Value("${etl.tmq.bootstrap-servers:}")
+    private String bootstrapServers;
+    
+    @Value("${etl.tmq.auto-offset-reset:earliest}")
+    private String autoOffsetReset;
+    
+    private TaosConsumer<Map<String, Object>> consumer;
+    
+    // Position to resume from once subscribed (null: the committed one)
+    private Map<String, Long> resumeFrom;
+    
+    public TDengineTmqGazeEventSubscription(@Qualifier("tdengineDataSource") DataSource tdengineDataSource) {
+        this.tdengineDataSource = tdengineDataSource;
+    }
+    
+    /**
+     * Poll the topic and hand each row to the consumer
+     * 
+     * Rows are dispatched on the evt_type tag, like the range-scan extractor.
+     */
+    @Override
+    public int poll(Duration timeout, Consumer<GazeEvent> eventConsumer) {
+        try {
+            ConsumerRecords<Map<String, Object>> records = consumer().poll(timeout);
+            
+            int count = 0;
+            for (ConsumerRecord<Map<String, Object>> record : records) {
+                GazeEvent event = toGazeEvent(record.value());
+                if (event != null) {
+                    eventConsumer.accept(event);
+                    count++;
+                }
+            }
+            return count;
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to poll TDengine topic " + topic, e);
+        }
+    }
+    
+    @Override
+    public void commit() {
+        if (consumer == null) {
+            return;
+        }
+        try {
+            consumer.commitSync();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to commit TDengine topic offsets", e);
+        }
+    }
+    
+    @Override
+    public Map<String, Long> position() {
+        if (consumer == null) {
+            return Map.of();
+        }
+        try {
+            Map<String, Long> position = new TreeMap<>();
+            consumer.position(topic).forEach((partition, offset) -> position.put(partitionName(partition), offset));
+            return position;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read TDengine topic position", e);
+        }
+    }
+    
+    @Override
+    public void seek(Map<String, Long> position) {
+        resumeFrom = position.isEmpty() ? null : new HashMap<>(position);
+        if (consumer != null) {
+            try {
+                seekToResumePosition(consumer);
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to seek TDengine topic " + topic, e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (consumer == null) {
+            return;
+        }
+        try {
+            consumer.unsubscribe();
+            consumer.close();
+            log.info("[TMQ] Consumer closed");
+        } catch (SQLException e) {
+            log.warn("[TMQ] Failed to close consumer: {}", e.getMessage());
+        } finally {
+            consumer = null;
+        }
+    }
+    
+    /**
+     * Create the topic (if missing) and subscribe on first use
+     */
+    private TaosConsumer<Map<String, Object>> consumer() throws SQLException {
+        if (consumer != null) {
+            return consumer;
+        }
+        
+        // Query topic: only the columns and event types the ETL aggregates
+        // (an existing topic keeps its original filter until it is dropped)
+        new JdbcTemplate(tdengineDataSource).execute("""
+                CREATE TOPIC IF NOT EXISTS %s AS
+                SELECT ts, event_data, evt_type
+                FROM gaze_events
+                WHERE evt_type IN (%s)
+                """.formatted(topic, TDengineGazeEventRepository.ETL_EVENT_TYPES));
+        
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, resolveBootstrapServers());
+        properties.setProperty(TMQConstants.CONNECT_USER, tdengineUsername);
+        properties.setProperty(TMQConstants.CONNECT_PASS, tdenginePassword);
+        properties.setProperty(TMQConstants.GROUP_ID, groupId);
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "false");
+        properties.setProperty(TMQConstants.AUTO_OFFSET_RESET, autoOffsetReset);
+        properties.setProperty(TMQConstants.MSG_WITH_TABLE_NAME, "true");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, "com.taosdata.jdbc.tmq.MapDeserializer");
+        
+        TaosConsumer<Map<String, Object>> created = new TaosConsumer<>(properties);
+        created.subscribe(List.of(topic));
+        seekToResumePosition(created);
+        consumer = created;
+        
+        log.info("[TMQ] Subscribed to topic {} as group {} via {}", topic, groupId, resolveBootstrapServers());
+        return consumer;
+    }
+    
+    /**
+     * Move the assigned partitions to the position to resume from
+     */
+    private void seekToResumePosition(TaosConsumer<Map<String, Object>> target) throws SQLException {
+        if (resumeFrom == null) {
+            return;
+        }
+        for (TopicPartition partition : target.assignment()) {
+            Long offset = resumeFrom.get(partitionName(partition));
+            if (offset != null) {
+                target.seek(partition, offset);
+                log.info("[TMQ] Resuming {} at offset {} of the local ETL state", partitionName(partition), offset);
+            }
+        }
+        resumeFrom = null;
+    }
+    
+    private static String partitionName(TopicPartition partition) {
+        return partition.getTopic() + ":" + partition.getVGroupId();
+    }
+    
+    /**
+     * host:port of taosAdapter, derived from tdengine.url when not configured
+     */
+    private String resolveBootstrapServers() {
+        if (bootstrapServers != null && !bootstrapServers.isBlank()) {
+            return bootstrapServers;
+        }
+        return tdengineUrl.replaceFirst("^jdbc:TAOS(-RS)?://", "").replaceFirst("/.*$", "");
+    }
+    
+    private static GazeEvent toGazeEvent(Map<String, Object> row) {
+        Object ts = row.get("ts");
+        Object jsonData = row.get("event_data");
+        if (ts == null || jsonData == null) {
+            return null;
+        }
+        
+        long timestampMs = ts instanceof Timestamp timestamp
+                ? timestamp.getTime()
+                : ((Number) ts).longValue();
+        String eventType = String.valueOf(row.get("evt_type"));
+        
+        GazeEvent event;
+        if ("heartbeat".equals(eventType)) {
+            event = TDengineStreamingJsonParser.parseHeartbeatEvent(timestampMs, jsonData.toString());
+        } else if ("gaze_start".equals(eventType)) {
+            event = TDengineStreamingJsonParser.parseGazeStartEvent(timestampMs, jsonData.toString());
+        } else {
+            event = TDengineStreamingJsonParser.parseSessionEndEvent(timestampMs, jsonData.toString());
+        }
+        event.setEventType(eventType);
+        return event;
+    }
+}
@@ -0,0 +1,151 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.config.TDengineTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * TDengine Transport Benchmark (Infrastructure Layer)
+ * 
+ * Runs the ETL extraction query (ts, event_data, evt_type over gaze_start,
+ * session end and heartbeat rows) once per transport and reports rows/sec and payload
+ * throughput, so REST, WebSocket and native can be compared on the real
+ * event shapes of a deployment.
+ * 
+ * Payload bytes are the UTF-8 size of the values as delivered to the
+ * application. Wire bytes are not visible through JDBC; compare them with
+ * taosAdapter metrics or a packet capture if needed.
+ */
+@Component
+@Slf4j
+public class TDengineTransportBenchmark {
+    
+    private static final int WARMUP_ROWS = 100;
+    
+    @Value("${tdengine.url}")
+    private String tdengineUrl;
+    
+    @Value("${tdengine.username}")
+    private String tdengineUsername;
+    
+    @Value("${tdengine.password}")
+    private String tdenginePassword;
+    
+    @Value("${tdengine.database}")
+    private String tdengineDatabase;
+    
+    @Value("${etl.extract.fetch-size:1000}")
+    private int fetchSize;
+    
+    /**
+     * Benchmark every transport
+     * 
+     * @param maxRows Rows to fetch per transport
+     */
+    public List<TransportBenchmarkResult> run(int maxRows) {
+        List<TransportBenchmarkResult> results = new ArrayList<>();
+        for (TDengineTransport transport : TDengineTransport.values()) {
+            results.add(run(transport, maxRows));
+        }
+        return results;
+    }
+    
+    /**
+     * Benchmark one transport on a dedicated, unpooled connection
+     */
+    public TransportBenchmarkResult run(TDengineTransport transport, int maxRows) {
+        String jdbcUrl = transport.jdbcUrl(tdengineUrl, tdengineDatabase);
+        log.info("[BENCHMARK] {} - fetching up to {} rows from {}", transport, maxRows, jdbcUrl);
+        
+        try {
+            Class.forName(transport.getDriverClassName());
+            
+            Properties properties = new Properties();
+            properties.setProperty("user", tdengineUsername);
+            properties.setProperty("password", tdenginePassword);
+            
+            long connectStart = System.nanoTime();
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, properties)) {
+                long connectMs = (System.nanoTime() - connectStart) / 1_000_000;
+                
+                // Warm-up: first query pays for class loading and adapter session setup
+                drain(connection, WARMUP_ROWS);
+                
+                long fetchStart = System.nanoTime();
+                long[] counters = drain(connection, maxRows);
+                long fetchNanos = System.nanoTime() - fetchStart;
+                double seconds = fetchNanos / 1_000_000_000.0;
+                
+                TransportBenchmarkResult result = TransportBenchmarkResult.builder()
+                        .transport(transport.name())
+                        .jdbcUrl(jdbcUrl)
+                        .rows(counters[0])
+                        .payloadBytes(counters[1])
+                        .connectMs(connectMs)
+                        .fetchMs(fetchNanos / 1_000_000)
+                        .rowsPerSecond(seconds > 0 ? counters[0] / seconds : 0.0)
+                        .payloadMbPerSecond(seconds > 0 ? counters[1] / seconds / (1024.0 * 1024.0) : 0.0)
+                        .build();
+                
+                log.info("[BENCHMARK] {} - {} rows, {} bytes in {}ms ({} rows/s)", transport,
+                        result.getRows(), result.getPayloadBytes(), result.getFetchMs(),
+                        String.format("%.0f", result.getRowsPerSecond()));
+                return result;
+            }
+            
+        } catch (Exception | LinkageError e) {
+            // Native transport throws UnsatisfiedLinkError without libtaos
+            log.warn("[BENCHMARK] {} unavailable: {}", transport, e.getMessage());
+            return TransportBenchmarkResult.builder()
+                    .transport(transport.name())
+                    .jdbcUrl(jdbcUrl)
+                    .error(e.getClass().getSimpleName() + ": " + e.getMessage())
+                    .build();
+        }
+    }
+    
+    /**
+     * Execute the extraction query and read every column value
+     * 
+     * @return {rows, payloadBytes}
+     */
+    private long[] drain(Connection connection, int limit) throws Exception {
+        String sql = """
+                SELECT ts, event_data, evt_type
+                FROM gaze_events
+                WHERE evt_type IN (%s)
+                ORDER BY ts ASC
+                LIMIT %d
+                """.formatted(TDengineGazeEventRepository.ETL_EVENT_TYPES, limit);
+        
+        long rows = 0;
+        long bytes = 0;
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    rs.getLong("ts");
+                    bytes += Long.BYTES;
+                    bytes += utf8Length(rs.getString("event_data"));
+                    bytes += utf8Length(rs.getString("evt_type"));
+                    rows++;
+                }
+            }
+        }
+        return new long[]{rows, bytes};
+    }
+    
+    private static long utf8Length(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+}
@@ -0,0 +1,912 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAttention;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.AdAudienceCube;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.DashboardAnalytics;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventStream;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventBatch;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEventRepository;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.HeartbeatAggregate;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupBucket;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.RollupResolution;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionAggregate;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.SessionDistributions;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.StreamWatermarks;
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * TDengine Typed Repository Adapter (Infrastructure Layer)
+ *
+ * Implements the GazeEventRepository port on the typed super tables
+ * session_events and heartbeat_events (see tdengine_init_typed.sql).
+ * Because every metric is a typed column, COUNT/AVG/MIN/MAX/GROUP BY are
+ * pushed down into TDengine and the ETL receives aggregate rows only.
+ *
+ * Active when etl.source.layout=typed.
+ */
+@Repository
+@ConditionalOnProperty(name = "etl.source.layout", havingValue = "typed")
+@Slf4j
+public class TDengineTypedGazeEventRepository implements GazeEventRepository {
+
+    private static final String SESSION_COLUMNS = """
+            ts, tbname, viewer_id, session_duration, total_gaze_time, gaze_count,
+            engagement_rate, age, gender, emotion, ad_name""";
+
+    // HISTOGRAM prints the bounds of its overflow bins as -inf / inf
+    // Same register count as the bucket sketches of the JSON layout
+    private static final int BUCKET_SKETCH_PRECISION = 8;
+
+    private static final ObjectMapper objectMapper = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+            .build();
+
+    private static final Pattern INFINITE_BOUND = Pattern.compile("(?<=[:\\s])(-?)inf(inity)?(?=[,}\\s])",
+            Pattern.CASE_INSENSITIVE);
+
+    // Index order of the emotion dimension of AdAudienceCube
+    private static final List<String> FER2013_EMOTIONS = List.of(
+            "anger", "contempt", "disgust", "fear", "happiness", "neutral", "sadness", "surprise");
+
+    /**
+     * HISTOGRAM log_bin description matching the bins of {@link QuantileSketch}
+     * (1000 bins reach from 1 ms to several days, plus one overflow bin on
+     * either side)
+     */
+    private static final String SKETCH_LOG_BINS = String.format(Locale.ROOT,
+            "{\"start\": %s, \"factor\": %s, \"count\": 1000, \"infinity\": true}",
+            QuantileSketch.MIN_INDEXABLE, QuantileSketch.GAMMA);
+
+    private static final String HEARTBEAT_COLUMNS = """
+            ts, tbname, fps, cpu_temp, uptime, temperature, humidity, pressure,
+            gas_resistance, noise, kpts_valid_percent, solvepnp_success_percent,
+            fallback_percent, faces_in_frame, face_confidence""";
+
+    /**
+     * Age group, gender and FER2013 emotion counts (mapped by demographics())
+     */
+    private static final String DEMOGRAPHIC_COLUMNS = """
+                   SUM(CASE WHEN age > 0 AND age <= 12 THEN 1 ELSE 0 END) AS children,
+                   SUM(CASE WHEN age > 12 AND age <= 19 THEN 1 ELSE 0 END) AS teenagers,
+                   SUM(CASE WHEN age > 19 AND age <= 35 THEN 1 ELSE 0 END) AS young_adults,
+                   SUM(CASE WHEN age > 35 AND age <= 55 THEN 1 ELSE 0 END) AS mid_aged,
+                   SUM(CASE WHEN age > 55 THEN 1 ELSE 0 END) AS seniors,
+                   SUM(CASE WHEN gender = 'Male' THEN 1 ELSE 0 END) AS male,
+                   SUM(CASE WHEN gender = 'Female' THEN 1 ELSE 0 END) AS female,
+                   SUM(CASE WHEN emotion = 'anger' THEN 1 ELSE 0 END) AS anger,
+                   SUM(CASE WHEN emotion = 'contempt' THEN 1 ELSE 0 END) AS contempt,
+                   SUM(CASE WHEN emotion = 'disgust' THEN 1 ELSE 0 END) AS disgust,
+                   SUM(CASE WHEN emotion = 'fear' THEN 1 ELSE 0 END) AS fear,
+                   SUM(CASE WHEN emotion = 'happiness' THEN 1 ELSE 0 END) AS happiness,
+                   SUM(CASE WHEN emotion = 'neutral' THEN 1 ELSE 0 END) AS neutral,
+                   SUM(CASE WHEN emotion = 'sadness' THEN 1 ELSE 0 END) AS sadness,
+                   SUM(CASE WHEN emotion = 'surprise' THEN 1 ELSE 0 END) AS surprise
+            """;
+
+    /**
+     * Per-ad attention time; the dwell bins follow {@link AdAttention#DWELL_BOUNDS_SECONDS}
+     * and a missing gaze time counts as zero, like the JSON parser's default
+     */
+    private static final String ATTENTION_COLUMNS = """
+                   SUM(total_gaze_time) AS gaze_seconds,
+                   SUM(gaze_count) AS gaze_count,
+                   SUM(session_duration) AS session_seconds,
+                   SUM(CASE WHEN total_gaze_time IS NULL OR total_gaze_time < 1 THEN 1 ELSE 0 END) AS dwell_0,
+                   SUM(CASE WHEN total_gaze_time >= 1 AND total_gaze_time < 2 THEN 1 ELSE 0 END) AS dwell_1,
+                   SUM(CASE WHEN total_gaze_time >= 2 AND total_gaze_time < 5 THEN 1 ELSE 0 END) AS dwell_2,
+                   SUM(CASE WHEN total_gaze_time >= 5 AND total_gaze_time < 10 THEN 1 ELSE 0 END) AS dwell_3,
+                   SUM(CASE WHEN total_gaze_time >= 10 AND total_gaze_time < 30 THEN 1 ELSE 0 END) AS dwell_4,
+                   SUM(CASE WHEN total_gaze_time >= 30 AND total_gaze_time < 60 THEN 1 ELSE 0 END) AS dwell_5,
+                   SUM(CASE WHEN total_gaze_time >= 60 THEN 1 ELSE 0 END) AS dwell_6
+            """;
+
+    private final DataSource tdengineDataSource;
+
+    /**
+     * Rows fetched per round-trip when streaming (bounded working set)
+     */
+    private final int fetchSize;
+
+    public TDengineTypedGazeEventRepository(@Qualifier("tdengineDataSource") DataSource tdengineDataSource,
+                                            @Value("${etl.extract.fetch-size:1000}") int fetchSize) {
+        this.tdengineDataSource = tdengineDataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Extract gaze events within time range
+     */
+    @Override
+    public List<GazeEvent> findGazeEventsBetween(Instant startTime, Instant endTime) {
+        log.debug("Querying TDengine typed tables for events between {} and {}", startTime, endTime);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+        long start = startTime.toEpochMilli();
+        long end = endTime.toEpochMilli();
+
+        List<GazeEvent> events = new ArrayList<>(jdbcTemplate.query(
+                "SELECT " + SESSION_COLUMNS + " FROM session_events WHERE ts >= ? AND ts < ?",
+                new SessionEventRowMapper(), start, end));
+        events.addAll(jdbcTemplate.query(
+                "SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events WHERE ts >= ? AND ts < ?",
+                new HeartbeatEventRowMapper(), start, end));
+
+        events.sort(Comparator.comparing(GazeEvent::getTimestamp).reversed());
+        return events;
+    }
+
+    @Override
+    public List<GazeEvent> findAllSessionEndEvents() {
+        return new JdbcTemplate(tdengineDataSource).query(
+                "SELECT " + SESSION_COLUMNS + " FROM session_events ORDER BY ts DESC",
+                new SessionEventRowMapper());
+    }
+
+    @Override
+    public List<GazeEvent> findSessionEndEventsAfter(Instant afterTimestamp) {
+        List<GazeEvent> events = new JdbcTemplate(tdengineDataSource).query(
+                "SELECT " + SESSION_COLUMNS + " FROM session_events WHERE ts > ? ORDER BY ts ASC",
+                new SessionEventRowMapper(), afterTimestamp.toEpochMilli());
+
+        log.info("Found {} NEW session events after {}", events.size(), afterTimestamp);
+        return events;
+    }
+
+    @Override
+    public List<GazeEvent> findAllHeartbeatEvents() {
+        return new JdbcTemplate(tdengineDataSource).query(
+                "SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events ORDER BY ts DESC",
+                new HeartbeatEventRowMapper());
+    }
+
+    @Override
+    public List<GazeEvent> findHeartbeatEventsAfter(Instant afterTimestamp) {
+        List<GazeEvent> events = new JdbcTemplate(tdengineDataSource).query(
+                "SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events WHERE ts > ? ORDER BY ts ASC",
+                new HeartbeatEventRowMapper(), afterTimestamp.toEpochMilli());
+
+        log.info("Found {} NEW heartbeat events after {}", events.size(), afterTimestamp);
+        return events;
+    }
+
+    /**
+     * Count unique viewers
+     */
+    @Override
+    public int countUniqueViewers() {
+        Integer count = new JdbcTemplate(tdengineDataSource).queryForObject(
+                "SELECT COUNT(*) FROM (SELECT DISTINCT viewer_id FROM session_events)", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Stream session and heartbeat events (constant memory)
+     *
+     * The two event types live in different super tables, so this is one
+     * scan per table, each bounded by its own stream's positions.
+     * Within each type events arrive in ascending order.
+     */
+    @Override
+    public long streamEventsBetween(StreamWatermarks after, StreamWatermarks upTo, Consumer<GazeEvent> consumer) {
+        long count = stream("SELECT " + SESSION_COLUMNS + " FROM session_events", new SessionEventRowMapper(),
+                after.get(EventStream.SESSIONS), upTo.get(EventStream.SESSIONS), consumer);
+        count += stream("SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events", new HeartbeatEventRowMapper(),
+                after.get(EventStream.HEARTBEATS), upTo.get(EventStream.HEARTBEATS), consumer);
+
+        log.info("Streamed {} events in ({}, {}]", count, after, upTo);
+        return count;
+    }
+
+    private long stream(String select, RowMapper<GazeEvent> rowMapper, Instant afterTimestamp, Instant upTo,
+                        Consumer<GazeEvent> consumer) {
+        long[] count = {0};
+        scan(select, afterTimestamp, upTo, rs -> {
+            consumer.accept(rowMapper.mapRow(rs, (int) count[0]));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * Stream one typed super table over (after, upTo] in ascending timestamp order
+     */
+    private void scan(String select, Instant afterTimestamp, Instant upTo, RowCallbackHandler handler) {
+        List<String> predicates = new ArrayList<>(2);
+        List<Object> args = new ArrayList<>(2);
+        if (afterTimestamp != null) {
+            predicates.add("ts > ?");
+            args.add(afterTimestamp.toEpochMilli());
+        }
+        if (upTo != null) {
+            predicates.add("ts <= ?");
+            args.add(upTo.toEpochMilli());
+        }
+        String sql = select + (predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates))
+                + " ORDER BY ts ASC";
+
+        streamingJdbcTemplate().query(sql, handler, args.toArray());
+    }
+
+    /**
+     * Oldest pending event timestamp across both typed super tables
+     */
+    @Override
+    public Optional<Instant> findFirstEventTimestampAfter(Instant afterTimestamp) {
+        return findFirstEventTimestampAfter(StreamWatermarks.uniform(afterTimestamp));
+    }
+
+    /**
+     * Oldest pending event timestamp, each typed super table after its stream's watermark
+     */
+    @Override
+    public Optional<Instant> findFirstEventTimestampAfter(StreamWatermarks after) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+
+        Instant first = null;
+        for (Map.Entry<String, EventStream> table : Map.of(
+                "session_events", EventStream.SESSIONS, "heartbeat_events", EventStream.HEARTBEATS).entrySet()) {
+            Instant afterTimestamp = after.get(table.getValue());
+            String where = afterTimestamp != null ? " WHERE ts > ?" : "";
+            Object[] args = afterTimestamp != null ? new Object[]{afterTimestamp.toEpochMilli()} : new Object[]{};
+            List<Instant> result = jdbcTemplate.query("SELECT MIN(ts) AS first_ts FROM " + table.getKey() + where,
+                    (rs, rowNum) -> nullableInstant(rs, "first_ts"), args);
+            for (Instant candidate : result) {
+                if (candidate != null && (first == null || candidate.isBefore(first))) {
+                    first = candidate;
+                }
+            }
+        }
+        return Optional.ofNullable(first);
+    }
+
+    /**
+     * Extract one keyset page across both typed super tables
+     *
+     * Each table is read with the same (ts, tbname) cursor and page limit,
+     * then the two pages are merged in keyset order and trimmed, which
+     * yields exactly the next pageSize rows of the combined stream.
+     * Child table names are unique per database, so (ts, tbname) stays a
+     * total order across both tables.
+     */
+    @Override
+    public List<GazeEvent> findEventPage(EventCursor after, int pageSize) {
+        List<GazeEvent> page = new ArrayList<>(
+                queryPage("SELECT " + SESSION_COLUMNS + " FROM session_events", new SessionEventRowMapper(), after, pageSize));
+        page.addAll(
+                queryPage("SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events", new HeartbeatEventRowMapper(), after, pageSize));
+
+        page.sort(Comparator.comparing(GazeEvent::getTimestamp).thenComparing(GazeEvent::getSourceTable));
+        return page.size() > pageSize ? new ArrayList<>(page.subList(0, pageSize)) : page;
+    }
+
+    private List<GazeEvent> queryPage(String select, RowMapper<GazeEvent> rowMapper, EventCursor after, int pageSize) {
+        KeysetPage page = KeysetPage.of(after);
+        return streamingJdbcTemplate().query(page.sql(select, pageSize), rowMapper, page.args());
+    }
+
+    /**
+     * Extract one keyset page across both typed super tables into a columnar batch
+     *
+     * Typed columns are copied from the result set into the batch columns
+     * without building GazeEvents. Each table fills its own column group,
+     * then the batch is trimmed to the first pageSize rows in keyset order.
+     */
+    @Override
+    public GazeEventBatch findEventBatch(EventCursor after, int pageSize) {
+        KeysetPage page = KeysetPage.of(after);
+        GazeEventBatch batch = new GazeEventBatch(pageSize);
+        JdbcTemplate jdbcTemplate = streamingJdbcTemplate();
+
+        jdbcTemplate.query(page.sql("SELECT " + SESSION_COLUMNS + " FROM session_events", pageSize),
+                (RowCallbackHandler) rs -> appendSession(rs, batch), page.args());
+        jdbcTemplate.query(page.sql("SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events", pageSize),
+                (RowCallbackHandler) rs -> appendHeartbeat(rs, batch), page.args());
+
+        batch.retainFirst(pageSize);
+        return batch;
+    }
+
+    /**
+     * Stream both typed super tables as columnar batches (constant memory)
+     *
+     * One reusable batch is filled straight from the result set and handed
+     * to the consumer every batchSize rows. Each table is read within its
+     * own stream's positions.
+     */
+    @Override
+    public long streamEventBatchesBetween(StreamWatermarks after, StreamWatermarks upTo, int batchSize,
+                                          Consumer<GazeEventBatch> consumer) {
+        GazeEventBatch batch = new GazeEventBatch(batchSize);
+        long[] count = {0};
+
+        scan("SELECT " + SESSION_COLUMNS + " FROM session_events", after.get(EventStream.SESSIONS),
+                upTo.get(EventStream.SESSIONS), rs -> {
+            appendSession(rs, batch);
+            count[0]++;
+            flushIfFull(batch, batchSize, consumer);
+        });
+        scan("SELECT " + HEARTBEAT_COLUMNS + " FROM heartbeat_events", after.get(EventStream.HEARTBEATS),
+                upTo.get(EventStream.HEARTBEATS), rs -> {
+            appendHeartbeat(rs, batch);
+            count[0]++;
+            flushIfFull(batch, batchSize, consumer);
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+            batch.clear();
+        }
+
+        log.info("Streamed {} events in ({}, {}] as batches", count[0], after, upTo);
+        return count[0];
+    }
+
+    private static void flushIfFull(GazeEventBatch batch, int batchSize, Consumer<GazeEventBatch> consumer) {
+        if (batch.size() >= batchSize) {
+            consumer.accept(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Copy the current session_events row into the batch columns
+     */
+    private static void appendSession(ResultSet rs, GazeEventBatch batch) throws SQLException {
+        GazeEventBatch.SessionColumns sessions = batch.sessions();
+        int row = sessions.appendRow(rs.getLong("ts"), batch.encode(rs.getString("tbname")));
+
+        sessions.viewerId.set(row, batch.encode(rs.getString("viewer_id")));
+        sessions.sessionDuration.set(row, nullableDouble(rs, "session_duration"));
+        sessions.totalGazeTime.set(row, nullableDouble(rs, "total_gaze_time"));
+        sessions.gazeCount.set(row, nullableInt(rs, "gaze_count"));
+        sessions.engagementRate.set(row, nullableDouble(rs, "engagement_rate"));
+        sessions.age.set(row, nullableInt(rs, "age"));
+        sessions.gender.set(row, batch.encode(rs.getString("gender")));
+        sessions.emotion.set(row, batch.encode(rs.getString("emotion")));
+        sessions.adName.set(row, batch.encode(rs.getString("ad_name")));
+    }
+
+    /**
+     * Copy the current heartbeat_events row into the batch columns
+     */
+    private static void appendHeartbeat(ResultSet rs, GazeEventBatch batch) throws SQLException {
+        GazeEventBatch.HeartbeatColumns heartbeats = batch.heartbeats();
+        int row = heartbeats.appendRow(rs.getLong("ts"), batch.encode(rs.getString("tbname")));
+
+        heartbeats.fps.set(row, nullableDouble(rs, "fps"));
+        heartbeats.cpuTemp.set(row, nullableDouble(rs, "cpu_temp"));
+        heartbeats.uptime.set(row, nullableLong(rs, "uptime"));
+        heartbeats.temperature.set(row, nullableDouble(rs, "temperature"));
+        heartbeats.humidity.set(row, nullableDouble(rs, "humidity"));
+        heartbeats.pressure.set(row, nullableDouble(rs, "pressure"));
+        heartbeats.gasResistance.set(row, nullableDouble(rs, "gas_resistance"));
+        heartbeats.noise.set(row, nullableDouble(rs, "noise"));
+        heartbeats.kptsValidPercent.set(row, nullableDouble(rs, "kpts_valid_percent"));
+        heartbeats.solvepnpSuccessPercent.set(row, nullableDouble(rs, "solvepnp_success_percent"));
+        heartbeats.fallbackPercent.set(row, nullableDouble(rs, "fallback_percent"));
+        heartbeats.facesInFrame.set(row, nullableInt(rs, "faces_in_frame"));
+        heartbeats.faceConfidence.set(row, nullableDouble(rs, "face_confidence"));
+    }
+
+    /**
+     * Aggregate session events inside TDengine
+     *
+     * Three small queries replace shipping every session row:
+     * KPIs and demographic buckets, distinct viewers (folded into a
+     * HyperLogLog), and per-ad counts. Rollup buckets are computed with
+     * INTERVAL queries, see aggregateRollups().
+     */
+    @Override
+    public Optional<SessionAggregate> aggregateSessionEvents(Instant after, Instant upTo) {
+        Window window = Window.of(after, upTo);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+
+        String kpiSql = """
+                SELECT COUNT(*) AS total_views,
+                       MAX(ts) AS max_ts,
+                       AVG(session_duration) AS avg_session_duration,
+                """ + DEMOGRAPHIC_COLUMNS + """
+                FROM session_events
+                WHERE """ + window.predicate();
+
+        SessionAggregate aggregate = jdbcTemplate.queryForObject(kpiSql, (rs, rowNum) -> {
+            long totalViews = rs.getLong("total_views");
+            Double avgSessionDuration = nullableDouble(rs, "avg_session_duration");
+
+            return SessionAggregate.builder()
+                    .eventCount(totalViews)
+                    .maxTimestamp(nullableInstant(rs, "max_ts"))
+                    .dashboard(demographics(rs)
+                            .totalViews((int) totalViews)
+                            .avgViewSeconds(avgSessionDuration != null ? avgSessionDuration : 0.0)
+                            .build())
+                    .build();
+        }, window.args());
+
+        if (aggregate == null || aggregate.getEventCount() == 0) {
+            return Optional.of(SessionAggregate.builder().eventCount(0).adAnalytics(List.of()).build());
+        }
+
+        // Distinct ids are folded into a sketch so they can be merged with other runs
+        HyperLogLog viewers = new HyperLogLog();
+        jdbcTemplate.query("SELECT DISTINCT viewer_id FROM session_events WHERE " + window.predicate(),
+                (RowCallbackHandler) rs -> viewers.add(rs.getString("viewer_id")), window.args());
+        aggregate.setAudienceSketch(viewers);
+        aggregate.getDashboard().setTotalAudience((int) viewers.estimate());
+
+        String adSql = """
+                SELECT ad_name,
+                       COUNT(*) AS total_viewers,
+                       SUM(CASE WHEN engagement_rate >= 0.5 THEN 1 ELSE 0 END) AS look_yes,
+                """ + ATTENTION_COLUMNS + """
+                FROM session_events
+                WHERE ad_name IS NOT NULL AND ad_name <> '' AND """ + window.predicate()
+                + " GROUP BY ad_name";
+
+        List<AdAnalytics> adAnalytics = new ArrayList<>(jdbcTemplate.query(adSql, (rs, rowNum) -> {
+            int totalViewers = rs.getInt("total_viewers");
+            int lookYes = rs.getInt("look_yes");
+            return AdAnalytics.builder()
+                    .adName(rs.getString("ad_name"))
+                    .totalViewers(totalViewers)
+                    .lookYes(lookYes)
+                    .lookNo(totalViewers - lookYes)
+                    .attention(attention(rs))
+                    .build();
+        }, window.args()));
+        adAnalytics.sort((a, b) -> Integer.compare(b.getTotalViewers(), a.getTotalViewers()));
+
+        // Count unique advertisements, default to 12 if no ad data (matches mock data)
+        aggregate.getDashboard().setTotalAds(adAnalytics.isEmpty() ? 12 : adAnalytics.size());
+        aggregate.setAdAnalytics(adAnalytics);
+        aggregate.setRollups(aggregateRollups(jdbcTemplate, window));
+        aggregate.setAudienceCube(aggregateAudienceCube(jdbcTemplate, window));
+        aggregate.setDistributions(new SessionDistributions(
+                histogramSketch(jdbcTemplate, "session_events", "session_duration", window),
+                histogramSketch(jdbcTemplate, "session_events", "total_gaze_time", window)));
+
+        log.debug("Pushed-down session aggregate: {} events, {} ads", aggregate.getEventCount(), adAnalytics.size());
+        return Optional.of(aggregate);
+    }
+
+    /**
+     * Minute, hour and day rollup buckets of session_events inside TDengine
+     *
+     * One INTERVAL query per resolution for the bucket statistics and one
+     * PARTITION BY ad_name INTERVAL query for the per-ad counts. Empty
+     * windows produce no rows. Each resolution is aggregated from the raw
+     * rows, so hour and day audiences are distinct counts of their own.
+     * Viewer sketches are folded from the distinct (minute, viewer) pairs;
+     * hour and day sketches are unions of their minutes.
+     */
+    private List<RollupBucket> aggregateRollups(JdbcTemplate jdbcTemplate, Window window) {
+        List<RollupBucket> rollups = new ArrayList<>();
+        Map<RollupResolution, Map<Long, HyperLogLog>> sketches = bucketViewerSketches(jdbcTemplate, window);
+
+        for (RollupResolution resolution : RollupResolution.values()) {
+            String bucketSql = """
+                    SELECT _wstart AS bucket_start,
+                           COUNT(*) AS total_views,
+                           HYPERLOGLOG(viewer_id) AS audience,
+                           SUM(session_duration) AS view_seconds_sum,
+                           COUNT(session_duration) AS view_seconds_count,
+                    """ + DEMOGRAPHIC_COLUMNS + """
+                    FROM session_events
+                    WHERE """ + window.predicate()
+                    + " INTERVAL(" + resolution.interval() + ")";
+
+            String adSql = """
+                    SELECT _wstart AS bucket_start, ad_name,
+                           COUNT(*) AS total_viewers,
+                           SUM(CASE WHEN engagement_rate >= 0.5 THEN 1 ELSE 0 END) AS look_yes
+                    FROM session_events
+                    WHERE ad_name IS NOT NULL AND ad_name <> '' AND """ + window.predicate()
+                    + " PARTITION BY ad_name INTERVAL(" + resolution.interval() + ")";
+
+            Map<Long, List<AdAnalytics>> adsByBucket = new HashMap<>();
+            jdbcTemplate.query(adSql, (RowCallbackHandler) rs -> {
+                int totalViewers = rs.getInt("total_viewers");
+                int lookYes = rs.getInt("look_yes");
+                adsByBucket.computeIfAbsent(rs.getLong("bucket_start"), k -> new ArrayList<>())
+                        .add(AdAnalytics.builder()
+                                .adName(rs.getString("ad_name"))
+                                .totalViewers(totalViewers)
+                                .lookYes(lookYes)
+                                .lookNo(totalViewers - lookYes)
+                                .build());
+            }, window.args());
+
+            rollups.addAll(jdbcTemplate.query(bucketSql, (rs, rowNum) -> {
+                long bucketStart = rs.getLong("bucket_start");
+                long viewSecondsCount = rs.getLong("view_seconds_count");
+                double viewSecondsSum = rs.getDouble("view_seconds_sum");
+                List<AdAnalytics> ads = adsByBucket.getOrDefault(bucketStart, List.of());
+
+                return RollupBucket.builder()
+                        .resolution(resolution)
+                        .bucketStart(Instant.ofEpochMilli(bucketStart))
+                        .dashboard(demographics(rs)
+                                .totalAudience(rs.getInt("audience"))
+                                .totalViews(rs.getInt("total_views"))
+                                .totalAds(ads.size())
+                                .avgViewSeconds(viewSecondsCount > 0 ? viewSecondsSum / viewSecondsCount : 0.0)
+                                .build())
+                        .viewerSketch(sketches.get(resolution).get(bucketStart))
+                        .viewSecondsSum(viewSecondsSum)
+                        .viewSecondsCount(viewSecondsCount)
+                        .adAnalytics(ads)
+                        .build();
+            }, window.args()));
+        }
+        return rollups;
+    }
+
+    /**
+     * Viewer sketch of every minute, hour and day bucket, keyed by bucket start
+     */
+    private Map<RollupResolution, Map<Long, HyperLogLog>> bucketViewerSketches(JdbcTemplate jdbcTemplate,
+                                                                                Window window) {
+        Map<Long, HyperLogLog> minutes = new HashMap<>();
+        String pairSql = "SELECT _wstart AS bucket_start, viewer_id FROM session_events WHERE "
+                + window.predicate() + " PARTITION BY viewer_id INTERVAL(" + RollupResolution.MINUTE.interval() + ")";
+        jdbcTemplate.query(pairSql, (RowCallbackHandler) rs -> minutes
+                .computeIfAbsent(rs.getLong("bucket_start"), k -> new HyperLogLog(BUCKET_SKETCH_PRECISION))
+                .add(rs.getString("viewer_id")), window.args());
+
+        Map<RollupResolution, Map<Long, HyperLogLog>> sketches = new HashMap<>();
+        sketches.put(RollupResolution.MINUTE, minutes);
+        for (RollupResolution resolution : List.of(RollupResolution.HOUR, RollupResolution.DAY)) {
+            Map<Long, HyperLogLog> coarse = new HashMap<>();
+            minutes.forEach((minute, sketch) -> coarse
+                    .computeIfAbsent(resolution.bucketStart(minute), k -> new HyperLogLog(BUCKET_SKETCH_PRECISION))
+                    .merge(sketch));
+            sketches.put(resolution, coarse);
+        }
+        return sketches;
+    }
+
+    /**
+     * Attention time selected by {@link #ATTENTION_COLUMNS}
+     */
+    private static AdAttention attention(ResultSet rs) throws SQLException {
+        long[] dwellHistogram = new long[AdAttention.DWELL_BINS];
+        for (int bin = 0; bin < dwellHistogram.length; bin++) {
+            dwellHistogram[bin] = rs.getLong("dwell_" + bin);
+        }
+        return AdAttention.of(rs.getDouble("gaze_seconds"), rs.getLong("gaze_count"),
+                rs.getDouble("session_seconds"), dwellHistogram);
+    }
+
+    /**
+     * Age, gender and emotion counts selected by {@link #DEMOGRAPHIC_COLUMNS}
+     */
+    private static DashboardAnalytics.DashboardAnalyticsBuilder demographics(ResultSet rs) throws SQLException {
+        return DashboardAnalytics.builder()
+                .children(rs.getInt("children"))
+                .teenagers(rs.getInt("teenagers"))
+                .youngAdults(rs.getInt("young_adults"))
+                .midAged(rs.getInt("mid_aged"))
+                .seniors(rs.getInt("seniors"))
+                .male(rs.getInt("male"))
+                .female(rs.getInt("female"))
+                .anger(rs.getInt("anger"))
+                .contempt(rs.getInt("contempt"))
+                .disgust(rs.getInt("disgust"))
+                .fear(rs.getInt("fear"))
+                .happiness(rs.getInt("happiness"))
+                .neutral(rs.getInt("neutral"))
+                .sadness(rs.getInt("sadness"))
+                .surprise(rs.getInt("surprise"));
+    }
+
+    /**
+     * Aggregate heartbeat events inside TDengine
+     *
+     * One statistics query plus one single-row query for the latest heartbeat.
+     */
+    @Override
+    public Optional<HeartbeatAggregate> aggregateHeartbeatEvents(Instant after, Instant upTo) {
+        Window window = Window.of(after, upTo);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+
+        String statsSql = """
+                SELECT COUNT(*) AS events,
+                       MAX(ts) AS max_ts,
+                       AVG(fps) AS avg_fps, MIN(fps) AS min_fps, MAX(fps) AS max_fps,
+                       MAX(cpu_temp) AS max_cpu_temp,
+                       AVG(temperature) AS avg_temperature,
+                       AVG(humidity) AS avg_humidity,
+                       AVG(noise) AS avg_noise,
+                       COUNT(faces_in_frame) AS frames_processed,
+                       SUM(CASE WHEN faces_in_frame > 0 THEN 1 ELSE 0 END) AS frames_with_faces,
+                       SUM(faces_in_frame) AS faces_detected,
+                       AVG(CASE WHEN face_confidence > 0 THEN face_confidence ELSE NULL END) AS avg_face_confidence,
+                       AVG(kpts_valid_percent) AS avg_kpts_valid,
+                       AVG(solvepnp_success_percent) AS avg_solvepnp_success,
+                       AVG(fallback_percent) AS avg_fallback
+                FROM heartbeat_events
+                WHERE """ + window.predicate();
+
+        HeartbeatAggregate aggregate = jdbcTemplate.queryForObject(statsSql, (rs, rowNum) -> HeartbeatAggregate.builder()
+                .eventCount(rs.getLong("events"))
+                .maxTimestamp(nullableInstant(rs, "max_ts"))
+                .avgFps(nullableDouble(rs, "avg_fps"))
+                .minFps(nullableDouble(rs, "min_fps"))
+                .maxFps(nullableDouble(rs, "max_fps"))
+                .maxCpuTemp(nullableDouble(rs, "max_cpu_temp"))
+                .avgTemperature(nullableDouble(rs, "avg_temperature"))
+                .avgHumidity(nullableDouble(rs, "avg_humidity"))
+                .avgNoise(nullableDouble(rs, "avg_noise"))
+                .framesProcessed(rs.getLong("frames_processed"))
+                .framesWithFaces(rs.getLong("frames_with_faces"))
+                .facesDetected(rs.getLong("faces_detected"))
+                .avgFaceConfidence(nullableDouble(rs, "avg_face_confidence"))
+                .avgKptsValidPercent(nullableDouble(rs, "avg_kpts_valid"))
+                .avgSolvepnpSuccessPercent(nullableDouble(rs, "avg_solvepnp_success"))
+                .avgFallbackPercent(nullableDouble(rs, "avg_fallback"))
+                .build(), window.args());
+
+        if (aggregate == null || aggregate.getEventCount() == 0) {
+            return Optional.of(HeartbeatAggregate.builder().eventCount(0).build());
+        }
+
+        String latestSql = """
+                SELECT fps, cpu_temp, uptime, pressure, gas_resistance
+                FROM heartbeat_events
+                WHERE """ + window.predicate()
+                + " ORDER BY ts DESC LIMIT 1";
+
+        jdbcTemplate.query(latestSql, rs -> {
+            aggregate.setCurrentFps(nullableDouble(rs, "fps"));
+            aggregate.setCurrentCpuTemp(nullableDouble(rs, "cpu_temp"));
+            aggregate.setUptime(nullableLong(rs, "uptime"));
+            aggregate.setPressure(nullableDouble(rs, "pressure"));
+            aggregate.setGasResistance(nullableDouble(rs, "gas_resistance"));
+        }, window.args());
+        aggregate.setFpsSketch(histogramSketch(jdbcTemplate, "heartbeat_events", "fps", window));
+
+        log.debug("Pushed-down heartbeat aggregate: {} events", aggregate.getEventCount());
+        return Optional.of(aggregate);
+    }
+
+    /**
+     * Ad × age group × gender × emotion cube of session_events inside TDengine
+     *
+     * Grouped by the raw age so the query only uses plain columns; the
+     * at most ~100 ages per ad are mapped to the dashboard's age groups
+     * (same bounds as DEMOGRAPHIC_COLUMNS) while filling the cube.
+     */
+    private AdAudienceCube aggregateAudienceCube(JdbcTemplate jdbcTemplate, Window window) {
+        String cubeSql = """
+                SELECT ad_name, age, gender, emotion,
+                       COUNT(*) AS total_viewers,
+                       SUM(CASE WHEN engagement_rate >= 0.5 THEN 1 ELSE 0 END) AS look_yes
+                FROM session_events
+                WHERE ad_name IS NOT NULL AND ad_name <> '' AND """ + window.predicate()
+                + " GROUP BY ad_name, age, gender, emotion";
+
+        AdAudienceCube cube = new AdAudienceCube();
+        jdbcTemplate.query(cubeSql, (RowCallbackHandler) rs -> {
+            int age = rs.getInt("age");
+            int ageGroup = rs.wasNull() ? -1 : cubeAgeGroup(age);
+            cube.add(cube.adId(rs.getString("ad_name")), ageGroup,
+                    cubeGender(rs.getString("gender")), cubeEmotion(rs.getString("emotion")),
+                    rs.getLong("total_viewers"), rs.getLong("look_yes"));
+        }, window.args());
+        return cube;
+    }
+
+    private static int cubeAgeGroup(int age) {
+        if (age <= 0) return -1;
+        if (age <= 12) return 0;
+        if (age <= 19) return 1;
+        if (age <= 35) return 2;
+        if (age <= 55) return 3;
+        return 4;
+    }
+
+    private static int cubeGender(String gender) {
+        if ("Male".equals(gender)) return 0;
+        if ("Female".equals(gender)) return 1;
+        return -1;
+    }
+
+    private static int cubeEmotion(String emotion) {
+        return emotion != null ? FER2013_EMOTIONS.indexOf(emotion) : -1;
+    }
+
+    /**
+     * Quantile sketch of one column, built from a TDengine HISTOGRAM
+     *
+     * The log_bin histogram uses the sketch's own bin ratio, so TDengine
+     * returns at most 1000 (bin, count) rows instead of every value. Each
+     * bin is added at its geometric midpoint. The overflow bins below the
+     * first and above the last bin are added at the column's minimum and
+     * maximum, so outliers keep the high quantiles up.
+     */
+    private QuantileSketch histogramSketch(JdbcTemplate jdbcTemplate, String table, String column, Window window) {
+        QuantileSketch sketch = new QuantileSketch();
+        String histogramSql = "SELECT HISTOGRAM(" + column + ", 'log_bin', '" + SKETCH_LOG_BINS + "', 0) AS bin"
+                + " FROM " + table + " WHERE " + window.predicate();
+
+        // binned, below the first bin, above the last bin
+        long[] counts = new long[3];
+        jdbcTemplate.query(histogramSql, (RowCallbackHandler) rs -> {
+            try {
+                JsonNode bin = objectMapper.readTree(INFINITE_BOUND.matcher(rs.getString("bin")).replaceAll("$1Infinity"));
+                long count = bin.get("count").asLong();
+                double lower = bin.get("lower_bin").asDouble();
+                double upper = bin.get("upper_bin").asDouble();
+                if (count <= 0) {
+                    return;
+                }
+                if (!(lower > 0)) {
+                    counts[1] += count;
+                } else if (upper >= Double.MAX_VALUE) {
+                    counts[2] += count;
+                } else {
+                    sketch.add(Math.sqrt(lower * upper), count);
+                    counts[0] += count;
+                }
+            } catch (JsonProcessingException e) {
+                throw new SQLException("Unexpected HISTOGRAM output for " + column, e);
+            }
+        }, window.args());
+
+        if (counts[1] == 0 && counts[2] == 0) {
+            return sketch;
+        }
+        jdbcTemplate.query("SELECT MIN(" + column + ") AS lo, MAX(" + column + ") AS hi FROM " + table
+                + " WHERE " + window.predicate(), (RowCallbackHandler) rs -> {
+            if (counts[1] > 0) {
+                sketch.add(rs.getDouble("lo"), counts[1]);
+            }
+            if (counts[2] > 0) {
+                sketch.add(rs.getDouble("hi"), counts[2]);
+            }
+        }, window.args());
+        return sketch;
+    }
+
+    /**
+     * JdbcTemplate configured for streaming reads
+     */
+    private JdbcTemplate streamingJdbcTemplate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        return jdbcTemplate;
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Instant nullableInstant(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : Instant.ofEpochMilli(value);
+    }
+
+    /**
+     * Keyset predicate resuming strictly after a (ts, tbname) cursor
+     */
+    private record KeysetPage(String where, Object[] args) {
+
+        static KeysetPage of(EventCursor after) {
+            if (after == null) {
+                return new KeysetPage("", new Object[]{});
+            }
+            long ts = after.getTimestamp().toEpochMilli();
+            if (after.getTableName() == null) {
+                return new KeysetPage(" WHERE ts > ?", new Object[]{ts});
+            }
+            return new KeysetPage(" WHERE (ts > ? OR (ts = ? AND tbname > ?))", new Object[]{ts, ts, after.getTableName()});
+        }
+
+        String sql(String select, int pageSize) {
+            return select + where + " ORDER BY ts ASC, tbname ASC LIMIT " + pageSize;
+        }
+    }
+
+    /**
+     * Half-open ETL window (after, upTo] as a WHERE predicate
+     */
+    private record Window(String predicate, Object[] args) {
+
+        static Window of(Instant after, Instant upTo) {
+            return after != null
+                    ? new Window("ts > ? AND ts <= ?", new Object[]{after.toEpochMilli(), upTo.toEpochMilli()})
+                    : new Window("ts <= ?", new Object[]{upTo.toEpochMilli()});
+        }
+    }
+
+    /**
+     * RowMapper for typed session_events rows
+     */
+    private static class SessionEventRowMapper implements RowMapper<GazeEvent> {
+        @Override
+        public GazeEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(rs.getLong("ts")))
+                    .eventType("session_end")
+                    .sourceTable(rs.getString("tbname"))
+                    .viewerId(rs.getString("viewer_id"))
+                    .sessionDuration(nullableDouble(rs, "session_duration"))
+                    .totalGazeTime(nullableDouble(rs, "total_gaze_time"))
+                    .gazeCount(nullableInt(rs, "gaze_count"))
+                    .engagementRate(nullableDouble(rs, "engagement_rate"))
+                    .age(nullableInt(rs, "age"))
+                    .gender(rs.getString("gender"))
+                    .emotion(rs.getString("emotion"))
+                    .adName(rs.getString("ad_name"))
+                    .build();
+        }
+    }
+
+    /**
+     * RowMapper for typed heartbeat_events rows
+     */
+    private static class HeartbeatEventRowMapper implements RowMapper<GazeEvent> {
+        @Override
+        public GazeEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return GazeEvent.builder()
+                    .timestamp(Instant.ofEpochMilli(rs.getLong("ts")))
+                    .eventType("heartbeat")
+                    .sourceTable(rs.getString("tbname"))
+                    .fps(nullableDouble(rs, "fps"))
+                    .cpuTemp(nullableDouble(rs, "cpu_temp"))
+                    .uptime(nullableLong(rs, "uptime"))
+                    .temperature(nullableDouble(rs, "temperature"))
+                    .humidity(nullableDouble(rs, "humidity"))
+                    .pressure(nullableDouble(rs, "pressure"))
+                    .gasResistance(nullableDouble(rs, "gas_resistance"))
+                    .noise(nullableDouble(rs, "noise"))
+                    .kptsValidPercent(nullableDouble(rs, "kpts_valid_percent"))
+                    .solvepnpSuccessPercent(nullableDouble(rs, "solvepnp_success_percent"))
+                    .fallbackPercent(nullableDouble(rs, "fallback_percent"))
+                    .facesInFrame(nullableInt(rs, "faces_in_frame"))
+                    .faceConfidence(nullableDouble(rs, "face_confidence"))
+                    .build();
+        }
+    }
+}
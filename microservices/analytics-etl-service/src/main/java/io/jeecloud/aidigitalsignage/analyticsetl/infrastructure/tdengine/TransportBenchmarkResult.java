@@ -0,0 +1,57 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Result of one transport benchmark run
+ */
+@Data
+@Builder
+public class TransportBenchmarkResult {
+    
+    /**
+     * Transport name (REST, WEBSOCKET, NATIVE)
+     */
+    private String transport;
+    
+    /**
+     * JDBC URL used (credentials are never part of the URL)
+     */
+    private String jdbcUrl;
+    
+    /**
+     * Rows fetched in the timed pass
+     */
+    private long rows;
+    
+    /**
+     * UTF-8 size of the fetched ts, event_data and evt_type values
+     */
+    private long payloadBytes;
+    
+    /**
+     * Time to open the connection
+     */
+    private long connectMs;
+    
+    /**
+     * Time to execute the query and drain the result set
+     */
+    private long fetchMs;
+    
+    /**
+     * Rows per second over the fetch time
+     */
+    private double rowsPerSecond;
+    
+    /**
+     * Payload megabytes per second over the fetch time
+     */
+    private double payloadMbPerSecond;
+    
+    /**
+     * Error message if the transport is unavailable (e.g. no native client library)
+     */
+    private String error;
+}
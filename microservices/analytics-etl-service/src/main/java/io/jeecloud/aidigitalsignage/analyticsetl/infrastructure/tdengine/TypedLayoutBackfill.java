@@ -0,0 +1,184 @@
+package io.jeecloud.aidigitalsignage.analyticsetl.infrastructure.tdengine;
+
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.EventCursor;
+import io.jeecloud.aidigitalsignage.analyticsetl.domain.GazeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Typed Layout Backfill (Infrastructure Layer)
+ *
+ * Converts JSON rows from gaze_events into the typed super tables
+ * session_events and heartbeat_events (see tdengine_init_typed.sql).
+ *
+ * Source rows are read in (ts, tbname) keyset pages and parsed once with
+ * TDengineStreamingJsonParser. Each page is written as one multi-row INSERT per
+ * target child table. TDengine keys rows by timestamp within a child
+ * table, so re-running the backfill over the same range overwrites
+ * instead of duplicating.
+ */
+@Component
+@Slf4j
+public class TypedLayoutBackfill {
+
+    private static final String CREATE_SESSION_EVENTS = """
+            CREATE STABLE IF NOT EXISTS session_events (
+                ts TIMESTAMP, viewer_id VARCHAR(32), session_duration DOUBLE, total_gaze_time DOUBLE,
+                gaze_count INT, engagement_rate DOUBLE, age INT, gender VARCHAR(10), emotion VARCHAR(16),
+                ad_name VARCHAR(128)
+            ) TAGS (source VARCHAR(64))""";
+
+    private static final String CREATE_HEARTBEAT_EVENTS = """
+            CREATE STABLE IF NOT EXISTS heartbeat_events (
+                ts TIMESTAMP, fps DOUBLE, cpu_temp DOUBLE, uptime BIGINT, temperature DOUBLE, humidity DOUBLE,
+                pressure DOUBLE, gas_resistance DOUBLE, noise DOUBLE, kpts_valid_percent DOUBLE,
+                solvepnp_success_percent DOUBLE, fallback_percent DOUBLE, faces_in_frame INT, face_confidence DOUBLE
+            ) TAGS (source VARCHAR(64))""";
+
+    private final DataSource tdengineDataSource;
+
+    /**
+     * Reads the JSON layout regardless of which layout the ETL is configured for
+     */
+    private final TDengineGazeEventRepository jsonSource;
+
+    @Value("${etl.backfill.page-size:1000}")
+    private int pageSize;
+
+    public TypedLayoutBackfill(@Qualifier("tdengineDataSource") DataSource tdengineDataSource,
+                               @Value("${etl.extract.fetch-size:1000}") int fetchSize) {
+        this.tdengineDataSource = tdengineDataSource;
+        this.jsonSource = new TDengineGazeEventRepository(tdengineDataSource, fetchSize);
+    }
+
+    /**
+     * Convert JSON rows after the given timestamp into the typed layout
+     *
+     * @param from Only convert rows after this timestamp (null = all rows)
+     * @return Number of rows written to the typed tables
+     */
+    public long backfill(Instant from) {
+        log.info("[BACKFILL] Converting gaze_events JSON rows after {} into typed tables (pageSize={})",
+                from, pageSize);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(tdengineDataSource);
+        jdbcTemplate.execute(CREATE_SESSION_EVENTS);
+        jdbcTemplate.execute(CREATE_HEARTBEAT_EVENTS);
+
+        EventCursor cursor = from != null ? new EventCursor(from, null) : null;
+        long converted = 0;
+
+        while (true) {
+            List<GazeEvent> page = jsonSource.findEventPage(cursor, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            // The typed tables have no gaze_start rows; the cursor still moves past them
+            List<GazeEvent> typedRows = page.stream()
+                    .filter(event -> !"gaze_start".equals(event.getEventType()))
+                    .toList();
+            for (String insert : buildInserts(typedRows)) {
+                jdbcTemplate.execute(insert);
+            }
+
+            converted += typedRows.size();
+            cursor = EventCursor.after(page.get(page.size() - 1));
+            log.info("[BACKFILL] Converted {} rows, cursor now ({}, {})",
+                    converted, cursor.getTimestamp(), cursor.getTableName());
+
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        log.info("[BACKFILL] Completed: {} rows converted", converted);
+        return converted;
+    }
+
+    /**
+     * Group a page by target child table and build one multi-row INSERT each
+     *
+     * Values are inlined because the REST driver sends one HTTP request per
+     * statement, so a batch of prepared executions would cost one round-trip
+     * per row.
+     */
+    private List<String> buildInserts(List<GazeEvent> page) {
+        Map<String, StringJoiner> valuesByTable = new LinkedHashMap<>();
+
+        for (GazeEvent event : page) {
+            String source = safeName(event.getSourceTable());
+            boolean heartbeat = "heartbeat".equals(event.getEventType());
+            String header = heartbeat
+                    ? "INSERT INTO hb_" + source + " USING heartbeat_events TAGS ('" + source + "') VALUES "
+                    : "INSERT INTO se_" + source + " USING session_events TAGS ('" + source + "') VALUES ";
+
+            valuesByTable.computeIfAbsent(header, h -> new StringJoiner(" ", h, ""))
+                    .add(heartbeat ? heartbeatValues(event) : sessionValues(event));
+        }
+
+        return valuesByTable.values().stream().map(StringJoiner::toString).toList();
+    }
+
+    private static String sessionValues(GazeEvent e) {
+        return "(" + e.getTimestamp().toEpochMilli()
+                + ", " + text(e.getViewerId())
+                + ", " + e.getSessionDuration()
+                + ", " + e.getTotalGazeTime()
+                + ", " + e.getGazeCount()
+                + ", " + e.getEngagementRate()
+                + ", " + e.getAge()
+                + ", " + text(e.getGender())
+                + ", " + text(e.getEmotion())
+                + ", " + text(e.getAdName())
+                + ")";
+    }
+
+    private static String heartbeatValues(GazeEvent e) {
+        return "(" + e.getTimestamp().toEpochMilli()
+                + ", " + e.getFps()
+                + ", " + e.getCpuTemp()
+                + ", " + e.getUptime()
+                + ", " + e.getTemperature()
+                + ", " + e.getHumidity()
+                + ", " + e.getPressure()
+                + ", " + e.getGasResistance()
+                + ", " + e.getNoise()
+                + ", " + e.getKptsValidPercent()
+                + ", " + e.getSolvepnpSuccessPercent()
+                + ", " + e.getFallbackPercent()
+                + ", " + e.getFacesInFrame()
+                + ", " + e.getFaceConfidence()
+                + ")";
+    }
+
+    /**
+     * SQL string literal (null becomes NULL)
+     */
+    private static String text(String value) {
+        if (value == null) {
+            return "NULL";
+        }
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    /**
+     * Child table suffix derived from the source table name
+     */
+    private static String safeName(String tableName) {
+        if (tableName == null || tableName.isEmpty()) {
+            return "unknown";
+        }
+        return tableName.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+}
@@ -13,7 +13,8 @@ export JAVA_OPTS="-Xms128m -Xmx1024m \
   -XX:MaxGCPauseMillis=200 \
   -XX:+UseStringDeduplication \
   -Djava.awt.headless=true \
-  -Dfile.encoding=UTF-8"
+  -Dfile.encoding=UTF-8 \
+  -Djdk.httpclient.connectionPoolSize=5"
 
 # Set working directory
 cd "$(dirname "$0")"
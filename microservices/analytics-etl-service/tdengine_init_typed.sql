@@ -0,0 +1,57 @@
+-- TDengine Typed Schema for AI Digital Signage
+-- One typed column per metric instead of a JSON string, so TDengine can
+-- aggregate (COUNT/AVG/MIN/MAX/GROUP BY) on the server and the ETL only
+-- receives aggregate rows. A session row is ~250 bytes instead of the
+-- up to 16 KB reserved by event_data NCHAR(4096).
+--
+-- Enable with etl.source.layout=typed. Existing JSON rows in gaze_events
+-- are converted by POST /api/etl/backfill/typed (idempotent, can be re-run).
+CREATE DATABASE IF NOT EXISTS digital_signage KEEP 365 DURATION 10 BUFFER 256;
+USE digital_signage;
+
+-- Super Table: session_events
+-- One row per completed viewer session (formerly evt_type = 'session_end')
+-- TAGS: source = originating child table / device
+CREATE STABLE IF NOT EXISTS session_events (
+    ts TIMESTAMP,
+    viewer_id VARCHAR(32),
+    session_duration DOUBLE,
+    total_gaze_time DOUBLE,
+    gaze_count INT,
+    engagement_rate DOUBLE,
+    age INT,
+    gender VARCHAR(10),
+    emotion VARCHAR(16),
+    ad_name VARCHAR(128)
+) TAGS (
+    source VARCHAR(64)
+);
+
+-- Super Table: heartbeat_events
+-- One row per periodic system heartbeat (formerly evt_type = 'heartbeat')
+CREATE STABLE IF NOT EXISTS heartbeat_events (
+    ts TIMESTAMP,
+    fps DOUBLE,
+    cpu_temp DOUBLE,
+    uptime BIGINT,
+    temperature DOUBLE,
+    humidity DOUBLE,
+    pressure DOUBLE,
+    gas_resistance DOUBLE,
+    noise DOUBLE,
+    kpts_valid_percent DOUBLE,
+    solvepnp_success_percent DOUBLE,
+    fallback_percent DOUBLE,
+    faces_in_frame INT,
+    face_confidence DOUBLE
+) TAGS (
+    source VARCHAR(64)
+);
+
+-- Sample rows
+INSERT INTO se_device_01 USING session_events TAGS('device_01')
+VALUES (NOW - 60m, 'viewer_001', 25.4, 18.5, 1, 1.0, 22, 'Female', 'happiness', 'breakfast');
+INSERT INTO se_device_01 USING session_events TAGS('device_01')
+VALUES (NOW - 59m, 'viewer_002', 22.8, 16.2, 1, 1.0, 28, 'Male', 'neutral', 'breakfast');
+INSERT INTO hb_device_01 USING heartbeat_events TAGS('device_01')
+VALUES (NOW - 60m, 8.5, 57.3, 3600, 31.7, 53.6, 1012.5, 45230.0, 57.8, 85.3, 0.0, 100.0, 2, 0.87);
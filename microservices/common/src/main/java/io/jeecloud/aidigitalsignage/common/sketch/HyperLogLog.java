@@ -0,0 +1,180 @@
+package io.jeecloud.aidigitalsignage.common.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sketch: HyperLogLog
+ *
+ * Fixed-size distinct-count sketch (Flajolet et al.) used for unique
+ * audience: the ETL hashes viewer ids into it, the digital-signage-service
+ * unions the sketches of several buckets. With the default 2^12 one-byte registers it takes 4 KB no
+ * matter how many viewer ids are added, and estimates the number of
+ * distinct ids with a standard error of about 1.04 / sqrt(4096) = 1.6%.
+ * Smaller precisions trade accuracy for size, e.g. for per-bucket sketches.
+ *
+ * Sketches merge losslessly (register-wise max), so the union of two runs
+ * is estimated without keeping either set of ids. Adding the same id
+ * twice, e.g. when a window is replayed, does not change the estimate.
+ * Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    /**
+     * Default log2 of the register count
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 16;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision log2 of the register count (4-16)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision out of range: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Add a viewer id (null is ignored)
+     */
+    public void add(String value) {
+        if (value != null) {
+            addHash(hash(value));
+        }
+    }
+
+    /**
+     * Add a precomputed 64-bit hash
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Position of the first 1-bit in the remaining bits (1-based), capped for all-zero tails
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Fold another sketch into this one (union of both id sets)
+     *
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog precision "
+                    + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimated number of distinct ids added
+     *
+     * Uses linear counting while many registers are still empty, which is
+     * exact-ish for small audiences, and the raw HLL estimate above that.
+     */
+    public long estimate() {
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        int m = registers.length;
+        double alpha = 0.7213 / (1.0 + 1.079 / m);
+        double raw = alpha * m * m / sum;
+
+        if (raw <= 2.5 * m && zeros > 0) {
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision, registers.clone());
+    }
+
+    /**
+     * Serialize as [version, precision, registers...]
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[2 + registers.length];
+        bytes[0] = FORMAT_VERSION;
+        bytes[1] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 2, registers.length);
+        return bytes;
+    }
+
+    /**
+     * Deserialize a sketch written by {@link #toBytes()}
+     *
+     * @throws IllegalArgumentException if the format is not recognized
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = bytes.length > 2 ? bytes[1] : 0;
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION
+                || bytes[0] != FORMAT_VERSION || bytes.length != 2 + (1 << precision)) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog encoding (" + bytes.length + " bytes)");
+        }
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 2, bytes.length));
+    }
+
+    /**
+     * 64-bit hash of a string: FNV-1a over the UTF-8 bytes, then the
+     * MurmurHash3 finalizer to spread the bits evenly across registers
+     */
+    public static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
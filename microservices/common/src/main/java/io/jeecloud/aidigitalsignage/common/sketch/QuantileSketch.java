@@ -0,0 +1,280 @@
+package io.jeecloud.aidigitalsignage.common.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Sketch: QuantileSketch
+ *
+ * Mergeable quantile sketch (DDSketch) for non-negative measurements such
+ * as session duration, gaze time and FPS, accumulated by the ETL and
+ * queried by the digital-signage-service. Values are counted in
+ * logarithmic bins of ratio gamma = (1 + a) / (1 - a), so every quantile is
+ * returned with at most a = 1% relative error.
+ *
+ * Memory is fixed: 1024 bins (8 KB) cover a value range of roughly 1:5e8
+ * (1 ms to several days). When the observed range is wider, the lowest bins are
+ * collapsed into one, which only degrades the lowest quantiles. Merging is
+ * exact (bin-wise addition) and order-independent. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final int MAX_BINS = 1024;
+
+    /**
+     * Values at or below this are counted as zero (idle sessions, stalled pipeline)
+     */
+    public static final double MIN_INDEXABLE = 1e-3;
+
+    /**
+     * Ratio between the upper and lower bound of a bin
+     */
+    public static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // bins[i] counts values with key lowestKey + i; key k covers (gamma^(k-1), gamma^k]
+    private final long[] bins = new long[MAX_BINS];
+    private int lowestKey;
+    private int minKey = Integer.MAX_VALUE;
+    private int maxKey = Integer.MIN_VALUE;
+
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Add one measurement (NaN is ignored)
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a measurement that occurred {@code n} times
+     */
+    public void add(double value, long n) {
+        if (n <= 0 || Double.isNaN(value)) {
+            return;
+        }
+        count += n;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        if (value <= MIN_INDEXABLE) {
+            zeroCount += n;
+        } else {
+            addToBin(key(value), n);
+        }
+    }
+
+    /**
+     * Add all measurements of another sketch
+     */
+    public void merge(QuantileSketch other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        // Highest first: the window then settles once and lower keys collapse in place
+        for (int key = other.maxKey; key >= other.minKey; key--) {
+            long n = other.bins[key - other.lowestKey];
+            if (n > 0) {
+                addToBin(key, n);
+            }
+        }
+    }
+
+    /**
+     * Value at quantile {@code q} (0.5 = median), NaN if the sketch is empty
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.max(0.0, Math.min(1.0, q)) * (count - 1));
+
+        long seen = zeroCount;
+        if (seen > rank) {
+            return clamp(0.0);
+        }
+        for (int key = minKey; key <= maxKey; key++) {
+            seen += bins[key - lowestKey];
+            if (seen > rank) {
+                return clamp(value(key));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Serialize compactly: only the occupied key range is written, counts as varints
+     *
+     * Format: version, count, zero count, min, max, lowest occupied key,
+     * number of bins, bin counts
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 + (count > 0 ? maxKey - minKey + 1 : 0));
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(FORMAT_VERSION);
+            writeVarLong(out, count);
+            writeVarLong(out, zeroCount);
+            out.writeDouble(count > 0 ? min : 0.0);
+            out.writeDouble(count > 0 ? max : 0.0);
+
+            int binCount = count > zeroCount ? maxKey - minKey + 1 : 0;
+            out.writeInt(binCount > 0 ? minKey : 0);
+            writeVarLong(out, binCount);
+            for (int i = 0; i < binCount; i++) {
+                writeVarLong(out, bins[minKey + i - lowestKey]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Restore a sketch written by {@link #toBytes()}
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid sketch
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported quantile sketch version " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch();
+            long count = readVarLong(in);
+            long zeroCount = readVarLong(in);
+            double min = in.readDouble();
+            double max = in.readDouble();
+            int firstKey = in.readInt();
+            long binCount = readVarLong(in);
+            if (binCount > MAX_BINS) {
+                throw new IllegalArgumentException("Quantile sketch has " + binCount + " bins");
+            }
+
+            long binned = 0;
+            for (int i = 0; i < binCount; i++) {
+                long n = readVarLong(in);
+                if (n > 0) {
+                    sketch.addToBin(firstKey + i, n);
+                    binned += n;
+                }
+            }
+            if (binned + zeroCount != count) {
+                throw new IllegalArgumentException("Quantile sketch counts do not add up");
+            }
+            sketch.count = count;
+            sketch.zeroCount = zeroCount;
+            if (count > 0) {
+                sketch.min = min;
+                sketch.max = max;
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated quantile sketch", e);
+        }
+    }
+
+    private void addToBin(int key, long n) {
+        if (minKey > maxKey) {
+            lowestKey = key - MAX_BINS / 2;
+        } else if (key >= lowestKey + MAX_BINS) {
+            // Slide the window up; if the range no longer fits, the lowest keys collapse
+            slide(key - minKey < MAX_BINS ? centeredLowest(minKey, key) : key - MAX_BINS + 1);
+        } else if (key < lowestKey) {
+            if (maxKey - key < MAX_BINS) {
+                slide(centeredLowest(key, maxKey));
+            } else {
+                slide(maxKey - MAX_BINS + 1);
+                key = lowestKey;
+            }
+        }
+        bins[key - lowestKey] += n;
+        minKey = Math.min(minKey, key);
+        maxKey = Math.max(maxKey, key);
+    }
+
+    private void slide(int newLowestKey) {
+        if (newLowestKey == lowestKey) {
+            return;
+        }
+        long[] moved = new long[MAX_BINS];
+        for (int key = minKey; key <= maxKey; key++) {
+            long n = bins[key - lowestKey];
+            if (n > 0) {
+                moved[Math.max(key, newLowestKey) - newLowestKey] += n;
+            }
+        }
+        System.arraycopy(moved, 0, bins, 0, MAX_BINS);
+        lowestKey = newLowestKey;
+        minKey = Math.max(minKey, newLowestKey);
+    }
+
+    private static int centeredLowest(int low, int high) {
+        return low - (MAX_BINS - (high - low + 1)) / 2;
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int key(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double value(int key) {
+        // Point of the bin (gamma^(k-1), gamma^k] with equal relative error to both ends
+        return 2 * Math.pow(GAMMA, key) / (GAMMA + 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in quantile sketch");
+    }
+}
@@ -0,0 +1,248 @@
+package io.jeecloud.aidigitalsignage.common.wire;
+
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire Model: analytics-etl-service to digital-signage-service
+ *
+ * Typed messages of POST /api/analytics/update and /api/analytics/increment
+ * and of GET /api/analytics/batches/latest.
+ * Field names are the JSON property names, so every {@link WireFormat}
+ * carries the same message; null fields are omitted. Serialized sketches
+ * and cube cells are byte arrays: base64 text in JSON, raw byte strings in
+ * CBOR.
+ */
+public final class AnalyticsWire {
+
+    private AnalyticsWire() {
+    }
+
+    /**
+     * Body of POST /api/analytics/update, replacing the dashboard and ads
+     */
+    @Builder
+    public record Update(
+            DashboardMetrics dashboardMetrics,
+            List<AdMetrics> adMetrics,
+            SystemHealth systemHealth,
+            ResearchMetrics researchMetrics,
+            List<RollupBucket> rollups,
+            AudienceCube audienceCube) {
+    }
+
+    /**
+     * Body of POST /api/analytics/increment, the deltas of one ETL window
+     *
+     * dashboardMetrics is null for windows without sessions; currentlyWatching
+     * is a gauge sent with every window. A window with a batch is applied at
+     * most once; without one it is always applied.
+     */
+    @Builder
+    public record Increment(
+            Batch batch,
+            DashboardMetrics dashboardMetrics,
+            List<AdMetrics> adMetrics,
+            Integer currentlyWatching,
+            SystemHealth systemHealth,
+            ResearchMetrics researchMetrics,
+            List<RollupBucket> rollups,
+            AudienceCube audienceCube) {
+    }
+
+    /**
+     * Response of POST /api/analytics/increment
+     *
+     * applied is false if the batch had been applied before and the
+     * increment was ignored.
+     */
+    @Builder
+    public record IncrementResult(String batchId, Boolean applied) {
+    }
+
+    /**
+     * Event range (from, to] of an increment, as (epoch millis, child table)
+     * positions in (ts, tbname) order
+     *
+     * The id is a hash of range and event count, so re-sending the same
+     * range carries the same id. from is null for the first batch; a null
+     * table means every row at that timestamp.
+     *
+     * fromStreams and toStreams hold the position (epoch millis) of each
+     * event stream the ETL tracks separately, by stream name; they are
+     * always part of the id. Batches sent by earlier versions leave them null.
+     */
+    @Builder
+    public record Batch(
+            String id,
+            Long fromTimestamp,
+            String fromTable,
+            Long toTimestamp,
+            String toTable,
+            Long eventCount,
+            Map<String, Long> fromStreams,
+            Map<String, Long> toStreams) {
+    }
+
+    @Builder
+    public record DashboardMetrics(
+            // KPI Metrics
+            Integer totalAudience,
+            Integer totalViews,
+            Integer totalAds,
+            Double avgViewSeconds,
+            Integer currentlyWatching,
+
+            // Age Distribution
+            Integer children,
+            Integer teenagers,
+            Integer youngAdults,
+            Integer midAged,
+            Integer seniors,
+
+            // Gender Distribution
+            Integer male,
+            Integer female,
+
+            // Emotion Distribution (FER2013 - 8 emotions)
+            Integer anger,
+            Integer contempt,
+            Integer disgust,
+            Integer fear,
+            Integer happiness,
+            Integer neutral,
+            Integer sadness,
+            Integer surprise,
+
+            // Accumulated distributions (serialized quantile sketches)
+            byte[] sessionDurationSketch,
+            byte[] totalGazeTimeSketch) {
+    }
+
+    /**
+     * Per-ad counts; the attention fields are null if not tracked
+     */
+    @Builder
+    public record AdMetrics(
+            String adName,
+            Integer totalViewers,
+            Integer lookYes,
+            Integer lookNo,
+            Double gazeSeconds,
+            Long gazeCount,
+            Double sessionSeconds,
+            long[] dwellHistogram) {
+    }
+
+    /**
+     * One minute/hour/day bucket of session analytics (deltas of the window)
+     */
+    @Builder
+    public record RollupBucket(
+            String resolution,
+            Long bucketStart,
+            Integer totalAudience,
+            Integer totalViews,
+            Double viewSecondsSum,
+            Long viewSecondsCount,
+
+            // Age Distribution
+            Integer children,
+            Integer teenagers,
+            Integer youngAdults,
+            Integer midAged,
+            Integer seniors,
+
+            // Gender Distribution
+            Integer male,
+            Integer female,
+
+            // Emotion Distribution (FER2013 - 8 emotions)
+            Integer anger,
+            Integer contempt,
+            Integer disgust,
+            Integer fear,
+            Integer happiness,
+            Integer neutral,
+            Integer sadness,
+            Integer surprise,
+
+            List<AdMetrics> adMetrics,
+            byte[] viewerSketch) {
+    }
+
+    /**
+     * Ad × age group × gender × emotion cube, cells as unsigned varints in adNames order
+     */
+    @Builder
+    public record AudienceCube(List<String> adNames, byte[] cells) {
+    }
+
+    @Builder
+    public record SystemHealth(
+            String status,
+            Performance performance,
+            Environment environment,
+            Long uptime) {
+
+        @Builder
+        public record Performance(
+                Double currentFps,
+                Double avgFps,
+                Double minFps,
+                Double maxFps,
+                Double currentCpuTemp,
+                Double maxCpuTemp,
+                Double cpuThreshold,
+                byte[] fpsSketch) {
+        }
+
+        @Builder
+        public record Environment(
+                Double temperatureCelsius,
+                Double humidityPercent,
+                Double pressureHpa,
+                Double gasResistanceOhms,
+                Double noiseDb) {
+        }
+    }
+
+    @Builder
+    public record ResearchMetrics(
+            FaceDetection faceDetection,
+            GazeQuality gazeQuality,
+            Comparison comparison) {
+
+        @Builder
+        public record FaceDetection(
+                Double accuracy,
+                Double confidence,
+                Integer framesProcessed,
+                Integer facesDetected) {
+        }
+
+        @Builder
+        public record GazeQuality(
+                Double kptsValidPercent,
+                Double solvepnpSuccessPercent,
+                Double fallbackPercent) {
+        }
+
+        /**
+         * Baseline (static signage) vs current (dynamic signage) engagement
+         */
+        @Builder
+        public record Comparison(Condition baseline, Condition current, Improvement improvement) {
+        }
+
+        @Builder
+        public record Condition(String condition, Double avgEngagement, String period) {
+        }
+
+        @Builder
+        public record Improvement(Double absolute, Double percentage, Boolean significant) {
+        }
+    }
+}
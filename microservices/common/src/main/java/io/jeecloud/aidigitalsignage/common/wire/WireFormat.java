@@ -0,0 +1,99 @@
+package io.jeecloud.aidigitalsignage.common.wire;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Wire formats of the {@link AnalyticsWire} messages, negotiated by Content-Type
+ *
+ * CBOR (RFC 8949) is the binary default: numbers are binary and sketches
+ * and cube cells go as raw byte strings instead of base64, so a payload is
+ * smaller and cheaper to write and parse on the Pi. JSON stays available
+ * as the fallback for receivers without CBOR support and for debugging
+ * with curl. Both formats bind to the same field names.
+ */
+public enum WireFormat {
+
+    JSON("application/json", JsonFactory::new),
+    CBOR("application/cbor", CBORFactory::new);
+
+    private final String mediaType;
+    private final Supplier<JsonFactory> factory;
+    private final ObjectMapper mapper;
+
+    WireFormat(String mediaType, Supplier<JsonFactory> factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+        this.mapper = configure(new ObjectMapper(factory.get()));
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * New parser/generator factory of this format, e.g. for a framework-built ObjectMapper
+     */
+    public JsonFactory newFactory() {
+        return factory.get();
+    }
+
+    /**
+     * Serialize a message
+     *
+     * @throws IllegalStateException if the message cannot be serialized
+     */
+    public byte[] encode(Object message) {
+        try {
+            return mapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize " + message.getClass().getSimpleName()
+                    + " as " + name(), e);
+        }
+    }
+
+    /**
+     * Deserialize a message written by {@link #encode(Object)}
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid message of this format
+     */
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        try {
+            return mapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid " + name() + " " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Apply the wire settings shared by all formats: null fields are omitted,
+     * unknown fields are ignored so either side can add fields first
+     */
+    public static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+
+    /**
+     * Parse a configured format name (case-insensitive)
+     *
+     * @throws IllegalArgumentException if the name is not a known format
+     */
+    public static WireFormat from(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown wire format '" + name + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -3,8 +3,12 @@ package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.util.List;
+
 /**
  * Advertisement Attention DTO
+ * 
+ * Attention time fields are null until the ETL sends them for the ad.
  */
 @Getter
 @Builder
@@ -12,4 +16,7 @@ public class AdsAttentionDto {
     private final String adName;
     private final Integer lookYes;
     private final Integer lookNo;
+    private final Double attentionShare;       // Percentage of session time spent gazing
+    private final Double totalSessionSeconds;
+    private final List<DwellBinDto> dwellHistogram;
 }
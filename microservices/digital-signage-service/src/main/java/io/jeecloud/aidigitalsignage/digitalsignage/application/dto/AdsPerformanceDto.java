@@ -5,10 +5,15 @@ import lombok.Getter;
 
 /**
  * Advertisement Performance DTO
+ * 
+ * Gaze fields are null until the ETL sends attention time for the ad.
  */
 @Getter
 @Builder
 public class AdsPerformanceDto {
     private final String adName;
     private final Integer totalViewers;
+    private final Double totalGazeSeconds;
+    private final Double meanGazeSeconds;
+    private final Long gazeCount;
 }
@@ -0,0 +1,34 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for an analytics increment from analytics-etl-service
+ * 
+ * Carries only what one ETL window changed. Dashboard and ad counts are
+ * added to the stored totals, avgViewSeconds is the window's average
+ * (weighted by its totalViews), totalAds is the window's ad count (the
+ * stored value keeps the maximum) and the quantile sketches are the ETL's
+ * accumulated state, replacing the stored ones. An increment with a batch
+ * is applied at most once.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsIncrementRequest {
+    
+    private EtlBatchDto batch;                                           // Event range of the window, null if untracked
+    private UpdateAnalyticsRequest.DashboardMetricsDto dashboardMetrics;  // Null if the window had no sessions
+    private List<UpdateAnalyticsRequest.AdMetricsDto> adMetrics;         // Per-ad deltas of the window
+    private Integer currentlyWatching;                                   // Open viewer sessions, null if not tracked
+    private SystemHealthDto systemHealth;
+    private ResearchMetricsDto researchMetrics;
+    private List<UpdateAnalyticsRequest.RollupBucketDto> rollups;        // Time-bucketed deltas of the ETL window
+    private UpdateAnalyticsRequest.AudienceCubeDto audienceCube;         // Ad × age × gender × emotion delta of the ETL window
+}
@@ -0,0 +1,23 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Analytics Increment Response DTO
+ * 
+ * Outcome of POST /api/analytics/increment for the ETL service.
+ */
+@Getter
+@Builder
+@Schema(description = "Outcome of an analytics increment")
+public class AnalyticsIncrementResponse {
+
+    @Schema(description = "Batch id of the increment (null if sent without a batch)",
+            example = "3f2a9c0d41e87b5a6c19d2e0f4a7b830")
+    private final String batchId;
+
+    @Schema(description = "False if the batch had already been applied and the increment was ignored", example = "true")
+    private final Boolean applied;
+}
@@ -0,0 +1,40 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Audience Cube Cell DTO
+ * 
+ * Counts of one combination of the grouped dimensions; rolled-up
+ * dimensions are omitted.
+ */
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Session counts of one combination of the grouped dimensions")
+public class AudienceCubeCellDto {
+
+    @Schema(description = "Advertisement name (if grouped by ad)", example = "Summer Sale 2026")
+    private final String adName;
+
+    @Schema(description = "Age group (if grouped by ageGroup)", example = "youngAdults")
+    private final String ageGroup;
+
+    @Schema(description = "Gender (if grouped by gender)", example = "female")
+    private final String gender;
+
+    @Schema(description = "Dominant emotion (if grouped by emotion)", example = "happiness")
+    private final String emotion;
+
+    @Schema(description = "Viewing sessions", example = "120")
+    private final long views;
+
+    @Schema(description = "Sessions that looked at the ad", example = "96")
+    private final long lookYes;
+
+    @Schema(description = "Sessions that did not look at the ad", example = "24")
+    private final long lookNo;
+}
@@ -0,0 +1,28 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Audience Cube Response DTO
+ * 
+ * Slice of the ad × age group × gender × emotion cube, grouped by the
+ * requested dimensions, with the totals of the whole slice.
+ */
+@Getter
+@Builder
+@Schema(description = "Slice of the ad audience cube")
+public class AudienceCubeResponse {
+
+    @Schema(description = "Dimensions kept in the cells", example = "[\"ad\", \"gender\"]")
+    private final List<String> groupBy;
+
+    @Schema(description = "Totals of all cells matching the filters")
+    private final AudienceCubeCellDto totals;
+
+    @Schema(description = "One entry per combination of the grouped dimensions with views")
+    private final List<AudienceCubeCellDto> cells;
+}
@@ -29,6 +29,15 @@ public class DashboardOverviewResponse {
     @Schema(description = "Average viewing time in seconds", example = "17.57")
     private final Double avgViewSeconds;
     
+    @Schema(description = "Viewers in front of a screen right now (open sessions as of the last ETL run, null until tracked)", example = "3")
+    private final Integer currentlyWatching;
+    
+    @Schema(description = "Session duration percentiles in seconds (null until the ETL sends distributions)")
+    private final PercentilesDto viewSecondsPercentiles;
+    
+    @Schema(description = "Total gaze time per session percentiles in seconds (null until the ETL sends distributions)")
+    private final PercentilesDto gazeSecondsPercentiles;
+    
     @Schema(description = "Age distribution breakdown by categories")
     private final AgeDistributionDto ageDistribution;
     
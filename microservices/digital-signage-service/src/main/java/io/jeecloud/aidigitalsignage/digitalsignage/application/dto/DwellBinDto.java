@@ -0,0 +1,25 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Dwell Bin DTO
+ * 
+ * Number of sessions whose gaze time falls in [fromSeconds, toSeconds).
+ */
+@Getter
+@Builder
+@Schema(description = "Sessions by gaze time range")
+public class DwellBinDto {
+
+    @Schema(description = "Lower bound in seconds (inclusive)", example = "2")
+    private final Double fromSeconds;
+
+    @Schema(description = "Upper bound in seconds (exclusive), null for the open-ended last bin", example = "5")
+    private final Double toSeconds;
+
+    @Schema(description = "Number of sessions", example = "412")
+    private final Long count;
+}
@@ -0,0 +1,35 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for the event range of an analytics increment
+ * 
+ * Positions are (epoch millis, child table) in the ETL's (ts, tbname)
+ * order; the range is (from, to]. The id is a hash of range and event
+ * count, so a re-sent window carries the same id.
+ * 
+ * The ETL reads each event stream from its own position; fromStreams and
+ * toStreams hold those positions (stream name to epoch millis) and are
+ * part of the id. Batches sent before per-stream positions leave them null.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EtlBatchDto {
+    
+    private String id;
+    private Long fromTimestamp;   // Null for the first batch
+    private String fromTable;
+    private Long toTimestamp;
+    private String toTable;       // Null means every row at toTimestamp
+    private Long eventCount;
+    private Map<String, Long> fromStreams;   // Null when not sent
+    private Map<String, Long> toStreams;
+}
@@ -0,0 +1,25 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Live Audience Response DTO
+ * 
+ * Sliding-window audience metrics for the slideshow screen.
+ */
+@Getter
+@Builder
+@Schema(description = "Audience of the last few minutes")
+public class LiveAudienceResponse {
+
+    @Schema(description = "Time the windows were read at", example = "2026-10-16T09:30:12Z")
+    private final Instant asOf;
+
+    @Schema(description = "One entry per window, shortest first")
+    private final List<LiveWindowDto> windows;
+}
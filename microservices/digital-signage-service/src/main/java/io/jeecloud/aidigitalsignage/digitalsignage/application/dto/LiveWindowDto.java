@@ -0,0 +1,37 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Live Window DTO
+ * 
+ * Audience of one sliding window ending at the current minute.
+ */
+@Getter
+@Builder
+@Schema(description = "Audience of the last N minutes")
+public class LiveWindowDto {
+
+    @Schema(description = "Window length in minutes", example = "15")
+    private final Integer minutes;
+
+    @Schema(description = "Distinct viewers in the window (HyperLogLog estimate)", example = "42")
+    private final Long viewers;
+
+    @Schema(description = "Viewing sessions ended in the window", example = "57")
+    private final Long views;
+
+    @Schema(description = "Average session duration in seconds", example = "17.57")
+    private final Double avgViewSeconds;
+
+    @Schema(description = "Sessions shown an advertisement", example = "51")
+    private final Long adViews;
+
+    @Schema(description = "Ad sessions in which the viewer looked at the ad", example = "38")
+    private final Long lookYes;
+
+    @Schema(description = "Percentage of ad sessions with attention (lookYes / adViews)", example = "74.51")
+    private final Double engagementRate;
+}
@@ -0,0 +1,29 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Percentiles DTO
+ * 
+ * Median and tail of a distribution, read from a quantile sketch
+ * (within 1% of the exact value).
+ */
+@Getter
+@Builder
+@Schema(description = "Percentiles of a distribution (within 1% relative error)")
+public class PercentilesDto {
+
+    @Schema(description = "Median (50th percentile)", example = "12.4")
+    private final Double p50;
+
+    @Schema(description = "90th percentile", example = "41.7")
+    private final Double p90;
+
+    @Schema(description = "99th percentile", example = "118.2")
+    private final Double p99;
+
+    @Schema(description = "Number of measurements in the distribution", example = "5230")
+    private final Long count;
+}
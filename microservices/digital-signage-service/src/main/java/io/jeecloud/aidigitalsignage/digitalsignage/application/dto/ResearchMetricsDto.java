@@ -48,6 +48,9 @@ public class ResearchMetricsDto {
     @Builder
     @Schema(description = "Gaze tracking quality metrics")
     public static class GazeQualityMetricsDto {
+        @Schema(description = "Frames with valid facial keypoints, percentage", example = "97.5")
+        private final Double keypointValidRate;
+        
         @Schema(description = "Primary method (solvePnP) usage percentage", example = "0.0")
         private final Double primaryMethodRate;
         
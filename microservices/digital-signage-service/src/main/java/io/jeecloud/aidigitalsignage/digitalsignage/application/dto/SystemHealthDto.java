@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.application.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Getter;
@@ -51,6 +52,13 @@ public class SystemHealthDto {
         
         @Schema(description = "CPU throttling threshold", example = "78.0")
         private final Double cpuThreshold;
+        
+        @Schema(description = "FPS percentiles over the latest ETL window")
+        private final PercentilesDto fpsPercentiles;
+        
+        @Schema(description = "Serialized FPS quantile sketch (base64), sent by the ETL", accessMode = Schema.AccessMode.WRITE_ONLY)
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+        private final byte[] fpsSketch;
     }
 
     @Getter
@@ -20,6 +20,8 @@ public class UpdateAnalyticsRequest {
     private List<AdMetricsDto> adMetrics;
     private SystemHealthDto systemHealth;         // NEW: Performance and environment metrics
     private ResearchMetricsDto researchMetrics;   // NEW: Research validation metrics
+    private List<RollupBucketDto> rollups;        // Time-bucketed deltas of the ETL window
+    private AudienceCubeDto audienceCube;         // Ad × age × gender × emotion delta of the ETL window
     
     @Data
     @Builder
@@ -31,6 +33,7 @@ public class UpdateAnalyticsRequest {
         private Integer totalViews;
         private Integer totalAds;
         private Double avgViewSeconds;
+        private Integer currentlyWatching;  // Open viewer sessions, null if not tracked
         
         // Age Distribution
         private Integer children;
@@ -52,6 +55,10 @@ public class UpdateAnalyticsRequest {
         private Integer neutral;
         private Integer sadness;
         private Integer surprise;
+        
+        // Accumulated distributions (serialized quantile sketches, base64 in JSON)
+        private byte[] sessionDurationSketch;
+        private byte[] totalGazeTimeSketch;
     }
     
     @Data
@@ -63,6 +70,73 @@ public class UpdateAnalyticsRequest {
         private Integer totalViewers;
         private Integer lookYes;
         private Integer lookNo;
+        
+        // Accumulated attention time, all null if not tracked
+        private Double gazeSeconds;
+        private Long gazeCount;
+        private Double sessionSeconds;
+        private List<Long> dwellHistogram;  // Sessions per dwell bin: <1s, 1-2s, 2-5s, 5-10s, 10-30s, 30-60s, 60s+
+    }
+    
+    /**
+     * One minute/hour/day bucket of session analytics
+     * 
+     * Counts are deltas of the ETL window and are added to the stored
+     * bucket with the same resolution and start.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RollupBucketDto {
+        private String resolution;      // minute, hour or day
+        private Long bucketStart;       // Epoch millis (UTC), aligned to the resolution
+        
+        private Integer totalAudience;  // Distinct viewers within the bucket
+        private Integer totalViews;
+        private Double viewSecondsSum;
+        private Integer viewSecondsCount;
+        
+        // Age Distribution
+        private Integer children;
+        private Integer teenagers;
+        private Integer youngAdults;
+        private Integer midAged;
+        private Integer seniors;
+        
+        // Gender Distribution
+        private Integer male;
+        private Integer female;
+        
+        // Emotion Distribution (FER2013 - 8 emotions)
+        private Integer anger;
+        private Integer contempt;
+        private Integer disgust;
+        private Integer fear;
+        private Integer happiness;
+        private Integer neutral;
+        private Integer sadness;
+        private Integer surprise;
+        
+        private List<AdMetricsDto> adMetrics;
+        
+        private byte[] viewerSketch;    // HyperLogLog of the bucket's viewers (base64)
+    }
+    
+    /**
+     * Ad × age group × gender × emotion cube of the ETL window
+     * 
+     * Cells hold, for each ad in {@code adNames} order and each of the 162
+     * (age group, gender, emotion) combinations, the views and lookYes counts
+     * as unsigned varints (base64 in JSON). Counts are added to the stored cube.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AudienceCubeDto {
+        private List<String> adNames;
+        private byte[] cells;
     }
     
     // NOTE: SystemHealthDto and ResearchMetricsDto are imported from their respective files
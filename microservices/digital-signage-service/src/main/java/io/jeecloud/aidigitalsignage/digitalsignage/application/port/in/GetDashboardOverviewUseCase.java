@@ -1,6 +1,9 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.application.port.in;
 
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.DashboardOverviewResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.RollupResolution;
+
+import java.time.Instant;
 
 /**
  * Get Dashboard Overview Use Case (Query Side - CQRS)
@@ -16,4 +19,15 @@ public interface GetDashboardOverviewUseCase {
      * @return Dashboard data with KPIs, demographics, and ad performance
      */
     DashboardOverviewResponse getDashboardOverview();
+
+    /**
+     * Retrieve the dashboard overview for a time range
+     * 
+     * Sums the pre-aggregated rollup buckets of the given resolution that
+     * start in [from, to); from is rounded down to its bucket start.
+     * System health and research metrics are the current values.
+     * 
+     * @return Dashboard data for the range (zero counts if it has no buckets)
+     */
+    DashboardOverviewResponse getDashboardOverview(Instant from, Instant to, RollupResolution resolution);
 }
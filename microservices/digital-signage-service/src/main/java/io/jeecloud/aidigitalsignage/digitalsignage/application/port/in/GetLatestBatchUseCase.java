@@ -0,0 +1,22 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.port.in;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.EtlBatchDto;
+
+import java.util.Optional;
+
+/**
+ * Get Latest Batch Use Case (Query Side - CQRS)
+ * 
+ * Input port for the last ETL batch the stored analytics include, which the
+ * ETL service reconciles its watermark with.
+ * Implemented by query service in application layer.
+ */
+public interface GetLatestBatchUseCase {
+
+    /**
+     * Retrieve the most recently applied batch
+     * 
+     * @return Latest batch, or empty if no batch has been applied
+     */
+    Optional<EtlBatchDto> getLatestBatch();
+}
@@ -0,0 +1,21 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.port.in;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.LiveAudienceResponse;
+
+/**
+ * Get Live Audience Use Case (Query Side - CQRS)
+ * 
+ * Input port for the audience of the last few minutes.
+ * Implemented by query service in application layer.
+ */
+public interface GetLiveAudienceUseCase {
+
+    /**
+     * Retrieve viewers, views and engagement of every live window
+     * 
+     * Answered from memory; the database is never read.
+     * 
+     * @return One entry per configured window, shortest first
+     */
+    LiveAudienceResponse getLiveAudience();
+}
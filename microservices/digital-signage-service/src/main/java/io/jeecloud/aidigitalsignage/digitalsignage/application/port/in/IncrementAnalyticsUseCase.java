@@ -0,0 +1,23 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.port.in;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementRequest;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementResponse;
+
+/**
+ * Increment Analytics Use Case (Command Side - CQRS)
+ * 
+ * Input port for adding one ETL window's deltas to the stored analytics.
+ * Implemented by command service in application layer.
+ */
+public interface IncrementAnalyticsUseCase {
+
+    /**
+     * Add a window's deltas to the stored analytics in place
+     * 
+     * A window whose batch was already applied changes nothing.
+     * 
+     * @param request Window deltas from ETL service
+     * @return Batch id and whether the deltas were applied
+     */
+    AnalyticsIncrementResponse incrementAnalytics(AnalyticsIncrementRequest request);
+}
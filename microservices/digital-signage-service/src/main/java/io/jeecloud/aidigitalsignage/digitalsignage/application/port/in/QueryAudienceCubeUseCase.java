@@ -0,0 +1,26 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.port.in;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AudienceCubeResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.CubeDimension;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Query Audience Cube Use Case (Query Side - CQRS)
+ * 
+ * Input port for slicing and rolling up the ad audience cube.
+ * Implemented by query service in application layer.
+ */
+public interface QueryAudienceCubeUseCase {
+
+    /**
+     * Slice the cube and group the matching sessions
+     * 
+     * @param filters Member to keep per dimension (ad name for ad)
+     * @param groupBy Dimensions kept in the result; all others are rolled up
+     * @return Grouped counts and totals (empty if nothing matches)
+     * @throws IllegalArgumentException if a filter member does not exist
+     */
+    AudienceCubeResponse queryAudienceCube(Map<CubeDimension, String> filters, Set<CubeDimension> groupBy);
+}
@@ -1,16 +1,29 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.application.service;
 
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementRequest;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.EtlBatchDto;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.SystemHealthDto;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.ResearchMetricsDto;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.UpdateAnalyticsRequest;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.IncrementAnalyticsUseCase;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.UpdateAnalyticsUseCase;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -22,12 +35,30 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
+public class AnalyticsCommandService implements UpdateAnalyticsUseCase, IncrementAnalyticsUseCase {
     
     private final DashboardMetricsRepository dashboardMetricsRepository;
     private final AdvertisementRepository advertisementRepository;
     private final SystemHealthRepository systemHealthRepository;
     private final ResearchMetricsRepository researchMetricsRepository;
+    private final AnalyticsRollupRepository analyticsRollupRepository;
+    private final AdAudienceCubeRepository adAudienceCubeRepository;
+    private final AppliedBatchRepository appliedBatchRepository;
+    private final LiveAudienceWindow liveAudienceWindow;
+    
+    // How long each rollup resolution is kept
+    @Value("${analytics.rollup.retention.minute:2d}")
+    private Duration minuteRetention;
+    
+    @Value("${analytics.rollup.retention.hour:90d}")
+    private Duration hourRetention;
+    
+    @Value("${analytics.rollup.retention.day:730d}")
+    private Duration dayRetention;
+    
+    // How long applied batch ids are remembered (the latest is always kept)
+    @Value("${analytics.batches.retention:30d}")
+    private Duration batchRetention;
     
     /**
      * Update all analytics data (clear and replace)
@@ -60,27 +91,163 @@ public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
             
             advertisementRepository.saveAll(advertisements);
             
-            // Step 4: Save system health (if provided)
-            if (request.getSystemHealth() != null) {
-                SystemHealth systemHealth = mapToSystemHealth(request.getSystemHealth());
-                systemHealthRepository.save(systemHealth);
-                log.debug("Saved system health metrics");
+            // Steps 4-7: System health, research metrics, rollups and audience cube
+            int rollupCount = saveWindowData(request.getSystemHealth(), request.getResearchMetrics(),
+                    request.getRollups(), request.getAudienceCube());
+            
+            log.info("Successfully updated analytics: {} dashboard metrics, {} ads, {} rollup buckets", 
+                    1, advertisements.size(), rollupCount);
+            
+        } catch (Exception e) {
+            log.error("Failed to update analytics", e);
+            throw new RuntimeException("Analytics update failed", e);
+        }
+    }
+    
+    /**
+     * Add one ETL window's deltas to the stored analytics
+     * 
+     * Unlike {@link #updateAnalytics}, nothing is cleared or read back:
+     * counts are added with in-place UPDATE statements, so the ETL does not
+     * need to fetch and re-send the accumulated state every window.
+     * 
+     * The batch id is recorded in the same transaction as the deltas, so a
+     * batch is either applied and recorded or neither; a batch that is
+     * already recorded is acknowledged without changing anything.
+     */
+    @Override
+    @Transactional
+    public AnalyticsIncrementResponse incrementAnalytics(AnalyticsIncrementRequest request) {
+        EtlBatchDto batch = request.getBatch();
+        String batchId = batch != null ? batch.getId() : null;
+        log.info("Received analytics increment request from ETL service (batch {})", batchId);
+        
+        if (batchId != null && appliedBatchRepository.exists(batchId)) {
+            log.info("Batch {} already applied, ignoring duplicate increment", batchId);
+            return AnalyticsIncrementResponse.builder().batchId(batchId).applied(false).build();
+        }
+        
+        try {
+            // Step 1: Add dashboard metric deltas (if the window had sessions)
+            if (request.getDashboardMetrics() != null) {
+                dashboardMetricsRepository.add(mapToDashboardMetrics(request.getDashboardMetrics()));
+                log.debug("Added dashboard metric deltas");
             }
             
-            // Step 5: Save research metrics (if provided)
-            if (request.getResearchMetrics() != null) {
-                ResearchMetrics researchMetrics = mapToResearchMetrics(request.getResearchMetrics());
-                researchMetricsRepository.save(researchMetrics);
-                log.debug("Saved research metrics");
+            // Step 2: Currently watching is a gauge, not a delta
+            if (request.getDashboardMetrics() != null || request.getCurrentlyWatching() != null) {
+                dashboardMetricsRepository.updateCurrentlyWatching(request.getCurrentlyWatching());
             }
             
-            log.info("Successfully updated analytics: {} dashboard metrics, {} ads", 
-                    1, advertisements.size());
+            // Step 3: Add advertisement deltas
+            List<Advertisement> advertisements = request.getAdMetrics() == null ? List.of()
+                    : request.getAdMetrics().stream()
+                            .map(this::mapToAdvertisement)
+                            .collect(Collectors.toList());
+            advertisementRepository.addAll(advertisements);
+            
+            // Steps 4-7: System health, research metrics, rollups and audience cube
+            int rollupCount = saveWindowData(request.getSystemHealth(), request.getResearchMetrics(),
+                    request.getRollups(), request.getAudienceCube());
+            
+            // Step 8: Record the batch, committed together with its deltas
+            if (batch != null) {
+                recordBatch(batch);
+            }
+            
+            log.info("Successfully incremented analytics: {} ads, {} rollup buckets",
+                    advertisements.size(), rollupCount);
             
         } catch (Exception e) {
-            log.error("Failed to update analytics", e);
-            throw new RuntimeException("Analytics update failed", e);
+            log.error("Failed to increment analytics", e);
+            throw new RuntimeException("Analytics increment failed", e);
+        }
+        return AnalyticsIncrementResponse.builder().batchId(batchId).applied(true).build();
+    }
+    
+    /**
+     * Record an applied batch and forget those past retention
+     */
+    private void recordBatch(EtlBatchDto batch) {
+        if (batch.getToTimestamp() == null) {
+            throw new IllegalArgumentException("Batch " + batch.getId() + " has no end position");
+        }
+        Instant now = Instant.now();
+        appliedBatchRepository.save(AppliedBatch.builder()
+                .batchId(batch.getId())
+                .fromTimestamp(batch.getFromTimestamp() != null ? Instant.ofEpochMilli(batch.getFromTimestamp()) : null)
+                .fromTable(batch.getFromTable())
+                .toTimestamp(Instant.ofEpochMilli(batch.getToTimestamp()))
+                .toTable(batch.getToTable())
+                .eventCount(batch.getEventCount() != null ? batch.getEventCount() : 0L)
+                .fromStreams(toInstants(batch.getFromStreams()))
+                .toStreams(toInstants(batch.getToStreams()))
+                .appliedAt(now)
+                .build());
+        
+        int deleted = appliedBatchRepository.deleteAppliedBefore(now.minus(batchRetention));
+        if (deleted > 0) {
+            log.debug("Forgot {} applied batches past retention", deleted);
+        }
+    }
+    
+    /**
+     * Stream positions of a batch as instants (null when not sent)
+     */
+    private static Map<String, Instant> toInstants(Map<String, Long> streams) {
+        if (streams == null) {
+            return null;
+        }
+        Map<String, Instant> instants = new TreeMap<>();
+        streams.forEach((stream, millis) -> {
+            if (millis != null) {
+                instants.put(stream, Instant.ofEpochMilli(millis));
+            }
+        });
+        return instants;
+    }
+    
+    /**
+     * Save the parts of an ETL window shared by update and increment
+     * 
+     * @return Number of rollup buckets added
+     */
+    private int saveWindowData(SystemHealthDto systemHealthDto, ResearchMetricsDto researchMetricsDto,
+                               List<UpdateAnalyticsRequest.RollupBucketDto> rollupDtos,
+                               UpdateAnalyticsRequest.AudienceCubeDto audienceCube) {
+        // Save system health (if provided)
+        if (systemHealthDto != null) {
+            SystemHealth systemHealth = mapToSystemHealth(systemHealthDto);
+            systemHealthRepository.save(systemHealth);
+            log.debug("Saved system health metrics");
         }
+        
+        // Save research metrics (if provided)
+        if (researchMetricsDto != null) {
+            ResearchMetrics researchMetrics = mapToResearchMetrics(researchMetricsDto);
+            researchMetricsRepository.save(researchMetrics);
+            log.debug("Saved research metrics");
+        }
+        
+        // Add rollup buckets (if provided), drop buckets past retention
+        // and feed the minute buckets to the live audience windows
+        int rollupCount = 0;
+        if (rollupDtos != null && !rollupDtos.isEmpty()) {
+            List<AnalyticsRollup> rollups = rollupDtos.stream()
+                    .map(this::mapToAnalyticsRollup)
+                    .collect(Collectors.toList());
+            analyticsRollupRepository.addAll(rollups);
+            rollupCount = rollups.size();
+            purgeExpiredRollups();
+            addToLiveAudienceAfterCommit(rollups);
+        }
+        
+        // Add audience cube delta (if provided)
+        if (audienceCube != null && audienceCube.getAdNames() != null && !audienceCube.getAdNames().isEmpty()) {
+            adAudienceCubeRepository.add(mapToAudienceCube(audienceCube));
+            log.debug("Added audience cube delta for {} ads", audienceCube.getAdNames().size());
+        }
+        return rollupCount;
     }
     
     /**
@@ -116,12 +283,118 @@ public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
                 .totalViews(dto.getTotalViews())
                 .totalAds(dto.getTotalAds())
                 .avgViewSeconds(dto.getAvgViewSeconds())
+                .currentlyWatching(dto.getCurrentlyWatching())
                 .ageDistribution(ageDistribution)
                 .genderDistribution(genderDistribution)
                 .emotionDistribution(emotionDistribution)
+                .sessionDurationSketch(toSketch(dto.getSessionDurationSketch()))
+                .totalGazeTimeSketch(toSketch(dto.getTotalGazeTimeSketch()))
                 .build();
     }
     
+    /**
+     * Decode a serialized quantile sketch (null if the ETL sent none)
+     * 
+     * @throws IllegalArgumentException if the bytes are not a valid sketch
+     */
+    private static QuantileSketch toSketch(byte[] bytes) {
+        return bytes != null ? QuantileSketch.fromBytes(bytes) : null;
+    }
+    
+    /**
+     * Delete rollup buckets older than the retention of their resolution
+     */
+    private void purgeExpiredRollups() {
+        Instant now = Instant.now();
+        for (RollupResolution resolution : RollupResolution.values()) {
+            int deleted = analyticsRollupRepository.deleteOlderThan(resolution, now.minus(retentionOf(resolution)));
+            if (deleted > 0) {
+                log.debug("Purged {} expired {} rollup buckets", deleted, resolution.value());
+            }
+        }
+    }
+    
+    /**
+     * Add the minute buckets to the in-memory live audience windows once
+     * the update is committed, so a rolled-back update is not counted
+     */
+    private void addToLiveAudienceAfterCommit(List<AnalyticsRollup> rollups) {
+        Runnable addAll = () -> rollups.forEach(liveAudienceWindow::add);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addAll.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addAll.run();
+            }
+        });
+    }
+    
+    private Duration retentionOf(RollupResolution resolution) {
+        return switch (resolution) {
+            case MINUTE -> minuteRetention;
+            case HOUR -> hourRetention;
+            case DAY -> dayRetention;
+        };
+    }
+    
+    /**
+     * Map RollupBucketDto to domain entity (missing counts are zero)
+     */
+    private AnalyticsRollup mapToAnalyticsRollup(UpdateAnalyticsRequest.RollupBucketDto dto) {
+        List<Advertisement> advertisements = dto.getAdMetrics() == null ? List.of()
+                : dto.getAdMetrics().stream()
+                        .map(this::mapToAdvertisement)
+                        .collect(Collectors.toList());
+        
+        return AnalyticsRollup.builder()
+                .resolution(RollupResolution.fromValue(dto.getResolution()))
+                .bucketStart(Instant.ofEpochMilli(dto.getBucketStart()))
+                .totalAudience(orZero(dto.getTotalAudience()))
+                .totalViews(orZero(dto.getTotalViews()))
+                .viewSecondsSum(dto.getViewSecondsSum() != null ? dto.getViewSecondsSum() : 0.0)
+                .viewSecondsCount(orZero(dto.getViewSecondsCount()))
+                .ageDistribution(DashboardMetrics.AgeDistribution.builder()
+                        .children(orZero(dto.getChildren()))
+                        .teenagers(orZero(dto.getTeenagers()))
+                        .youngAdults(orZero(dto.getYoungAdults()))
+                        .midAged(orZero(dto.getMidAged()))
+                        .seniors(orZero(dto.getSeniors()))
+                        .build())
+                .genderDistribution(DashboardMetrics.GenderDistribution.builder()
+                        .male(orZero(dto.getMale()))
+                        .female(orZero(dto.getFemale()))
+                        .build())
+                .emotionDistribution(DashboardMetrics.EmotionDistribution.builder()
+                        .anger(orZero(dto.getAnger()))
+                        .contempt(orZero(dto.getContempt()))
+                        .disgust(orZero(dto.getDisgust()))
+                        .fear(orZero(dto.getFear()))
+                        .happiness(orZero(dto.getHappiness()))
+                        .neutral(orZero(dto.getNeutral()))
+                        .sadness(orZero(dto.getSadness()))
+                        .surprise(orZero(dto.getSurprise()))
+                        .build())
+                .advertisements(advertisements)
+                .viewerSketch(dto.getViewerSketch() != null ? HyperLogLog.fromBytes(dto.getViewerSketch()) : null)
+                .build();
+    }
+    
+    /**
+     * Decode the audience cube delta
+     * 
+     * @throws IllegalArgumentException if the cells do not match the ad names
+     */
+    private AdAudienceCube mapToAudienceCube(UpdateAnalyticsRequest.AudienceCubeDto dto) {
+        return AdAudienceCube.fromCells(dto.getAdNames(), dto.getCells() != null ? dto.getCells() : new byte[0]);
+    }
+    
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+    
     /**
      * Map SystemHealthDto to domain entity
      */
@@ -144,6 +417,7 @@ public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
                 .currentCpuTemp(dto.getCurrentCpuTemp())
                 .maxCpuTemp(dto.getMaxCpuTemp())
                 .cpuThreshold(dto.getCpuThreshold())
+                .fpsSketch(toSketch(dto.getFpsSketch()))
                 .build();
     }
     
@@ -182,6 +456,7 @@ public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
     private ResearchMetrics.GazeQualityMetrics mapToGazeQuality(ResearchMetricsDto.GazeQualityMetricsDto dto) {
         if (dto == null) return null;
         return ResearchMetrics.GazeQualityMetrics.builder()
+                .keypointValidRate(dto.getKeypointValidRate())
                 .primaryMethodRate(dto.getPrimaryMethodRate())
                 .fallbackMethodRate(dto.getFallbackMethodRate())
                 .avgConfidence(dto.getAvgConfidence())
@@ -234,6 +509,30 @@ public class AnalyticsCommandService implements UpdateAnalyticsUseCase {
                 .totalViewers(dto.getTotalViewers())
                 .lookYes(dto.getLookYes())
                 .lookNo(dto.getLookNo())
+                .attention(mapToAttention(dto))
+                .build();
+    }
+    
+    /**
+     * Map the ad's attention time (null if the ETL did not send any)
+     * 
+     * @throws IllegalArgumentException if the dwell histogram has the wrong number of bins
+     */
+    private AdAttention mapToAttention(UpdateAnalyticsRequest.AdMetricsDto dto) {
+        if (dto.getGazeSeconds() == null || dto.getDwellHistogram() == null) {
+            return null;
+        }
+        if (dto.getDwellHistogram().size() != AdAttention.DWELL_BINS) {
+            throw new IllegalArgumentException("Dwell histogram of ad '" + dto.getAdName() + "' has "
+                    + dto.getDwellHistogram().size() + " bins (expected " + AdAttention.DWELL_BINS + ")");
+        }
+        return AdAttention.builder()
+                .gazeSeconds(dto.getGazeSeconds())
+                .gazeCount(dto.getGazeCount() != null ? dto.getGazeCount() : 0L)
+                .sessionSeconds(dto.getSessionSeconds() != null ? dto.getSessionSeconds() : 0.0)
+                .dwellHistogram(dto.getDwellHistogram().stream()
+                        .mapToLong(count -> count != null ? count : 0L)
+                        .toArray())
                 .build();
     }
 }
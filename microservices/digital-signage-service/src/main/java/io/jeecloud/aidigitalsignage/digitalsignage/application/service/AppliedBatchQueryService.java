@@ -0,0 +1,54 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.service;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.EtlBatchDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetLatestBatchUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AppliedBatch;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AppliedBatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Applied Batch Query Service (CQRS - Query Side)
+ * 
+ * Reads the ETL batches recorded by the increment command.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AppliedBatchQueryService implements GetLatestBatchUseCase {
+
+    private final AppliedBatchRepository appliedBatchRepository;
+
+    @Override
+    public Optional<EtlBatchDto> getLatestBatch() {
+        return appliedBatchRepository.findLatest().map(this::mapBatch);
+    }
+
+    private EtlBatchDto mapBatch(AppliedBatch batch) {
+        return EtlBatchDto.builder()
+                .id(batch.getBatchId())
+                .fromTimestamp(batch.getFromTimestamp() != null ? batch.getFromTimestamp().toEpochMilli() : null)
+                .fromTable(batch.getFromTable())
+                .toTimestamp(batch.getToTimestamp().toEpochMilli())
+                .toTable(batch.getToTable())
+                .eventCount(batch.getEventCount())
+                .fromStreams(toMillis(batch.getFromStreams()))
+                .toStreams(toMillis(batch.getToStreams()))
+                .build();
+    }
+
+    private static Map<String, Long> toMillis(Map<String, Instant> streams) {
+        if (streams == null) {
+            return null;
+        }
+        Map<String, Long> millis = new TreeMap<>();
+        streams.forEach((stream, position) -> millis.put(stream, position.toEpochMilli()));
+        return millis;
+    }
+}
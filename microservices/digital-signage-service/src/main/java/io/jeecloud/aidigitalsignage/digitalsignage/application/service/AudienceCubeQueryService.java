@@ -0,0 +1,63 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.service;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AudienceCubeCellDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AudienceCubeResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.QueryAudienceCubeUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdAudienceCube;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdAudienceCubeRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AudienceCubeCell;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.CubeDimension;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Audience Cube Query Service (CQRS - Query Side)
+ * 
+ * Answers slice and roll-up queries from the in-memory audience cube.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AudienceCubeQueryService implements QueryAudienceCubeUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(AudienceCubeQueryService.class);
+
+    private final AdAudienceCubeRepository adAudienceCubeRepository;
+
+    @Override
+    public AudienceCubeResponse queryAudienceCube(Map<CubeDimension, String> filters, Set<CubeDimension> groupBy) {
+        AdAudienceCube cube = adAudienceCubeRepository.load();
+
+        List<AudienceCubeCell> cells = cube.slice(filters, groupBy);
+        List<AudienceCubeCell> totals = cube.slice(filters, Set.of());
+        log.debug("Audience cube slice {} grouped by {}: {} cells", filters, groupBy, cells.size());
+
+        return AudienceCubeResponse.builder()
+                .groupBy(groupBy.stream().map(CubeDimension::value).collect(Collectors.toList()))
+                .totals(totals.isEmpty()
+                        ? AudienceCubeCellDto.builder().build()
+                        : mapCell(totals.get(0)))
+                .cells(cells.stream().map(this::mapCell).collect(Collectors.toList()))
+                .build();
+    }
+
+    private AudienceCubeCellDto mapCell(AudienceCubeCell cell) {
+        return AudienceCubeCellDto.builder()
+                .adName(cell.getAdName())
+                .ageGroup(cell.getAgeGroup())
+                .gender(cell.getGender())
+                .emotion(cell.getEmotion())
+                .views(cell.getViews())
+                .lookYes(cell.getLookYes())
+                .lookNo(cell.getLookNo())
+                .build();
+    }
+}
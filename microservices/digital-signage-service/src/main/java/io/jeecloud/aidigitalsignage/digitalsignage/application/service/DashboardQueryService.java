@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.application.service;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.*;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetDashboardOverviewUseCase;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.*;
@@ -9,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,7 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
     private final AdvertisementRepository advertisementRepository;
     private final SystemHealthRepository systemHealthRepository;
     private final ResearchMetricsRepository researchMetricsRepository;
+    private final AnalyticsRollupRepository analyticsRollupRepository;
 
     @Override
     public DashboardOverviewResponse getDashboardOverview() {
@@ -40,30 +44,62 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
         
         List<Advertisement> ads = advertisementRepository.findAllOrderedByViewers();
 
-        // Fetch system health and research metrics (optional - may not be available yet)
-        SystemHealthDto systemHealthDto = systemHealthRepository.findCurrent()
-                .map(this::mapSystemHealth)
-                .orElse(null);
-        
-        ResearchMetricsDto researchMetricsDto = researchMetricsRepository.findCurrent()
-                .map(this::mapResearchMetrics)
-                .orElse(null);
-
         return DashboardOverviewResponse.builder()
                 .totalAudience(metrics.getTotalAudience())
                 .totalViews(metrics.getTotalViews())
                 .totalAds(metrics.getTotalAds())
                 .avgViewSeconds(metrics.getAvgViewSeconds())
+                .currentlyWatching(metrics.getCurrentlyWatching())
+                .viewSecondsPercentiles(mapPercentiles(metrics.getSessionDurationSketch()))
+                .gazeSecondsPercentiles(mapPercentiles(metrics.getTotalGazeTimeSketch()))
                 .ageDistribution(mapAgeDistribution(metrics.getAgeDistribution()))
                 .genderDistribution(mapGenderDistribution(metrics.getGenderDistribution()))
                 .emotionDistribution(mapEmotionDistribution(metrics.getEmotionDistribution()))
                 .adsPerformance(mapAdsPerformance(ads))
                 .adsAttention(mapAdsAttention(ads))
-                .systemHealth(systemHealthDto)
-                .researchMetrics(researchMetricsDto)
+                .systemHealth(findSystemHealth())
+                .researchMetrics(findResearchMetrics())
+                .build();
+    }
+
+    @Override
+    public DashboardOverviewResponse getDashboardOverview(Instant from, Instant to, RollupResolution resolution) {
+        Instant bucketFrom = resolution.bucketStart(from);
+        log.debug("Summing {} rollup buckets in [{}, {})", resolution.value(), bucketFrom, to);
+
+        // Aggregate queries over the range's buckets, independent of event volume;
+        // the audience is the union of the buckets' viewer sketches
+        AnalyticsRollup rollup = analyticsRollupRepository.sumBetween(resolution, bucketFrom, to);
+        List<Advertisement> ads = rollup.getAdvertisements();
+
+        return DashboardOverviewResponse.builder()
+                .totalAudience(rollup.getTotalAudience())
+                .totalViews(rollup.getTotalViews())
+                .totalAds(ads.size())
+                .avgViewSeconds(rollup.getAvgViewSeconds())
+                .ageDistribution(mapAgeDistribution(rollup.getAgeDistribution()))
+                .genderDistribution(mapGenderDistribution(rollup.getGenderDistribution()))
+                .emotionDistribution(mapEmotionDistribution(rollup.getEmotionDistribution()))
+                .adsPerformance(mapAdsPerformance(ads))
+                .adsAttention(mapAdsAttention(ads))
+                .systemHealth(findSystemHealth())
+                .researchMetrics(findResearchMetrics())
                 .build();
     }
 
+    // System health and research metrics are optional - may not be available yet
+    private SystemHealthDto findSystemHealth() {
+        return systemHealthRepository.findCurrent()
+                .map(this::mapSystemHealth)
+                .orElse(null);
+    }
+
+    private ResearchMetricsDto findResearchMetrics() {
+        return researchMetricsRepository.findCurrent()
+                .map(this::mapResearchMetrics)
+                .orElse(null);
+    }
+
     private AgeDistributionDto mapAgeDistribution(DashboardMetrics.AgeDistribution age) {
         return AgeDistributionDto.builder()
                 .children(age.getChildren())
@@ -96,13 +132,29 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
 
     private List<AdsPerformanceDto> mapAdsPerformance(List<Advertisement> ads) {
         return ads.stream()
-                .map(ad -> AdsPerformanceDto.builder()
-                        .adName(ad.getAdName())
-                        .totalViewers(ad.getTotalViewers())
-                        .build())
+                .map(ad -> {
+                    AdAttention attention = ad.getAttention();
+                    return AdsPerformanceDto.builder()
+                            .adName(ad.getAdName())
+                            .totalViewers(ad.getTotalViewers())
+                            .totalGazeSeconds(attention != null ? attention.getGazeSeconds() : null)
+                            .meanGazeSeconds(attention != null ? attention.getMeanGazeSeconds() : null)
+                            .gazeCount(attention != null ? attention.getGazeCount() : null)
+                            .build();
+                })
                 .collect(Collectors.toList());
     }
 
+    private PercentilesDto mapPercentiles(QuantileSketch sketch) {
+        if (sketch == null || sketch.isEmpty()) return null;
+        return PercentilesDto.builder()
+                .p50(sketch.quantile(0.5))
+                .p90(sketch.quantile(0.9))
+                .p99(sketch.quantile(0.99))
+                .count(sketch.getCount())
+                .build();
+    }
+
     private SystemHealthDto mapSystemHealth(SystemHealth health) {
         return SystemHealthDto.builder()
                 .status(health.getStatus())
@@ -122,6 +174,7 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
                 .currentCpuTemp(perf.getCurrentCpuTemp())
                 .maxCpuTemp(perf.getMaxCpuTemp())
                 .cpuThreshold(perf.getCpuThreshold())
+                .fpsPercentiles(mapPercentiles(perf.getFpsSketch()))
                 .build();
     }
 
@@ -158,6 +211,7 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
     private ResearchMetricsDto.GazeQualityMetricsDto mapGazeQuality(ResearchMetrics.GazeQualityMetrics gaze) {
         if (gaze == null) return null;
         return ResearchMetricsDto.GazeQualityMetricsDto.builder()
+                .keypointValidRate(gaze.getKeypointValidRate())
                 .primaryMethodRate(gaze.getPrimaryMethodRate())
                 .fallbackMethodRate(gaze.getFallbackMethodRate())
                 .avgConfidence(gaze.getAvgConfidence())
@@ -204,11 +258,31 @@ public class DashboardQueryService implements GetDashboardOverviewUseCase {
 
     private List<AdsAttentionDto> mapAdsAttention(List<Advertisement> ads) {
         return ads.stream()
-                .map(ad -> AdsAttentionDto.builder()
-                        .adName(ad.getAdName())
-                        .lookYes(ad.getLookYes())
-                        .lookNo(ad.getLookNo())
-                        .build())
+                .map(ad -> {
+                    AdAttention attention = ad.getAttention();
+                    return AdsAttentionDto.builder()
+                            .adName(ad.getAdName())
+                            .lookYes(ad.getLookYes())
+                            .lookNo(ad.getLookNo())
+                            .attentionShare(attention != null ? attention.getAttentionShare() : null)
+                            .totalSessionSeconds(attention != null ? attention.getSessionSeconds() : null)
+                            .dwellHistogram(attention != null ? mapDwellHistogram(attention) : null)
+                            .build();
+                })
                 .collect(Collectors.toList());
     }
+
+    private List<DwellBinDto> mapDwellHistogram(AdAttention attention) {
+        double[] bounds = AdAttention.DWELL_BOUNDS_SECONDS;
+        long[] counts = attention.getDwellHistogram();
+        List<DwellBinDto> bins = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            bins.add(DwellBinDto.builder()
+                    .fromSeconds(i == 0 ? 0.0 : bounds[i - 1])
+                    .toSeconds(i < bounds.length ? bounds[i] : null)
+                    .count(counts[i])
+                    .build());
+        }
+        return bins;
+    }
 }
@@ -0,0 +1,48 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.application.service;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.LiveAudienceResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.LiveWindowDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetLiveAudienceUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.LiveAudience;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.LiveAudienceWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.stream.Collectors;
+
+/**
+ * Live Audience Query Service (CQRS - Query Side)
+ * 
+ * Reads the sliding live audience windows kept in memory; not
+ * transactional because it never touches the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class LiveAudienceQueryService implements GetLiveAudienceUseCase {
+
+    private final LiveAudienceWindow liveAudienceWindow;
+
+    @Override
+    public LiveAudienceResponse getLiveAudience() {
+        Instant now = Instant.now();
+        return LiveAudienceResponse.builder()
+                .asOf(now)
+                .windows(liveAudienceWindow.snapshot(now).stream()
+                        .map(this::mapWindow)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private LiveWindowDto mapWindow(LiveAudience audience) {
+        return LiveWindowDto.builder()
+                .minutes(audience.getMinutes())
+                .viewers(audience.getViewers())
+                .views(audience.getViews())
+                .avgViewSeconds(audience.getAvgViewSeconds())
+                .adViews(audience.getAdViews())
+                .lookYes(audience.getLookYes())
+                .engagementRate(audience.getEngagementRate())
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Ad Attention Value Object
+ *
+ * Accumulated attention time of one advertisement's sessions, sent by the
+ * ETL as running sums: gaze seconds, gaze count, session seconds and a
+ * dwell histogram of gaze seconds per session.
+ * Pure business logic - no framework dependencies.
+ */
+@Getter
+@Builder
+public class AdAttention {
+
+    /**
+     * Upper bounds (exclusive) of the dwell bins in seconds; the last bin is open-ended
+     */
+    public static final double[] DWELL_BOUNDS_SECONDS = {1, 2, 5, 10, 30, 60};
+
+    public static final int DWELL_BINS = DWELL_BOUNDS_SECONDS.length + 1;
+
+    private final double gazeSeconds;
+    private final long gazeCount;
+    private final double sessionSeconds;
+
+    /**
+     * Sessions per dwell bin, see {@link #DWELL_BOUNDS_SECONDS}
+     */
+    private final long[] dwellHistogram;
+
+    /**
+     * Number of sessions covered
+     */
+    public long getSessions() {
+        return Arrays.stream(dwellHistogram).sum();
+    }
+
+    /**
+     * Mean gaze seconds per session
+     */
+    public double getMeanGazeSeconds() {
+        long sessions = getSessions();
+        return sessions == 0 ? 0.0 : gazeSeconds / sessions;
+    }
+
+    /**
+     * Percentage of the session time spent looking at the screen
+     */
+    public double getAttentionShare() {
+        return sessionSeconds <= 0.0 ? 0.0 : Math.min(gazeSeconds / sessionSeconds, 1.0) * 100;
+    }
+
+    /**
+     * Validate attention data
+     */
+    public boolean isValid() {
+        return dwellHistogram != null && dwellHistogram.length == DWELL_BINS
+            && Arrays.stream(dwellHistogram).allMatch(count -> count >= 0)
+            && gazeSeconds >= 0 && gazeCount >= 0 && sessionSeconds >= 0;
+    }
+}
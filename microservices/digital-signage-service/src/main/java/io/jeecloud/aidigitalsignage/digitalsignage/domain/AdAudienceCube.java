@@ -0,0 +1,230 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ad Audience Cube Value Object
+ *
+ * Dense OLAP cube of session counts keyed by ad × age group × gender ×
+ * emotion, built by the analytics-etl-service. Ads are dictionary-encoded;
+ * each ad owns a contiguous block of {@link #CELLS_PER_AD} cells in two
+ * primitive arrays (views, lookYes), so slices and roll-ups are a single
+ * pass over at most a few thousand longs.
+ *
+ * Cell order within an ad: age group major, then gender, then emotion, with
+ * the members of {@link CubeDimension}. Not thread-safe for writes.
+ */
+public final class AdAudienceCube {
+
+    public static final int AGE_GROUPS = CubeDimension.AGE_GROUP.members().size();
+    public static final int GENDERS = CubeDimension.GENDER.members().size();
+    public static final int EMOTIONS = CubeDimension.EMOTION.members().size();
+
+    public static final int CELLS_PER_AD = AGE_GROUPS * GENDERS * EMOTIONS;
+
+    private final List<String> adNames = new ArrayList<>();
+    private final Map<String, Integer> adIds = new HashMap<>();
+
+    private long[] views = new long[CELLS_PER_AD * 4];
+    private long[] lookYes = new long[CELLS_PER_AD * 4];
+
+    /**
+     * Decode the cells sent by the analytics-etl-service: for each ad and each
+     * cell, the views and lookYes counts as unsigned varints
+     *
+     * @throws IllegalArgumentException if the cells do not match the ad names
+     */
+    public static AdAudienceCube fromCells(List<String> adNames, byte[] cells) {
+        AdAudienceCube cube = new AdAudienceCube();
+        int[] position = {0};
+        for (String adName : adNames) {
+            if (adName == null || cube.adIds.containsKey(adName)) {
+                throw new IllegalArgumentException("Audience cube ad names must be unique and not null");
+            }
+            int offset = cube.adId(adName) * CELLS_PER_AD;
+            for (int i = 0; i < CELLS_PER_AD; i++) {
+                long cellViews = readVarLong(cells, position);
+                long cellLookYes = readVarLong(cells, position);
+                if (cellLookYes > cellViews) {
+                    throw new IllegalArgumentException("Audience cube cell has more lookYes than views");
+                }
+                cube.views[offset + i] = cellViews;
+                cube.lookYes[offset + i] = cellLookYes;
+            }
+        }
+        if (position[0] != cells.length) {
+            throw new IllegalArgumentException("Audience cube has " + (cells.length - position[0]) + " trailing bytes");
+        }
+        return cube;
+    }
+
+    /**
+     * Cells of one ad in the same varint encoding (used for persistence)
+     */
+    public byte[] adCells(String adName) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(CELLS_PER_AD * 2);
+        Integer id = adIds.get(adName);
+        for (int i = 0; i < CELLS_PER_AD; i++) {
+            writeVarLong(out, id != null ? views[id * CELLS_PER_AD + i] : 0);
+            writeVarLong(out, id != null ? lookYes[id * CELLS_PER_AD + i] : 0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Add another cube's counts (ads are matched by name)
+     */
+    public void merge(AdAudienceCube other) {
+        for (int otherId = 0; otherId < other.adNames.size(); otherId++) {
+            int from = otherId * CELLS_PER_AD;
+            int to = adId(other.adNames.get(otherId)) * CELLS_PER_AD;
+            for (int i = 0; i < CELLS_PER_AD; i++) {
+                views[to + i] += other.views[from + i];
+                lookYes[to + i] += other.lookYes[from + i];
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return adNames.isEmpty();
+    }
+
+    public List<String> getAdNames() {
+        return Collections.unmodifiableList(adNames);
+    }
+
+    /**
+     * Slice and roll up the cube
+     *
+     * Cells matching every filter are summed into one result per combination of
+     * the {@code groupBy} members; dimensions not grouped by are rolled up.
+     * Combinations without views are omitted.
+     *
+     * @param filters Member per dimension to keep (ad name for AD)
+     * @param groupBy Dimensions kept in the result
+     * @throws IllegalArgumentException if a filter member does not exist
+     */
+    public List<AudienceCubeCell> slice(Map<CubeDimension, String> filters, Set<CubeDimension> groupBy) {
+        int adFilter = -1;
+        if (filters.containsKey(CubeDimension.AD)) {
+            Integer id = adIds.get(filters.get(CubeDimension.AD));
+            if (id == null) {
+                return List.of();
+            }
+            adFilter = id;
+        }
+        int ageFilter = memberFilter(filters, CubeDimension.AGE_GROUP);
+        int genderFilter = memberFilter(filters, CubeDimension.GENDER);
+        int emotionFilter = memberFilter(filters, CubeDimension.EMOTION);
+
+        // Mixed-radix index over the grouped dimensions; rolled-up dimensions have radix 1
+        int adRadix = groupBy.contains(CubeDimension.AD) ? adNames.size() : 1;
+        int ageRadix = groupBy.contains(CubeDimension.AGE_GROUP) ? AGE_GROUPS : 1;
+        int genderRadix = groupBy.contains(CubeDimension.GENDER) ? GENDERS : 1;
+        int emotionRadix = groupBy.contains(CubeDimension.EMOTION) ? EMOTIONS : 1;
+        long[] sumViews = new long[adRadix * ageRadix * genderRadix * emotionRadix];
+        long[] sumLookYes = new long[sumViews.length];
+
+        for (int ad = 0; ad < adNames.size(); ad++) {
+            if (adFilter >= 0 && ad != adFilter) {
+                continue;
+            }
+            for (int age = 0; age < AGE_GROUPS; age++) {
+                if (ageFilter >= 0 && age != ageFilter) {
+                    continue;
+                }
+                for (int gender = 0; gender < GENDERS; gender++) {
+                    if (genderFilter >= 0 && gender != genderFilter) {
+                        continue;
+                    }
+                    int base = ad * CELLS_PER_AD + (age * GENDERS + gender) * EMOTIONS;
+                    int target = (((ad % adRadix) * ageRadix + age % ageRadix) * genderRadix + gender % genderRadix)
+                            * emotionRadix;
+                    for (int emotion = 0; emotion < EMOTIONS; emotion++) {
+                        if (emotionFilter >= 0 && emotion != emotionFilter) {
+                            continue;
+                        }
+                        sumViews[target + emotion % emotionRadix] += views[base + emotion];
+                        sumLookYes[target + emotion % emotionRadix] += lookYes[base + emotion];
+                    }
+                }
+            }
+        }
+
+        List<AudienceCubeCell> result = new ArrayList<>();
+        for (int i = 0; i < sumViews.length; i++) {
+            if (sumViews[i] == 0) {
+                continue;
+            }
+            int emotion = i % emotionRadix;
+            int gender = i / emotionRadix % genderRadix;
+            int age = i / (emotionRadix * genderRadix) % ageRadix;
+            int ad = i / (emotionRadix * genderRadix * ageRadix);
+            result.add(AudienceCubeCell.builder()
+                    .adName(groupBy.contains(CubeDimension.AD) ? adNames.get(ad) : null)
+                    .ageGroup(groupBy.contains(CubeDimension.AGE_GROUP)
+                            ? CubeDimension.AGE_GROUP.members().get(age) : null)
+                    .gender(groupBy.contains(CubeDimension.GENDER)
+                            ? CubeDimension.GENDER.members().get(gender) : null)
+                    .emotion(groupBy.contains(CubeDimension.EMOTION)
+                            ? CubeDimension.EMOTION.members().get(emotion) : null)
+                    .views(sumViews[i])
+                    .lookYes(sumLookYes[i])
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Parse the filter member of a fixed dimension, -1 if not filtered
+     */
+    private static int memberFilter(Map<CubeDimension, String> filters, CubeDimension dimension) {
+        String member = filters.get(dimension);
+        return member != null ? dimension.indexOf(member) : -1;
+    }
+
+    private int adId(String adName) {
+        Integer id = adIds.get(adName);
+        if (id != null) {
+            return id;
+        }
+        int newId = adNames.size();
+        adNames.add(adName);
+        adIds.put(adName, newId);
+        if ((newId + 1) * CELLS_PER_AD > views.length) {
+            views = Arrays.copyOf(views, views.length * 2);
+            lookYes = Arrays.copyOf(lookYes, lookYes.length * 2);
+        }
+        return newId;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated audience cube");
+            }
+            int b = bytes[position[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in audience cube");
+    }
+}
@@ -0,0 +1,22 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+/**
+ * Ad Audience Cube Repository Port (Domain Interface)
+ * 
+ * Defines contract for storing the accumulated ad × age group × gender ×
+ * emotion cube. Implementation in infrastructure layer.
+ */
+public interface AdAudienceCubeRepository {
+
+    /**
+     * Current cube (empty if no cube has been stored yet)
+     * 
+     * The returned cube must not be modified.
+     */
+    AdAudienceCube load();
+
+    /**
+     * Add a cube delta to the stored cube, cell by cell
+     */
+    void add(AdAudienceCube delta);
+}
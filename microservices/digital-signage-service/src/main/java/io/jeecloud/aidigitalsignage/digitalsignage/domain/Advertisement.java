@@ -19,6 +19,11 @@ public class Advertisement {
     private final Integer lookYes;
     private final Integer lookNo;
 
+    /**
+     * Accumulated attention time, null if the ETL has not sent any
+     */
+    private final AdAttention attention;
+
     /**
      * Calculate attention rate percentage
      */
@@ -44,6 +49,7 @@ public class Advertisement {
             && totalViewers != null && totalViewers >= 0
             && lookYes != null && lookYes >= 0
             && lookNo != null && lookNo >= 0
-            && (lookYes + lookNo) <= totalViewers;
+            && (lookYes + lookNo) <= totalViewers
+            && (attention == null || attention.isValid());
     }
 }
@@ -20,6 +20,12 @@ public interface AdvertisementRepository {
      */
     List<Advertisement> saveAll(List<Advertisement> advertisements);
     
+    /**
+     * Add an ETL window's per-ad counts and attention time in place
+     * (ads not stored yet are inserted as is)
+     */
+    void addAll(List<Advertisement> deltas);
+    
     /**
      * Delete all advertisements
      */
@@ -0,0 +1,50 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Analytics Rollup Aggregate
+ * 
+ * Session analytics of one time bucket, or the sum of a range of buckets.
+ * Counts are additive, so any time range is answered by adding its
+ * buckets. Audience is not: each bucket keeps the sketch of its viewers,
+ * and the audience of a range is estimated from the union of its
+ * buckets' sketches, so a viewer seen in several buckets counts once.
+ * Pure business logic - no framework dependencies.
+ */
+@Getter
+@Builder
+public class AnalyticsRollup {
+
+    private final RollupResolution resolution;
+    private final Instant bucketStart;
+    private final Integer totalAudience;
+    private final Integer totalViews;
+    private final Double viewSecondsSum;
+    private final Integer viewSecondsCount;
+    private final DashboardMetrics.AgeDistribution ageDistribution;
+    private final DashboardMetrics.GenderDistribution genderDistribution;
+    private final DashboardMetrics.EmotionDistribution emotionDistribution;
+    private final List<Advertisement> advertisements;
+    
+    /**
+     * Viewers of the bucket (the delta as sent by the ETL, or the union
+     * stored so far); null for summed ranges and buckets sent without one
+     */
+    private final HyperLogLog viewerSketch;
+
+    /**
+     * Average session duration, weighted over all sessions in the bucket(s)
+     */
+    public Double getAvgViewSeconds() {
+        if (viewSecondsCount == null || viewSecondsCount == 0) {
+            return 0.0;
+        }
+        return viewSecondsSum / viewSecondsCount;
+    }
+}
@@ -0,0 +1,40 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Analytics Rollup Repository Port (Domain Interface)
+ * 
+ * Defines contract for storing and summing time-bucketed analytics.
+ * Implementation in infrastructure layer.
+ */
+public interface AnalyticsRollupRepository {
+
+    /**
+     * Add bucket deltas to the stored buckets with the same resolution and
+     * start, creating buckets that do not exist yet
+     */
+    void addAll(List<AnalyticsRollup> rollups);
+    
+    /**
+     * Sum all buckets of a resolution starting in [from, to)
+     * 
+     * @return Summed rollup (zero counts if the range has no buckets),
+     *         advertisements ordered by total viewers descending
+     */
+    AnalyticsRollup sumBetween(RollupResolution resolution, Instant from, Instant to);
+
+    /**
+     * Stored buckets of a resolution starting at or after {@code from},
+     * oldest first, each with its advertisements and viewer sketch
+     */
+    List<AnalyticsRollup> findSince(RollupResolution resolution, Instant from);
+    
+    /**
+     * Delete buckets of a resolution that start before the cutoff
+     * 
+     * @return Number of buckets deleted
+     */
+    int deleteOlderThan(RollupResolution resolution, Instant cutoff);
+}
@@ -0,0 +1,32 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Applied Batch (Value Object)
+ * 
+ * An increment batch of the ETL service that the stored analytics include:
+ * the event range (from, to] as (timestamp, child table) positions and its
+ * event count. The id is derived from the range by the ETL, so a re-sent
+ * batch has the same id. The ETL may also send the position of each event
+ * stream it reads, so a lagging stream's progress tells batches apart.
+ * Pure business logic - no framework dependencies.
+ */
+@Getter
+@Builder
+public class AppliedBatch {
+
+    private final String batchId;
+    private final Instant fromTimestamp;   // Null for the first batch
+    private final String fromTable;
+    private final Instant toTimestamp;
+    private final String toTable;          // Null means every row at toTimestamp
+    private final Long eventCount;
+    private final Map<String, Instant> fromStreams;   // Null when not sent
+    private final Map<String, Instant> toStreams;
+    private final Instant appliedAt;
+}
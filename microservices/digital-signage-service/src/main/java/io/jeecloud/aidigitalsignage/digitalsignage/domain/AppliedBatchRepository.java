@@ -0,0 +1,35 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Applied Batch Repository Port (Domain Interface)
+ * 
+ * Defines contract for remembering which ETL batches the stored analytics
+ * include. Implementation in infrastructure layer.
+ */
+public interface AppliedBatchRepository {
+
+    /**
+     * Whether a batch with this id has been applied
+     */
+    boolean exists(String batchId);
+
+    /**
+     * Record a batch as applied; must run in the transaction applying it
+     */
+    void save(AppliedBatch batch);
+
+    /**
+     * Most recently applied batch (empty if none)
+     */
+    Optional<AppliedBatch> findLatest();
+
+    /**
+     * Forget batches applied before the cutoff, keeping the latest one
+     * 
+     * @return Number of batches deleted
+     */
+    int deleteAppliedBefore(Instant cutoff);
+}
@@ -0,0 +1,26 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Audience Cube Cell Value Object
+ * 
+ * One row of a cube query: the members of the grouped dimensions and the
+ * summed counts. Dimensions that were rolled up are null.
+ */
+@Getter
+@Builder
+public class AudienceCubeCell {
+
+    private final String adName;
+    private final String ageGroup;
+    private final String gender;
+    private final String emotion;
+    private final long views;
+    private final long lookYes;
+
+    public long getLookNo() {
+        return views - lookYes;
+    }
+}
@@ -0,0 +1,69 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import java.util.List;
+
+/**
+ * Cube Dimension Value Object
+ * 
+ * Dimensions of the {@link AdAudienceCube} with the members of each fixed
+ * dimension. The advertisement dimension is open: its members are the ads
+ * seen so far. Every fixed dimension ends with an "unknown" member.
+ */
+public enum CubeDimension {
+
+    AD("ad", List.of()),
+    AGE_GROUP("ageGroup", List.of("children", "teenagers", "youngAdults", "midAged", "seniors", "unknown")),
+    GENDER("gender", List.of("male", "female", "unknown")),
+    EMOTION("emotion", List.of("anger", "contempt", "disgust", "fear", "happiness", "neutral", "sadness",
+            "surprise", "unknown"));
+
+    private final String value;
+    private final List<String> members;
+
+    CubeDimension(String value, List<String> members) {
+        this.value = value;
+        this.members = members;
+    }
+
+    /**
+     * Name used in the API (ad, ageGroup, gender, emotion)
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * Members of a fixed dimension in cube index order (empty for AD)
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * Index of a member of a fixed dimension, case-insensitive
+     * 
+     * @throws IllegalArgumentException if the member does not exist
+     */
+    public int indexOf(String member) {
+        for (int i = 0; i < members.size(); i++) {
+            if (members.get(i).equalsIgnoreCase(member)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + value + " '" + member + "' (expected one of " + members + ")");
+    }
+
+    /**
+     * Parse a dimension name, case-insensitive
+     * 
+     * @throws IllegalArgumentException if the name is not a dimension
+     */
+    public static CubeDimension fromValue(String value) {
+        for (CubeDimension dimension : values()) {
+            if (dimension.value.equalsIgnoreCase(value)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension '" + value + "' (expected ad, ageGroup, gender or emotion)");
+    }
+}
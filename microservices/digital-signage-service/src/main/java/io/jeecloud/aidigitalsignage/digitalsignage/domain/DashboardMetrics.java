@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.domain;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -17,9 +18,12 @@ public class DashboardMetrics {
     private final Integer totalViews;
     private final Integer totalAds;
     private final Double avgViewSeconds;
+    private final Integer currentlyWatching;  // Open viewer sessions as of the last ETL run, null if not tracked
     private final AgeDistribution ageDistribution;
     private final GenderDistribution genderDistribution;
     private final EmotionDistribution emotionDistribution;
+    private final QuantileSketch sessionDurationSketch;  // null if the ETL sent no distribution
+    private final QuantileSketch totalGazeTimeSketch;
 
     /**
      * Domain model for age demographics
@@ -21,6 +21,21 @@ public interface DashboardMetricsRepository {
      */
     DashboardMetrics save(DashboardMetrics metrics);
     
+    /**
+     * Add an ETL window's metrics to the current ones in place (stored as is if there are none yet)
+     * 
+     * Counts and the audience growth are added, the average view time is
+     * weighted by views, total ads keeps the larger count and non-null
+     * sketches replace the stored ones. The currently watching count is
+     * left unchanged, see {@link #updateCurrentlyWatching(Integer)}.
+     */
+    void add(DashboardMetrics delta);
+    
+    /**
+     * Replace the currently watching count (no-op if there are no metrics yet)
+     */
+    void updateCurrentlyWatching(Integer currentlyWatching);
+    
     /**
      * Delete all dashboard metrics
      */
@@ -0,0 +1,38 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Live Audience Value Object
+ *
+ * Audience of the last few minutes, read from {@link LiveAudienceWindow}.
+ * Pure business logic - no framework dependencies.
+ */
+@Getter
+@Builder
+public class LiveAudience {
+
+    private final int minutes;
+    private final long viewers;
+    private final long views;
+    private final double viewSecondsSum;
+    private final long viewSecondsCount;
+    private final long adViews;
+    private final long lookYes;
+
+    /**
+     * Average session duration, weighted over all sessions in the window
+     */
+    public double getAvgViewSeconds() {
+        return viewSecondsCount == 0 ? 0.0 : viewSecondsSum / viewSecondsCount;
+    }
+
+    /**
+     * Percentage of ad views in which the viewer looked at the ad
+     * (the attention rate of all ads together)
+     */
+    public double getEngagementRate() {
+        return adViews == 0 ? 0.0 : (double) lookYes / adViews * 100;
+    }
+}
@@ -0,0 +1,262 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Live Audience Window
+ *
+ * Sliding windows over the most recent minute rollup buckets ("viewers in
+ * the last 5/15/60 minutes"), kept entirely in memory. A fixed ring of one
+ * slot per minute covers the longest window; every window keeps running
+ * sums of its slots. Adding a bucket updates its slot and the sums of the
+ * windows that cover it, and moving to a new minute subtracts the slot
+ * that leaves each window and recycles the oldest slot, so both are O(1)
+ * per window no matter how much traffic a minute had.
+ *
+ * Distinct viewers cannot be subtracted, so each slot keeps the bucket's
+ * viewer sketch and a window's viewers are the union of its slots'
+ * sketches, computed on read (at most one register array per minute).
+ * Buckets sent without a sketch add their per-minute audience instead.
+ *
+ * The windows end at the newest minute seen, by a bucket or by a read;
+ * buckets older than the longest window are ignored. Thread-safe.
+ */
+public final class LiveAudienceWindow {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    // Additive counters per slot and per window
+    private static final int VIEWS = 0;
+    private static final int VIEW_SECONDS_COUNT = 1;
+    private static final int AD_VIEWS = 2;
+    private static final int LOOK_YES = 3;
+    private static final int UNSKETCHED_AUDIENCE = 4;
+    private static final int COUNTERS = 5;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int[] windowMinutes;
+    private final int capacity;
+
+    // Ring of minute slots, indexed by minute modulo capacity
+    private final long[] slotMinute;
+    private final long[] slotCounts;
+    private final double[] slotViewSeconds;
+    private final HyperLogLog[] slotSketches;
+
+    // Running sums per window
+    private final long[] windowCounts;
+    private final double[] windowViewSeconds;
+
+    private long headMinute = EMPTY;
+
+    // Precision of the first sketch added; the slots' sketches must all match to be unioned
+    private int sketchPrecision;
+
+    /**
+     * @param windowMinutes Window lengths in minutes, e.g. 5, 15, 60
+     * @throws IllegalArgumentException if no window is given or a length is not positive
+     */
+    public LiveAudienceWindow(int... windowMinutes) {
+        if (windowMinutes.length == 0) {
+            throw new IllegalArgumentException("At least one live audience window is required");
+        }
+        this.windowMinutes = windowMinutes.clone();
+        Arrays.sort(this.windowMinutes);
+        if (this.windowMinutes[0] <= 0) {
+            throw new IllegalArgumentException("Live audience windows must be at least one minute");
+        }
+        this.capacity = this.windowMinutes[this.windowMinutes.length - 1];
+
+        this.slotMinute = new long[capacity];
+        Arrays.fill(slotMinute, EMPTY);
+        this.slotCounts = new long[capacity * COUNTERS];
+        this.slotViewSeconds = new double[capacity];
+        this.slotSketches = new HyperLogLog[capacity];
+
+        this.windowCounts = new long[this.windowMinutes.length * COUNTERS];
+        this.windowViewSeconds = new double[this.windowMinutes.length];
+    }
+
+    /**
+     * Length of the longest window, the span of minute buckets worth adding
+     */
+    public int getLongestWindowMinutes() {
+        return capacity;
+    }
+
+    /**
+     * Add a minute bucket delta (buckets of other resolutions are ignored)
+     *
+     * @return false if the bucket is older than the longest window
+     */
+    public synchronized boolean add(AnalyticsRollup bucket) {
+        if (bucket.getResolution() != RollupResolution.MINUTE) {
+            return false;
+        }
+        long minute = Math.floorDiv(bucket.getBucketStart().toEpochMilli(), MINUTE_MILLIS);
+        advanceTo(minute);
+        if (minute <= headMinute - capacity) {
+            return false;
+        }
+
+        int slot = slot(minute);
+        if (slotMinute[slot] != minute) {
+            clearSlot(slot);
+            slotMinute[slot] = minute;
+        }
+
+        long[] delta = new long[COUNTERS];
+        delta[VIEWS] = orZero(bucket.getTotalViews());
+        delta[VIEW_SECONDS_COUNT] = orZero(bucket.getViewSecondsCount());
+        if (bucket.getAdvertisements() != null) {
+            for (Advertisement ad : bucket.getAdvertisements()) {
+                delta[AD_VIEWS] += orZero(ad.getTotalViewers());
+                delta[LOOK_YES] += orZero(ad.getLookYes());
+            }
+        }
+        if (!addSketch(slot, bucket.getViewerSketch())) {
+            delta[UNSKETCHED_AUDIENCE] = orZero(bucket.getTotalAudience());
+        }
+        double viewSeconds = bucket.getViewSecondsSum() != null ? bucket.getViewSecondsSum() : 0.0;
+
+        addCounts(slotCounts, slot, delta);
+        slotViewSeconds[slot] += viewSeconds;
+        for (int w = 0; w < windowMinutes.length; w++) {
+            if (headMinute - minute < windowMinutes[w]) {
+                addCounts(windowCounts, w, delta);
+                windowViewSeconds[w] += viewSeconds;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Audience of every window, ending at the later of {@code now} and the newest bucket
+     *
+     * @return One entry per window, shortest first
+     */
+    public synchronized List<LiveAudience> snapshot(Instant now) {
+        advanceTo(Math.floorDiv(now.toEpochMilli(), MINUTE_MILLIS));
+
+        List<LiveAudience> result = new ArrayList<>(windowMinutes.length);
+        for (int w = 0; w < windowMinutes.length; w++) {
+            int base = w * COUNTERS;
+            result.add(LiveAudience.builder()
+                    .minutes(windowMinutes[w])
+                    .viewers(distinctViewers(windowMinutes[w]) + windowCounts[base + UNSKETCHED_AUDIENCE])
+                    .views(windowCounts[base + VIEWS])
+                    .viewSecondsSum(Math.max(windowViewSeconds[w], 0.0))
+                    .viewSecondsCount(windowCounts[base + VIEW_SECONDS_COUNT])
+                    .adViews(windowCounts[base + AD_VIEWS])
+                    .lookYes(windowCounts[base + LOOK_YES])
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Move the head to {@code minute}, rolling every window forward one minute at a time
+     */
+    private void advanceTo(long minute) {
+        if (headMinute != EMPTY && minute <= headMinute) {
+            return;
+        }
+        if (headMinute == EMPTY || minute - headMinute >= capacity) {
+            // Every slot has left every window
+            Arrays.fill(slotMinute, EMPTY);
+            Arrays.fill(slotCounts, 0L);
+            Arrays.fill(slotViewSeconds, 0.0);
+            Arrays.fill(slotSketches, null);
+            Arrays.fill(windowCounts, 0L);
+            Arrays.fill(windowViewSeconds, 0.0);
+            headMinute = minute;
+            return;
+        }
+        while (headMinute < minute) {
+            headMinute++;
+            for (int w = 0; w < windowMinutes.length; w++) {
+                long leaving = headMinute - windowMinutes[w];
+                int slot = slot(leaving);
+                if (slotMinute[slot] == leaving) {
+                    for (int c = 0; c < COUNTERS; c++) {
+                        windowCounts[w * COUNTERS + c] -= slotCounts[slot * COUNTERS + c];
+                    }
+                    windowViewSeconds[w] -= slotViewSeconds[slot];
+                }
+            }
+            // The slot of the new minute last held the minute that just left the longest window
+            int slot = slot(headMinute);
+            clearSlot(slot);
+            slotMinute[slot] = headMinute;
+        }
+    }
+
+    /**
+     * Union the slot's sketch with the bucket's viewers
+     *
+     * @return false if the bucket has no sketch or one of another precision
+     */
+    private boolean addSketch(int slot, HyperLogLog sketch) {
+        if (sketch == null) {
+            return false;
+        }
+        if (sketchPrecision == 0) {
+            sketchPrecision = sketch.getPrecision();
+        } else if (sketch.getPrecision() != sketchPrecision) {
+            return false;
+        }
+        if (slotSketches[slot] == null) {
+            slotSketches[slot] = sketch.copy();
+        } else {
+            slotSketches[slot].merge(sketch);
+        }
+        return true;
+    }
+
+    /**
+     * Estimated distinct viewers of the sketched slots within the last {@code minutes}
+     */
+    private long distinctViewers(int minutes) {
+        HyperLogLog union = null;
+        for (long minute = headMinute - minutes + 1; minute <= headMinute; minute++) {
+            int slot = slot(minute);
+            HyperLogLog sketch = slotSketches[slot];
+            if (slotMinute[slot] != minute || sketch == null) {
+                continue;
+            }
+            if (union == null) {
+                union = sketch.copy();
+            } else {
+                union.merge(sketch);
+            }
+        }
+        return union != null ? union.estimate() : 0L;
+    }
+
+    private void clearSlot(int slot) {
+        Arrays.fill(slotCounts, slot * COUNTERS, (slot + 1) * COUNTERS, 0L);
+        slotViewSeconds[slot] = 0.0;
+        slotSketches[slot] = null;
+        slotMinute[slot] = EMPTY;
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) capacity);
+    }
+
+    private static void addCounts(long[] counts, int index, long[] delta) {
+        for (int c = 0; c < COUNTERS; c++) {
+            counts[index * COUNTERS + c] += delta[c];
+        }
+    }
+
+    private static long orZero(Integer value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -58,6 +58,7 @@ public class ResearchMetrics {
     @Getter
     @Builder
     public static class GazeQualityMetrics {
+        private final Double keypointValidRate;   // Frames with valid keypoints, percentage
         private final Double primaryMethodRate;   // solvePnP percentage
         private final Double fallbackMethodRate;  // Pose estimation percentage
         private final Double avgConfidence;
@@ -0,0 +1,51 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Rollup Resolution Value Object
+ * 
+ * Width of a time-bucketed analytics rollup. Buckets are aligned to the
+ * epoch in UTC, matching the buckets produced by the ETL service.
+ */
+public enum RollupResolution {
+
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final long widthMillis;
+
+    RollupResolution(Duration width) {
+        this.widthMillis = width.toMillis();
+    }
+
+    /**
+     * Start of the bucket containing the given instant
+     */
+    public Instant bucketStart(Instant instant) {
+        return Instant.ofEpochMilli(Math.floorDiv(instant.toEpochMilli(), widthMillis) * widthMillis);
+    }
+
+    /**
+     * Lower-case name used in the API and database (minute, hour, day)
+     */
+    public String value() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Parse a resolution name, case-insensitive
+     * 
+     * @throws IllegalArgumentException if the name is not minute, hour or day
+     */
+    public static RollupResolution fromValue(String value) {
+        for (RollupResolution resolution : values()) {
+            if (resolution.value().equalsIgnoreCase(value)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resolution '" + value + "' (expected minute, hour or day)");
+    }
+}
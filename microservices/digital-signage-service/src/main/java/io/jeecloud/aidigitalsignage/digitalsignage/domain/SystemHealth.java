@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.domain;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -32,6 +33,7 @@ public class SystemHealth {
         private final Double currentCpuTemp;
         private final Double maxCpuTemp;
         private final Double cpuThreshold;
+        private final QuantileSketch fpsSketch;  // FPS distribution of the latest window, may be null
 
         /**
          * Check if system is meeting performance requirements (5-10 FPS)
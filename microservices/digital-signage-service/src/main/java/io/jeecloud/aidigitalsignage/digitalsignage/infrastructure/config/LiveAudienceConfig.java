@@ -0,0 +1,44 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.config;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AnalyticsRollup;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AnalyticsRollupRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.LiveAudienceWindow;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.RollupResolution;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Live Audience Configuration (Infrastructure Layer)
+ * 
+ * Provides the in-memory live audience windows shared by the analytics
+ * update (writer) and GET /api/dashboard/live (reader). The windows are
+ * seeded from the stored minute buckets (with their viewer sketches) of
+ * the longest window before the bean is published, so they are complete
+ * right after a restart, and then fill from the minute buckets of each
+ * ETL update.
+ */
+@Slf4j
+@Configuration
+public class LiveAudienceConfig {
+
+    @Bean
+    public LiveAudienceWindow liveAudienceWindow(
+            @Value("${analytics.live.window-minutes:5,15,60}") int[] windowMinutes,
+            AnalyticsRollupRepository analyticsRollupRepository) {
+        LiveAudienceWindow window = new LiveAudienceWindow(windowMinutes);
+
+        Instant since = Instant.now().truncatedTo(ChronoUnit.MINUTES)
+                .minus(Duration.ofMinutes(window.getLongestWindowMinutes() - 1L));
+        List<AnalyticsRollup> buckets = analyticsRollupRepository.findSince(RollupResolution.MINUTE, since);
+        buckets.forEach(window::add);
+        log.info("Seeded live audience windows with {} minute buckets since {}", buckets.size(), since);
+        return window;
+    }
+}
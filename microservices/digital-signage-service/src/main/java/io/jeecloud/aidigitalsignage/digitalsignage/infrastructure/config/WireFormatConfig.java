@@ -0,0 +1,26 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jeecloud.aidigitalsignage.common.wire.WireFormat;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Wire Format Configuration (Infrastructure Layer)
+ *
+ * Registers the CBOR message converter, so the analytics endpoints accept
+ * application/cbor bodies from the ETL service next to JSON (selected by
+ * Content-Type). The mapper starts from Spring Boot's Jackson settings, so
+ * both formats bind the request DTOs the same way.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper mapper = builder.factory(WireFormat.CBOR.newFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(WireFormat.configure(mapper));
+    }
+}
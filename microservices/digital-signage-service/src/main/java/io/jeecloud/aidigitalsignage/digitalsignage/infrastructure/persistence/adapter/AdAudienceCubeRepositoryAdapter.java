@@ -0,0 +1,77 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdAudienceCube;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdAudienceCubeRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdAudienceCubeEntity;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository.AdAudienceCubeJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ad Audience Cube Repository Adapter (Infrastructure Layer)
+ *
+ * Implements domain repository interface using JPA.
+ * The whole cube is kept in memory after the first load, so slice queries
+ * never touch the database; the copy is dropped whenever a delta is added
+ * (and again when the adding transaction commits).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AdAudienceCubeRepositoryAdapter implements AdAudienceCubeRepository {
+
+    private final AdAudienceCubeJpaRepository jpaRepository;
+
+    private volatile AdAudienceCube cached;
+
+    @Override
+    public AdAudienceCube load() {
+        AdAudienceCube cube = cached;
+        if (cube == null) {
+            cube = decode(jpaRepository.findAll());
+            cached = cube;
+        }
+        return cube;
+    }
+
+    @Override
+    public void add(AdAudienceCube delta) {
+        AdAudienceCube merged = decode(jpaRepository.findAllById(delta.getAdNames()));
+        merged.merge(delta);
+
+        List<AdAudienceCubeEntity> entities = new ArrayList<>();
+        for (String adName : delta.getAdNames()) {
+            entities.add(AdAudienceCubeEntity.builder()
+                    .adName(adName)
+                    .cells(merged.adCells(adName))
+                    .build());
+        }
+        jpaRepository.saveAll(entities);
+        invalidate();
+    }
+
+    private void invalidate() {
+        cached = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A load before the commit may have cached the old rows
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cached = null;
+                }
+            });
+        }
+    }
+
+    private static AdAudienceCube decode(List<AdAudienceCubeEntity> entities) {
+        AdAudienceCube cube = new AdAudienceCube();
+        for (AdAudienceCubeEntity entity : entities) {
+            cube.merge(AdAudienceCube.fromCells(List.of(entity.getAdName()), entity.getCells()));
+        }
+        return cube;
+    }
+}
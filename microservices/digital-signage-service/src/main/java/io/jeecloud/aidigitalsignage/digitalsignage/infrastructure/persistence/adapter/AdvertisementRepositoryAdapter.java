@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
 
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdAttention;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.Advertisement;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.AdvertisementRepository;
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdvertisementEntity;
@@ -14,7 +15,8 @@ import java.util.stream.Collectors;
  * Advertisement Repository Adapter (Infrastructure Layer)
  * 
  * Implements domain repository interface using JPA.
- * Translates between domain models and JPA entities.
+ * Translates between domain models and JPA entities. ETL window deltas
+ * are added with in-place UPDATE statements.
  */
 @Repository
 @RequiredArgsConstructor
@@ -42,6 +44,26 @@ public class AdvertisementRepositoryAdapter implements AdvertisementRepository {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public void addAll(List<Advertisement> deltas) {
+        for (Advertisement delta : deltas) {
+            // Ads seen for the first time are inserted with the delta as their totals
+            if (jpaRepository.addCounts(delta.getAdName(), orZero(delta.getTotalViewers()),
+                    orZero(delta.getLookYes()), orZero(delta.getLookNo())) == 0) {
+                jpaRepository.save(toEntity(delta));
+                continue;
+            }
+            
+            AdAttention attention = delta.getAttention();
+            if (attention != null) {
+                long[] dwell = attention.getDwellHistogram();
+                jpaRepository.addAttention(delta.getAdName(), attention.getGazeSeconds(),
+                        attention.getGazeCount(), attention.getSessionSeconds(),
+                        dwell[0], dwell[1], dwell[2], dwell[3], dwell[4], dwell[5], dwell[6]);
+            }
+        }
+    }
+    
     @Override
     public void deleteAll() {
         jpaRepository.deleteAllInBatch();
@@ -55,6 +77,27 @@ public class AdvertisementRepositoryAdapter implements AdvertisementRepository {
                 .totalViewers(entity.getTotalViewers())
                 .lookYes(entity.getLookYes())
                 .lookNo(entity.getLookNo())
+                .attention(toAttention(entity))
+                .build();
+    }
+    
+    private AdAttention toAttention(AdvertisementEntity entity) {
+        if (entity.getGazeSeconds() == null) {
+            return null;
+        }
+        return AdAttention.builder()
+                .gazeSeconds(entity.getGazeSeconds())
+                .gazeCount(orZero(entity.getGazeCount()))
+                .sessionSeconds(entity.getSessionSeconds() != null ? entity.getSessionSeconds() : 0.0)
+                .dwellHistogram(new long[]{
+                        orZero(entity.getDwellLt1s()),
+                        orZero(entity.getDwell1To2s()),
+                        orZero(entity.getDwell2To5s()),
+                        orZero(entity.getDwell5To10s()),
+                        orZero(entity.getDwell10To30s()),
+                        orZero(entity.getDwell30To60s()),
+                        orZero(entity.getDwell60sPlus())
+                })
                 .build();
     }
     
@@ -67,6 +110,29 @@ public class AdvertisementRepositoryAdapter implements AdvertisementRepository {
         entity.setTotalViewers(domain.getTotalViewers());
         entity.setLookYes(domain.getLookYes());
         entity.setLookNo(domain.getLookNo());
+        
+        AdAttention attention = domain.getAttention();
+        if (attention != null) {
+            long[] dwell = attention.getDwellHistogram();
+            entity.setGazeSeconds(attention.getGazeSeconds());
+            entity.setGazeCount(attention.getGazeCount());
+            entity.setSessionSeconds(attention.getSessionSeconds());
+            entity.setDwellLt1s(dwell[0]);
+            entity.setDwell1To2s(dwell[1]);
+            entity.setDwell2To5s(dwell[2]);
+            entity.setDwell5To10s(dwell[3]);
+            entity.setDwell10To30s(dwell[4]);
+            entity.setDwell30To60s(dwell[5]);
+            entity.setDwell60sPlus(dwell[6]);
+        }
         return entity;
     }
+    
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+    
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
 }
@@ -0,0 +1,265 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
+
+import io.jeecloud.aidigitalsignage.common.sketch.HyperLogLog;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.Advertisement;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AnalyticsRollup;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AnalyticsRollupRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.DashboardMetrics;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.RollupResolution;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdRollupEntity;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AnalyticsRollupEntity;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository.AdRollupJpaRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository.AnalyticsRollupJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Analytics Rollup Repository Adapter (Infrastructure Layer)
+ *
+ * Implements domain repository interface using JPA.
+ * Bucket deltas are added to the stored row (read-modify-write inside the
+ * caller's transaction); range sums are computed by the database. Viewer
+ * sketches are unioned instead: into the stored one on write, and across
+ * the range's buckets on read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRollupRepositoryAdapter implements AnalyticsRollupRepository {
+
+    private final AnalyticsRollupJpaRepository rollupJpaRepository;
+    private final AdRollupJpaRepository adRollupJpaRepository;
+
+    @Override
+    public void addAll(List<AnalyticsRollup> rollups) {
+        for (AnalyticsRollup rollup : rollups) {
+            String resolution = rollup.getResolution().value();
+            long bucketStart = rollup.getBucketStart().toEpochMilli();
+
+            AnalyticsRollupEntity entity = rollupJpaRepository.findByResolutionAndBucketStart(resolution, bucketStart)
+                    .orElseGet(() -> emptyBucket(resolution, bucketStart));
+            addCounts(entity, rollup);
+            rollupJpaRepository.save(entity);
+
+            for (Advertisement ad : rollup.getAdvertisements()) {
+                AdRollupEntity adEntity = adRollupJpaRepository
+                        .findByResolutionAndBucketStartAndAdName(resolution, bucketStart, ad.getAdName())
+                        .orElseGet(() -> AdRollupEntity.builder()
+                                .resolution(resolution)
+                                .bucketStart(bucketStart)
+                                .adName(ad.getAdName())
+                                .totalViewers(0)
+                                .lookYes(0)
+                                .build());
+                adEntity.setTotalViewers(adEntity.getTotalViewers() + ad.getTotalViewers());
+                adEntity.setLookYes(adEntity.getLookYes() + ad.getLookYes());
+                adRollupJpaRepository.save(adEntity);
+            }
+        }
+    }
+
+    @Override
+    public AnalyticsRollup sumBetween(RollupResolution resolution, Instant from, Instant to) {
+        AnalyticsRollupJpaRepository.RollupTotals totals = rollupJpaRepository.sumBetween(
+                resolution.value(), from.toEpochMilli(), to.toEpochMilli());
+
+        List<Advertisement> advertisements = adRollupJpaRepository.sumByAdBetween(
+                        resolution.value(), from.toEpochMilli(), to.toEpochMilli()).stream()
+                .map(ad -> Advertisement.builder()
+                        .adName(ad.getAdName())
+                        .totalViewers(toInt(ad.getTotalViewers()))
+                        .lookYes(toInt(ad.getLookYes()))
+                        .lookNo(toInt(ad.getTotalViewers()) - toInt(ad.getLookYes()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return AnalyticsRollup.builder()
+                .resolution(resolution)
+                .bucketStart(from)
+                .totalAudience(audienceBetween(resolution, from, to))
+                .totalViews(toInt(totals.getTotalViews()))
+                .viewSecondsSum(totals.getViewSecondsSum() != null ? totals.getViewSecondsSum() : 0.0)
+                .viewSecondsCount(toInt(totals.getViewSecondsCount()))
+                .ageDistribution(DashboardMetrics.AgeDistribution.builder()
+                        .children(toInt(totals.getChildren()))
+                        .teenagers(toInt(totals.getTeenagers()))
+                        .youngAdults(toInt(totals.getYoungAdults()))
+                        .midAged(toInt(totals.getMidAged()))
+                        .seniors(toInt(totals.getSeniors()))
+                        .build())
+                .genderDistribution(DashboardMetrics.GenderDistribution.builder()
+                        .male(toInt(totals.getMale()))
+                        .female(toInt(totals.getFemale()))
+                        .build())
+                .emotionDistribution(DashboardMetrics.EmotionDistribution.builder()
+                        .anger(toInt(totals.getAnger()))
+                        .contempt(toInt(totals.getContempt()))
+                        .disgust(toInt(totals.getDisgust()))
+                        .fear(toInt(totals.getFear()))
+                        .happiness(toInt(totals.getHappiness()))
+                        .neutral(toInt(totals.getNeutral()))
+                        .sadness(toInt(totals.getSadness()))
+                        .surprise(toInt(totals.getSurprise()))
+                        .build())
+                .advertisements(advertisements)
+                .build();
+    }
+
+    @Override
+    public List<AnalyticsRollup> findSince(RollupResolution resolution, Instant from) {
+        Map<Long, List<Advertisement>> advertisements = adRollupJpaRepository
+                .findByResolutionAndBucketStartGreaterThanEqual(resolution.value(), from.toEpochMilli()).stream()
+                .collect(Collectors.groupingBy(AdRollupEntity::getBucketStart, Collectors.mapping(
+                        ad -> Advertisement.builder()
+                                .adName(ad.getAdName())
+                                .totalViewers(ad.getTotalViewers())
+                                .lookYes(ad.getLookYes())
+                                .lookNo(ad.getTotalViewers() - ad.getLookYes())
+                                .build(),
+                        Collectors.toList())));
+
+        return rollupJpaRepository
+                .findByResolutionAndBucketStartGreaterThanEqualOrderByBucketStart(resolution.value(), from.toEpochMilli())
+                .stream()
+                .map(entity -> toDomain(resolution, entity,
+                        advertisements.getOrDefault(entity.getBucketStart(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int deleteOlderThan(RollupResolution resolution, Instant cutoff) {
+        adRollupJpaRepository.deleteOlderThan(resolution.value(), cutoff.toEpochMilli());
+        return rollupJpaRepository.deleteOlderThan(resolution.value(), cutoff.toEpochMilli());
+    }
+
+    private AnalyticsRollup toDomain(RollupResolution resolution, AnalyticsRollupEntity entity,
+                                     List<Advertisement> advertisements) {
+        return AnalyticsRollup.builder()
+                .resolution(resolution)
+                .bucketStart(Instant.ofEpochMilli(entity.getBucketStart()))
+                .totalAudience(entity.getTotalAudience())
+                .totalViews(entity.getTotalViews())
+                .viewSecondsSum(entity.getViewSecondsSum())
+                .viewSecondsCount(entity.getViewSecondsCount())
+                .ageDistribution(DashboardMetrics.AgeDistribution.builder()
+                        .children(entity.getChildren())
+                        .teenagers(entity.getTeenagers())
+                        .youngAdults(entity.getYoungAdults())
+                        .midAged(entity.getMidAged())
+                        .seniors(entity.getSeniors())
+                        .build())
+                .genderDistribution(DashboardMetrics.GenderDistribution.builder()
+                        .male(entity.getMale())
+                        .female(entity.getFemale())
+                        .build())
+                .emotionDistribution(DashboardMetrics.EmotionDistribution.builder()
+                        .anger(entity.getAnger())
+                        .contempt(entity.getContempt())
+                        .disgust(entity.getDisgust())
+                        .fear(entity.getFear())
+                        .happiness(entity.getHappiness())
+                        .neutral(entity.getNeutral())
+                        .sadness(entity.getSadness())
+                        .surprise(entity.getSurprise())
+                        .build())
+                .advertisements(advertisements)
+                .viewerSketch(entity.getViewerSketch() != null ? HyperLogLog.fromBytes(entity.getViewerSketch()) : null)
+                .build();
+    }
+
+    private AnalyticsRollupEntity emptyBucket(String resolution, long bucketStart) {
+        return AnalyticsRollupEntity.builder()
+                .resolution(resolution)
+                .bucketStart(bucketStart)
+                .totalAudience(0)
+                .totalViews(0)
+                .viewSecondsSum(0.0)
+                .viewSecondsCount(0)
+                .children(0)
+                .teenagers(0)
+                .youngAdults(0)
+                .midAged(0)
+                .seniors(0)
+                .male(0)
+                .female(0)
+                .anger(0)
+                .contempt(0)
+                .disgust(0)
+                .fear(0)
+                .happiness(0)
+                .neutral(0)
+                .sadness(0)
+                .surprise(0)
+                .build();
+    }
+
+    /**
+     * Distinct viewers of a range: estimate of the union of the buckets'
+     * sketches, plus the audience of buckets stored without one
+     */
+    private int audienceBetween(RollupResolution resolution, Instant from, Instant to) {
+        HyperLogLog union = null;
+        long unsketched = 0;
+        for (AnalyticsRollupJpaRepository.BucketAudience bucket : rollupJpaRepository.findAudienceBetween(
+                resolution.value(), from.toEpochMilli(), to.toEpochMilli())) {
+            if (bucket.getViewerSketch() == null) {
+                unsketched += bucket.getTotalAudience();
+                continue;
+            }
+            HyperLogLog sketch = HyperLogLog.fromBytes(bucket.getViewerSketch());
+            if (union == null) {
+                union = sketch;
+            } else {
+                union.merge(sketch);
+            }
+        }
+        return (int) (unsketched + (union != null ? union.estimate() : 0));
+    }
+
+    private void addCounts(AnalyticsRollupEntity entity, AnalyticsRollup delta) {
+        if (delta.getViewerSketch() != null
+                && (entity.getViewerSketch() != null || entity.getTotalAudience() == 0)) {
+            // Viewers seen in earlier deltas of the bucket count once
+            HyperLogLog viewers = delta.getViewerSketch().copy();
+            if (entity.getViewerSketch() != null) {
+                viewers.merge(HyperLogLog.fromBytes(entity.getViewerSketch()));
+            }
+            entity.setViewerSketch(viewers.toBytes());
+            entity.setTotalAudience((int) viewers.estimate());
+        } else {
+            entity.setTotalAudience(entity.getTotalAudience() + delta.getTotalAudience());
+        }
+        entity.setTotalViews(entity.getTotalViews() + delta.getTotalViews());
+        entity.setViewSecondsSum(entity.getViewSecondsSum() + delta.getViewSecondsSum());
+        entity.setViewSecondsCount(entity.getViewSecondsCount() + delta.getViewSecondsCount());
+
+        DashboardMetrics.AgeDistribution age = delta.getAgeDistribution();
+        entity.setChildren(entity.getChildren() + age.getChildren());
+        entity.setTeenagers(entity.getTeenagers() + age.getTeenagers());
+        entity.setYoungAdults(entity.getYoungAdults() + age.getYoungAdults());
+        entity.setMidAged(entity.getMidAged() + age.getMidAged());
+        entity.setSeniors(entity.getSeniors() + age.getSeniors());
+
+        DashboardMetrics.GenderDistribution gender = delta.getGenderDistribution();
+        entity.setMale(entity.getMale() + gender.getMale());
+        entity.setFemale(entity.getFemale() + gender.getFemale());
+
+        DashboardMetrics.EmotionDistribution emotion = delta.getEmotionDistribution();
+        entity.setAnger(entity.getAnger() + emotion.getAnger());
+        entity.setContempt(entity.getContempt() + emotion.getContempt());
+        entity.setDisgust(entity.getDisgust() + emotion.getDisgust());
+        entity.setFear(entity.getFear() + emotion.getFear());
+        entity.setHappiness(entity.getHappiness() + emotion.getHappiness());
+        entity.setNeutral(entity.getNeutral() + emotion.getNeutral());
+        entity.setSadness(entity.getSadness() + emotion.getSadness());
+        entity.setSurprise(entity.getSurprise() + emotion.getSurprise());
+    }
+
+    private static int toInt(Long sum) {
+        return sum != null ? sum.intValue() : 0;
+    }
+}
@@ -0,0 +1,99 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AppliedBatch;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.AppliedBatchRepository;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AppliedBatchEntity;
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository.AppliedBatchJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Applied Batch Repository Adapter (Infrastructure Layer)
+ * 
+ * Implements domain repository interface using JPA.
+ * The unique batch_id column backs up the duplicate check: of two
+ * concurrent requests with the same batch, the second insert fails and
+ * rolls back its deltas.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AppliedBatchRepositoryAdapter implements AppliedBatchRepository {
+
+    private final AppliedBatchJpaRepository jpaRepository;
+
+    @Override
+    public boolean exists(String batchId) {
+        return jpaRepository.existsByBatchId(batchId);
+    }
+
+    @Override
+    public void save(AppliedBatch batch) {
+        jpaRepository.save(AppliedBatchEntity.builder()
+                .batchId(batch.getBatchId())
+                .fromTs(batch.getFromTimestamp() != null ? batch.getFromTimestamp().toEpochMilli() : null)
+                .fromTable(batch.getFromTable())
+                .toTs(batch.getToTimestamp().toEpochMilli())
+                .toTable(batch.getToTable())
+                .eventCount(batch.getEventCount())
+                .fromStreams(encodeStreams(batch.getFromStreams()))
+                .toStreams(encodeStreams(batch.getToStreams()))
+                .appliedAt(batch.getAppliedAt().toEpochMilli())
+                .build());
+    }
+
+    @Override
+    public Optional<AppliedBatch> findLatest() {
+        return jpaRepository.findFirstByOrderByIdDesc().map(this::toDomain);
+    }
+
+    @Override
+    public int deleteAppliedBefore(Instant cutoff) {
+        return jpaRepository.findFirstByOrderByIdDesc()
+                .map(latest -> jpaRepository.deleteAppliedBefore(cutoff.toEpochMilli(), latest.getId()))
+                .orElse(0);
+    }
+
+    private AppliedBatch toDomain(AppliedBatchEntity entity) {
+        return AppliedBatch.builder()
+                .batchId(entity.getBatchId())
+                .fromTimestamp(entity.getFromTs() != null ? Instant.ofEpochMilli(entity.getFromTs()) : null)
+                .fromTable(entity.getFromTable())
+                .toTimestamp(Instant.ofEpochMilli(entity.getToTs()))
+                .toTable(entity.getToTable())
+                .eventCount(entity.getEventCount())
+                .fromStreams(decodeStreams(entity.getFromStreams()))
+                .toStreams(decodeStreams(entity.getToStreams()))
+                .appliedAt(Instant.ofEpochMilli(entity.getAppliedAt()))
+                .build();
+    }
+
+    private static String encodeStreams(Map<String, Instant> streams) {
+        if (streams == null) {
+            return null;
+        }
+        return new TreeMap<>(streams).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue().toEpochMilli())
+                .collect(Collectors.joining(","));
+    }
+
+    private static Map<String, Instant> decodeStreams(String streams) {
+        if (streams == null) {
+            return null;
+        }
+        Map<String, Instant> decoded = new TreeMap<>();
+        for (String pair : streams.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                decoded.put(pair.substring(0, separator),
+                        Instant.ofEpochMilli(Long.parseLong(pair.substring(separator + 1))));
+            }
+        }
+        return decoded;
+    }
+}
@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.DashboardMetrics;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.DashboardMetricsRepository;
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.*;
@@ -13,7 +14,9 @@ import java.util.Optional;
  * Dashboard Metrics Repository Adapter (Infrastructure Layer)
  * 
  * Implements domain repository interface using JPA.
- * Translates between domain models and JPA entities.
+ * Translates between domain models and JPA entities. ETL window deltas
+ * are applied with in-place UPDATE statements inside the caller's
+ * transaction, so their cost does not depend on the accumulated state.
  */
 @Repository
 @RequiredArgsConstructor
@@ -45,9 +48,12 @@ public class DashboardMetricsRepositoryAdapter implements DashboardMetricsReposi
                 .totalViews(kpiEntity.get().getTotalViews())
                 .totalAds(kpiEntity.get().getTotalAds())
                 .avgViewSeconds(kpiEntity.get().getAvgViewSeconds())
+                .currentlyWatching(kpiEntity.get().getCurrentlyWatching())
                 .ageDistribution(mapAgeDistribution(ageEntity.get()))
                 .genderDistribution(mapGenderDistribution(genderEntity.get()))
                 .emotionDistribution(mapEmotionDistribution(emotionEntity.get()))
+                .sessionDurationSketch(toSketch(kpiEntity.get().getSessionDurationSketch()))
+                .totalGazeTimeSketch(toSketch(kpiEntity.get().getTotalGazeTimeSketch()))
                 .build();
 
         return Optional.of(metrics);
@@ -55,42 +61,46 @@ public class DashboardMetricsRepositoryAdapter implements DashboardMetricsReposi
     
     @Override
     public DashboardMetrics save(DashboardMetrics metrics) {
-        // Save KPI metrics
-        MetricsKpiEntity kpiEntity = new MetricsKpiEntity();
-        kpiEntity.setTotalAudience(metrics.getTotalAudience());
-        kpiEntity.setTotalViews(metrics.getTotalViews());
-        kpiEntity.setTotalAds(metrics.getTotalAds());
-        kpiEntity.setAvgViewSeconds(metrics.getAvgViewSeconds());
-        metricsKpiJpaRepository.save(kpiEntity);
-        
-        // Save age distribution
-        AgeDistributionEntity ageEntity = new AgeDistributionEntity();
-        ageEntity.setChildren(metrics.getAgeDistribution().getChildren());
-        ageEntity.setTeenagers(metrics.getAgeDistribution().getTeenagers());
-        ageEntity.setYoungAdults(metrics.getAgeDistribution().getYoungAdults());
-        ageEntity.setMidAged(metrics.getAgeDistribution().getMidAged());
-        ageEntity.setSeniors(metrics.getAgeDistribution().getSeniors());
-        ageDistributionJpaRepository.save(ageEntity);
+        metricsKpiJpaRepository.save(toKpiEntity(metrics));
+        ageDistributionJpaRepository.save(toAgeEntity(metrics.getAgeDistribution()));
+        genderDistributionJpaRepository.save(toGenderEntity(metrics.getGenderDistribution()));
+        emotionDistributionJpaRepository.save(toEmotionEntity(metrics.getEmotionDistribution()));
+        return metrics;
+    }
+    
+    @Override
+    public void add(DashboardMetrics delta) {
+        // One UPDATE ... SET x = x + ? per table; a table without a row yet gets the delta as its row
+        int views = orZero(delta.getTotalViews());
+        double avgViewSeconds = delta.getAvgViewSeconds() != null ? delta.getAvgViewSeconds() : 0.0;
+        if (metricsKpiJpaRepository.add(orZero(delta.getTotalAudience()), views, avgViewSeconds * views,
+                orZero(delta.getTotalAds()), toBytes(delta.getSessionDurationSketch()),
+                toBytes(delta.getTotalGazeTimeSketch())) == 0) {
+            metricsKpiJpaRepository.save(toKpiEntity(delta));
+        }
         
-        // Save gender distribution
-        GenderDistributionEntity genderEntity = new GenderDistributionEntity();
-        genderEntity.setMale(metrics.getGenderDistribution().getMale());
-        genderEntity.setFemale(metrics.getGenderDistribution().getFemale());
-        genderDistributionJpaRepository.save(genderEntity);
+        DashboardMetrics.AgeDistribution age = delta.getAgeDistribution();
+        if (ageDistributionJpaRepository.add(orZero(age.getChildren()), orZero(age.getTeenagers()),
+                orZero(age.getYoungAdults()), orZero(age.getMidAged()), orZero(age.getSeniors())) == 0) {
+            ageDistributionJpaRepository.save(toAgeEntity(age));
+        }
         
-        // Save emotion distribution
-        EmotionDistributionEntity emotionEntity = new EmotionDistributionEntity();
-        emotionEntity.setAnger(metrics.getEmotionDistribution().getAnger());
-        emotionEntity.setContempt(metrics.getEmotionDistribution().getContempt());
-        emotionEntity.setDisgust(metrics.getEmotionDistribution().getDisgust());
-        emotionEntity.setFear(metrics.getEmotionDistribution().getFear());
-        emotionEntity.setHappiness(metrics.getEmotionDistribution().getHappiness());
-        emotionEntity.setNeutral(metrics.getEmotionDistribution().getNeutral());
-        emotionEntity.setSadness(metrics.getEmotionDistribution().getSadness());
-        emotionEntity.setSurprise(metrics.getEmotionDistribution().getSurprise());
-        emotionDistributionJpaRepository.save(emotionEntity);
+        DashboardMetrics.GenderDistribution gender = delta.getGenderDistribution();
+        if (genderDistributionJpaRepository.add(orZero(gender.getMale()), orZero(gender.getFemale())) == 0) {
+            genderDistributionJpaRepository.save(toGenderEntity(gender));
+        }
         
-        return metrics;
+        DashboardMetrics.EmotionDistribution emotion = delta.getEmotionDistribution();
+        if (emotionDistributionJpaRepository.add(orZero(emotion.getAnger()), orZero(emotion.getContempt()),
+                orZero(emotion.getDisgust()), orZero(emotion.getFear()), orZero(emotion.getHappiness()),
+                orZero(emotion.getNeutral()), orZero(emotion.getSadness()), orZero(emotion.getSurprise())) == 0) {
+            emotionDistributionJpaRepository.save(toEmotionEntity(emotion));
+        }
+    }
+    
+    @Override
+    public void updateCurrentlyWatching(Integer currentlyWatching) {
+        metricsKpiJpaRepository.updateCurrentlyWatching(currentlyWatching);
     }
     
     @Override
@@ -102,6 +112,48 @@ public class DashboardMetricsRepositoryAdapter implements DashboardMetricsReposi
         metricsKpiJpaRepository.flush();
     }
 
+    private MetricsKpiEntity toKpiEntity(DashboardMetrics metrics) {
+        MetricsKpiEntity kpiEntity = new MetricsKpiEntity();
+        kpiEntity.setTotalAudience(metrics.getTotalAudience());
+        kpiEntity.setTotalViews(metrics.getTotalViews());
+        kpiEntity.setTotalAds(metrics.getTotalAds());
+        kpiEntity.setAvgViewSeconds(metrics.getAvgViewSeconds());
+        kpiEntity.setCurrentlyWatching(metrics.getCurrentlyWatching());
+        kpiEntity.setSessionDurationSketch(toBytes(metrics.getSessionDurationSketch()));
+        kpiEntity.setTotalGazeTimeSketch(toBytes(metrics.getTotalGazeTimeSketch()));
+        return kpiEntity;
+    }
+
+    private AgeDistributionEntity toAgeEntity(DashboardMetrics.AgeDistribution age) {
+        AgeDistributionEntity ageEntity = new AgeDistributionEntity();
+        ageEntity.setChildren(age.getChildren());
+        ageEntity.setTeenagers(age.getTeenagers());
+        ageEntity.setYoungAdults(age.getYoungAdults());
+        ageEntity.setMidAged(age.getMidAged());
+        ageEntity.setSeniors(age.getSeniors());
+        return ageEntity;
+    }
+
+    private GenderDistributionEntity toGenderEntity(DashboardMetrics.GenderDistribution gender) {
+        GenderDistributionEntity genderEntity = new GenderDistributionEntity();
+        genderEntity.setMale(gender.getMale());
+        genderEntity.setFemale(gender.getFemale());
+        return genderEntity;
+    }
+
+    private EmotionDistributionEntity toEmotionEntity(DashboardMetrics.EmotionDistribution emotion) {
+        EmotionDistributionEntity emotionEntity = new EmotionDistributionEntity();
+        emotionEntity.setAnger(emotion.getAnger());
+        emotionEntity.setContempt(emotion.getContempt());
+        emotionEntity.setDisgust(emotion.getDisgust());
+        emotionEntity.setFear(emotion.getFear());
+        emotionEntity.setHappiness(emotion.getHappiness());
+        emotionEntity.setNeutral(emotion.getNeutral());
+        emotionEntity.setSadness(emotion.getSadness());
+        emotionEntity.setSurprise(emotion.getSurprise());
+        return emotionEntity;
+    }
+
     private DashboardMetrics.AgeDistribution mapAgeDistribution(AgeDistributionEntity entity) {
         return DashboardMetrics.AgeDistribution.builder()
                 .children(entity.getChildren())
@@ -131,4 +183,16 @@ public class DashboardMetricsRepositoryAdapter implements DashboardMetricsReposi
                 .surprise(entity.getSurprise())
                 .build();
     }
+
+    private static QuantileSketch toSketch(byte[] bytes) {
+        return bytes != null ? QuantileSketch.fromBytes(bytes) : null;
+    }
+
+    private static byte[] toBytes(QuantileSketch sketch) {
+        return sketch != null ? sketch.toBytes() : null;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
 }
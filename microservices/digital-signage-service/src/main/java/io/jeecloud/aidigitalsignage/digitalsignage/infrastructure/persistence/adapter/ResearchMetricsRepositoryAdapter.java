@@ -70,6 +70,7 @@ public class ResearchMetricsRepositoryAdapter implements ResearchMetricsReposito
             return null;
         }
         return ResearchMetrics.GazeQualityMetrics.builder()
+                .keypointValidRate(entity.getKeypointValidRate())
                 .primaryMethodRate(entity.getPrimaryMethodRate())
                 .fallbackMethodRate(entity.getFallbackMethodRate())
                 .avgConfidence(entity.getGazeAvgConfidence())
@@ -112,6 +113,7 @@ public class ResearchMetricsRepositoryAdapter implements ResearchMetricsReposito
         }
         
         if (domain.getGazeQuality() != null) {
+            entity.setKeypointValidRate(domain.getGazeQuality().getKeypointValidRate());
             entity.setPrimaryMethodRate(domain.getGazeQuality().getPrimaryMethodRate());
             entity.setFallbackMethodRate(domain.getGazeQuality().getFallbackMethodRate());
             entity.setGazeAvgConfidence(domain.getGazeQuality().getAvgConfidence());
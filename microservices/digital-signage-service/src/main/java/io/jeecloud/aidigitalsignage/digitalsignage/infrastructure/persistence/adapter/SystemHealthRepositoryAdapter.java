@@ -1,5 +1,6 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.adapter;
 
+import io.jeecloud.aidigitalsignage.common.sketch.QuantileSketch;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.SystemHealth;
 import io.jeecloud.aidigitalsignage.digitalsignage.domain.SystemHealthRepository;
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.SystemHealthEntity;
@@ -44,6 +45,7 @@ public class SystemHealthRepositoryAdapter implements SystemHealthRepository {
                         .currentCpuTemp(entity.getCurrentCpuTemp())
                         .maxCpuTemp(entity.getMaxCpuTemp())
                         .cpuThreshold(entity.getCpuThreshold())
+                        .fpsSketch(entity.getFpsSketch() != null ? QuantileSketch.fromBytes(entity.getFpsSketch()) : null)
                         .build())
                 .environment(SystemHealth.EnvironmentMetrics.builder()
                         .temperatureCelsius(entity.getTemperatureCelsius())
@@ -68,6 +70,9 @@ public class SystemHealthRepositoryAdapter implements SystemHealthRepository {
             entity.setCurrentCpuTemp(domain.getPerformance().getCurrentCpuTemp());
             entity.setMaxCpuTemp(domain.getPerformance().getMaxCpuTemp());
             entity.setCpuThreshold(domain.getPerformance().getCpuThreshold());
+            if (domain.getPerformance().getFpsSketch() != null) {
+                entity.setFpsSketch(domain.getPerformance().getFpsSketch().toBytes());
+            }
         }
         
         if (domain.getEnvironment() != null) {
@@ -0,0 +1,27 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Ad Audience Cube JPA Entity (Infrastructure Layer)
+ * 
+ * The 162 (age group, gender, emotion) cells of one ad, stored as varint
+ * pairs of views and lookYes counts.
+ */
+@Entity
+@Table(name = "ad_audience_cube")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdAudienceCubeEntity {
+
+    @Id
+    @Column(name = "ad_name", nullable = false, length = 100)
+    private String adName;
+
+    @Column(name = "cells", nullable = false)
+    private byte[] cells;
+}
@@ -0,0 +1,38 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Advertisement Rollup JPA Entity (Infrastructure Layer)
+ * 
+ * Per-ad counts of one time bucket, unique per (resolution, bucket_start, ad_name).
+ */
+@Entity
+@Table(name = "ad_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resolution", nullable = false, length = 10)
+    private String resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Long bucketStart;
+
+    @Column(name = "ad_name", nullable = false, length = 100)
+    private String adName;
+
+    @Column(name = "total_viewers", nullable = false)
+    private Integer totalViewers;
+
+    @Column(name = "look_yes", nullable = false)
+    private Integer lookYes;
+}
@@ -30,4 +30,38 @@ public class AdvertisementEntity {
 
     @Column(name = "look_no", nullable = false)
     private Integer lookNo;
+
+    // Attention time sums, null until the ETL sends them
+
+    @Column(name = "gaze_seconds")
+    private Double gazeSeconds;
+
+    @Column(name = "gaze_count")
+    private Long gazeCount;
+
+    @Column(name = "session_seconds")
+    private Double sessionSeconds;
+
+    // Dwell histogram of gaze seconds per session
+
+    @Column(name = "dwell_lt_1s")
+    private Long dwellLt1s;
+
+    @Column(name = "dwell_1_2s")
+    private Long dwell1To2s;
+
+    @Column(name = "dwell_2_5s")
+    private Long dwell2To5s;
+
+    @Column(name = "dwell_5_10s")
+    private Long dwell5To10s;
+
+    @Column(name = "dwell_10_30s")
+    private Long dwell10To30s;
+
+    @Column(name = "dwell_30_60s")
+    private Long dwell30To60s;
+
+    @Column(name = "dwell_60s_plus")
+    private Long dwell60sPlus;
 }
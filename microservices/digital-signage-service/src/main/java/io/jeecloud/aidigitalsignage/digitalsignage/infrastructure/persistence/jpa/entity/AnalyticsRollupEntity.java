@@ -0,0 +1,90 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Analytics Rollup JPA Entity (Infrastructure Layer)
+ * 
+ * One time bucket per (resolution, bucket_start); bucket_start is epoch millis (UTC).
+ * viewer_sketch holds the serialized HyperLogLog of the bucket's viewers.
+ */
+@Entity
+@Table(name = "analytics_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resolution", nullable = false, length = 10)
+    private String resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Long bucketStart;
+
+    @Column(name = "total_audience", nullable = false)
+    private Integer totalAudience;
+
+    @Column(name = "total_views", nullable = false)
+    private Integer totalViews;
+
+    @Column(name = "view_seconds_sum", nullable = false)
+    private Double viewSecondsSum;
+
+    @Column(name = "view_seconds_count", nullable = false)
+    private Integer viewSecondsCount;
+
+    @Column(name = "viewer_sketch")
+    private byte[] viewerSketch;
+
+    @Column(name = "children", nullable = false)
+    private Integer children;
+
+    @Column(name = "teenagers", nullable = false)
+    private Integer teenagers;
+
+    @Column(name = "young_adults", nullable = false)
+    private Integer youngAdults;
+
+    @Column(name = "mid_aged", nullable = false)
+    private Integer midAged;
+
+    @Column(name = "seniors", nullable = false)
+    private Integer seniors;
+
+    @Column(name = "male", nullable = false)
+    private Integer male;
+
+    @Column(name = "female", nullable = false)
+    private Integer female;
+
+    @Column(name = "anger", nullable = false)
+    private Integer anger;
+
+    @Column(name = "contempt", nullable = false)
+    private Integer contempt;
+
+    @Column(name = "disgust", nullable = false)
+    private Integer disgust;
+
+    @Column(name = "fear", nullable = false)
+    private Integer fear;
+
+    @Column(name = "happiness", nullable = false)
+    private Integer happiness;
+
+    @Column(name = "neutral", nullable = false)
+    private Integer neutral;
+
+    @Column(name = "sadness", nullable = false)
+    private Integer sadness;
+
+    @Column(name = "surprise", nullable = false)
+    private Integer surprise;
+}
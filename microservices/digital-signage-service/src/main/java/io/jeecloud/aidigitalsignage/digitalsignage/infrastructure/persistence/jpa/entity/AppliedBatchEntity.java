@@ -0,0 +1,51 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Applied Batch JPA Entity (Infrastructure Layer)
+ * 
+ * One ETL batch the analytics include; timestamps are epoch millis (UTC).
+ * Stream positions are stored as "STREAM=millis" pairs, comma separated.
+ */
+@Entity
+@Table(name = "applied_batch")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppliedBatchEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false, unique = true, length = 64)
+    private String batchId;
+
+    @Column(name = "from_ts")
+    private Long fromTs;
+
+    @Column(name = "from_table", length = 192)
+    private String fromTable;
+
+    @Column(name = "to_ts", nullable = false)
+    private Long toTs;
+
+    @Column(name = "to_table", length = 192)
+    private String toTable;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+
+    @Column(name = "from_streams")
+    private String fromStreams;
+
+    @Column(name = "to_streams")
+    private String toStreams;
+
+    @Column(name = "applied_at", nullable = false)
+    private Long appliedAt;
+}
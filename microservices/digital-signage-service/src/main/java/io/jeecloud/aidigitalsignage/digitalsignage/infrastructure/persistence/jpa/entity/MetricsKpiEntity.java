@@ -33,4 +33,13 @@ public class MetricsKpiEntity {
 
     @Column(name = "avg_view_seconds", nullable = false)
     private Double avgViewSeconds;
+
+    @Column(name = "currently_watching")
+    private Integer currentlyWatching;
+
+    @Column(name = "session_duration_sketch")
+    private byte[] sessionDurationSketch;
+
+    @Column(name = "total_gaze_time_sketch")
+    private byte[] totalGazeTimeSketch;
 }
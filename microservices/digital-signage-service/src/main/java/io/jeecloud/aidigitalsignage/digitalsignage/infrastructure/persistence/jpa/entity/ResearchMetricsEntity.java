@@ -38,6 +38,9 @@ public class ResearchMetricsEntity {
     private Integer facesDetected;
 
     // Gaze quality metrics
+    @Column(name = "keypoint_valid_rate")
+    private Double keypointValidRate;
+
     @Column(name = "primary_method_rate")
     private Double primaryMethodRate;
 
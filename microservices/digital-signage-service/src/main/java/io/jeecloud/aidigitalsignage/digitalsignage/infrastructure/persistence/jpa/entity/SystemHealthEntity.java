@@ -49,6 +49,9 @@ public class SystemHealthEntity {
     @Column(name = "cpu_threshold")
     private Double cpuThreshold;
 
+    @Column(name = "fps_sketch")
+    private byte[] fpsSketch;
+
     // Environment metrics
     @Column(name = "temperature_celsius")
     private Double temperatureCelsius;
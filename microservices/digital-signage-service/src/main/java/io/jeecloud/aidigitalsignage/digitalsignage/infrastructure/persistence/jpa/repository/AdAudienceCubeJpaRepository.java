@@ -0,0 +1,10 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdAudienceCubeEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Ad Audience Cube JPA Repository (Infrastructure Layer)
+ */
+public interface AdAudienceCubeJpaRepository extends JpaRepository<AdAudienceCubeEntity, String> {
+}
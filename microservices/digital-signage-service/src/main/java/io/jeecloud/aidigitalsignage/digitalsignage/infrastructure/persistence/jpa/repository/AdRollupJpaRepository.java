@@ -0,0 +1,47 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Advertisement Rollup JPA Repository (Infrastructure Layer)
+ */
+public interface AdRollupJpaRepository extends JpaRepository<AdRollupEntity, Long> {
+
+    Optional<AdRollupEntity> findByResolutionAndBucketStartAndAdName(String resolution, Long bucketStart, String adName);
+
+    List<AdRollupEntity> findByResolutionAndBucketStartGreaterThanEqual(String resolution, Long from);
+
+    /**
+     * Per-ad sums of all buckets of a resolution starting in [from, to)
+     */
+    @Query("""
+            SELECT a.adName AS adName,
+                   SUM(a.totalViewers) AS totalViewers,
+                   SUM(a.lookYes) AS lookYes
+            FROM AdRollupEntity a
+            WHERE a.resolution = :resolution AND a.bucketStart >= :from AND a.bucketStart < :to
+            GROUP BY a.adName
+            ORDER BY SUM(a.totalViewers) DESC
+            """)
+    List<AdTotals> sumByAdBetween(@Param("resolution") String resolution, @Param("from") Long from, @Param("to") Long to);
+
+    @Modifying
+    @Query("DELETE FROM AdRollupEntity a WHERE a.resolution = :resolution AND a.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("resolution") String resolution, @Param("cutoff") Long cutoff);
+
+    /**
+     * Projection of {@link #sumByAdBetween}
+     */
+    interface AdTotals {
+        String getAdName();
+        Long getTotalViewers();
+        Long getLookYes();
+    }
+}
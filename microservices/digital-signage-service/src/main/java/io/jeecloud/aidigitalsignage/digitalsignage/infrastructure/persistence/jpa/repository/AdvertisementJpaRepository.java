@@ -2,6 +2,9 @@ package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.j
 
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AdvertisementEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -10,4 +13,45 @@ import java.util.List;
  */
 public interface AdvertisementJpaRepository extends JpaRepository<AdvertisementEntity, Long> {
     List<AdvertisementEntity> findAllByOrderByTotalViewersDesc();
+
+    /**
+     * Add a window's view counts to the ad's row in place
+     * 
+     * @return Number of rows updated, 0 if the ad is not stored yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE AdvertisementEntity a
+            SET a.totalViewers = a.totalViewers + :totalViewers,
+                a.lookYes = a.lookYes + :lookYes,
+                a.lookNo = a.lookNo + :lookNo
+            WHERE a.adName = :adName
+            """)
+    int addCounts(@Param("adName") String adName, @Param("totalViewers") int totalViewers,
+                  @Param("lookYes") int lookYes, @Param("lookNo") int lookNo);
+
+    /**
+     * Add a window's attention time to the ad's row in place (null sums start at zero)
+     */
+    @Modifying
+    @Query("""
+            UPDATE AdvertisementEntity a
+            SET a.gazeSeconds = COALESCE(a.gazeSeconds, 0.0) + :gazeSeconds,
+                a.gazeCount = COALESCE(a.gazeCount, 0) + :gazeCount,
+                a.sessionSeconds = COALESCE(a.sessionSeconds, 0.0) + :sessionSeconds,
+                a.dwellLt1s = COALESCE(a.dwellLt1s, 0) + :dwellLt1s,
+                a.dwell1To2s = COALESCE(a.dwell1To2s, 0) + :dwell1To2s,
+                a.dwell2To5s = COALESCE(a.dwell2To5s, 0) + :dwell2To5s,
+                a.dwell5To10s = COALESCE(a.dwell5To10s, 0) + :dwell5To10s,
+                a.dwell10To30s = COALESCE(a.dwell10To30s, 0) + :dwell10To30s,
+                a.dwell30To60s = COALESCE(a.dwell30To60s, 0) + :dwell30To60s,
+                a.dwell60sPlus = COALESCE(a.dwell60sPlus, 0) + :dwell60sPlus
+            WHERE a.adName = :adName
+            """)
+    int addAttention(@Param("adName") String adName, @Param("gazeSeconds") double gazeSeconds,
+                     @Param("gazeCount") long gazeCount, @Param("sessionSeconds") double sessionSeconds,
+                     @Param("dwellLt1s") long dwellLt1s, @Param("dwell1To2s") long dwell1To2s,
+                     @Param("dwell2To5s") long dwell2To5s, @Param("dwell5To10s") long dwell5To10s,
+                     @Param("dwell10To30s") long dwell10To30s, @Param("dwell30To60s") long dwell30To60s,
+                     @Param("dwell60sPlus") long dwell60sPlus);
 }
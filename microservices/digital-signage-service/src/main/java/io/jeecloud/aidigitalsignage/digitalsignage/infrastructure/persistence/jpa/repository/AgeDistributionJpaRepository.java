@@ -2,6 +2,9 @@ package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.j
 
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AgeDistributionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -10,4 +13,21 @@ import java.util.Optional;
  */
 public interface AgeDistributionJpaRepository extends JpaRepository<AgeDistributionEntity, Long> {
     Optional<AgeDistributionEntity> findFirstBy();
+
+    /**
+     * Add a window's counts to the stored row in place
+     * 
+     * @return Number of rows updated, 0 if there is no row yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE AgeDistributionEntity a
+            SET a.children = a.children + :children,
+                a.teenagers = a.teenagers + :teenagers,
+                a.youngAdults = a.youngAdults + :youngAdults,
+                a.midAged = a.midAged + :midAged,
+                a.seniors = a.seniors + :seniors
+            """)
+    int add(@Param("children") int children, @Param("teenagers") int teenagers,
+            @Param("youngAdults") int youngAdults, @Param("midAged") int midAged, @Param("seniors") int seniors);
 }
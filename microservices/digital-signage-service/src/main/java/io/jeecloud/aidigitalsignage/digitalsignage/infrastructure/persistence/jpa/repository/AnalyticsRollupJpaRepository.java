@@ -0,0 +1,99 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AnalyticsRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Analytics Rollup JPA Repository (Infrastructure Layer)
+ */
+public interface AnalyticsRollupJpaRepository extends JpaRepository<AnalyticsRollupEntity, Long> {
+
+    Optional<AnalyticsRollupEntity> findByResolutionAndBucketStart(String resolution, Long bucketStart);
+
+    List<AnalyticsRollupEntity> findByResolutionAndBucketStartGreaterThanEqualOrderByBucketStart(String resolution,
+                                                                                                  Long from);
+
+    /**
+     * Sum of all buckets of a resolution starting in [from, to), computed by
+     * the database over the (resolution, bucket_start) index (audience is
+     * not additive, see {@link #findAudienceBetween})
+     */
+    @Query("""
+            SELECT COUNT(r) AS buckets,
+                   SUM(r.totalViews) AS totalViews,
+                   SUM(r.viewSecondsSum) AS viewSecondsSum,
+                   SUM(r.viewSecondsCount) AS viewSecondsCount,
+                   SUM(r.children) AS children,
+                   SUM(r.teenagers) AS teenagers,
+                   SUM(r.youngAdults) AS youngAdults,
+                   SUM(r.midAged) AS midAged,
+                   SUM(r.seniors) AS seniors,
+                   SUM(r.male) AS male,
+                   SUM(r.female) AS female,
+                   SUM(r.anger) AS anger,
+                   SUM(r.contempt) AS contempt,
+                   SUM(r.disgust) AS disgust,
+                   SUM(r.fear) AS fear,
+                   SUM(r.happiness) AS happiness,
+                   SUM(r.neutral) AS neutral,
+                   SUM(r.sadness) AS sadness,
+                   SUM(r.surprise) AS surprise
+            FROM AnalyticsRollupEntity r
+            WHERE r.resolution = :resolution AND r.bucketStart >= :from AND r.bucketStart < :to
+            """)
+    RollupTotals sumBetween(@Param("resolution") String resolution, @Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * Audience and viewer sketch of each bucket of a resolution starting in [from, to)
+     */
+    @Query("""
+            SELECT r.totalAudience AS totalAudience, r.viewerSketch AS viewerSketch
+            FROM AnalyticsRollupEntity r
+            WHERE r.resolution = :resolution AND r.bucketStart >= :from AND r.bucketStart < :to
+            """)
+    List<BucketAudience> findAudienceBetween(@Param("resolution") String resolution, @Param("from") Long from,
+                                             @Param("to") Long to);
+
+    @Modifying
+    @Query("DELETE FROM AnalyticsRollupEntity r WHERE r.resolution = :resolution AND r.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("resolution") String resolution, @Param("cutoff") Long cutoff);
+
+    /**
+     * Projection of {@link #findAudienceBetween}
+     */
+    interface BucketAudience {
+        Integer getTotalAudience();
+        byte[] getViewerSketch();
+    }
+
+    /**
+     * Projection of {@link #sumBetween}; sums are null when no bucket matches
+     */
+    interface RollupTotals {
+        Long getBuckets();
+        Long getTotalViews();
+        Double getViewSecondsSum();
+        Long getViewSecondsCount();
+        Long getChildren();
+        Long getTeenagers();
+        Long getYoungAdults();
+        Long getMidAged();
+        Long getSeniors();
+        Long getMale();
+        Long getFemale();
+        Long getAnger();
+        Long getContempt();
+        Long getDisgust();
+        Long getFear();
+        Long getHappiness();
+        Long getNeutral();
+        Long getSadness();
+        Long getSurprise();
+    }
+}
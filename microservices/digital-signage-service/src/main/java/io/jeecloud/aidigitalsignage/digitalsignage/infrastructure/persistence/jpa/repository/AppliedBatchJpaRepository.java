@@ -0,0 +1,26 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.repository;
+
+import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.AppliedBatchEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Applied Batch JPA Repository (Infrastructure Layer)
+ */
+public interface AppliedBatchJpaRepository extends JpaRepository<AppliedBatchEntity, Long> {
+
+    boolean existsByBatchId(String batchId);
+
+    /**
+     * Latest batch by insertion order (ids only grow)
+     */
+    Optional<AppliedBatchEntity> findFirstByOrderByIdDesc();
+
+    @Modifying
+    @Query("DELETE FROM AppliedBatchEntity b WHERE b.appliedAt < :cutoff AND b.id < :keepId")
+    int deleteAppliedBefore(@Param("cutoff") Long cutoff, @Param("keepId") Long keepId);
+}
@@ -2,6 +2,9 @@ package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.j
 
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.EmotionDistributionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -10,4 +13,25 @@ import java.util.Optional;
  */
 public interface EmotionDistributionJpaRepository extends JpaRepository<EmotionDistributionEntity, Long> {
     Optional<EmotionDistributionEntity> findFirstBy();
+
+    /**
+     * Add a window's counts to the stored row in place
+     * 
+     * @return Number of rows updated, 0 if there is no row yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE EmotionDistributionEntity e
+            SET e.anger = e.anger + :anger,
+                e.contempt = e.contempt + :contempt,
+                e.disgust = e.disgust + :disgust,
+                e.fear = e.fear + :fear,
+                e.happiness = e.happiness + :happiness,
+                e.neutral = e.neutral + :neutral,
+                e.sadness = e.sadness + :sadness,
+                e.surprise = e.surprise + :surprise
+            """)
+    int add(@Param("anger") int anger, @Param("contempt") int contempt, @Param("disgust") int disgust,
+            @Param("fear") int fear, @Param("happiness") int happiness, @Param("neutral") int neutral,
+            @Param("sadness") int sadness, @Param("surprise") int surprise);
 }
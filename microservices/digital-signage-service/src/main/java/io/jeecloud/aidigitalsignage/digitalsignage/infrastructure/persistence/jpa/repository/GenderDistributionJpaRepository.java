@@ -2,6 +2,9 @@ package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.j
 
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.GenderDistributionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -10,4 +13,13 @@ import java.util.Optional;
  */
 public interface GenderDistributionJpaRepository extends JpaRepository<GenderDistributionEntity, Long> {
     Optional<GenderDistributionEntity> findFirstBy();
+
+    /**
+     * Add a window's counts to the stored row in place
+     * 
+     * @return Number of rows updated, 0 if there is no row yet
+     */
+    @Modifying
+    @Query("UPDATE GenderDistributionEntity g SET g.male = g.male + :male, g.female = g.female + :female")
+    int add(@Param("male") int male, @Param("female") int female);
 }
@@ -2,6 +2,9 @@ package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.j
 
 import io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.persistence.jpa.entity.MetricsKpiEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -12,4 +15,33 @@ import java.util.Optional;
  */
 public interface MetricsKpiJpaRepository extends JpaRepository<MetricsKpiEntity, Long> {
     Optional<MetricsKpiEntity> findFirstBy();
+
+    /**
+     * Add a window's KPIs to the stored row in place
+     * 
+     * The average view time is weighted by views and total ads keeps the
+     * larger count; every right-hand side reads the row as it was before
+     * the update. Null sketches leave the stored ones unchanged.
+     * 
+     * @return Number of rows updated, 0 if there is no KPI row yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE MetricsKpiEntity k
+            SET k.totalAudience = k.totalAudience + :audience,
+                k.totalViews = k.totalViews + :views,
+                k.avgViewSeconds = CASE WHEN k.totalViews + :views > 0
+                                        THEN (k.avgViewSeconds * k.totalViews + :viewSeconds) / (k.totalViews + :views)
+                                        ELSE 0.0 END,
+                k.totalAds = CASE WHEN :ads > k.totalAds THEN :ads ELSE k.totalAds END,
+                k.sessionDurationSketch = COALESCE(:sessionDurationSketch, k.sessionDurationSketch),
+                k.totalGazeTimeSketch = COALESCE(:totalGazeTimeSketch, k.totalGazeTimeSketch)
+            """)
+    int add(@Param("audience") int audience, @Param("views") int views, @Param("viewSeconds") double viewSeconds,
+            @Param("ads") int ads, @Param("sessionDurationSketch") byte[] sessionDurationSketch,
+            @Param("totalGazeTimeSketch") byte[] totalGazeTimeSketch);
+
+    @Modifying
+    @Query("UPDATE MetricsKpiEntity k SET k.currentlyWatching = :currentlyWatching")
+    int updateCurrentlyWatching(@Param("currentlyWatching") Integer currentlyWatching);
 }
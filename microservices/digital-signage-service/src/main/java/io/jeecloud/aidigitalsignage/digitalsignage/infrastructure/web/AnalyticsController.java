@@ -1,6 +1,9 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.web;
 
-import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.UpdateAnalyticsRequest;
+import io.jeecloud.aidigitalsignage.common.wire.AnalyticsWire;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetLatestBatchUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.IncrementAnalyticsUseCase;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.UpdateAnalyticsUseCase;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
  * Analytics Controller (Infrastructure Layer)
  * 
  * REST API endpoints for receiving analytics updates from ETL service.
+ * Bodies bind to the common AnalyticsWire records the ETL serializes and
+ * are mapped to the application DTOs by {@link AnalyticsWireMapper}.
  */
 @RestController
 @RequestMapping("/api/analytics")
@@ -22,6 +27,8 @@ import org.springframework.web.bind.annotation.*;
 public class AnalyticsController {
     
     private final UpdateAnalyticsUseCase updateAnalyticsUseCase;
+    private final IncrementAnalyticsUseCase incrementAnalyticsUseCase;
+    private final GetLatestBatchUseCase getLatestBatchUseCase;
     
     /**
      * Update analytics data
@@ -32,11 +39,49 @@ public class AnalyticsController {
     @PostMapping("/update")
     @Operation(summary = "Update analytics data", 
                description = "Receives analytics updates from ETL service and updates SQLite database")
-    public ResponseEntity<Void> updateAnalytics(@RequestBody UpdateAnalyticsRequest request) {
+    public ResponseEntity<Void> updateAnalytics(@RequestBody AnalyticsWire.Update request) {
         log.info("POST /api/analytics/update - Received analytics update");
         
-        updateAnalyticsUseCase.updateAnalytics(request);
+        updateAnalyticsUseCase.updateAnalytics(AnalyticsWireMapper.toUpdateRequest(request));
         
         return ResponseEntity.ok().build();
     }
+    
+    /**
+     * Increment analytics data
+     * 
+     * Called by analytics-etl-service after each ETL window.
+     * Adds the window's deltas to the stored analytics in place.
+     * A re-sent batch is acknowledged (200) with applied=false.
+     */
+    @PostMapping("/increment")
+    @Operation(summary = "Increment analytics data", 
+               description = "Adds one ETL window's deltas to the SQLite database without replacing it; "
+                       + "a batch id is applied only once")
+    public ResponseEntity<AnalyticsWire.IncrementResult> incrementAnalytics(@RequestBody AnalyticsWire.Increment request) {
+        log.info("POST /api/analytics/increment - Received analytics increment");
+        
+        AnalyticsIncrementResponse response = incrementAnalyticsUseCase.incrementAnalytics(
+                AnalyticsWireMapper.toIncrementRequest(request));
+        
+        return ResponseEntity.ok(AnalyticsWireMapper.toIncrementResult(response));
+    }
+    
+    /**
+     * Latest applied batch
+     * 
+     * Called by analytics-etl-service before each run to reconcile its
+     * watermark with what the stored analytics include.
+     */
+    @GetMapping("/batches/latest")
+    @Operation(summary = "Get latest applied ETL batch", 
+               description = "Event range of the last increment batch applied; 204 if none")
+    public ResponseEntity<AnalyticsWire.Batch> getLatestBatch() {
+        log.debug("GET /api/analytics/batches/latest");
+        
+        return getLatestBatchUseCase.getLatestBatch()
+                .map(AnalyticsWireMapper::toWireBatch)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 }
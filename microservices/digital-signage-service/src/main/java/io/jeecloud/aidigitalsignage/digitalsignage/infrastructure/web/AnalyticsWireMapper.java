@@ -0,0 +1,247 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.web;
+
+import io.jeecloud.aidigitalsignage.common.wire.AnalyticsWire;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementRequest;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AnalyticsIncrementResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.EtlBatchDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.ResearchMetricsDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.SystemHealthDto;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.UpdateAnalyticsRequest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Analytics Wire Mapper (Infrastructure Layer)
+ *
+ * Maps the common AnalyticsWire messages, which the analytics endpoints
+ * deserialize, to the application DTOs and back. The ETL serializes the
+ * same records, so every field it sends is mapped here explicitly and a
+ * field renamed on either side fails the build instead of being dropped.
+ */
+final class AnalyticsWireMapper {
+
+    private AnalyticsWireMapper() {
+    }
+
+    static UpdateAnalyticsRequest toUpdateRequest(AnalyticsWire.Update update) {
+        return UpdateAnalyticsRequest.builder()
+                .dashboardMetrics(toDashboardMetrics(update.dashboardMetrics()))
+                .adMetrics(toAdMetrics(update.adMetrics()))
+                .systemHealth(toSystemHealth(update.systemHealth()))
+                .researchMetrics(toResearchMetrics(update.researchMetrics()))
+                .rollups(toRollups(update.rollups()))
+                .audienceCube(toAudienceCube(update.audienceCube()))
+                .build();
+    }
+
+    static AnalyticsIncrementRequest toIncrementRequest(AnalyticsWire.Increment increment) {
+        return AnalyticsIncrementRequest.builder()
+                .batch(toBatch(increment.batch()))
+                .dashboardMetrics(toDashboardMetrics(increment.dashboardMetrics()))
+                .adMetrics(toAdMetrics(increment.adMetrics()))
+                .currentlyWatching(increment.currentlyWatching())
+                .systemHealth(toSystemHealth(increment.systemHealth()))
+                .researchMetrics(toResearchMetrics(increment.researchMetrics()))
+                .rollups(toRollups(increment.rollups()))
+                .audienceCube(toAudienceCube(increment.audienceCube()))
+                .build();
+    }
+
+    static AnalyticsWire.IncrementResult toIncrementResult(AnalyticsIncrementResponse response) {
+        return new AnalyticsWire.IncrementResult(response.getBatchId(), response.getApplied());
+    }
+
+    static AnalyticsWire.Batch toWireBatch(EtlBatchDto batch) {
+        return AnalyticsWire.Batch.builder()
+                .id(batch.getId())
+                .fromTimestamp(batch.getFromTimestamp())
+                .fromTable(batch.getFromTable())
+                .toTimestamp(batch.getToTimestamp())
+                .toTable(batch.getToTable())
+                .eventCount(batch.getEventCount())
+                .fromStreams(batch.getFromStreams())
+                .toStreams(batch.getToStreams())
+                .build();
+    }
+
+    private static EtlBatchDto toBatch(AnalyticsWire.Batch batch) {
+        if (batch == null) return null;
+        return EtlBatchDto.builder()
+                .id(batch.id())
+                .fromTimestamp(batch.fromTimestamp())
+                .fromTable(batch.fromTable())
+                .toTimestamp(batch.toTimestamp())
+                .toTable(batch.toTable())
+                .eventCount(batch.eventCount())
+                .fromStreams(batch.fromStreams())
+                .toStreams(batch.toStreams())
+                .build();
+    }
+
+    private static UpdateAnalyticsRequest.DashboardMetricsDto toDashboardMetrics(AnalyticsWire.DashboardMetrics metrics) {
+        if (metrics == null) return null;
+        return UpdateAnalyticsRequest.DashboardMetricsDto.builder()
+                .totalAudience(metrics.totalAudience())
+                .totalViews(metrics.totalViews())
+                .totalAds(metrics.totalAds())
+                .avgViewSeconds(metrics.avgViewSeconds())
+                .currentlyWatching(metrics.currentlyWatching())
+                .children(metrics.children())
+                .teenagers(metrics.teenagers())
+                .youngAdults(metrics.youngAdults())
+                .midAged(metrics.midAged())
+                .seniors(metrics.seniors())
+                .male(metrics.male())
+                .female(metrics.female())
+                .anger(metrics.anger())
+                .contempt(metrics.contempt())
+                .disgust(metrics.disgust())
+                .fear(metrics.fear())
+                .happiness(metrics.happiness())
+                .neutral(metrics.neutral())
+                .sadness(metrics.sadness())
+                .surprise(metrics.surprise())
+                .sessionDurationSketch(metrics.sessionDurationSketch())
+                .totalGazeTimeSketch(metrics.totalGazeTimeSketch())
+                .build();
+    }
+
+    private static List<UpdateAnalyticsRequest.AdMetricsDto> toAdMetrics(List<AnalyticsWire.AdMetrics> ads) {
+        if (ads == null) return null;
+        return ads.stream()
+                .map(ad -> UpdateAnalyticsRequest.AdMetricsDto.builder()
+                        .adName(ad.adName())
+                        .totalViewers(ad.totalViewers())
+                        .lookYes(ad.lookYes())
+                        .lookNo(ad.lookNo())
+                        .gazeSeconds(ad.gazeSeconds())
+                        .gazeCount(ad.gazeCount())
+                        .sessionSeconds(ad.sessionSeconds())
+                        .dwellHistogram(ad.dwellHistogram() != null
+                                ? Arrays.stream(ad.dwellHistogram()).boxed().collect(Collectors.toList())
+                                : null)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<UpdateAnalyticsRequest.RollupBucketDto> toRollups(List<AnalyticsWire.RollupBucket> buckets) {
+        if (buckets == null) return null;
+        return buckets.stream()
+                .map(bucket -> UpdateAnalyticsRequest.RollupBucketDto.builder()
+                        .resolution(bucket.resolution())
+                        .bucketStart(bucket.bucketStart())
+                        .totalAudience(bucket.totalAudience())
+                        .totalViews(bucket.totalViews())
+                        .viewSecondsSum(bucket.viewSecondsSum())
+                        .viewSecondsCount(bucket.viewSecondsCount() != null
+                                ? Math.toIntExact(bucket.viewSecondsCount()) : null)
+                        .children(bucket.children())
+                        .teenagers(bucket.teenagers())
+                        .youngAdults(bucket.youngAdults())
+                        .midAged(bucket.midAged())
+                        .seniors(bucket.seniors())
+                        .male(bucket.male())
+                        .female(bucket.female())
+                        .anger(bucket.anger())
+                        .contempt(bucket.contempt())
+                        .disgust(bucket.disgust())
+                        .fear(bucket.fear())
+                        .happiness(bucket.happiness())
+                        .neutral(bucket.neutral())
+                        .sadness(bucket.sadness())
+                        .surprise(bucket.surprise())
+                        .adMetrics(toAdMetrics(bucket.adMetrics()))
+                        .viewerSketch(bucket.viewerSketch())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static UpdateAnalyticsRequest.AudienceCubeDto toAudienceCube(AnalyticsWire.AudienceCube cube) {
+        if (cube == null) return null;
+        return UpdateAnalyticsRequest.AudienceCubeDto.builder()
+                .adNames(cube.adNames())
+                .cells(cube.cells())
+                .build();
+    }
+
+    private static SystemHealthDto toSystemHealth(AnalyticsWire.SystemHealth health) {
+        if (health == null) return null;
+        AnalyticsWire.SystemHealth.Performance performance = health.performance();
+        AnalyticsWire.SystemHealth.Environment environment = health.environment();
+        return SystemHealthDto.builder()
+                .status(health.status())
+                .performance(performance == null ? null : SystemHealthDto.PerformanceMetricsDto.builder()
+                        .currentFps(performance.currentFps())
+                        .avgFps(performance.avgFps())
+                        .minFps(performance.minFps())
+                        .maxFps(performance.maxFps())
+                        .currentCpuTemp(performance.currentCpuTemp())
+                        .maxCpuTemp(performance.maxCpuTemp())
+                        .cpuThreshold(performance.cpuThreshold())
+                        .fpsSketch(performance.fpsSketch())
+                        .build())
+                .environment(environment == null ? null : SystemHealthDto.EnvironmentMetricsDto.builder()
+                        .temperatureCelsius(environment.temperatureCelsius())
+                        .humidityPercent(environment.humidityPercent())
+                        .pressureHpa(environment.pressureHpa())
+                        .gasResistanceOhms(environment.gasResistanceOhms())
+                        .noiseDb(environment.noiseDb())
+                        .build())
+                .uptime(formatUptime(health.uptime()))
+                .build();
+    }
+
+    /**
+     * Uptime in seconds, as sent by the ETL, in the dashboard's "48h 23m" form
+     */
+    private static String formatUptime(Long seconds) {
+        if (seconds == null) return null;
+        return seconds / 3600 + "h " + seconds % 3600 / 60 + "m";
+    }
+
+    private static ResearchMetricsDto toResearchMetrics(AnalyticsWire.ResearchMetrics research) {
+        if (research == null) return null;
+        AnalyticsWire.ResearchMetrics.FaceDetection face = research.faceDetection();
+        AnalyticsWire.ResearchMetrics.GazeQuality gaze = research.gazeQuality();
+        AnalyticsWire.ResearchMetrics.Comparison comparison = research.comparison();
+        return ResearchMetricsDto.builder()
+                .faceDetection(face == null ? null : ResearchMetricsDto.FaceDetectionMetricsDto.builder()
+                        .accuracy(face.accuracy())
+                        .confidence(face.confidence())
+                        .framesProcessed(face.framesProcessed())
+                        .facesDetected(face.facesDetected())
+                        .build())
+                .gazeQuality(gaze == null ? null : ResearchMetricsDto.GazeQualityMetricsDto.builder()
+                        .keypointValidRate(gaze.kptsValidPercent())
+                        .primaryMethodRate(gaze.solvepnpSuccessPercent())
+                        .fallbackMethodRate(gaze.fallbackPercent())
+                        .build())
+                .comparison(comparison == null ? null : toComparison(comparison))
+                .build();
+    }
+
+    private static ResearchMetricsDto.ComparisonMetricsDto toComparison(AnalyticsWire.ResearchMetrics.Comparison comparison) {
+        AnalyticsWire.ResearchMetrics.Condition baseline = comparison.baseline();
+        AnalyticsWire.ResearchMetrics.Condition current = comparison.current();
+        AnalyticsWire.ResearchMetrics.Improvement improvement = comparison.improvement();
+        return ResearchMetricsDto.ComparisonMetricsDto.builder()
+                .baseline(baseline == null ? null : ResearchMetricsDto.ComparisonMetricsDto.BaselineDataDto.builder()
+                        .condition(baseline.condition())
+                        .avgEngagement(baseline.avgEngagement())
+                        .period(baseline.period())
+                        .build())
+                .current(current == null ? null : ResearchMetricsDto.ComparisonMetricsDto.CurrentDataDto.builder()
+                        .condition(current.condition())
+                        .avgEngagement(current.avgEngagement())
+                        .period(current.period())
+                        .build())
+                .improvement(improvement == null ? null : ResearchMetricsDto.ComparisonMetricsDto.ImprovementDataDto.builder()
+                        .absolute(improvement.absolute())
+                        .percentage(improvement.percentage())
+                        .significant(improvement.significant())
+                        .build())
+                .build();
+    }
+}
@@ -1,8 +1,15 @@
 package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.web;
 
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.AudienceCubeResponse;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.DashboardOverviewResponse;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.dto.LiveAudienceResponse;
 import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetDashboardOverviewUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.GetLiveAudienceUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.application.port.in.QueryAudienceCubeUseCase;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.CubeDimension;
+import io.jeecloud.aidigitalsignage.digitalsignage.domain.RollupResolution;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,11 +19,22 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Dashboard REST Controller (Infrastructure Layer - Primary Adapter)
@@ -33,6 +51,8 @@ public class DashboardController {
     private static final Logger log = LoggerFactory.getLogger(DashboardController.class);
 
     private final GetDashboardOverviewUseCase getDashboardOverviewUseCase;
+    private final QueryAudienceCubeUseCase queryAudienceCubeUseCase;
+    private final GetLiveAudienceUseCase getLiveAudienceUseCase;
 
     /**
      * GET /api/dashboard/overview
@@ -43,6 +63,12 @@ public class DashboardController {
      * - Emotions (facial expressions)
      * - Advertisement performance and attention metrics
      * 
+     * With from/to, the KPIs, demographics and ads cover only that time
+     * range and are summed from the rollup buckets of the given resolution.
+     * 
+     * @param from Start of the time range (inclusive), requires to
+     * @param to End of the time range (exclusive), requires from
+     * @param resolution Rollup resolution to sum: minute, hour or day
      * @return Dashboard data wrapped in ResponseEntity
      */
     @Operation(
@@ -67,6 +93,12 @@ public class DashboardController {
                     - Per-ad viewer counts
                     - Engagement metrics (viewers looking vs not looking)
                     
+                    **Time Range (optional):**
+                    - Pass `from` and `to` (ISO-8601) to get the metrics of that range only
+                    - Answered by summing pre-aggregated `minute`, `hour` or `day` buckets (`resolution`, default `hour`)
+                    - `from` is rounded down to the start of its bucket
+                    - Audience counts distinct viewers per bucket, summed over the range
+                    
                     Data is aggregated from TDengine time-series database via ETL pipeline.
                     """
     )
@@ -85,6 +117,7 @@ public class DashboardController {
                                               "totalViews": 57,
                                               "totalAds": 12,
                                               "avgViewSeconds": 17.57,
+                                              "currentlyWatching": 3,
                                               "ageDistribution": {
                                                 "children": 5,
                                                 "teenagers": 8,
@@ -115,6 +148,11 @@ public class DashboardController {
                             )
                     )
             ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid time range or resolution",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -122,14 +160,187 @@ public class DashboardController {
             )
     })
     @GetMapping("/overview")
-    public ResponseEntity<DashboardOverviewResponse> getDashboardOverview() {
-        log.debug("REST request to GET dashboard overview");
+    public ResponseEntity<DashboardOverviewResponse> getDashboardOverview(
+            @Parameter(description = "Start of the time range (inclusive), e.g. 2026-10-01T00:00:00Z", example = "2026-10-01T00:00:00Z")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the time range (exclusive), e.g. 2026-10-08T00:00:00Z", example = "2026-10-08T00:00:00Z")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Rollup resolution to sum: minute, hour or day", example = "hour")
+            @RequestParam(defaultValue = "hour") String resolution) {
+        log.debug("REST request to GET dashboard overview (from={}, to={}, resolution={})", from, to, resolution);
 
-        DashboardOverviewResponse response = getDashboardOverviewUseCase.getDashboardOverview();
+        DashboardOverviewResponse response;
+        if (from == null && to == null) {
+            response = getDashboardOverviewUseCase.getDashboardOverview();
+        } else {
+            if (from == null || to == null || !from.isBefore(to)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Both 'from' and 'to' are required and 'from' must be before 'to'");
+            }
+            RollupResolution rollupResolution;
+            try {
+                rollupResolution = RollupResolution.fromValue(resolution);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            response = getDashboardOverviewUseCase.getDashboardOverview(from, to, rollupResolution);
+        }
 
         log.debug("Returning dashboard overview with {} ads", response.getTotalAds());
 
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * GET /api/dashboard/audience-cube
+     * 
+     * Slices the ad × age group × gender × emotion cube and rolls up every
+     * dimension that is not in groupBy, e.g. groupBy=ad&gender=female&ageGroup=youngAdults
+     * answers "which ad do young women look at".
+     * 
+     * @param groupBy Dimensions to keep: ad, ageGroup, gender, emotion (none = totals only)
+     * @param ad Advertisement name to keep
+     * @param ageGroup Age group to keep
+     * @param gender Gender to keep
+     * @param emotion Emotion to keep
+     * @return Grouped session counts wrapped in ResponseEntity
+     */
+    @Operation(
+            summary = "Query Audience Cube",
+            description = """
+                    Slices and rolls up the ad × age group × gender × emotion cube of viewing sessions.
+                    
+                    **Dimensions and members:**
+                    - `ad`: advertisement name
+                    - `ageGroup`: children, teenagers, youngAdults, midAged, seniors, unknown
+                    - `gender`: male, female, unknown
+                    - `emotion`: anger, contempt, disgust, fear, happiness, neutral, sadness, surprise, unknown
+                    
+                    Filters keep one member per dimension; `groupBy` lists the dimensions kept in the
+                    result, all others are summed. Answered from the in-memory cube without touching raw events.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully sliced the audience cube",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = AudienceCubeResponse.class),
+                            examples = @ExampleObject(
+                                    name = "Ads watched by young women",
+                                    value = """
+                                            {
+                                              "groupBy": ["ad"],
+                                              "totals": { "views": 140, "lookYes": 101, "lookNo": 39 },
+                                              "cells": [
+                                                { "adName": "Summer Sale 2026", "views": 95, "lookYes": 74, "lookNo": 21 },
+                                                { "adName": "Product A", "views": 45, "lookYes": 27, "lookNo": 18 }
+                                              ]
+                                            }
+                                            """
+                            )
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown dimension or member",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    @GetMapping("/audience-cube")
+    public ResponseEntity<AudienceCubeResponse> getAudienceCube(
+            @Parameter(description = "Dimensions to group by: ad, ageGroup, gender, emotion", example = "ad,gender")
+            @RequestParam(required = false) List<String> groupBy,
+            @Parameter(description = "Advertisement name to keep", example = "Summer Sale 2026")
+            @RequestParam(required = false) String ad,
+            @Parameter(description = "Age group to keep", example = "youngAdults")
+            @RequestParam(required = false) String ageGroup,
+            @Parameter(description = "Gender to keep", example = "female")
+            @RequestParam(required = false) String gender,
+            @Parameter(description = "Emotion to keep", example = "happiness")
+            @RequestParam(required = false) String emotion) {
+        log.debug("REST request to GET audience cube (groupBy={}, ad={}, ageGroup={}, gender={}, emotion={})",
+                groupBy, ad, ageGroup, gender, emotion);
+
+        Map<CubeDimension, String> filters = new EnumMap<>(CubeDimension.class);
+        putIfPresent(filters, CubeDimension.AD, ad);
+        putIfPresent(filters, CubeDimension.AGE_GROUP, ageGroup);
+        putIfPresent(filters, CubeDimension.GENDER, gender);
+        putIfPresent(filters, CubeDimension.EMOTION, emotion);
+
+        try {
+            Set<CubeDimension> dimensions = EnumSet.noneOf(CubeDimension.class);
+            if (groupBy != null) {
+                for (String dimension : groupBy) {
+                    if (!dimension.isBlank()) {
+                        dimensions.add(CubeDimension.fromValue(dimension.trim()));
+                    }
+                }
+            }
+            return ResponseEntity.ok(queryAudienceCubeUseCase.queryAudienceCube(filters, dimensions));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/dashboard/live
+     * 
+     * Viewers, views and engagement of the last 5, 15 and 60 minutes, for
+     * screens that poll frequently. Served from memory, never from SQLite.
+     * 
+     * @return Live windows wrapped in ResponseEntity
+     */
+    @Operation(
+            summary = "Get Live Audience",
+            description = """
+                    Sliding-window audience metrics ending at the current minute (default windows: 5, 15 and 60 minutes).
+                    
+                    **Per window:**
+                    - Distinct viewers (HyperLogLog estimate over the window's minutes)
+                    - Views and average view time
+                    - Ad views, lookYes and engagement rate (percentage of ad views with attention)
+                    
+                    Kept in an in-memory ring of per-minute buckets fed by each ETL update, so the
+                    request never touches the database. The windows start empty after a restart and
+                    trail the ETL by its update interval.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved live audience",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = LiveAudienceResponse.class),
+                            examples = @ExampleObject(
+                                    name = "Live Audience Example",
+                                    value = """
+                                            {
+                                              "asOf": "2026-10-16T09:30:12Z",
+                                              "windows": [
+                                                { "minutes": 5, "viewers": 6, "views": 7, "avgViewSeconds": 12.4,
+                                                  "adViews": 7, "lookYes": 5, "engagementRate": 71.43 },
+                                                { "minutes": 15, "viewers": 17, "views": 21, "avgViewSeconds": 14.9,
+                                                  "adViews": 20, "lookYes": 13, "engagementRate": 65.0 },
+                                                { "minutes": 60, "viewers": 42, "views": 57, "avgViewSeconds": 17.57,
+                                                  "adViews": 51, "lookYes": 38, "engagementRate": 74.51 }
+                                              ]
+                                            }
+                                            """
+                            )
+                    )
+            )
+    })
+    @GetMapping("/live")
+    public ResponseEntity<LiveAudienceResponse> getLiveAudience() {
+        log.debug("REST request to GET live audience");
+        return ResponseEntity.ok(getLiveAudienceUseCase.getLiveAudience());
+    }
+
+    private static void putIfPresent(Map<CubeDimension, String> filters, CubeDimension dimension, String member) {
+        if (member != null && !member.isBlank()) {
+            filters.put(dimension, member);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.jeecloud.aidigitalsignage.digitalsignage.infrastructure.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gzip Request Filter (Infrastructure Layer)
+ * 
+ * Inflates request bodies sent with Content-Encoding: gzip (the ETL service
+ * compresses its analytics payloads), so the message converters read the
+ * plain JSON or CBOR body named by Content-Type. The
+ * inflated size is capped, so a decompression bomb fails the request (400)
+ * instead of filling the heap.
+ */
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+    
+    private final long maxInflatedBytes;
+    
+    public GzipRequestFilter(@Value("${analytics.request.max-inflated-size:64MB}") DataSize maxInflatedSize) {
+        this.maxInflatedBytes = maxInflatedSize.toBytes();
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || !encoding.trim().equalsIgnoreCase("gzip");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new GzipRequestWrapper(request, maxInflatedBytes), response);
+    }
+    
+    /**
+     * Request whose body is the inflated gzip stream, without Content-Encoding and Content-Length
+     */
+    private static final class GzipRequestWrapper extends HttpServletRequestWrapper {
+        
+        private final long maxInflatedBytes;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+        
+        GzipRequestWrapper(HttpServletRequest request, long maxInflatedBytes) {
+            super(request);
+            this.maxInflatedBytes = maxInflatedBytes;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called");
+            }
+            if (inputStream == null) {
+                inputStream = inflate();
+            }
+            return inputStream;
+        }
+        
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                if (inputStream != null) {
+                    throw new IllegalStateException("getInputStream() has already been called");
+                }
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(inflate(), charset));
+            }
+            return reader;
+        }
+        
+        private ServletInputStream inflate() throws IOException {
+            return new InflatingInputStream(new GZIPInputStream(super.getInputStream(), 8192), maxInflatedBytes);
+        }
+        
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            return isRemovedHeader(name) ? null : super.getHeader(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isRemovedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+        
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isRemovedHeader(name))
+                    .toList());
+        }
+        
+        private static boolean isRemovedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+    
+    /**
+     * Blocking servlet stream over the inflater, failing once the cap is exceeded
+     */
+    private static final class InflatingInputStream extends ServletInputStream {
+        
+        private final InputStream delegate;
+        private final long maxBytes;
+        private long count;
+        private boolean finished;
+        
+        InflatingInputStream(InputStream delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                countBytes(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = delegate.read(buffer, offset, length);
+            if (n < 0) {
+                finished = true;
+            } else {
+                countBytes(n);
+            }
+            return n;
+        }
+        
+        private void countBytes(int n) throws IOException {
+            count += n;
+            if (count > maxBytes) {
+                throw new IOException("Inflated request body exceeds " + maxBytes + " bytes");
+            }
+        }
+        
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+        
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+        
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads of gzip bodies are not supported");
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
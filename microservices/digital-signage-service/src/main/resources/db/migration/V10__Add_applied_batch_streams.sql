@@ -0,0 +1,9 @@
+-- Flyway Migration V10: Stream positions of applied ETL batches
+-- analytics-etl-service reads each event stream from its own position, so a
+-- batch may advance a lagging stream while its (from, to] range stays put.
+-- The positions are part of the batch id and let the ETL match its local
+-- state against the latest batch. Stored as "STREAM=millis" pairs, comma
+-- separated; NULL for batches sent without them.
+
+ALTER TABLE applied_batch ADD COLUMN from_streams TEXT;
+ALTER TABLE applied_batch ADD COLUMN to_streams TEXT;
@@ -0,0 +1,7 @@
+-- Flyway Migration V11: Viewer sketches of rollup buckets
+-- Serialized HyperLogLog of each bucket's viewers, sent by analytics-etl-service
+-- with every bucket delta and unioned into the stored sketch. Range queries
+-- union the sketches instead of adding per-bucket audiences, so a viewer seen
+-- in several buckets is counted once. NULL for buckets stored before.
+
+ALTER TABLE analytics_rollup ADD COLUMN viewer_sketch BLOB;
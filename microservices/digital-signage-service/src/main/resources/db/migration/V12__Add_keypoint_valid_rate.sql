@@ -0,0 +1,5 @@
+-- Flyway Migration V12: Keypoint validity of the gaze quality metrics
+-- Percentage of frames with valid facial keypoints, sent by analytics-etl-service
+-- next to the solvePnP and fallback rates. NULL for rows stored before.
+
+ALTER TABLE research_metrics ADD COLUMN keypoint_valid_rate REAL;
@@ -0,0 +1,47 @@
+-- Flyway Migration V4: Time-bucketed analytics rollups
+-- Minute, hour and day buckets of session analytics, added to by every ETL run.
+-- Time-range dashboard queries sum the buckets instead of re-reading raw events.
+
+-- Analytics Rollup Table (one row per resolution and bucket)
+CREATE TABLE analytics_rollup (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    resolution VARCHAR(10) NOT NULL,   -- minute, hour, day
+    bucket_start INTEGER NOT NULL,     -- epoch millis (UTC), aligned to the resolution
+    -- KPI metrics
+    total_audience INTEGER NOT NULL DEFAULT 0,
+    total_views INTEGER NOT NULL DEFAULT 0,
+    view_seconds_sum REAL NOT NULL DEFAULT 0,
+    view_seconds_count INTEGER NOT NULL DEFAULT 0,
+    -- Age distribution
+    children INTEGER NOT NULL DEFAULT 0,
+    teenagers INTEGER NOT NULL DEFAULT 0,
+    young_adults INTEGER NOT NULL DEFAULT 0,
+    mid_aged INTEGER NOT NULL DEFAULT 0,
+    seniors INTEGER NOT NULL DEFAULT 0,
+    -- Gender distribution
+    male INTEGER NOT NULL DEFAULT 0,
+    female INTEGER NOT NULL DEFAULT 0,
+    -- Emotion distribution (FER2013 - 8 emotions)
+    anger INTEGER NOT NULL DEFAULT 0,
+    contempt INTEGER NOT NULL DEFAULT 0,
+    disgust INTEGER NOT NULL DEFAULT 0,
+    fear INTEGER NOT NULL DEFAULT 0,
+    happiness INTEGER NOT NULL DEFAULT 0,
+    neutral INTEGER NOT NULL DEFAULT 0,
+    sadness INTEGER NOT NULL DEFAULT 0,
+    surprise INTEGER NOT NULL DEFAULT 0
+);
+
+-- Advertisement Rollup Table (per-ad counts of each bucket)
+CREATE TABLE ad_rollup (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    resolution VARCHAR(10) NOT NULL,
+    bucket_start INTEGER NOT NULL,
+    ad_name VARCHAR(100) NOT NULL,
+    total_viewers INTEGER NOT NULL DEFAULT 0,
+    look_yes INTEGER NOT NULL DEFAULT 0
+);
+
+-- Range scans and bucket lookups go through these indexes
+CREATE UNIQUE INDEX idx_analytics_rollup_bucket ON analytics_rollup(resolution, bucket_start);
+CREATE UNIQUE INDEX idx_ad_rollup_bucket ON ad_rollup(resolution, bucket_start, ad_name);
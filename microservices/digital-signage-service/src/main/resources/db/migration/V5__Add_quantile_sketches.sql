@@ -0,0 +1,8 @@
+-- Flyway Migration V5: Quantile sketches for percentile metrics
+-- Serialized DDSketch bytes sent by analytics-etl-service; p50/p90/p99 are
+-- computed from them on read. NULL until the ETL sends a distribution.
+
+ALTER TABLE metrics_kpi ADD COLUMN session_duration_sketch BLOB;
+ALTER TABLE metrics_kpi ADD COLUMN total_gaze_time_sketch BLOB;
+
+ALTER TABLE system_health ADD COLUMN fps_sketch BLOB;
@@ -0,0 +1,9 @@
+-- Flyway Migration V6: Ad audience cube
+-- Session counts by ad × age group × gender × emotion, added to by every ETL run.
+-- One row per ad; cells holds the 162 (age group, gender, emotion) combinations
+-- as varint pairs of views and lookYes counts.
+
+CREATE TABLE ad_audience_cube (
+    ad_name VARCHAR(100) PRIMARY KEY,
+    cells BLOB NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Flyway Migration V7: Currently watching KPI
+-- Viewer sessions still open (gaze_start without a session end) as of the
+-- last ETL run. NULL until the ETL tracks sessions.
+
+ALTER TABLE metrics_kpi ADD COLUMN currently_watching INTEGER;
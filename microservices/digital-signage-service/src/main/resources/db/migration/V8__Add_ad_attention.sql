@@ -0,0 +1,17 @@
+-- Flyway Migration V8: Attention time per advertisement
+-- Running sums sent by analytics-etl-service: gaze seconds, gaze count,
+-- session seconds and a dwell histogram of gaze seconds per session
+-- (<1s, 1-2s, 2-5s, 5-10s, 10-30s, 30-60s, 60s+). NULL until the ETL
+-- sends attention for the ad.
+
+ALTER TABLE advertisement ADD COLUMN gaze_seconds REAL;
+ALTER TABLE advertisement ADD COLUMN gaze_count INTEGER;
+ALTER TABLE advertisement ADD COLUMN session_seconds REAL;
+
+ALTER TABLE advertisement ADD COLUMN dwell_lt_1s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_1_2s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_2_5s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_5_10s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_10_30s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_30_60s INTEGER;
+ALTER TABLE advertisement ADD COLUMN dwell_60s_plus INTEGER;
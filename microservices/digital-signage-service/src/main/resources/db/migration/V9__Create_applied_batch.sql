@@ -0,0 +1,18 @@
+-- Flyway Migration V9: Applied ETL batches
+-- One row per increment batch of analytics-etl-service, inserted in the same
+-- transaction as the batch's deltas. A batch id that is already here is not
+-- applied again, so the ETL can re-send a window after a crash or timeout.
+-- Ranges are (from, to] positions in (ts, tbname) order, ts as epoch millis (UTC).
+
+CREATE TABLE applied_batch (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    batch_id VARCHAR(64) NOT NULL UNIQUE,
+    from_ts INTEGER,                   -- NULL for the first batch
+    from_table VARCHAR(192),
+    to_ts INTEGER NOT NULL,
+    to_table VARCHAR(192),             -- NULL means every row at to_ts
+    event_count INTEGER NOT NULL,
+    applied_at INTEGER NOT NULL        -- epoch millis (UTC)
+);
+
+CREATE INDEX idx_applied_batch_applied_at ON applied_batch(applied_at);